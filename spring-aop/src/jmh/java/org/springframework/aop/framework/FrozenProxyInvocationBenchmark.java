@@ -0,0 +1,79 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.framework;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark for invoking advised methods on frozen and non-frozen proxies.
+ * Run with {@code -prof gc} to compare the allocation rate per invocation.
+ *
+ * @author Spring Framework Team
+ */
+@BenchmarkMode(Mode.Throughput)
+public class FrozenProxyInvocationBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"true", "false"})
+		public boolean frozen;
+
+		@Param({"true", "false"})
+		public boolean proxyTargetClass;
+
+		public Service proxy;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			ProxyFactory pf = new ProxyFactory(new DefaultService());
+			pf.setProxyTargetClass(this.proxyTargetClass);
+			pf.addAdvice((MethodInterceptor) invocation -> invocation.proceed());
+			pf.setFrozen(this.frozen);
+			this.proxy = (Service) pf.getProxy();
+		}
+	}
+
+	@Benchmark
+	public int invokeAdvisedMethod(BenchmarkState state) {
+		return state.proxy.compute(42);
+	}
+
+
+	public interface Service {
+
+		int compute(int value);
+	}
+
+
+	public static class DefaultService implements Service {
+
+		@Override
+		public int compute(int value) {
+			return value + 1;
+		}
+	}
+
+}
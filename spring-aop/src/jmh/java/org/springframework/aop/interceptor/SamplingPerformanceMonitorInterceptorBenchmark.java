@@ -0,0 +1,96 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.interceptor;
+
+import java.util.concurrent.TimeUnit;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.aop.framework.ProxyFactory;
+
+/**
+ * Benchmark for the overhead of {@link SamplingPerformanceMonitorInterceptor}
+ * on an advised method, compared to a pass-through interceptor ("none").
+ * The "unsampled" variant uses a sample rate that practically never measures
+ * an invocation, isolating the cost of the sampling decision.
+ *
+ * @author Spring Framework Team
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SamplingPerformanceMonitorInterceptorBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"none", "unsampled", "sampled1024", "sampledAll"})
+		public String monitor;
+
+		public Service proxy;
+
+		@Setup
+		public void setup() {
+			ProxyFactory pf = new ProxyFactory(new DefaultService());
+			if (this.monitor.equals("none")) {
+				pf.addAdvice((MethodInterceptor) invocation -> invocation.proceed());
+			}
+			else {
+				SamplingPerformanceMonitorInterceptor interceptor = new SamplingPerformanceMonitorInterceptor();
+				switch (this.monitor) {
+					case "unsampled":
+						interceptor.setSampleRate(Integer.MAX_VALUE);
+						break;
+					case "sampled1024":
+						interceptor.setSampleRate(1024);
+						break;
+				}
+				pf.addAdvice(interceptor);
+			}
+			pf.setFrozen(true);
+			this.proxy = (Service) pf.getProxy();
+		}
+	}
+
+	@Benchmark
+	public int invokeMonitoredMethod(BenchmarkState state) {
+		return state.proxy.compute(42);
+	}
+
+
+	public interface Service {
+
+		int compute(int value);
+	}
+
+
+	public static class DefaultService implements Service {
+
+		@Override
+		public int compute(int value) {
+			return value + 1;
+		}
+	}
+
+}
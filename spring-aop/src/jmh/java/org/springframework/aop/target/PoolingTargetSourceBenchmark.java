@@ -0,0 +1,94 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.target;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+
+/**
+ * Benchmark for acquiring and releasing pooled targets under contention,
+ * comparing {@link CommonsPool2TargetSource} and {@link ConcurrentPoolTargetSource}.
+ *
+ * @author Spring Framework Team
+ */
+@BenchmarkMode(Mode.Throughput)
+@Threads(8)
+public class PoolingTargetSourceBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"commons", "concurrent"})
+		public String pool;
+
+		@Param({"4", "16"})
+		public int maxSize;
+
+		public AbstractPoolingTargetSource targetSource;
+
+		@Setup
+		public void setup() {
+			DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+			RootBeanDefinition bd = new RootBeanDefinition(Counter.class);
+			bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+			beanFactory.registerBeanDefinition("counter", bd);
+			this.targetSource = (this.pool.equals("commons") ?
+					new CommonsPool2TargetSource() : new ConcurrentPoolTargetSource());
+			this.targetSource.setMaxSize(this.maxSize);
+			this.targetSource.setTargetBeanName("counter");
+			this.targetSource.setBeanFactory(beanFactory);
+		}
+
+		@TearDown
+		public void tearDown() throws Exception {
+			this.targetSource.destroy();
+		}
+	}
+
+	@Benchmark
+	public int acquireAndRelease(BenchmarkState state) throws Exception {
+		Counter counter = (Counter) state.targetSource.getTarget();
+		try {
+			return counter.increment();
+		}
+		finally {
+			state.targetSource.releaseTarget(counter);
+		}
+	}
+
+
+	public static class Counter {
+
+		private int count;
+
+		public int increment() {
+			return ++this.count;
+		}
+	}
+
+}
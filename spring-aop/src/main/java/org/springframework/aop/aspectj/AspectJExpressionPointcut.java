@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,6 +25,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.aopalliance.intercept.MethodInvocation;
 import org.apache.commons.logging.Log;
@@ -119,8 +120,13 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 	@Nullable
 	private transient PointcutExpression pointcutExpression;
 
+	@Nullable
+	private transient AspectJExpressionPrefilter prefilter;
+
 	private transient Map<Method, ShadowMatch> shadowMatchCache = new ConcurrentHashMap<>(32);
 
+	private transient AtomicInteger shadowMatchCount = new AtomicInteger();
+
 
 	/**
 	 * Create a new default AspectJExpressionPointcut.
@@ -196,6 +202,8 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 		if (this.pointcutExpression == null) {
 			this.pointcutClassLoader = determinePointcutClassLoader();
 			this.pointcutExpression = buildPointcutExpression(this.pointcutClassLoader);
+			this.prefilter = AspectJExpressionPrefilter.forExpression(
+					replaceBooleanOperators(resolveExpression()), this.pointcutClassLoader);
 		}
 		return this.pointcutExpression;
 	}
@@ -267,9 +275,25 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 		return obtainPointcutExpression();
 	}
 
+	/**
+	 * Return the number of AspectJ shadow matches that this pointcut has
+	 * performed so far, i.e. the number of methods that went through full
+	 * AspectJ matching rather than being served from the shadow match cache
+	 * or being skipped at the class level.
+	 * @since 5.3.5
+	 */
+	public int getShadowMatchCount() {
+		return this.shadowMatchCount.get();
+	}
+
 	@Override
 	public boolean matches(Class<?> targetClass) {
 		PointcutExpression pointcutExpression = obtainPointcutExpression();
+		AspectJExpressionPrefilter prefilter = this.prefilter;
+		if (prefilter != null && !prefilter.matches(targetClass)) {
+			// Cheap static constraints of the expression rule out the entire class
+			return false;
+		}
 		try {
 			try {
 				return pointcutExpression.couldMatchJoinPointsInType(targetClass);
@@ -456,6 +480,7 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 				PointcutExpression fallbackExpression = null;
 				shadowMatch = this.shadowMatchCache.get(targetMethod);
 				if (shadowMatch == null) {
+					this.shadowMatchCount.incrementAndGet();
 					Method methodToMatch = targetMethod;
 					try {
 						try {
@@ -574,6 +599,7 @@ public class AspectJExpressionPointcut extends AbstractExpressionPointcut
 		// Initialize transient fields.
 		// pointcutExpression will be initialized lazily by checkReadyToMatch()
 		this.shadowMatchCache = new ConcurrentHashMap<>(32);
+		this.shadowMatchCount = new AtomicInteger();
 	}
 
 
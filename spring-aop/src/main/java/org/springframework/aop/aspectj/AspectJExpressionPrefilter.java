@@ -0,0 +1,253 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.aspectj;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.aop.ClassFilter;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.core.annotation.MergedAnnotations.SearchStrategy;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Cheap class-level pre-filter for an AspectJ pointcut expression, applied
+ * before AspectJ's own type matching and per-method shadow matching.
+ *
+ * <p>Constraints are only derived from the top-level {@code &&} terms of the
+ * expression, each of which is a necessary condition for any join point in a
+ * class to match. The following terms are recognized:
+ * <ul>
+ * <li>{@code @within(AnnotationType)} and {@code @target(AnnotationType)}:
+ * the annotation must be present in the type hierarchy of the class</li>
+ * <li>{@code @annotation(AnnotationType)}: the class must be a candidate
+ * for carrying the annotation at all</li>
+ * <li>{@code within(com.xyz..*)}, {@code within(com.xyz.*)} and the
+ * declaring type part of {@code execution(* com.xyz..*.*(..))}: the class
+ * or one of its supertypes must reside in a matching package</li>
+ * </ul>
+ * <p>Any other term (including negations, parenthesized sub-expressions,
+ * parameter bindings and named pointcut references) does not contribute
+ * a constraint, and an expression with a top-level {@code ||} is not
+ * filtered at all.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ * @see AspectJExpressionPointcut#matches(Class)
+ */
+final class AspectJExpressionPrefilter implements ClassFilter {
+
+	private static final Pattern QUALIFIED_NAME_PATTERN = Pattern.compile("[\\w$]+(\\.[\\w$]+)+");
+
+	private static final Pattern PACKAGE_PATTERN = Pattern.compile("([\\w$]+(?:\\.[\\w$]+)*)(\\.\\.\\*|\\.\\*)");
+
+
+	private final List<Predicate<Class<?>>> constraints;
+
+
+	private AspectJExpressionPrefilter(List<Predicate<Class<?>>> constraints) {
+		this.constraints = constraints;
+	}
+
+
+	/**
+	 * Return whether the given class passes all constraints derived from
+	 * the expression. A {@code false} result means that no join point in
+	 * the class can match the expression.
+	 */
+	@Override
+	public boolean matches(Class<?> clazz) {
+		for (Predicate<Class<?>> constraint : this.constraints) {
+			if (!constraint.test(clazz)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+
+	/**
+	 * Derive a pre-filter from the given pointcut expression.
+	 * @param expression the pointcut expression, with boolean operators
+	 * already converted to their AspectJ form
+	 * @param classLoader the ClassLoader to resolve annotation types with
+	 * @return the pre-filter (possibly without any constraints)
+	 */
+	static AspectJExpressionPrefilter forExpression(String expression, @Nullable ClassLoader classLoader) {
+		List<Predicate<Class<?>>> constraints = new ArrayList<>();
+		for (String term : splitConjunction(expression)) {
+			Predicate<Class<?>> constraint = parseTerm(term, classLoader);
+			if (constraint != null) {
+				constraints.add(constraint);
+			}
+		}
+		return new AspectJExpressionPrefilter(constraints);
+	}
+
+	private static List<String> splitConjunction(String expression) {
+		List<String> terms = new ArrayList<>();
+		int depth = 0;
+		int start = 0;
+		for (int i = 0; i < expression.length(); i++) {
+			char c = expression.charAt(i);
+			if (c == '(') {
+				depth++;
+			}
+			else if (c == ')') {
+				depth--;
+			}
+			else if (depth == 0) {
+				if (c == '|') {
+					// Top-level disjunction: no term is a necessary condition.
+					return Collections.emptyList();
+				}
+				if (c == '&' && i + 1 < expression.length() && expression.charAt(i + 1) == '&') {
+					terms.add(expression.substring(start, i).trim());
+					start = i + 2;
+					i++;
+				}
+			}
+		}
+		terms.add(expression.substring(start).trim());
+		return terms;
+	}
+
+	@Nullable
+	private static Predicate<Class<?>> parseTerm(String term, @Nullable ClassLoader classLoader) {
+		int openIndex = term.indexOf('(');
+		if (openIndex <= 0 || !term.endsWith(")") || findClosingIndex(term, openIndex) != term.length() - 1) {
+			return null;
+		}
+		String designator = term.substring(0, openIndex).trim();
+		String body = term.substring(openIndex + 1, term.length() - 1).trim();
+		switch (designator) {
+			case "@within":
+			case "@target":
+				Class<? extends Annotation> typeAnnotation = resolveAnnotationType(body, classLoader);
+				return (typeAnnotation != null ? clazz ->
+						MergedAnnotations.from(clazz, SearchStrategy.TYPE_HIERARCHY).isPresent(typeAnnotation) : null);
+			case "@annotation":
+				Class<? extends Annotation> methodAnnotation = resolveAnnotationType(body, classLoader);
+				return (methodAnnotation != null ? clazz ->
+						AnnotationUtils.isCandidateClass(clazz, methodAnnotation) : null);
+			case "within":
+				return packageConstraint(body);
+			case "execution":
+				return packageConstraint(extractDeclaringTypePattern(body));
+			default:
+				return null;
+		}
+	}
+
+	private static int findClosingIndex(String term, int openIndex) {
+		int depth = 0;
+		for (int i = openIndex; i < term.length(); i++) {
+			char c = term.charAt(i);
+			if (c == '(') {
+				depth++;
+			}
+			else if (c == ')') {
+				depth--;
+				if (depth == 0) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	@Nullable
+	@SuppressWarnings("unchecked")
+	private static Class<? extends Annotation> resolveAnnotationType(String typeName, @Nullable ClassLoader classLoader) {
+		// Unqualified names may be parameter bindings or imports relative to the declaration scope
+		if (!QUALIFIED_NAME_PATTERN.matcher(typeName).matches()) {
+			return null;
+		}
+		try {
+			Class<?> type = ClassUtils.forName(typeName, classLoader);
+			return (type.isAnnotation() ? (Class<? extends Annotation>) type : null);
+		}
+		catch (Throwable ex) {
+			return null;
+		}
+	}
+
+	@Nullable
+	private static String extractDeclaringTypePattern(String executionBody) {
+		int paramsIndex = executionBody.indexOf('(');
+		if (paramsIndex == -1) {
+			return null;
+		}
+		String signature = executionBody.substring(0, paramsIndex).trim();
+		String methodPattern = signature.substring(signature.lastIndexOf(' ') + 1);
+		int lastDot = methodPattern.lastIndexOf('.');
+		if (lastDot == -1) {
+			return null;
+		}
+		String typePattern = methodPattern.substring(0, lastDot);
+		// "com.xyz..*(..)" declares any method on any type in or below "com.xyz"
+		return (typePattern.endsWith(".") ? typePattern + ".*" : typePattern);
+	}
+
+	@Nullable
+	private static Predicate<Class<?>> packageConstraint(@Nullable String typePattern) {
+		if (typePattern == null) {
+			return null;
+		}
+		Matcher matcher = PACKAGE_PATTERN.matcher(typePattern);
+		if (!matcher.matches()) {
+			return null;
+		}
+		String packageName = matcher.group(1);
+		if (matcher.group(2).equals("..*")) {
+			String prefix = packageName + ".";
+			// AspectJ may also resolve the pattern relative to an imported package
+			return clazz -> anyTypeInHierarchy(clazz, type ->
+					type.getName().startsWith(prefix) || type.getName().contains("." + prefix));
+		}
+		else {
+			return clazz -> anyTypeInHierarchy(clazz, type -> {
+				String typePackage = ClassUtils.getPackageName(type);
+				return (typePackage.equals(packageName) || typePackage.endsWith("." + packageName));
+			});
+		}
+	}
+
+	private static boolean anyTypeInHierarchy(Class<?> clazz, Predicate<Class<?>> predicate) {
+		Class<?> current = clazz;
+		while (current != null) {
+			if (predicate.test(current)) {
+				return true;
+			}
+			current = current.getSuperclass();
+		}
+		for (Class<?> ifc : ClassUtils.getAllInterfacesForClassAsSet(clazz)) {
+			if (predicate.test(ifc)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,12 +25,19 @@ import org.aspectj.util.PartialOrder;
 import org.aspectj.util.PartialOrder.PartialComparable;
 
 import org.springframework.aop.Advisor;
+import org.springframework.aop.Pointcut;
+import org.springframework.aop.PointcutAdvisor;
 import org.springframework.aop.aspectj.AbstractAspectJAdvice;
+import org.springframework.aop.aspectj.AspectJExpressionPointcut;
 import org.springframework.aop.aspectj.AspectJPointcutAdvisor;
 import org.springframework.aop.aspectj.AspectJProxyUtils;
 import org.springframework.aop.framework.autoproxy.AbstractAdvisorAutoProxyCreator;
 import org.springframework.aop.interceptor.ExposeInvocationInterceptor;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
 import org.springframework.core.Ordered;
+import org.springframework.core.metrics.ApplicationStartup;
+import org.springframework.core.metrics.StartupStep;
 import org.springframework.util.ClassUtils;
 
 /**
@@ -85,6 +92,53 @@ public class AspectJAwareAdvisorAutoProxyCreator extends AbstractAdvisorAutoProx
 		}
 	}
 
+	/**
+	 * Record the advisor matching for the given bean as a
+	 * {@code "spring.aop.advisors.match"} {@link StartupStep}, tagged with the
+	 * number of candidate and eligible advisors as well as the number of
+	 * AspectJ shadow matches that had to be performed for the bean class.
+	 * <p>Shadow matches are only counted if startup tracking is active,
+	 * i.e. if a non-default {@link ApplicationStartup} has been configured.
+	 */
+	@Override
+	protected List<Advisor> findAdvisorsThatCanApply(
+			List<Advisor> candidateAdvisors, Class<?> beanClass, String beanName) {
+
+		ApplicationStartup applicationStartup = getApplicationStartup();
+		if (applicationStartup == ApplicationStartup.DEFAULT) {
+			return super.findAdvisorsThatCanApply(candidateAdvisors, beanClass, beanName);
+		}
+		StartupStep matchStep = applicationStartup.start("spring.aop.advisors.match")
+				.tag("beanName", beanName)
+				.tag("beanClass", beanClass::getName)
+				.tag("candidateAdvisors", String.valueOf(candidateAdvisors.size()));
+		int shadowMatchesBefore = countShadowMatches(candidateAdvisors);
+		List<Advisor> eligibleAdvisors = super.findAdvisorsThatCanApply(candidateAdvisors, beanClass, beanName);
+		matchStep.tag("eligibleAdvisors", String.valueOf(eligibleAdvisors.size()))
+				.tag("shadowMatches", () -> String.valueOf(countShadowMatches(candidateAdvisors) - shadowMatchesBefore))
+				.end();
+		return eligibleAdvisors;
+	}
+
+	private ApplicationStartup getApplicationStartup() {
+		BeanFactory beanFactory = getBeanFactory();
+		return (beanFactory instanceof ConfigurableBeanFactory ?
+				((ConfigurableBeanFactory) beanFactory).getApplicationStartup() : ApplicationStartup.DEFAULT);
+	}
+
+	private static int countShadowMatches(List<Advisor> advisors) {
+		int count = 0;
+		for (Advisor advisor : advisors) {
+			if (advisor instanceof PointcutAdvisor) {
+				Pointcut pointcut = ((PointcutAdvisor) advisor).getPointcut();
+				if (pointcut instanceof AspectJExpressionPointcut) {
+					count += ((AspectJExpressionPointcut) pointcut).getShadowMatchCount();
+				}
+			}
+		}
+		return count;
+	}
+
 	/**
 	 * Add an {@link ExposeInvocationInterceptor} to the beginning of the advice chain.
 	 * <p>This additional advice is needed when using AspectJ pointcut expressions
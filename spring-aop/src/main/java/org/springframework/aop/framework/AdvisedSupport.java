@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -83,6 +83,13 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 	/** Cache with Method as key and advisor chain List as value. */
 	private transient Map<MethodCacheKey, List<Object>> methodCache;
 
+	/**
+	 * Precomputed advisor chains for a frozen configuration, with Method as key
+	 * and advisor chain List as value. Read-only once published.
+	 */
+	@Nullable
+	private transient volatile FrozenChains frozenChains;
+
 	/**
 	 * Interfaces to be implemented by the proxy. Held in List to keep the order
 	 * of registration, to create JDK proxy with specified order of interfaces.
@@ -464,6 +471,13 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 	 * @return a List of MethodInterceptors (may also include InterceptorAndDynamicMethodMatchers)
 	 */
 	public List<Object> getInterceptorsAndDynamicInterceptionAdvice(Method method, @Nullable Class<?> targetClass) {
+		FrozenChains frozenChains = this.frozenChains;
+		if (frozenChains != null && frozenChains.targetClass == targetClass) {
+			List<Object> chain = frozenChains.chains.get(method);
+			if (chain != null) {
+				return chain;
+			}
+		}
 		MethodCacheKey cacheKey = new MethodCacheKey(method);
 		List<Object> cached = this.methodCache.get(cacheKey);
 		if (cached == null) {
@@ -479,6 +493,34 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 	 */
 	protected void adviceChanged() {
 		this.methodCache.clear();
+		this.frozenChains = null;
+	}
+
+	/**
+	 * Precompute the advisor chains for the given methods at proxy creation time,
+	 * provided that this configuration is {@link #isFrozen() frozen}.
+	 * <p>Subsequent calls to {@link #getInterceptorsAndDynamicInterceptionAdvice}
+	 * for those methods and the given target class are served from a read-only
+	 * table, without allocating a cache key or going through the concurrent
+	 * method cache. Any other method falls back to the regular method cache.
+	 * @param methods the methods exposed by the proxy
+	 * @param targetClass the target class
+	 * @since 5.3.5
+	 */
+	void prepareFrozenInterceptorChains(Method[] methods, @Nullable Class<?> targetClass) {
+		if (!isFrozen()) {
+			return;
+		}
+		FrozenChains frozenChains = this.frozenChains;
+		if (frozenChains != null && frozenChains.targetClass == targetClass) {
+			return;
+		}
+		Map<Method, List<Object>> chains = CollectionUtils.newHashMap(methods.length);
+		for (Method method : methods) {
+			chains.put(method, this.advisorChainFactory.getInterceptorsAndDynamicInterceptionAdvice(
+					this, method, targetClass));
+		}
+		this.frozenChains = new FrozenChains(targetClass, chains);
 	}
 
 	/**
@@ -537,6 +579,7 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 
 		// Initialize transient fields.
 		this.methodCache = new ConcurrentHashMap<>(32);
+		this.frozenChains = null;
 	}
 
 	@Override
@@ -601,4 +644,22 @@ public class AdvisedSupport extends ProxyConfig implements Advised {
 		}
 	}
 
+
+	/**
+	 * Holder for the advisor chains precomputed for a frozen configuration,
+	 * specific to the target class that they have been computed for.
+	 */
+	private static final class FrozenChains {
+
+		@Nullable
+		final Class<?> targetClass;
+
+		final Map<Method, List<Object>> chains;
+
+		FrozenChains(@Nullable Class<?> targetClass, Map<Method, List<Object>> chains) {
+			this.targetClass = targetClass;
+			this.chains = chains;
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -318,6 +318,12 @@ class CglibAopProxy implements AopProxy, Serializable {
 				new HashCodeInterceptor(this.advised)
 		};
 
+		// If the advice chain is frozen, precompute the chains for all public
+		// methods so that AOP calls do not need to go through the method cache.
+		if (isFrozen) {
+			this.advised.prepareFrozenInterceptorChains(rootClass.getMethods(), rootClass);
+		}
+
 		Callback[] callbacks;
 
 		// If the target is a static one and the advice chain is frozen,
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,6 +20,8 @@ import java.io.Serializable;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.aopalliance.intercept.MethodInvocation;
@@ -123,6 +125,14 @@ final class JdkDynamicAopProxy implements AopProxy, InvocationHandler, Serializa
 		if (logger.isTraceEnabled()) {
 			logger.trace("Creating JDK dynamic proxy: " + this.advised.getTargetSource());
 		}
+		if (this.advised.isFrozen()) {
+			List<Method> methods = new ArrayList<>();
+			for (Class<?> proxiedInterface : this.proxiedInterfaces) {
+				Collections.addAll(methods, proxiedInterface.getMethods());
+			}
+			this.advised.prepareFrozenInterceptorChains(
+					methods.toArray(new Method[0]), this.advised.getTargetClass());
+		}
 		return Proxy.newProxyInstance(classLoader, this.proxiedInterfaces, this);
 	}
 
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.interceptor;
+
+import java.io.Serializable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Lock-free latency histogram with a fixed memory footprint, recording
+ * nanosecond values into log-linear buckets in the style of HdrHistogram.
+ *
+ * <p>Values below 64 are recorded exactly; larger values are recorded with
+ * 32 buckets per power of two, resulting in a relative error of at most
+ * about 3% for any reported value. Values above roughly 18 minutes are
+ * recorded as the maximum trackable value. Each histogram holds about
+ * 1150 counters, independent of the number of recorded values.
+ *
+ * <p>Recording is wait-free apart from contention on individual counters.
+ * {@link #snapshot() Snapshots} are consistent per bucket but not across
+ * buckets while values are being recorded concurrently.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ * @see SamplingPerformanceMonitorInterceptor
+ */
+@SuppressWarnings("serial")
+public final class LatencyHistogram implements Serializable {
+
+	private static final int SUB_BUCKET_BITS = 6;
+
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	private static final int SUB_BUCKET_HALF_COUNT = SUB_BUCKET_COUNT / 2;
+
+	private static final int MAX_VALUE_BITS = 40;
+
+	/** The highest value that can be recorded with full precision, in nanoseconds. */
+	public static final long MAX_TRACKABLE_VALUE = (1L << MAX_VALUE_BITS) - 1;
+
+	private static final int BUCKET_COUNT = indexFor(MAX_TRACKABLE_VALUE) + 1;
+
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+	private final LongAdder totalValue = new LongAdder();
+
+	private final AtomicLong maxValue = new AtomicLong();
+
+
+	/**
+	 * Record the given value.
+	 * @param value the value in nanoseconds (negative values are recorded as 0)
+	 */
+	public void record(long value) {
+		long valueToRecord = Math.min(Math.max(value, 0), MAX_TRACKABLE_VALUE);
+		this.counts.incrementAndGet(indexFor(valueToRecord));
+		this.totalValue.add(valueToRecord);
+		long currentMax = this.maxValue.get();
+		while (valueToRecord > currentMax && !this.maxValue.compareAndSet(currentMax, valueToRecord)) {
+			currentMax = this.maxValue.get();
+		}
+	}
+
+	/**
+	 * Clear all recorded values.
+	 */
+	public void reset() {
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			this.counts.set(i, 0);
+		}
+		this.totalValue.reset();
+		this.maxValue.set(0);
+	}
+
+	/**
+	 * Take a snapshot of all values recorded so far.
+	 */
+	public Snapshot snapshot() {
+		long[] snapshotCounts = new long[BUCKET_COUNT];
+		long totalCount = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			long count = this.counts.get(i);
+			snapshotCounts[i] = count;
+			totalCount += count;
+		}
+		return new Snapshot(snapshotCounts, totalCount, this.totalValue.sum(), this.maxValue.get());
+	}
+
+
+	static int indexFor(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int shift = (63 - Long.numberOfLeadingZeros(value)) - (SUB_BUCKET_BITS - 1);
+		int subBucket = (int) (value >>> shift);
+		return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + (subBucket - SUB_BUCKET_HALF_COUNT);
+	}
+
+	static long highestValueFor(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int offset = index - SUB_BUCKET_COUNT;
+		int shift = offset / SUB_BUCKET_HALF_COUNT + 1;
+		long subBucket = offset % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+		return ((subBucket + 1) << shift) - 1;
+	}
+
+
+	/**
+	 * Immutable snapshot of a {@link LatencyHistogram}.
+	 */
+	@SuppressWarnings("serial")
+	public static final class Snapshot implements Serializable {
+
+		private final long[] counts;
+
+		private final long totalCount;
+
+		private final long totalValue;
+
+		private final long maxValue;
+
+		private Snapshot(long[] counts, long totalCount, long totalValue, long maxValue) {
+			this.counts = counts;
+			this.totalCount = totalCount;
+			this.totalValue = totalValue;
+			this.maxValue = maxValue;
+		}
+
+		/**
+		 * Return the number of recorded values.
+		 */
+		public long getCount() {
+			return this.totalCount;
+		}
+
+		/**
+		 * Return the mean of all recorded values, in nanoseconds.
+		 */
+		public double getMean() {
+			return (this.totalCount > 0 ? (double) this.totalValue / this.totalCount : 0);
+		}
+
+		/**
+		 * Return the highest recorded value, in nanoseconds.
+		 */
+		public long getMax() {
+			return this.maxValue;
+		}
+
+		/**
+		 * Return the value at the given percentile, in nanoseconds: that is,
+		 * the highest value that the given percentage of all recorded values
+		 * are less than or equal to, within the precision of the histogram.
+		 * @param percentile the percentile between 0 and 100, e.g. 99.9
+		 */
+		public long getValueAtPercentile(double percentile) {
+			Assert.isTrue(percentile >= 0 && percentile <= 100, "Percentile must be between 0 and 100");
+			if (this.totalCount == 0) {
+				return 0;
+			}
+			long countAtPercentile = Math.max((long) Math.ceil(percentile / 100 * this.totalCount), 1);
+			long cumulativeCount = 0;
+			for (int i = 0; i < this.counts.length; i++) {
+				cumulativeCount += this.counts[i];
+				if (cumulativeCount >= countAtPercentile) {
+					return Math.min(highestValueFor(i), this.maxValue);
+				}
+			}
+			return this.maxValue;
+		}
+
+		/**
+		 * Return a snapshot of the values recorded between the given earlier
+		 * snapshot of the same histogram and this snapshot.
+		 * <p>The maximum of the returned snapshot is approximated from its
+		 * highest non-empty bucket.
+		 * @param earlier the earlier snapshot, or {@code null} for all values
+		 */
+		public Snapshot since(@Nullable Snapshot earlier) {
+			if (earlier == null) {
+				return this;
+			}
+			long[] intervalCounts = new long[this.counts.length];
+			long intervalTotalCount = 0;
+			long intervalMax = 0;
+			for (int i = 0; i < this.counts.length; i++) {
+				long count = Math.max(this.counts[i] - earlier.counts[i], 0);
+				intervalCounts[i] = count;
+				intervalTotalCount += count;
+				if (count > 0) {
+					intervalMax = Math.min(highestValueFor(i), this.maxValue);
+				}
+			}
+			return new Snapshot(intervalCounts, intervalTotalCount,
+					Math.max(this.totalValue - earlier.totalValue, 0), intervalMax);
+		}
+
+		@Override
+		public String toString() {
+			return String.format("count=%d, mean=%.3fms, p50=%.3fms, p90=%.3fms, p99=%.3fms, p99.9=%.3fms, max=%.3fms",
+					getCount(), getMean() / 1_000_000, toMillis(getValueAtPercentile(50)),
+					toMillis(getValueAtPercentile(90)), toMillis(getValueAtPercentile(99)),
+					toMillis(getValueAtPercentile(99.9)), toMillis(getMax()));
+		}
+
+		private static double toMillis(long nanos) {
+			return nanos / 1_000_000.0;
+		}
+	}
+
+}
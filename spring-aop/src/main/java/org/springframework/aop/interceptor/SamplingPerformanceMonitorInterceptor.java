@@ -0,0 +1,309 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.interceptor;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.core.MethodClassKey;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Performance monitor interceptor that records the latency of a sample of
+ * method invocations into a {@link LatencyHistogram} per method, suitable
+ * for hot code paths where {@link PerformanceMonitorInterceptor} (logging
+ * every call) and {@link JamonPerformanceMonitorInterceptor} (synchronizing
+ * internally) are too expensive.
+ *
+ * <p>Only one out of {@link #setSampleRate "sampleRate"} invocations is
+ * measured, as decided by a thread-local random number; all other invocations
+ * proceed right away. Histograms are lock-free and have a fixed memory
+ * footprint per method, and the invocation name is cached per method and
+ * target class, so recording does not allocate once a method has been seen.
+ *
+ * <p>Percentiles are available through the public accessors of this class,
+ * which can be exposed via JMX by registering this interceptor with Spring's
+ * {@code MBeanExporter}, e.g. as {@code "spring:type=PerformanceMonitor"}.
+ * In addition, a {@link #setSnapshotInterval snapshot interval} may be
+ * specified, in which case interval snapshots are taken periodically and
+ * written to the log (at trace level, by default).
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ * @see LatencyHistogram
+ * @see #setSampleRate
+ * @see #setSnapshotInterval
+ */
+@SuppressWarnings("serial")
+public class SamplingPerformanceMonitorInterceptor extends AbstractMonitoringInterceptor {
+
+	private int sampleRate = 1;
+
+	private long snapshotInterval = -1;
+
+	private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>(64);
+
+	private final Map<MethodClassKey, String> invocationNames = new ConcurrentHashMap<>(64);
+
+	private final AtomicLong nextSnapshotTime = new AtomicLong();
+
+	private volatile Map<String, LatencyHistogram.Snapshot> previousSnapshots = Collections.emptyMap();
+
+	private volatile Map<String, LatencyHistogram.Snapshot> lastSnapshot = Collections.emptyMap();
+
+
+	/**
+	 * Create a new SamplingPerformanceMonitorInterceptor with a static logger.
+	 */
+	public SamplingPerformanceMonitorInterceptor() {
+	}
+
+	/**
+	 * Create a new SamplingPerformanceMonitorInterceptor with a dynamic or static logger,
+	 * according to the given flag.
+	 * @param useDynamicLogger whether to use a dynamic logger or a static logger
+	 * @see #setUseDynamicLogger
+	 */
+	public SamplingPerformanceMonitorInterceptor(boolean useDynamicLogger) {
+		setUseDynamicLogger(useDynamicLogger);
+	}
+
+
+	/**
+	 * Set the sample rate: measuring one out of the given number of invocations
+	 * on average. Default is 1, measuring every invocation.
+	 */
+	public void setSampleRate(int sampleRate) {
+		Assert.isTrue(sampleRate > 0, "Sample rate must be greater than 0");
+		this.sampleRate = sampleRate;
+	}
+
+	/**
+	 * Return the sample rate.
+	 */
+	public int getSampleRate() {
+		return this.sampleRate;
+	}
+
+	/**
+	 * Set the interval in milliseconds at which to take snapshots of the
+	 * values recorded since the previous snapshot. Default is -1, not taking
+	 * any snapshots unless {@link #takeSnapshot()} is called explicitly.
+	 * <p>There is no background thread: snapshots are taken by the first
+	 * measured invocation after the interval has elapsed.
+	 * @see #getLastSnapshot()
+	 */
+	public void setSnapshotInterval(long snapshotInterval) {
+		this.snapshotInterval = snapshotInterval;
+	}
+
+	/**
+	 * Return the interval at which snapshots are taken.
+	 */
+	public long getSnapshotInterval() {
+		return this.snapshotInterval;
+	}
+
+
+	/**
+	 * Proceeds right away unless the invocation has been picked as a sample.
+	 */
+	@Override
+	@Nullable
+	public Object invoke(MethodInvocation invocation) throws Throwable {
+		int sampleRate = this.sampleRate;
+		if (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+			return invocation.proceed();
+		}
+		return super.invoke(invocation);
+	}
+
+	/**
+	 * Measures every sampled invocation, independent of the log level.
+	 */
+	@Override
+	protected boolean isInterceptorEnabled(MethodInvocation invocation, Log logger) {
+		return true;
+	}
+
+	@Override
+	@Nullable
+	protected Object invokeUnderTrace(MethodInvocation invocation, Log logger) throws Throwable {
+		long startTime = System.nanoTime();
+		try {
+			return invocation.proceed();
+		}
+		finally {
+			long endTime = System.nanoTime();
+			String name = getInvocationName(invocation);
+			this.histograms.computeIfAbsent(name, key -> new LatencyHistogram()).record(endTime - startTime);
+			if (this.snapshotInterval > 0) {
+				long now = System.currentTimeMillis();
+				long nextTime = this.nextSnapshotTime.get();
+				if (now >= nextTime && this.nextSnapshotTime.compareAndSet(nextTime, now + this.snapshotInterval)) {
+					// Skip the initial (empty) snapshot right after startup.
+					if (nextTime != 0) {
+						takeSnapshot(logger);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Return the name for the given invocation, as built by
+	 * {@link #createInvocationTraceName}, cached per method and target class.
+	 */
+	private String getInvocationName(MethodInvocation invocation) {
+		Method method = invocation.getMethod();
+		Object target = invocation.getThis();
+		Class<?> targetClass = (target != null ? target.getClass() : null);
+		MethodClassKey cacheKey = new MethodClassKey(method, targetClass);
+		String name = this.invocationNames.get(cacheKey);
+		if (name == null) {
+			name = createInvocationTraceName(invocation);
+			this.invocationNames.put(cacheKey, name);
+		}
+		return name;
+	}
+
+
+	/**
+	 * Take a snapshot of the values recorded since the previous snapshot
+	 * and write it to the log.
+	 * @see #getLastSnapshot()
+	 */
+	public void takeSnapshot() {
+		Log logger = (this.defaultLogger != null ? this.defaultLogger : LogFactory.getLog(getClass()));
+		takeSnapshot(logger);
+	}
+
+	private synchronized void takeSnapshot(Log logger) {
+		Map<String, LatencyHistogram.Snapshot> previous = this.previousSnapshots;
+		Map<String, LatencyHistogram.Snapshot> current = new TreeMap<>();
+		Map<String, LatencyHistogram.Snapshot> interval = new TreeMap<>();
+		this.histograms.forEach((name, histogram) -> {
+			LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+			current.put(name, snapshot);
+			interval.put(name, snapshot.since(previous.get(name)));
+		});
+		this.previousSnapshots = current;
+		this.lastSnapshot = Collections.unmodifiableMap(interval);
+		if (isLogEnabled(logger)) {
+			interval.forEach((name, snapshot) ->
+					writeToLog(logger, "Performance statistics for method [" + name + "]: " + snapshot));
+		}
+	}
+
+	/**
+	 * Return the last snapshot taken, containing the values recorded between
+	 * the previous snapshot and the last snapshot per method.
+	 * @see #setSnapshotInterval
+	 * @see #takeSnapshot()
+	 */
+	public Map<String, LatencyHistogram.Snapshot> getLastSnapshot() {
+		return this.lastSnapshot;
+	}
+
+	/**
+	 * Return the histogram for the given method, if any invocation of
+	 * that method has been measured yet.
+	 * @param name the method name as built by {@link #createInvocationTraceName}
+	 */
+	@Nullable
+	public LatencyHistogram getHistogram(String name) {
+		return this.histograms.get(name);
+	}
+
+	/**
+	 * Clear all recorded values and snapshots.
+	 */
+	public synchronized void reset() {
+		this.histograms.clear();
+		this.invocationNames.clear();
+		this.previousSnapshots = Collections.emptyMap();
+		this.lastSnapshot = Collections.emptyMap();
+	}
+
+
+	//---------------------------------------------------------------------
+	// Accessors for exposure via JMX
+	//---------------------------------------------------------------------
+
+	/**
+	 * Return the names of all methods measured so far.
+	 */
+	public String[] getMonitoredMethods() {
+		return new TreeMap<>(this.histograms).keySet().toArray(new String[0]);
+	}
+
+	/**
+	 * Return the number of measured invocations of the given method.
+	 * @param name the method name, as returned by {@link #getMonitoredMethods()}
+	 */
+	public long getSampleCount(String name) {
+		LatencyHistogram histogram = this.histograms.get(name);
+		return (histogram != null ? histogram.snapshot().getCount() : 0);
+	}
+
+	/**
+	 * Return the latency of the given method at the given percentile,
+	 * in milliseconds, across all measured invocations.
+	 * @param name the method name, as returned by {@link #getMonitoredMethods()}
+	 * @param percentile the percentile between 0 and 100, e.g. 99.9
+	 */
+	public double getLatencyPercentile(String name, double percentile) {
+		LatencyHistogram histogram = this.histograms.get(name);
+		return (histogram != null ? histogram.snapshot().getValueAtPercentile(percentile) / 1_000_000.0 : 0);
+	}
+
+	/**
+	 * Return a summary of all measured invocations per method,
+	 * including count, mean, common percentiles and maximum.
+	 */
+	public String[] getLatencySummary() {
+		Map<String, LatencyHistogram.Snapshot> snapshots = new LinkedHashMap<>();
+		new TreeMap<>(this.histograms).forEach((name, histogram) -> snapshots.put(name, histogram.snapshot()));
+		return summarize(snapshots);
+	}
+
+	/**
+	 * Return a summary of the last snapshot per method.
+	 * @see #getLastSnapshot()
+	 */
+	public String[] getLastSnapshotSummary() {
+		return summarize(this.lastSnapshot);
+	}
+
+	private static String[] summarize(Map<String, LatencyHistogram.Snapshot> snapshots) {
+		return snapshots.entrySet().stream()
+				.map(entry -> entry.getKey() + ": " + entry.getValue())
+				.toArray(String[]::new);
+	}
+
+}
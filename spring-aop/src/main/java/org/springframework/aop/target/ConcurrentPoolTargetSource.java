@@ -0,0 +1,437 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.target;
+
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.aop.IntroductionAdvisor;
+import org.springframework.aop.support.DefaultIntroductionAdvisor;
+import org.springframework.aop.support.DelegatingIntroductionInterceptor;
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * {@link org.springframework.aop.TargetSource} implementation that holds
+ * objects in a lock-free pool, without any dependency on a pooling library.
+ *
+ * <p>Each thread first tries to reuse the object that it used last, which
+ * avoids any shared state in the common case of a thread making repeated
+ * calls on the same proxy. Otherwise an idle object is taken from a shared
+ * non-blocking queue, or a new object is created if the pool has not reached
+ * its maximum size yet. Only when the pool is exhausted, the calling thread
+ * waits for an object to be returned, up to the configured maximum waiting time.
+ *
+ * <p>In contrast to {@link ThreadLocalTargetSource}, the number of objects
+ * is bounded by the maximum pool size: an object used last by one thread
+ * is available to other threads as soon as it has been returned.
+ *
+ * <p>Idle objects may be evicted once they have been idle for a given time.
+ * There is no background eviction thread: eviction runs are performed by
+ * threads returning objects to the pool once the configured time between
+ * eviction runs has elapsed, or explicitly through {@link #evictIdleTargets()}.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ * @see #setMaxSize
+ * @see #setMaxWait
+ * @see #setTimeBetweenEvictionRunsMillis
+ * @see #setMinEvictableIdleTimeMillis
+ * @see ConcurrentPoolTargetSourceStats
+ */
+@SuppressWarnings("serial")
+public class ConcurrentPoolTargetSource extends AbstractPoolingTargetSource
+		implements ConcurrentPoolTargetSourceStats {
+
+	/**
+	 * Default maximum size of the pool: 8.
+	 */
+	public static final int DEFAULT_MAX_SIZE = 8;
+
+
+	private long maxWait = -1;
+
+	private long timeBetweenEvictionRunsMillis = -1;
+
+	private long minEvictableIdleTimeMillis = 1000 * 60 * 30;
+
+	private final ThreadLocal<PooledTarget> lastUsedTarget = new NamedThreadLocal<>("Last used pooled target");
+
+	private final Queue<PooledTarget> idleTargets = new ConcurrentLinkedQueue<>();
+
+	private final Set<PooledTarget> allTargets = ConcurrentHashMap.newKeySet();
+
+	@Nullable
+	private Semaphore permits;
+
+	private boolean poolCreated;
+
+	private volatile boolean destroyed;
+
+	private final AtomicLong nextEvictionRun = new AtomicLong();
+
+	private final LongAdder activeCount = new LongAdder();
+
+	private final LongAdder invocationCount = new LongAdder();
+
+	private final LongAdder affinityHitCount = new LongAdder();
+
+	private final LongAdder waitCount = new LongAdder();
+
+	private final LongAdder timeoutCount = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+
+	/**
+	 * Create a ConcurrentPoolTargetSource with default settings.
+	 * Default maximum size of the pool is 8.
+	 * @see #setMaxSize
+	 */
+	public ConcurrentPoolTargetSource() {
+		setMaxSize(DEFAULT_MAX_SIZE);
+	}
+
+
+	/**
+	 * Set the maximum waiting time for fetching an object from the pool.
+	 * Default is -1, waiting forever; 0 indicates failing immediately
+	 * when the pool is exhausted.
+	 */
+	public void setMaxWait(long maxWait) {
+		this.maxWait = maxWait;
+	}
+
+	/**
+	 * Return the maximum waiting time for fetching an object from the pool.
+	 */
+	public long getMaxWait() {
+		return this.maxWait;
+	}
+
+	/**
+	 * Set the time between eviction runs that check idle objects whether
+	 * they have been idle for too long. Default is -1, not performing any
+	 * eviction unless {@link #evictIdleTargets()} is called explicitly.
+	 */
+	public void setTimeBetweenEvictionRunsMillis(long timeBetweenEvictionRunsMillis) {
+		this.timeBetweenEvictionRunsMillis = timeBetweenEvictionRunsMillis;
+	}
+
+	/**
+	 * Return the time between eviction runs that check idle objects.
+	 */
+	public long getTimeBetweenEvictionRunsMillis() {
+		return this.timeBetweenEvictionRunsMillis;
+	}
+
+	/**
+	 * Set the minimum time that an idle object can sit in the pool before
+	 * it becomes subject to eviction. Default is 1800000 (30 minutes).
+	 * @see #setTimeBetweenEvictionRunsMillis
+	 * @see #evictIdleTargets()
+	 */
+	public void setMinEvictableIdleTimeMillis(long minEvictableIdleTimeMillis) {
+		this.minEvictableIdleTimeMillis = minEvictableIdleTimeMillis;
+	}
+
+	/**
+	 * Return the minimum time that an idle object can sit in the pool.
+	 */
+	public long getMinEvictableIdleTimeMillis() {
+		return this.minEvictableIdleTimeMillis;
+	}
+
+
+	@Override
+	protected final void createPool() {
+		logger.debug("Creating concurrent object pool");
+		int maxSize = getMaxSize();
+		this.permits = (maxSize > 0 ? new Semaphore(maxSize) : null);
+		this.poolCreated = true;
+	}
+
+	/**
+	 * Acquire an object from the pool, preferring the object that the
+	 * current thread used last.
+	 * @throws NoSuchElementException if no object became available
+	 * within the maximum waiting time
+	 */
+	@Override
+	public Object getTarget() throws Exception {
+		Assert.state(this.poolCreated, "Pool not created: call setBeanFactory first");
+		this.invocationCount.increment();
+		acquirePermit();
+		try {
+			PooledTarget pooled = this.lastUsedTarget.get();
+			if (pooled != null && pooled.acquire()) {
+				this.affinityHitCount.increment();
+			}
+			else {
+				pooled = pollIdleTarget();
+				if (pooled == null) {
+					pooled = createPooledTarget();
+				}
+				this.lastUsedTarget.set(pooled);
+			}
+			this.activeCount.increment();
+			return pooled.target;
+		}
+		catch (Throwable ex) {
+			releasePermit();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Return the given object to the pool.
+	 * @throws IllegalStateException if the given object is not currently
+	 * borrowed from this pool
+	 */
+	@Override
+	public void releaseTarget(Object target) {
+		PooledTarget pooled = this.lastUsedTarget.get();
+		if (pooled == null || pooled.target != target) {
+			pooled = findPooledTarget(target);
+		}
+		if (pooled == null || !pooled.release()) {
+			throw new IllegalStateException("Returned object not currently part of this pool: " + target);
+		}
+		this.activeCount.decrement();
+		if (this.destroyed) {
+			evict(pooled);
+		}
+		else if (pooled.markQueued()) {
+			this.idleTargets.offer(pooled);
+		}
+		releasePermit();
+		if (this.timeBetweenEvictionRunsMillis > 0) {
+			long now = System.currentTimeMillis();
+			long nextRun = this.nextEvictionRun.get();
+			if (now >= nextRun && this.nextEvictionRun.compareAndSet(nextRun, now + this.timeBetweenEvictionRunsMillis)) {
+				evictIdleTargets(now);
+			}
+		}
+	}
+
+	/**
+	 * Evict all objects which have been idle for longer than the
+	 * {@link #setMinEvictableIdleTimeMillis minimum evictable idle time}.
+	 * <p>Called automatically by threads returning objects to the pool if
+	 * {@link #setTimeBetweenEvictionRunsMillis a time between eviction runs}
+	 * has been specified; may also be triggered by an external scheduler.
+	 */
+	public void evictIdleTargets() {
+		evictIdleTargets(System.currentTimeMillis());
+	}
+
+	private void evictIdleTargets(long now) {
+		for (PooledTarget pooled : this.allTargets) {
+			if (now - pooled.lastReturned >= this.minEvictableIdleTimeMillis) {
+				evict(pooled);
+			}
+		}
+	}
+
+	private void acquirePermit() throws InterruptedException {
+		Semaphore permits = this.permits;
+		if (permits == null || permits.tryAcquire()) {
+			return;
+		}
+		boolean acquired = false;
+		if (this.maxWait != 0) {
+			this.waitCount.increment();
+			if (this.maxWait < 0) {
+				permits.acquire();
+				acquired = true;
+			}
+			else {
+				acquired = permits.tryAcquire(this.maxWait, TimeUnit.MILLISECONDS);
+			}
+		}
+		if (!acquired) {
+			this.timeoutCount.increment();
+			throw new NoSuchElementException("Timeout waiting for idle object in pool for bean '" +
+					getTargetBeanName() + "' with maximum size " + getMaxSize());
+		}
+	}
+
+	private void releasePermit() {
+		Semaphore permits = this.permits;
+		if (permits != null) {
+			permits.release();
+		}
+	}
+
+	@Nullable
+	private PooledTarget pollIdleTarget() {
+		PooledTarget pooled;
+		while ((pooled = this.idleTargets.poll()) != null) {
+			pooled.queued.set(false);
+			// Skip objects acquired through thread affinity in the meantime:
+			// those will be queued again once they have been returned.
+			if (pooled.acquire()) {
+				return pooled;
+			}
+		}
+		return null;
+	}
+
+	private PooledTarget createPooledTarget() {
+		PooledTarget pooled = new PooledTarget(newPrototypeInstance());
+		this.allTargets.add(pooled);
+		return pooled;
+	}
+
+	@Nullable
+	private PooledTarget findPooledTarget(Object target) {
+		for (PooledTarget pooled : this.allTargets) {
+			if (pooled.target == target) {
+				return pooled;
+			}
+		}
+		return null;
+	}
+
+	private void evict(PooledTarget pooled) {
+		if (pooled.evict()) {
+			this.allTargets.remove(pooled);
+			this.evictionCount.increment();
+			destroyPrototypeInstance(pooled.target);
+		}
+	}
+
+
+	@Override
+	public int getActiveCount() {
+		return this.activeCount.intValue();
+	}
+
+	@Override
+	public int getIdleCount() {
+		return Math.max(this.allTargets.size() - this.activeCount.intValue(), 0);
+	}
+
+	@Override
+	public int getInvocationCount() {
+		return this.invocationCount.intValue();
+	}
+
+	@Override
+	public int getAffinityHitCount() {
+		return this.affinityHitCount.intValue();
+	}
+
+	@Override
+	public int getObjectCount() {
+		return this.allTargets.size();
+	}
+
+	@Override
+	public int getWaitCount() {
+		return this.waitCount.intValue();
+	}
+
+	@Override
+	public int getTimeoutCount() {
+		return this.timeoutCount.intValue();
+	}
+
+	@Override
+	public int getEvictionCount() {
+		return this.evictionCount.intValue();
+	}
+
+
+	/**
+	 * Destroy all idle objects in the pool. Objects currently in use
+	 * will be destroyed once they have been returned to the pool.
+	 */
+	@Override
+	public void destroy() {
+		logger.debug("Destroying concurrent object pool");
+		this.destroyed = true;
+		for (PooledTarget pooled : this.allTargets) {
+			evict(pooled);
+		}
+		this.idleTargets.clear();
+		this.lastUsedTarget.remove();
+	}
+
+	/**
+	 * Return an introduction advisor mixin that allows the AOP proxy to be
+	 * cast to ConcurrentPoolTargetSourceStats.
+	 */
+	public IntroductionAdvisor getStatsMixin() {
+		DelegatingIntroductionInterceptor dii = new DelegatingIntroductionInterceptor(this);
+		return new DefaultIntroductionAdvisor(dii, ConcurrentPoolTargetSourceStats.class);
+	}
+
+
+	/**
+	 * Holder for a pooled object, tracking its state in the pool.
+	 */
+	private static final class PooledTarget {
+
+		private static final int IDLE = 0;
+
+		private static final int IN_USE = 1;
+
+		private static final int EVICTED = 2;
+
+		final Object target;
+
+		private final AtomicInteger state = new AtomicInteger(IN_USE);
+
+		/** Whether this object is currently contained in the idle queue. */
+		final AtomicBoolean queued = new AtomicBoolean();
+
+		volatile long lastReturned;
+
+		PooledTarget(Object target) {
+			this.target = target;
+		}
+
+		boolean acquire() {
+			return this.state.compareAndSet(IDLE, IN_USE);
+		}
+
+		boolean release() {
+			this.lastReturned = System.currentTimeMillis();
+			return this.state.compareAndSet(IN_USE, IDLE);
+		}
+
+		boolean markQueued() {
+			return this.queued.compareAndSet(false, true);
+		}
+
+		boolean evict() {
+			return this.state.compareAndSet(IDLE, EVICTED);
+		}
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.target;
+
+/**
+ * Statistics for a {@link ConcurrentPoolTargetSource}.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ */
+public interface ConcurrentPoolTargetSourceStats {
+
+	/**
+	 * Return the number of client invocations.
+	 */
+	int getInvocationCount();
+
+	/**
+	 * Return the number of invocations that were satisfied by the
+	 * object last used by the calling thread.
+	 */
+	int getAffinityHitCount();
+
+	/**
+	 * Return the number of pooled objects currently held.
+	 */
+	int getObjectCount();
+
+	/**
+	 * Return the number of invocations that had to wait for an object
+	 * to be returned to the exhausted pool.
+	 */
+	int getWaitCount();
+
+	/**
+	 * Return the number of invocations that failed since no object
+	 * became available within the maximum waiting time.
+	 */
+	int getTimeoutCount();
+
+	/**
+	 * Return the number of idle objects evicted from the pool.
+	 */
+	int getEvictionCount();
+
+}
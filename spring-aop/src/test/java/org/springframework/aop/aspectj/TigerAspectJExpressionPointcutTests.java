@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,6 +17,7 @@
 package org.springframework.aop.aspectj;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -27,6 +28,7 @@ import test.annotation.EmptySpringAnnotation;
 import test.annotation.transaction.Tx;
 
 import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
 import org.springframework.beans.testfixture.beans.TestBean;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -224,6 +226,51 @@ public class TigerAspectJExpressionPointcutTests {
 				ProcessesSpringAnnotatedParameters.class, new TestBean(), new BeanA())).isFalse();
 	}
 
+	@Test
+	public void testAtWithinPrefilterSkipsUnannotatedClass() {
+		AspectJExpressionPointcut ajexp = new AspectJExpressionPointcut();
+		ajexp.setExpression("@within(test.annotation.transaction.Tx) && execution(* *(..))");
+
+		assertThat(AopUtils.canApply(ajexp, HasTransactionalAnnotation.class)).isTrue();
+		int shadowMatchCount = ajexp.getShadowMatchCount();
+		assertThat(shadowMatchCount).isGreaterThan(0);
+		assertThat(AopUtils.canApply(ajexp, TestBean.class)).isFalse();
+		assertThat(AopUtils.canApply(ajexp, SpringAnnotated.class)).isFalse();
+		assertThat(ajexp.getShadowMatchCount()).isEqualTo(shadowMatchCount);
+	}
+
+	@Test
+	public void testAtAnnotationPrefilterSkipsPlainJavaClass() {
+		AspectJExpressionPointcut ajexp = new AspectJExpressionPointcut();
+		ajexp.setExpression("@annotation(test.annotation.transaction.Tx)");
+
+		assertThat(AopUtils.canApply(ajexp, ArrayList.class)).isFalse();
+		assertThat(ajexp.getShadowMatchCount()).isEqualTo(0);
+		assertThat(AopUtils.canApply(ajexp, BeanA.class)).isTrue();
+		assertThat(ajexp.getShadowMatchCount()).isGreaterThan(0);
+	}
+
+	@Test
+	public void testExecutionPackagePrefilterSkipsClassInOtherPackage() {
+		AspectJExpressionPointcut ajexp = new AspectJExpressionPointcut();
+		ajexp.setExpression("execution(* org.springframework.beans.testfixture..*.*(..)) and args(String)");
+
+		assertThat(AopUtils.canApply(ajexp, TestBean.class)).isTrue();
+		int shadowMatchCount = ajexp.getShadowMatchCount();
+		assertThat(AopUtils.canApply(ajexp, HasTransactionalAnnotation.class)).isFalse();
+		assertThat(ajexp.getShadowMatchCount()).isEqualTo(shadowMatchCount);
+	}
+
+	@Test
+	public void testPrefilterNotAppliedToDisjunction() {
+		AspectJExpressionPointcut ajexp = new AspectJExpressionPointcut();
+		ajexp.setExpression("@within(test.annotation.transaction.Tx) || execution(* getAge())");
+
+		assertThat(AopUtils.canApply(ajexp, TestBean.class)).isTrue();
+		assertThat(AopUtils.canApply(ajexp, HasTransactionalAnnotation.class)).isTrue();
+		assertThat(AopUtils.canApply(ajexp, SpringAnnotated.class)).isFalse();
+	}
+
 	@Test
 	public void testAnnotationOnMethodArgumentsWithWildcards() throws Exception {
 		String expression = "execution(* *(*, @(test..*) *))";
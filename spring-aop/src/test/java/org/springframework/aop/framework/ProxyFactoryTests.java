@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -18,6 +18,7 @@ package org.springframework.aop.framework;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.accessibility.Accessible;
 import javax.swing.JFrame;
@@ -370,6 +371,40 @@ public class ProxyFactoryTests {
 		assertThat(proxy.getName()).isEqualTo("tb");
 	}
 
+	@Test
+	public void testFrozenProxyUsesPrecomputedChains() throws Exception {
+		TestBean target = new TestBean("tb");
+		ProxyFactory pf = new ProxyFactory(target);
+		AtomicInteger chainFactoryCalls = new AtomicInteger();
+		AdvisorChainFactory chainFactory = new DefaultAdvisorChainFactory();
+		pf.setAdvisorChainFactory((config, method, targetClass) -> {
+			chainFactoryCalls.incrementAndGet();
+			return chainFactory.getInterceptorsAndDynamicInterceptionAdvice(config, method, targetClass);
+		});
+		NopInterceptor nop = new NopInterceptor();
+		pf.addAdvice(nop);
+		pf.setFrozen(true);
+		ITestBean proxy = (ITestBean) pf.getProxy();
+
+		// All chains computed at proxy creation time, none on invocation
+		int precomputed = chainFactoryCalls.get();
+		assertThat(precomputed).isGreaterThan(0);
+		assertThat(proxy.getName()).isEqualTo("tb");
+		assertThat(proxy.getAge()).isEqualTo(0);
+		assertThat(nop.getCount()).isEqualTo(2);
+		assertThat(chainFactoryCalls.get()).isEqualTo(precomputed);
+		assertThat(pf.getInterceptorsAndDynamicInterceptionAdvice(
+				ITestBean.class.getMethod("getName"), TestBean.class)).containsExactly(nop);
+		assertThat(chainFactoryCalls.get()).isEqualTo(precomputed);
+
+		pf.setFrozen(false);
+		CountingBeforeAdvice cba = new CountingBeforeAdvice();
+		pf.addAdvice(cba);
+		assertThat(proxy.getName()).isEqualTo("tb");
+		assertThat(nop.getCount()).isEqualTo(3);
+		assertThat(cba.getCalls()).isEqualTo(1);
+		assertThat(chainFactoryCalls.get()).isEqualTo(precomputed + 1);
+	}
 
 	@Order(2)
 	public static class A implements Runnable {
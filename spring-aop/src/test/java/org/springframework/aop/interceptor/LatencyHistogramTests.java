@@ -0,0 +1,105 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.interceptor;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests for {@link LatencyHistogram}.
+ *
+ * @author Spring Framework Team
+ */
+class LatencyHistogramTests {
+
+	@Test
+	void bucketsAreContiguous() {
+		for (int i = 0; i < 1000; i++) {
+			long highest = LatencyHistogram.highestValueFor(i);
+			assertThat(LatencyHistogram.indexFor(highest)).isEqualTo(i);
+			assertThat(LatencyHistogram.indexFor(highest + 1)).isEqualTo(i + 1);
+		}
+	}
+
+	@Test
+	void emptySnapshot() {
+		LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+		assertThat(snapshot.getCount()).isEqualTo(0);
+		assertThat(snapshot.getMean()).isEqualTo(0);
+		assertThat(snapshot.getValueAtPercentile(99)).isEqualTo(0);
+	}
+
+	@Test
+	void percentilesWithinPrecision() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (long value = 1; value <= 10000; value++) {
+			histogram.record(value * 1000);
+		}
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		assertThat(snapshot.getCount()).isEqualTo(10000);
+		assertThat(snapshot.getMax()).isEqualTo(10_000_000);
+		assertThat(snapshot.getMean()).isCloseTo(5_000_500, within(0.1));
+		assertThat((double) snapshot.getValueAtPercentile(50)).isCloseTo(5_000_000, within(5_000_000 * 0.035));
+		assertThat((double) snapshot.getValueAtPercentile(99)).isCloseTo(9_900_000, within(9_900_000 * 0.035));
+		assertThat(snapshot.getValueAtPercentile(100)).isEqualTo(10_000_000);
+	}
+
+	@Test
+	void smallValuesAreExact() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(3);
+		histogram.record(42);
+		histogram.record(-1);
+		LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+		assertThat(snapshot.getValueAtPercentile(0)).isEqualTo(0);
+		assertThat(snapshot.getValueAtPercentile(50)).isEqualTo(3);
+		assertThat(snapshot.getValueAtPercentile(100)).isEqualTo(42);
+	}
+
+	@Test
+	void hugeValuesAreClamped() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(Long.MAX_VALUE);
+		assertThat(histogram.snapshot().getMax()).isEqualTo(LatencyHistogram.MAX_TRACKABLE_VALUE);
+		assertThat(histogram.snapshot().getValueAtPercentile(50)).isEqualTo(LatencyHistogram.MAX_TRACKABLE_VALUE);
+	}
+
+	@Test
+	void snapshotSinceEarlierSnapshot() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(1_000_000);
+		LatencyHistogram.Snapshot earlier = histogram.snapshot();
+		histogram.record(10);
+		histogram.record(20);
+		LatencyHistogram.Snapshot interval = histogram.snapshot().since(earlier);
+		assertThat(interval.getCount()).isEqualTo(2);
+		assertThat(interval.getMean()).isEqualTo(15);
+		assertThat(interval.getMax()).isEqualTo(20);
+	}
+
+	@Test
+	void reset() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(100);
+		histogram.reset();
+		assertThat(histogram.snapshot().getCount()).isEqualTo(0);
+		assertThat(histogram.snapshot().getMax()).isEqualTo(0);
+	}
+
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.interceptor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.aopalliance.intercept.MethodInvocation;
+import org.apache.commons.logging.Log;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests for {@link SamplingPerformanceMonitorInterceptor}.
+ *
+ * @author Spring Framework Team
+ */
+class SamplingPerformanceMonitorInterceptorTests {
+
+	private static final String NAME = "java.lang.String.toString";
+
+
+	@Test
+	void recordEveryInvocationByDefault() throws Throwable {
+		MethodInvocation mi = mock(MethodInvocation.class);
+		given(mi.getMethod()).willReturn(String.class.getMethod("toString"));
+		given(mi.proceed()).willReturn("result");
+
+		SamplingPerformanceMonitorInterceptor interceptor = new SamplingPerformanceMonitorInterceptor();
+		for (int i = 0; i < 10; i++) {
+			assertThat(interceptor.invoke(mi)).isEqualTo("result");
+		}
+
+		assertThat(interceptor.getMonitoredMethods()).containsExactly(NAME);
+		assertThat(interceptor.getSampleCount(NAME)).isEqualTo(10);
+		assertThat(interceptor.getLatencyPercentile(NAME, 99)).isGreaterThanOrEqualTo(0);
+		assertThat(interceptor.getLatencySummary()).hasSize(1);
+		assertThat(interceptor.getLatencySummary()[0]).startsWith(NAME + ": count=10");
+	}
+
+	@Test
+	void recordExceptionPath() throws Throwable {
+		MethodInvocation mi = mock(MethodInvocation.class);
+		given(mi.getMethod()).willReturn(String.class.getMethod("toString"));
+		given(mi.proceed()).willThrow(new IllegalArgumentException());
+
+		SamplingPerformanceMonitorInterceptor interceptor = new SamplingPerformanceMonitorInterceptor();
+		assertThatIllegalArgumentException().isThrownBy(() -> interceptor.invoke(mi));
+		assertThat(interceptor.getSampleCount(NAME)).isEqualTo(1);
+	}
+
+	@Test
+	void recordSampleOfInvocations() throws Throwable {
+		MethodInvocation mi = mock(MethodInvocation.class);
+		given(mi.getMethod()).willReturn(String.class.getMethod("toString"));
+
+		SamplingPerformanceMonitorInterceptor interceptor = new SamplingPerformanceMonitorInterceptor();
+		interceptor.setSampleRate(100);
+		for (int i = 0; i < 100000; i++) {
+			interceptor.invoke(mi);
+		}
+
+		verify(mi, times(100000)).proceed();
+		assertThat(interceptor.getSampleCount(NAME)).isBetween(500L, 1500L);
+	}
+
+	@Test
+	void prefixAndSuffix() throws Throwable {
+		MethodInvocation mi = mock(MethodInvocation.class);
+		given(mi.getMethod()).willReturn(String.class.getMethod("toString"));
+
+		SamplingPerformanceMonitorInterceptor interceptor = new SamplingPerformanceMonitorInterceptor();
+		interceptor.setPrefix("app:");
+		interceptor.setSuffix(":v1");
+		interceptor.invoke(mi);
+
+		assertThat(interceptor.getMonitoredMethods()).containsExactly("app:" + NAME + ":v1");
+		assertThat(interceptor.getHistogram("app:" + NAME + ":v1")).isNotNull();
+	}
+
+	@Test
+	void invocationNameCachedPerTargetClass() throws Throwable {
+		MethodInvocation mi = mock(MethodInvocation.class);
+		given(mi.getMethod()).willReturn(CharSequence.class.getMethod("length"));
+		given(mi.getThis()).willReturn("target");
+		AtomicInteger nameCount = new AtomicInteger();
+
+		SamplingPerformanceMonitorInterceptor interceptor = new SamplingPerformanceMonitorInterceptor() {
+			@Override
+			protected String createInvocationTraceName(MethodInvocation invocation) {
+				nameCount.incrementAndGet();
+				return super.createInvocationTraceName(invocation);
+			}
+		};
+		interceptor.setLogTargetClassInvocation(true);
+		for (int i = 0; i < 10; i++) {
+			interceptor.invoke(mi);
+		}
+		assertThat(nameCount.get()).isEqualTo(1);
+
+		given(mi.getThis()).willReturn(new StringBuilder("target"));
+		interceptor.invoke(mi);
+		assertThat(nameCount.get()).isEqualTo(2);
+
+		given(mi.getThis()).willReturn("target");
+		interceptor.invoke(mi);
+		assertThat(nameCount.get()).isEqualTo(2);
+		assertThat(interceptor.getMonitoredMethods()).containsExactly(
+				"java.lang.String.length", "java.lang.StringBuilder.length");
+		assertThat(interceptor.getSampleCount("java.lang.String.length")).isEqualTo(11);
+	}
+
+	@Test
+	void takeSnapshotsOfIntervals() throws Throwable {
+		MethodInvocation mi = mock(MethodInvocation.class);
+		given(mi.getMethod()).willReturn(String.class.getMethod("toString"));
+		Log log = mock(Log.class);
+		given(log.isTraceEnabled()).willReturn(true);
+
+		SamplingPerformanceMonitorInterceptor interceptor = new SamplingPerformanceMonitorInterceptor();
+		interceptor.setLoggerName("test");
+		interceptor.invokeUnderTrace(mi, log);
+		interceptor.invokeUnderTrace(mi, log);
+		interceptor.takeSnapshot();
+		assertThat(interceptor.getLastSnapshot().get(NAME).getCount()).isEqualTo(2);
+
+		interceptor.invokeUnderTrace(mi, log);
+		interceptor.takeSnapshot();
+		assertThat(interceptor.getLastSnapshot().get(NAME).getCount()).isEqualTo(1);
+		assertThat(interceptor.getLastSnapshotSummary()[0]).startsWith(NAME + ": count=1");
+		assertThat(interceptor.getSampleCount(NAME)).isEqualTo(3);
+	}
+
+	@Test
+	void takeSnapshotPeriodically() throws Throwable {
+		MethodInvocation mi = mock(MethodInvocation.class);
+		given(mi.getMethod()).willReturn(String.class.getMethod("toString"));
+		Log log = mock(Log.class);
+		given(log.isTraceEnabled()).willReturn(true);
+
+		SamplingPerformanceMonitorInterceptor interceptor = new SamplingPerformanceMonitorInterceptor();
+		interceptor.setSnapshotInterval(1);
+		interceptor.invokeUnderTrace(mi, log);
+		Thread.sleep(5);
+		interceptor.invokeUnderTrace(mi, log);
+
+		assertThat(interceptor.getLastSnapshot().get(NAME).getCount()).isEqualTo(2);
+		verify(log).trace(anyString());
+	}
+
+	@Test
+	void reset() throws Throwable {
+		MethodInvocation mi = mock(MethodInvocation.class);
+		given(mi.getMethod()).willReturn(String.class.getMethod("toString"));
+
+		SamplingPerformanceMonitorInterceptor interceptor = new SamplingPerformanceMonitorInterceptor();
+		interceptor.invoke(mi);
+		interceptor.reset();
+		assertThat(interceptor.getMonitoredMethods()).isEmpty();
+		assertThat(interceptor.getSampleCount(NAME)).isEqualTo(0);
+	}
+
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.aop.target;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.beans.testfixture.beans.SideEffectBean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link ConcurrentPoolTargetSource}.
+ *
+ * @author Spring Framework Team
+ */
+class ConcurrentPoolTargetSourceTests {
+
+	private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+	private final ConcurrentPoolTargetSource targetSource = new ConcurrentPoolTargetSource();
+
+
+	@BeforeEach
+	void setup() {
+		RootBeanDefinition bd = new RootBeanDefinition(SideEffectBean.class);
+		bd.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+		this.beanFactory.registerBeanDefinition("target", bd);
+		this.targetSource.setTargetBeanName("target");
+	}
+
+	@AfterEach
+	void destroy() {
+		this.targetSource.destroy();
+	}
+
+
+	@Test
+	void reuseLastUsedTargetInSameThread() throws Exception {
+		this.targetSource.setBeanFactory(this.beanFactory);
+
+		Object target = this.targetSource.getTarget();
+		this.targetSource.releaseTarget(target);
+		assertThat(this.targetSource.getTarget()).isSameAs(target);
+		assertThat(this.targetSource.getInvocationCount()).isEqualTo(2);
+		assertThat(this.targetSource.getAffinityHitCount()).isEqualTo(1);
+		assertThat(this.targetSource.getObjectCount()).isEqualTo(1);
+		assertThat(this.targetSource.getActiveCount()).isEqualTo(1);
+		assertThat(this.targetSource.getIdleCount()).isEqualTo(0);
+		this.targetSource.releaseTarget(target);
+		assertThat(this.targetSource.getActiveCount()).isEqualTo(0);
+		assertThat(this.targetSource.getIdleCount()).isEqualTo(1);
+	}
+
+	@Test
+	void nestedTargetsInSameThread() throws Exception {
+		this.targetSource.setBeanFactory(this.beanFactory);
+
+		Object outer = this.targetSource.getTarget();
+		Object inner = this.targetSource.getTarget();
+		assertThat(inner).isNotSameAs(outer);
+		this.targetSource.releaseTarget(inner);
+		this.targetSource.releaseTarget(outer);
+		assertThat(this.targetSource.getObjectCount()).isEqualTo(2);
+		assertThat(this.targetSource.getIdleCount()).isEqualTo(2);
+	}
+
+	@Test
+	void reuseIdleTargetFromOtherThread() throws Exception {
+		this.targetSource.setBeanFactory(this.beanFactory);
+
+		Object target = CompletableFuture.supplyAsync(() -> {
+			try {
+				Object borrowed = this.targetSource.getTarget();
+				this.targetSource.releaseTarget(borrowed);
+				return borrowed;
+			}
+			catch (Exception ex) {
+				throw new IllegalStateException(ex);
+			}
+		}).get();
+		assertThat(this.targetSource.getTarget()).isSameAs(target);
+		assertThat(this.targetSource.getAffinityHitCount()).isEqualTo(0);
+		assertThat(this.targetSource.getObjectCount()).isEqualTo(1);
+		this.targetSource.releaseTarget(target);
+	}
+
+	@Test
+	void hitMaxSize() throws Exception {
+		int maxSize = 3;
+		this.targetSource.setMaxSize(maxSize);
+		this.targetSource.setMaxWait(0);
+		this.targetSource.setBeanFactory(this.beanFactory);
+
+		List<Object> targets = new ArrayList<>();
+		for (int i = 0; i < maxSize; i++) {
+			targets.add(this.targetSource.getTarget());
+		}
+		assertThatExceptionOfType(NoSuchElementException.class).isThrownBy(this.targetSource::getTarget);
+		assertThat(this.targetSource.getTimeoutCount()).isEqualTo(1);
+
+		this.targetSource.releaseTarget(targets.get(0));
+		assertThat(this.targetSource.getTarget()).isSameAs(targets.get(0));
+		for (Object target : targets) {
+			this.targetSource.releaseTarget(target);
+		}
+		assertThat(this.targetSource.getObjectCount()).isEqualTo(maxSize);
+	}
+
+	@Test
+	void waitForReturnedTarget() throws Exception {
+		this.targetSource.setMaxSize(1);
+		this.targetSource.setMaxWait(10000);
+		this.targetSource.setBeanFactory(this.beanFactory);
+
+		Object target = this.targetSource.getTarget();
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try {
+			Future<Object> waiting = executor.submit(() -> this.targetSource.getTarget());
+			while (this.targetSource.getWaitCount() == 0) {
+				Thread.sleep(10);
+			}
+			this.targetSource.releaseTarget(target);
+			assertThat(waiting.get(10, TimeUnit.SECONDS)).isSameAs(target);
+			this.targetSource.releaseTarget(target);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void evictIdleTargets() throws Exception {
+		this.targetSource.setMinEvictableIdleTimeMillis(0);
+		this.targetSource.setBeanFactory(this.beanFactory);
+
+		Object idle = this.targetSource.getTarget();
+		Object active = this.targetSource.getTarget();
+		this.targetSource.releaseTarget(idle);
+		this.targetSource.evictIdleTargets();
+		assertThat(this.targetSource.getEvictionCount()).isEqualTo(1);
+		assertThat(this.targetSource.getObjectCount()).isEqualTo(1);
+
+		this.targetSource.releaseTarget(active);
+		assertThat(this.targetSource.getTarget()).isSameAs(active);
+		this.targetSource.releaseTarget(active);
+	}
+
+	@Test
+	void evictIdleTargetsOnRelease() throws Exception {
+		this.targetSource.setMinEvictableIdleTimeMillis(0);
+		this.targetSource.setTimeBetweenEvictionRunsMillis(1);
+		this.targetSource.setBeanFactory(this.beanFactory);
+
+		Object target = this.targetSource.getTarget();
+		this.targetSource.releaseTarget(target);
+		assertThat(this.targetSource.getEvictionCount()).isEqualTo(1);
+		assertThat(this.targetSource.getObjectCount()).isEqualTo(0);
+		assertThat(this.targetSource.getTarget()).isNotSameAs(target);
+	}
+
+	@Test
+	void releaseUnknownTarget() throws Exception {
+		this.targetSource.setBeanFactory(this.beanFactory);
+
+		assertThatIllegalStateException().isThrownBy(() -> this.targetSource.releaseTarget(new SideEffectBean()));
+		Object target = this.targetSource.getTarget();
+		this.targetSource.releaseTarget(target);
+		assertThatIllegalStateException().isThrownBy(() -> this.targetSource.releaseTarget(target));
+	}
+
+	@Test
+	void concurrentAccessRespectsMaxSize() throws Exception {
+		int maxSize = 4;
+		this.targetSource.setMaxSize(maxSize);
+		this.targetSource.setBeanFactory(this.beanFactory);
+
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				futures.add(executor.submit(() -> {
+					for (int j = 0; j < 1000; j++) {
+						SideEffectBean target = (SideEffectBean) this.targetSource.getTarget();
+						target.doWork();
+						this.targetSource.releaseTarget(target);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get(30, TimeUnit.SECONDS);
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		assertThat(this.targetSource.getInvocationCount()).isEqualTo(8000);
+		assertThat(this.targetSource.getObjectCount()).isLessThanOrEqualTo(maxSize);
+		assertThat(this.targetSource.getActiveCount()).isEqualTo(0);
+	}
+
+	@Test
+	void statsMixin() {
+		this.targetSource.setBeanFactory(this.beanFactory);
+
+		ProxyFactory pf = new ProxyFactory();
+		pf.setProxyTargetClass(true);
+		pf.setTargetSource(this.targetSource);
+		pf.addAdvisor(this.targetSource.getStatsMixin());
+		SideEffectBean proxy = (SideEffectBean) pf.getProxy();
+		proxy.doWork();
+		proxy.doWork();
+		assertThat(proxy.getCount()).isEqualTo(2);
+
+		ConcurrentPoolTargetSourceStats stats = (ConcurrentPoolTargetSourceStats) proxy;
+		assertThat(stats.getObjectCount()).isEqualTo(1);
+		assertThat(stats.getAffinityHitCount()).isGreaterThanOrEqualTo(2);
+	}
+
+}
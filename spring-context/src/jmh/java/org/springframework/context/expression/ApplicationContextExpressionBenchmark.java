@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -52,6 +52,17 @@ public class ApplicationContextExpressionBenchmark {
 			rbd.getConstructorArgumentValues().addGenericArgumentValue("#{systemProperties.name}");
 			rbd.getPropertyValues().add("country", "#{systemProperties.country}");
 			this.context.registerBeanDefinition("test", rbd);
+			RootBeanDefinition spouse = new RootBeanDefinition(TestBean.class);
+			spouse.getPropertyValues().add("name", "sam");
+			spouse.getPropertyValues().add("country", "US");
+			RootBeanDefinition source = new RootBeanDefinition(TestBean.class);
+			source.getPropertyValues().add("spouse", spouse);
+			this.context.registerBeanDefinition("source", source);
+			RootBeanDefinition chained = new RootBeanDefinition(TestBean.class);
+			chained.setScope(BeanDefinition.SCOPE_PROTOTYPE);
+			chained.getConstructorArgumentValues().addGenericArgumentValue("#{source.spouse.name}");
+			chained.getPropertyValues().add("country", "#{source.spouse.country}");
+			this.context.registerBeanDefinition("chained", chained);
 			this.context.refresh();
 		}
 
@@ -68,4 +79,11 @@ public class ApplicationContextExpressionBenchmark {
 		bh.consume(tb.getName());
 		bh.consume(tb.getCountry());
 	}
+
+	@Benchmark
+	public void prototypeCreationWithBeanProperties(BenchmarkState state, Blackhole bh) {
+		TestBean tb = (TestBean) state.context.getBean("chained");
+		bh.consume(tb.getName());
+		bh.consume(tb.getCountry());
+	}
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.expression;
+
+import java.lang.reflect.Method;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.expression.Expression;
+import org.springframework.expression.spel.support.ReusableEvaluationContext;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Benchmark for method-based expression evaluation, comparing a new
+ * {@link MethodBasedEvaluationContext} per evaluation with a per-thread
+ * {@link ReusableEvaluationContext}. Best run with {@code -prof gc}
+ * for a comparison of the allocation rates.
+ *
+ * @author Spring Framework Team
+ */
+@BenchmarkMode(Mode.Throughput)
+public class MethodEvaluationContextBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		public BenchmarkEvaluator evaluator;
+
+		public Method method;
+
+		public Object[] args;
+
+		public Expression expression;
+
+		@Setup
+		public void setup() {
+			this.evaluator = new BenchmarkEvaluator();
+			this.method = ReflectionUtils.findMethod(BenchmarkState.class, "find", String.class, int.class);
+			this.args = new Object[] {"juergen", 42};
+			this.expression = this.evaluator.getParser().parseExpression("#name.length() > 3 and #p1 < 100");
+		}
+
+		public Object find(String name, int age) {
+			return name + age;
+		}
+	}
+
+	@Benchmark
+	public Object methodBasedEvaluationContext(BenchmarkState state) {
+		MethodBasedEvaluationContext context = new MethodBasedEvaluationContext(
+				state, state.method, state.args, state.evaluator.getParameterNameDiscoverer());
+		return state.expression.getValue(context, Boolean.class);
+	}
+
+	@Benchmark
+	public Object reusableEvaluationContext(BenchmarkState state) {
+		ReusableEvaluationContext context = state.evaluator.obtainEvaluationContext(
+				state, state.method, state.args, null);
+		try {
+			return state.expression.getValue(context, Boolean.class);
+		}
+		finally {
+			state.evaluator.releaseEvaluationContext(context);
+		}
+	}
+
+
+	static class BenchmarkEvaluator extends CachedExpressionEvaluator {
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -43,7 +43,6 @@ import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.expression.AnnotatedElementKey;
 import org.springframework.core.BridgeMethodResolver;
-import org.springframework.expression.EvaluationContext;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
@@ -759,9 +758,14 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		protected boolean isConditionPassing(@Nullable Object result) {
 			if (this.conditionPassing == null) {
 				if (StringUtils.hasText(this.metadata.operation.getCondition())) {
-					EvaluationContext evaluationContext = createEvaluationContext(result);
-					this.conditionPassing = evaluator.condition(this.metadata.operation.getCondition(),
-							this.metadata.methodKey, evaluationContext);
+					CacheEvaluationContext evaluationContext = createEvaluationContext(result);
+					try {
+						this.conditionPassing = evaluator.condition(this.metadata.operation.getCondition(),
+								this.metadata.methodKey, evaluationContext);
+					}
+					finally {
+						evaluator.releaseEvaluationContext(evaluationContext);
+					}
 				}
 				else {
 					this.conditionPassing = true;
@@ -779,8 +783,13 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 				unless = ((CachePutOperation) this.metadata.operation).getUnless();
 			}
 			if (StringUtils.hasText(unless)) {
-				EvaluationContext evaluationContext = createEvaluationContext(value);
-				return !evaluator.unless(unless, this.metadata.methodKey, evaluationContext);
+				CacheEvaluationContext evaluationContext = createEvaluationContext(value);
+				try {
+					return !evaluator.unless(unless, this.metadata.methodKey, evaluationContext);
+				}
+				finally {
+					evaluator.releaseEvaluationContext(evaluationContext);
+				}
 			}
 			return true;
 		}
@@ -791,13 +800,18 @@ public abstract class CacheAspectSupport extends AbstractCacheInvoker
 		@Nullable
 		protected Object generateKey(@Nullable Object result) {
 			if (StringUtils.hasText(this.metadata.operation.getKey())) {
-				EvaluationContext evaluationContext = createEvaluationContext(result);
-				return evaluator.key(this.metadata.operation.getKey(), this.metadata.methodKey, evaluationContext);
+				CacheEvaluationContext evaluationContext = createEvaluationContext(result);
+				try {
+					return evaluator.key(this.metadata.operation.getKey(), this.metadata.methodKey, evaluationContext);
+				}
+				finally {
+					evaluator.releaseEvaluationContext(evaluationContext);
+				}
 			}
 			return this.metadata.keyGenerator.generate(this.target, this.metadata.method, this.args);
 		}
 
-		private EvaluationContext createEvaluationContext(@Nullable Object result) {
+		private CacheEvaluationContext createEvaluationContext(@Nullable Object result) {
 			return evaluator.createEvaluationContext(this.caches, this.metadata.method, this.args,
 					this.target, this.metadata.targetClass, this.metadata.targetMethod, result, beanFactory);
 		}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2016 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,41 +16,36 @@
 
 package org.springframework.cache.interceptor;
 
-import java.lang.reflect.Method;
 import java.util.HashSet;
 import java.util.Set;
 
-import org.springframework.context.expression.MethodBasedEvaluationContext;
-import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.spel.support.ReusableEvaluationContext;
 import org.springframework.lang.Nullable;
 
 /**
- * Cache specific evaluation context that adds a method parameters as SpEL
- * variables, in a lazy manner. The lazy nature eliminates unneeded
- * parsing of classes byte code for parameter discovery.
+ * Cache specific evaluation context that exposes the method parameters as SpEL
+ * variables. As of 5.3.5, this is a {@link ReusableEvaluationContext}, reused per
+ * thread by {@link CacheOperationExpressionEvaluator}, with the parameter names
+ * discovered once per method instead of lazily per evaluation.
  *
  * <p>Also define a set of "unavailable variables" (i.e. variables that should
  * lead to an exception right the way when they are accessed). This can be useful
  * to verify a condition does not match even when not all potential variables
  * are present.
  *
- * <p>To limit the creation of objects, an ugly constructor is used
- * (rather then a dedicated 'closure'-like class for deferred execution).
- *
  * @author Costin Leau
  * @author Stephane Nicoll
  * @author Juergen Hoeller
  * @since 3.1
  */
-class CacheEvaluationContext extends MethodBasedEvaluationContext {
+class CacheEvaluationContext extends ReusableEvaluationContext {
 
 	private final Set<String> unavailableVariables = new HashSet<>(1);
 
 
-	CacheEvaluationContext(Object rootObject, Method method, Object[] arguments,
-			ParameterNameDiscoverer parameterNameDiscoverer) {
-
-		super(rootObject, method, arguments, parameterNameDiscoverer);
+	CacheEvaluationContext(EvaluationContext infrastructure) {
+		super(infrastructure);
 	}
 
 
@@ -65,10 +60,18 @@ class CacheEvaluationContext extends MethodBasedEvaluationContext {
 		this.unavailableVariables.add(name);
 	}
 
+	@Override
+	public void reset(@Nullable Object rootObject, String... variableNames) {
+		super.reset(rootObject, variableNames);
+		this.unavailableVariables.clear();
+	}
+
+	@Override
+	public void clear() {
+		super.clear();
+		this.unavailableVariables.clear();
+	}
 
-	/**
-	 * Load the param information only when needed.
-	 */
 	@Override
 	@Nullable
 	public Object lookupVariable(String name) {
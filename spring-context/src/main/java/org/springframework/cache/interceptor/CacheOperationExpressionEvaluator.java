@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,10 +24,10 @@ import java.util.concurrent.ConcurrentHashMap;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.cache.Cache;
 import org.springframework.context.expression.AnnotatedElementKey;
-import org.springframework.context.expression.BeanFactoryResolver;
 import org.springframework.context.expression.CachedExpressionEvaluator;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
+import org.springframework.expression.spel.support.ReusableEvaluationContext;
 import org.springframework.lang.Nullable;
 
 /**
@@ -70,6 +70,8 @@ class CacheOperationExpressionEvaluator extends CachedExpressionEvaluator {
 
 	/**
 	 * Create an {@link EvaluationContext}.
+	 * <p>The returned context is reused per thread: it is to be handed back
+	 * through {@link #releaseEvaluationContext} once the evaluation is done.
 	 * @param caches the current caches
 	 * @param method the method
 	 * @param args the method arguments
@@ -79,26 +81,36 @@ class CacheOperationExpressionEvaluator extends CachedExpressionEvaluator {
 	 * {@link #NO_RESULT} if there is no return at this time
 	 * @return the evaluation context
 	 */
-	public EvaluationContext createEvaluationContext(Collection<? extends Cache> caches,
+	public CacheEvaluationContext createEvaluationContext(Collection<? extends Cache> caches,
 			Method method, Object[] args, Object target, Class<?> targetClass, Method targetMethod,
 			@Nullable Object result, @Nullable BeanFactory beanFactory) {
 
 		CacheExpressionRootObject rootObject = new CacheExpressionRootObject(
 				caches, method, args, target, targetClass);
-		CacheEvaluationContext evaluationContext = new CacheEvaluationContext(
-				rootObject, targetMethod, args, getParameterNameDiscoverer());
+		CacheEvaluationContext evaluationContext = (CacheEvaluationContext)
+				obtainEvaluationContext(rootObject, targetMethod, args, beanFactory);
 		if (result == RESULT_UNAVAILABLE) {
 			evaluationContext.addUnavailableVariable(RESULT_VARIABLE);
 		}
 		else if (result != NO_RESULT) {
 			evaluationContext.setVariable(RESULT_VARIABLE, result);
 		}
-		if (beanFactory != null) {
-			evaluationContext.setBeanResolver(new BeanFactoryResolver(beanFactory));
-		}
 		return evaluationContext;
 	}
 
+	/**
+	 * Overridden for access from {@link CacheAspectSupport}.
+	 */
+	@Override
+	protected void releaseEvaluationContext(ReusableEvaluationContext evaluationContext) {
+		super.releaseEvaluationContext(evaluationContext);
+	}
+
+	@Override
+	protected ReusableEvaluationContext createReusableEvaluationContext(EvaluationContext infrastructure) {
+		return new CacheEvaluationContext(infrastructure);
+	}
+
 	@Nullable
 	public Object key(String keyExpression, AnnotatedElementKey methodKey, EvaluationContext evalContext) {
 		return getExpression(this.keyCache, methodKey, keyExpression).getValue(evalContext);
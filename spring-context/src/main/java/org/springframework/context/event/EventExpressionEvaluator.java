@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,10 +23,9 @@ import java.util.concurrent.ConcurrentHashMap;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.expression.AnnotatedElementKey;
-import org.springframework.context.expression.BeanFactoryResolver;
 import org.springframework.context.expression.CachedExpressionEvaluator;
-import org.springframework.context.expression.MethodBasedEvaluationContext;
 import org.springframework.expression.Expression;
+import org.springframework.expression.spel.support.ReusableEvaluationContext;
 import org.springframework.lang.Nullable;
 
 /**
@@ -50,14 +49,14 @@ class EventExpressionEvaluator extends CachedExpressionEvaluator {
 			AnnotatedElementKey methodKey, Object[] args, @Nullable BeanFactory beanFactory) {
 
 		EventExpressionRootObject root = new EventExpressionRootObject(event, args);
-		MethodBasedEvaluationContext evaluationContext = new MethodBasedEvaluationContext(
-				root, targetMethod, args, getParameterNameDiscoverer());
-		if (beanFactory != null) {
-			evaluationContext.setBeanResolver(new BeanFactoryResolver(beanFactory));
+		ReusableEvaluationContext evaluationContext = obtainEvaluationContext(root, targetMethod, args, beanFactory);
+		try {
+			return (Boolean.TRUE.equals(getExpression(this.conditionCache, methodKey, conditionExpression).getValue(
+					evaluationContext, Boolean.class)));
+		}
+		finally {
+			releaseEvaluationContext(evaluationContext);
 		}
-
-		return (Boolean.TRUE.equals(getExpression(this.conditionCache, methodKey, conditionExpression).getValue(
-				evaluationContext, Boolean.class)));
 	}
 
 }
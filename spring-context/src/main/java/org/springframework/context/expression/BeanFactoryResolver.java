@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -55,4 +55,11 @@ public class BeanFactoryResolver implements BeanResolver {
 		}
 	}
 
+	/**
+	 * Return the {@link BeanFactory} that this resolver operates against.
+	 */
+	BeanFactory getBeanFactory() {
+		return this.beanFactory;
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,20 +16,32 @@
 
 package org.springframework.context.expression;
 
+import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.Map;
 
+import org.springframework.beans.factory.BeanFactory;
 import org.springframework.core.DefaultParameterNameDiscoverer;
+import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.ParameterNameDiscoverer;
+import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.ReusableEvaluationContext;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentReferenceHashMap;
 import org.springframework.util.ObjectUtils;
 
 /**
  * Shared utility class used to evaluate and cache SpEL expressions that
  * are defined on {@link java.lang.reflect.AnnotatedElement}.
  *
+ * <p>As of 5.3.5, evaluation contexts for method invocations may be obtained
+ * per thread through {@link #obtainEvaluationContext}, with shared infrastructure
+ * and precomputed method parameter variables.
+ *
  * @author Stephane Nicoll
  * @since 4.2
  * @see AnnotatedElementKey
@@ -40,6 +52,16 @@ public abstract class CachedExpressionEvaluator {
 
 	private final ParameterNameDiscoverer parameterNameDiscoverer = new DefaultParameterNameDiscoverer();
 
+	private final EvaluationContext sharedInfrastructure = new StandardEvaluationContext();
+
+	private final Map<Method, String[]> variableNamesCache = new ConcurrentReferenceHashMap<>(64);
+
+	private final ThreadLocal<ReusableEvaluationContext> reusableEvaluationContext =
+			new NamedThreadLocal<>("Reusable SpEL EvaluationContext");
+
+	@Nullable
+	private volatile BeanFactoryResolver beanResolver;
+
 
 	/**
 	 * Create a new instance with the specified {@link SpelExpressionParser}.
@@ -73,6 +95,112 @@ public abstract class CachedExpressionEvaluator {
 	}
 
 
+	/**
+	 * Obtain an {@link EvaluationContext} for an invocation of the given method,
+	 * exposing the method arguments as variables in the same way as
+	 * {@link MethodBasedEvaluationContext}.
+	 * <p>The context is reused per thread, unless it is still in use by an outer
+	 * evaluation on the same thread. It is meant to be handed back through
+	 * {@link #releaseEvaluationContext} right after the evaluation.
+	 * @param rootObject the root object to use
+	 * @param method the method to expose the arguments of
+	 * @param args the actual arguments of the invocation
+	 * @param beanFactory the bean factory to resolve bean references against, if any
+	 * @since 5.3.5
+	 */
+	protected ReusableEvaluationContext obtainEvaluationContext(
+			Object rootObject, Method method, Object[] args, @Nullable BeanFactory beanFactory) {
+
+		ReusableEvaluationContext evaluationContext = this.reusableEvaluationContext.get();
+		if (evaluationContext != null) {
+			// Mark as in use for any nested evaluation on the same thread
+			this.reusableEvaluationContext.set(null);
+		}
+		else {
+			evaluationContext = createReusableEvaluationContext(this.sharedInfrastructure);
+		}
+		String[] variableNames = getVariableNames(method);
+		evaluationContext.reset(rootObject, variableNames);
+		exposeArguments(evaluationContext, variableNames.length / 3, args);
+		if (beanFactory != null) {
+			evaluationContext.setBeanResolver(getBeanResolver(beanFactory));
+		}
+		return evaluationContext;
+	}
+
+	/**
+	 * Hand back the given context after an evaluation, allowing for its reuse
+	 * on the current thread.
+	 * <p>The context is {@link ReusableEvaluationContext#clear() cleared} first,
+	 * so that the thread does not keep the root object, the target and the
+	 * arguments of the invocation reachable in between evaluations.
+	 * @param evaluationContext the context obtained from {@link #obtainEvaluationContext}
+	 * @since 5.3.5
+	 */
+	protected void releaseEvaluationContext(ReusableEvaluationContext evaluationContext) {
+		// Do not hold on to the root object and arguments in between evaluations
+		evaluationContext.clear();
+		this.reusableEvaluationContext.set(evaluationContext);
+	}
+
+	/**
+	 * Create a new {@link ReusableEvaluationContext} for the given infrastructure.
+	 * <p>The default implementation creates a plain {@code ReusableEvaluationContext}.
+	 * Can be overridden for custom variable resolution, for example.
+	 * @param infrastructure the shared infrastructure for all contexts of this evaluator
+	 * @since 5.3.5
+	 */
+	protected ReusableEvaluationContext createReusableEvaluationContext(EvaluationContext infrastructure) {
+		return new ReusableEvaluationContext(infrastructure);
+	}
+
+	/**
+	 * Return the variable names for the arguments of the given method, as
+	 * triples of index-based aliases ("aX", "pX") and discovered parameter name.
+	 */
+	private String[] getVariableNames(Method method) {
+		String[] variableNames = this.variableNamesCache.get(method);
+		if (variableNames == null) {
+			String[] paramNames = this.parameterNameDiscoverer.getParameterNames(method);
+			int paramCount = (paramNames != null ? paramNames.length : method.getParameterCount());
+			variableNames = new String[paramCount * 3];
+			for (int i = 0; i < paramCount; i++) {
+				variableNames[i * 3] = "a" + i;
+				variableNames[i * 3 + 1] = "p" + i;
+				variableNames[i * 3 + 2] = (paramNames != null ? paramNames[i] : null);
+			}
+			this.variableNamesCache.put(method, variableNames);
+		}
+		return variableNames;
+	}
+
+	private static void exposeArguments(ReusableEvaluationContext evaluationContext, int paramCount, Object[] args) {
+		int argsCount = (args != null ? args.length : 0);
+		for (int i = 0; i < paramCount; i++) {
+			Object value = null;
+			if (argsCount > paramCount && i == paramCount - 1) {
+				// Expose remaining arguments as vararg array for last parameter
+				value = Arrays.copyOfRange(args, i, argsCount);
+			}
+			else if (argsCount > i) {
+				// Actual argument found - otherwise left as null
+				value = args[i];
+			}
+			evaluationContext.setVariable(i * 3, value);
+			evaluationContext.setVariable(i * 3 + 1, value);
+			evaluationContext.setVariable(i * 3 + 2, value);
+		}
+	}
+
+	private BeanFactoryResolver getBeanResolver(BeanFactory beanFactory) {
+		BeanFactoryResolver beanResolver = this.beanResolver;
+		if (beanResolver == null || beanResolver.getBeanFactory() != beanFactory) {
+			beanResolver = new BeanFactoryResolver(beanFactory);
+			this.beanResolver = beanResolver;
+		}
+		return beanResolver;
+	}
+
 	/**
 	 * Return the {@link Expression} for the specified SpEL value
 	 * <p>Parse the expression if it hasn't been already.
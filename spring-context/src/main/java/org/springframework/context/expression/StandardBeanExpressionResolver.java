@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,7 +16,10 @@
 
 package org.springframework.context.expression;
 
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.springframework.beans.BeansException;
@@ -26,6 +29,7 @@ import org.springframework.beans.factory.config.BeanExpressionResolver;
 import org.springframework.core.convert.ConversionService;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.ParseException;
 import org.springframework.expression.ParserContext;
 import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
@@ -34,6 +38,7 @@ import org.springframework.expression.spel.support.StandardTypeConverter;
 import org.springframework.expression.spel.support.StandardTypeLocator;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentLruCache;
 import org.springframework.util.StringUtils;
 
 /**
@@ -45,6 +50,13 @@ import org.springframework.util.StringUtils;
  * predefined variables with their common bean name, including standard context
  * beans such as "environment", "systemProperties" and "systemEnvironment".
  *
+ * <p>As of 5.3.5, parsed expressions are kept in a cache bounded to
+ * 1024 entries per resolver, i.e. per bean factory,
+ * evicting the least recently used expressions beyond that limit. Expressions
+ * may also be parsed upfront, e.g. for all bean definitions at startup, through
+ * {@link #parseExpressions}: those are retained for the lifetime of the resolver,
+ * independent from the cache limit.
+ *
  * @author Juergen Hoeller
  * @since 3.0
  * @see BeanExpressionContext#getBeanFactory()
@@ -60,6 +72,9 @@ public class StandardBeanExpressionResolver implements BeanExpressionResolver {
 	/** Default expression suffix: "}". */
 	public static final String DEFAULT_EXPRESSION_SUFFIX = "}";
 
+	/** Maximum number of parsed expressions to cache. */
+	private static final int EXPRESSION_CACHE_LIMIT = 1024;
+
 
 	private String expressionPrefix = DEFAULT_EXPRESSION_PREFIX;
 
@@ -67,7 +82,10 @@ public class StandardBeanExpressionResolver implements BeanExpressionResolver {
 
 	private ExpressionParser expressionParser;
 
-	private final Map<String, Expression> expressionCache = new ConcurrentHashMap<>(256);
+	private final ConcurrentLruCache<String, Expression> expressionCache =
+			new ConcurrentLruCache<>(EXPRESSION_CACHE_LIMIT, this::parseExpression);
+
+	private final Map<String, Expression> preparsedExpressions = new ConcurrentHashMap<>(256);
 
 	private final Map<BeanExpressionContext, StandardEvaluationContext> evaluationCache = new ConcurrentHashMap<>(8);
 
@@ -142,11 +160,7 @@ public class StandardBeanExpressionResolver implements BeanExpressionResolver {
 			return value;
 		}
 		try {
-			Expression expr = this.expressionCache.get(value);
-			if (expr == null) {
-				expr = this.expressionParser.parseExpression(value, this.beanExpressionParserContext);
-				this.expressionCache.put(value, expr);
-			}
+			Expression expr = getExpression(value);
 			StandardEvaluationContext sec = this.evaluationCache.get(evalContext);
 			if (sec == null) {
 				sec = new StandardEvaluationContext(evalContext);
@@ -170,6 +184,45 @@ public class StandardBeanExpressionResolver implements BeanExpressionResolver {
 		}
 	}
 
+	/**
+	 * Parse the given expression strings upfront, in parallel: e.g. all expressions
+	 * declared in the bean definitions of a factory, before the instantiation of its
+	 * singletons. Subsequent {@link #evaluate} calls for the same expression strings
+	 * will find the parsed expressions, which are not subject to the cache limit.
+	 * <p>Duplicates as well as values without the expression prefix are skipped.
+	 * Parse failures are ignored here, to be reported when the corresponding
+	 * expression actually gets evaluated.
+	 * @param values the expression strings to parse
+	 * @return the number of distinct expressions parsed
+	 * @since 5.3.5
+	 */
+	public int parseExpressions(Collection<String> values) {
+		Set<String> expressions = new LinkedHashSet<>();
+		for (String value : values) {
+			if (value != null && value.contains(this.expressionPrefix)) {
+				expressions.add(value);
+			}
+		}
+		expressions.parallelStream().forEach(value -> {
+			try {
+				this.preparsedExpressions.put(value, parseExpression(value));
+			}
+			catch (ParseException ex) {
+				// To be reported on evaluation of the corresponding bean definition value
+			}
+		});
+		return expressions.size();
+	}
+
+	private Expression getExpression(String value) {
+		Expression expr = this.preparsedExpressions.get(value);
+		return (expr != null ? expr : this.expressionCache.get(value));
+	}
+
+	private Expression parseExpression(String value) {
+		return this.expressionParser.parseExpression(value, this.beanExpressionParserContext);
+	}
+
 	/**
 	 * Template method for customizing the expression evaluation context.
 	 * <p>The default implementation is empty.
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -157,6 +157,15 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 	 */
 	public static final String APPLICATION_EVENT_MULTICASTER_BEAN_NAME = "applicationEventMulticaster";
 
+	/**
+	 * System property that instructs Spring to parse all SpEL expressions in bean
+	 * definitions upfront, before the instantiation of singletons: {@value}.
+	 * <p>The default is "false".
+	 * @since 5.3.5
+	 * @see #setPreparseBeanExpressions
+	 */
+	public static final String PREPARSE_BEAN_EXPRESSIONS_PROPERTY_NAME = "spring.context.expressions.preparse";
+
 	/**
 	 * Boolean flag controlled by a {@code spring.spel.ignore} system property that instructs Spring to
 	 * ignore SpEL, i.e. to not initialize the SpEL infrastructure.
@@ -239,6 +248,9 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 	/** Application startup metrics. **/
 	private ApplicationStartup applicationStartup = ApplicationStartup.DEFAULT;
 
+	/** Whether to parse bean definition expressions before singleton instantiation. */
+	private boolean preparseBeanExpressions = SpringProperties.getFlag(PREPARSE_BEAN_EXPRESSIONS_PROPERTY_NAME);
+
 	/** Statically specified listeners. */
 	private final Set<ApplicationListener<?>> applicationListeners = new LinkedHashSet<>();
 
@@ -468,6 +480,22 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		return this.applicationStartup;
 	}
 
+	/**
+	 * Specify whether to parse all SpEL expressions in bean definitions upfront:
+	 * that is, the distinct expressions among all bean definition values and all
+	 * {@code @Value} declarations on bean classes, parsed in parallel before the
+	 * instantiation of singletons and reported as a
+	 * {@code spring.context.expressions.parse} step to the {@link ApplicationStartup}.
+	 * <p>The default is "false", unless the {@value #PREPARSE_BEAN_EXPRESSIONS_PROPERTY_NAME}
+	 * system property is set to "true". This is only worth enabling for contexts with
+	 * a large number of (possibly identical) expressions.
+	 * @since 5.3.5
+	 * @see org.springframework.context.expression.StandardBeanExpressionResolver#parseExpressions
+	 */
+	public void setPreparseBeanExpressions(boolean preparseBeanExpressions) {
+		this.preparseBeanExpressions = preparseBeanExpressions;
+	}
+
 	/**
 	 * Return the internal LifecycleProcessor used by the context.
 	 * @return the internal LifecycleProcessor (never {@code null})
@@ -1029,6 +1057,11 @@ public abstract class AbstractApplicationContext extends DefaultResourceLoader
 		// Allow for caching all bean definition metadata, not expecting further changes.
 		beanFactory.freezeConfiguration();
 
+		// Parse all bean definition expressions upfront, if demanded.
+		if (this.preparseBeanExpressions && !shouldIgnoreSpel) {
+			BeanExpressionPreparser.preparseExpressions(beanFactory);
+		}
+
 		// Instantiate all remaining (non-lazy-init) singletons.
 		/**---ZGQ---
 		 * 对单例非懒加载的bean进行实例化
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.context.support;
+
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Parameter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.PropertyValue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinitionHolder;
+import org.springframework.beans.factory.config.BeanExpressionResolver;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.config.ConstructorArgumentValues;
+import org.springframework.beans.factory.config.TypedStringValue;
+import org.springframework.context.expression.StandardBeanExpressionResolver;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.core.annotation.MergedAnnotation;
+import org.springframework.core.annotation.MergedAnnotations;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Delegate for AbstractApplicationContext's upfront parsing of bean definition
+ * expressions: collecting the values of all bean definitions (class names,
+ * property values, constructor arguments) and all {@link Value @Value}
+ * declarations on bean classes, and parsing the distinct expressions among
+ * them in parallel before the instantiation of singletons.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ * @see AbstractApplicationContext#setPreparseBeanExpressions
+ * @see StandardBeanExpressionResolver#parseExpressions
+ */
+final class BeanExpressionPreparser {
+
+	private BeanExpressionPreparser() {
+	}
+
+
+	public static void preparseExpressions(ConfigurableListableBeanFactory beanFactory) {
+		BeanExpressionResolver resolver = beanFactory.getBeanExpressionResolver();
+		if (!(resolver instanceof StandardBeanExpressionResolver)) {
+			return;
+		}
+
+		StartupStep parseExpressions = beanFactory.getApplicationStartup().start("spring.context.expressions.parse");
+		List<String> values = new ArrayList<>();
+		for (String beanName : beanFactory.getBeanDefinitionNames()) {
+			BeanDefinition bd = beanFactory.getMergedBeanDefinition(beanName);
+			collectFromBeanDefinition(bd, values);
+			if (!bd.isAbstract()) {
+				try {
+					Class<?> beanType = beanFactory.getType(beanName, false);
+					if (beanType != null) {
+						collectFromValueAnnotations(ClassUtils.getUserClass(beanType), beanFactory, values);
+					}
+				}
+				catch (BeansException ex) {
+					// Bean type not determinable - to be reported on bean creation
+				}
+			}
+		}
+		int expressionCount = ((StandardBeanExpressionResolver) resolver).parseExpressions(values);
+		parseExpressions.tag("values", String.valueOf(values.size()))
+				.tag("expressions", String.valueOf(expressionCount)).end();
+	}
+
+	private static void collectFromBeanDefinition(BeanDefinition bd, List<String> values) {
+		collectFromValue(bd.getBeanClassName(), values);
+		for (PropertyValue pv : bd.getPropertyValues().getPropertyValues()) {
+			collectFromValue(pv.getValue(), values);
+		}
+		ConstructorArgumentValues cav = bd.getConstructorArgumentValues();
+		for (ConstructorArgumentValues.ValueHolder valueHolder : cav.getIndexedArgumentValues().values()) {
+			collectFromValue(valueHolder.getValue(), values);
+		}
+		for (ConstructorArgumentValues.ValueHolder valueHolder : cav.getGenericArgumentValues()) {
+			collectFromValue(valueHolder.getValue(), values);
+		}
+	}
+
+	private static void collectFromValue(@Nullable Object value, List<String> values) {
+		if (value instanceof String) {
+			values.add((String) value);
+		}
+		else if (value instanceof TypedStringValue) {
+			collectFromValue(((TypedStringValue) value).getValue(), values);
+		}
+		else if (value instanceof BeanDefinitionHolder) {
+			collectFromBeanDefinition(((BeanDefinitionHolder) value).getBeanDefinition(), values);
+		}
+		else if (value instanceof BeanDefinition) {
+			collectFromBeanDefinition((BeanDefinition) value, values);
+		}
+		else if (value instanceof Collection) {
+			for (Object element : (Collection<?>) value) {
+				collectFromValue(element, values);
+			}
+		}
+		else if (value instanceof Map) {
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+				collectFromValue(entry.getKey(), values);
+				collectFromValue(entry.getValue(), values);
+			}
+		}
+	}
+
+	private static void collectFromValueAnnotations(
+			Class<?> beanType, ConfigurableListableBeanFactory beanFactory, List<String> values) {
+
+		if (!AnnotationUtils.isCandidateClass(beanType, Value.class)) {
+			return;
+		}
+		ReflectionUtils.doWithFields(beanType, field -> collectFromValueAnnotation(field, beanFactory, values));
+		ReflectionUtils.doWithMethods(beanType, method -> {
+			collectFromValueAnnotation(method, beanFactory, values);
+			collectFromParameters(method, beanFactory, values);
+		});
+		for (Constructor<?> ctor : beanType.getDeclaredConstructors()) {
+			collectFromParameters(ctor, beanFactory, values);
+		}
+	}
+
+	private static void collectFromParameters(
+			Executable executable, ConfigurableListableBeanFactory beanFactory, List<String> values) {
+
+		for (Parameter parameter : executable.getParameters()) {
+			collectFromValueAnnotation(parameter, beanFactory, values);
+		}
+	}
+
+	private static void collectFromValueAnnotation(
+			AnnotatedElement element, ConfigurableListableBeanFactory beanFactory, List<String> values) {
+
+		MergedAnnotation<Value> annotation = MergedAnnotations.from(element).get(Value.class);
+		if (annotation.isPresent()) {
+			try {
+				// Same placeholder resolution as for injection, before expression evaluation
+				collectFromValue(beanFactory.resolveEmbeddedValue(annotation.getString("value")), values);
+			}
+			catch (IllegalArgumentException ex) {
+				// Unresolvable placeholder - to be reported on injection
+			}
+		}
+	}
+
+}
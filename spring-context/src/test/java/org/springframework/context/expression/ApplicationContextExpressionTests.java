@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,6 +25,10 @@ import java.net.URI;
 import java.net.URL;
 import java.security.AccessControlException;
 import java.security.Permission;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
 
@@ -37,6 +41,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanExpressionContext;
 import org.springframework.beans.factory.config.Scope;
 import org.springframework.beans.factory.config.TypedStringValue;
 import org.springframework.beans.factory.support.AutowireCandidateQualifier;
@@ -53,6 +58,10 @@ import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.EncodedResource;
 import org.springframework.core.testfixture.io.SerializationTestUtils;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ParserContext;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.lang.Nullable;
 import org.springframework.util.FileCopyUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -295,6 +304,62 @@ class ApplicationContextExpressionTests {
 		ac.close();
 	}
 
+	@Test
+	void preparseBeanExpressions() {
+		List<String> parsedValues = new ArrayList<>();
+		AnnotationConfigApplicationContext ac = new AnnotationConfigApplicationContext();
+		ac.setPreparseBeanExpressions(true);
+		ac.addBeanFactoryPostProcessor(beanFactory -> beanFactory.setBeanExpressionResolver(
+				new StandardBeanExpressionResolver(beanFactory.getBeanClassLoader()) {
+					@Override
+					public int parseExpressions(Collection<String> values) {
+						parsedValues.addAll(values);
+						int count = super.parseExpressions(values);
+						assertThat(count).isEqualTo(3);
+						return count;
+					}
+				}));
+
+		GenericBeanDefinition bd = new GenericBeanDefinition();
+		bd.setBeanClass(TestBean.class);
+		bd.getPropertyValues().add("name", "#{systemProperties['java.version']}");
+		bd.getPropertyValues().add("touchy", "#{'touchy'.length()}");
+		ac.registerBeanDefinition("tb1", bd);
+		GenericBeanDefinition bd2 = new GenericBeanDefinition(bd);
+		bd2.getPropertyValues().add("name", new TypedStringValue("#{systemProperties['java.version']}"));
+		ac.registerBeanDefinition("tb2", bd2);
+		ac.registerBean(PrototypeTestBean.class, def -> def.setScope(BeanDefinition.SCOPE_PROTOTYPE));
+		ac.refresh();
+
+		assertThat(parsedValues).contains("#{'touchy'.length()}", "#{systemProperties.name}");
+		assertThat(parsedValues).filteredOn("#{systemProperties['java.version']}"::equals).hasSize(2);
+		assertThat(ac.getBean("tb1", TestBean.class).getName()).isEqualTo(System.getProperty("java.version"));
+		assertThat(ac.getBean("tb2", TestBean.class).getTouchy()).isEqualTo("6");
+		ac.close();
+	}
+
+	@Test
+	void preparsedBeanExpressionsNotEvicted() {
+		List<String> parsedValues = new ArrayList<>();
+		SpelExpressionParser parser = new SpelExpressionParser() {
+			@Override
+			public Expression parseExpression(String expressionString, @Nullable ParserContext context) {
+				parsedValues.add(expressionString);
+				return super.parseExpression(expressionString, context);
+			}
+		};
+		StandardBeanExpressionResolver resolver = new StandardBeanExpressionResolver();
+		resolver.setExpressionParser(parser);
+		BeanExpressionContext context = new BeanExpressionContext(new DefaultListableBeanFactory(), null);
+
+		assertThat(resolver.parseExpressions(Collections.singletonList("#{'preparsed'}"))).isEqualTo(1);
+		for (int i = 0; i < 2048; i++) {
+			assertThat(resolver.evaluate("#{" + i + "}", context)).isEqualTo(i);
+		}
+		assertThat(resolver.evaluate("#{'preparsed'}", context)).isEqualTo("preparsed");
+		assertThat(parsedValues).filteredOn("#{'preparsed'}"::equals).hasSize(1);
+	}
+
 	@Test
 	void resourceInjection() throws IOException {
 		System.setProperty("logfile", "do_not_delete_me.txt");
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,7 +23,9 @@ import java.util.concurrent.ConcurrentHashMap;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.expression.Expression;
+import org.springframework.expression.TypedValue;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.ReusableEvaluationContext;
 import org.springframework.util.ReflectionUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -66,6 +68,35 @@ public class CachedExpressionEvaluatorTests {
 		assertThat(expressionEvaluator.testCache.size()).as("Cached expression should be based on type").isEqualTo(2);
 	}
 
+	@Test
+	public void reuseEvaluationContextPerThread() {
+		Method method = ReflectionUtils.findMethod(getClass(), "sampleMethod", String.class, int.class);
+		ReusableEvaluationContext context = expressionEvaluator.obtainEvaluationContext(
+				this, method, new Object[] {"abc", 3}, null);
+		Expression expression = new SpelExpressionParser().parseExpression("#a0 + #p1 + #name + #count");
+		assertThat(expression.getValue(context)).isEqualTo("abc3abc3");
+
+		ReusableEvaluationContext nestedContext = expressionEvaluator.obtainEvaluationContext(
+				this, method, new Object[] {"def", 4}, null);
+		assertThat(nestedContext).isNotSameAs(context);
+		assertThat(expression.getValue(nestedContext)).isEqualTo("def4def4");
+		expressionEvaluator.releaseEvaluationContext(nestedContext);
+		assertThat(expression.getValue(context)).isEqualTo("abc3abc3");
+		expressionEvaluator.releaseEvaluationContext(context);
+		assertThat(context.getRootObject()).isSameAs(TypedValue.NULL);
+		assertThat(context.lookupVariable("a0")).isNull();
+		assertThat(context.lookupVariable("name")).isNull();
+
+		ReusableEvaluationContext reusedContext = expressionEvaluator.obtainEvaluationContext(
+				this, method, new Object[] {"ghi"}, null);
+		assertThat(reusedContext).isSameAs(context);
+		assertThat(expression.getValue(reusedContext)).isEqualTo("ghinullghinull");
+	}
+
+	String sampleMethod(String name, int count) {
+		return name + count;
+	}
+
 	private void hasParsedExpression(String expression) {
 		verify(expressionEvaluator.getParser(), times(1)).parseExpression(expression);
 	}
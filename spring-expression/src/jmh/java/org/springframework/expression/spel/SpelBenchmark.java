@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,20 +16,38 @@
 
 package org.springframework.expression.spel;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
 
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.BenchmarkMode;
 import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
 
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.Expression;
 import org.springframework.expression.ExpressionParser;
+import org.springframework.expression.ParserContext;
+import org.springframework.expression.common.CompositeStringExpression;
+import org.springframework.expression.spel.standard.SpelExpression;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.expression.spel.testresources.Inventor;
 
 /**
  * Benchmarks for parsing and executing SpEL expressions.
@@ -103,4 +121,219 @@ public class SpelBenchmark {
 		return data.expression.getValue(data.context);
 	}
 
+	@State(Scope.Benchmark)
+	public static class CollectionBenchmarkData {
+
+		@Param({"OFF", "IMMEDIATE"})
+		public SpelCompilerMode compilerMode;
+
+		@Param({"numbers.?[#this > 50]", "numbers.![#this * 2]", "{'size':numbers.size(),'first':numbers[0]}",
+				"numbers[#index]", "map[#key]"})
+		public String expressionString;
+
+		public StandardEvaluationContext context;
+
+		public Expression expression;
+
+		@Setup
+		public void setup() {
+			this.context = new StandardEvaluationContext(new CollectionHolder());
+			this.context.setVariable("index", 42);
+			this.context.setVariable("key", "key42");
+			ExpressionParser parser = new SpelExpressionParser(
+					new SpelParserConfiguration(this.compilerMode, getClass().getClassLoader()));
+			this.expression = parser.parseExpression(this.expressionString);
+		}
+	}
+
+	public static class CollectionHolder {
+
+		public List<Integer> numbers = new ArrayList<>();
+
+		public Map<String, Integer> map = new HashMap<>();
+
+		public CollectionHolder() {
+			for (int i = 0; i < 100; i++) {
+				this.numbers.add(i);
+				this.map.put("key" + i, i);
+			}
+		}
+	}
+
+	@Benchmark
+	public Object collectionExpression(CollectionBenchmarkData data) {
+		return data.expression.getValue(data.context);
+	}
+
+	@State(Scope.Benchmark)
+	public static class PropertyAccessorBenchmarkData {
+
+		public StandardEvaluationContext context;
+
+		public Expression expression;
+
+		@Setup
+		public void setup() {
+			this.context = TestScenarioCreator.getTestEvaluationContext();
+			this.context.setVariable("suffix", "!");
+			// Not compilable due to the variable reference
+			this.expression = new SpelExpressionParser().parseExpression("placeOfBirth.city + #suffix");
+		}
+	}
+
+	@Benchmark
+	public Object interpretedPropertyAccess(PropertyAccessorBenchmarkData data) {
+		return data.expression.getValue(data.context);
+	}
+
+	@State(Scope.Benchmark)
+	public static class TemplateBenchmarkData {
+
+		@Param({"OFF", "IMMEDIATE"})
+		public SpelCompilerMode compilerMode;
+
+		public EvaluationContext context;
+
+		public CompositeStringExpression template;
+
+		public StringBuilder out = new StringBuilder(256);
+
+		@Setup
+		public void setup() {
+			this.context = TestScenarioCreator.getTestEvaluationContext();
+			SpelExpressionParser parser = new SpelExpressionParser(
+					new SpelParserConfiguration(this.compilerMode, getClass().getClassLoader()));
+			this.template = (CompositeStringExpression) parser.parseExpression(
+					"Dear #{name}, born in #{placeOfBirth.city}: your first invention #{inventions[0]} " +
+					"has #{inventions[0].length()} characters (#{name.length() > 5})!", ParserContext.TEMPLATE_EXPRESSION);
+			for (int i = 0; i < 3; i++) {
+				this.template.getValue(this.context);
+			}
+		}
+	}
+
+	@Benchmark
+	public Object templateRendering(TemplateBenchmarkData data) {
+		return data.template.getValue(data.context);
+	}
+
+	@Benchmark
+	public Object templateWriting(TemplateBenchmarkData data) throws IOException {
+		data.out.setLength(0);
+		data.template.writeValue(data.context, data.out);
+		return data.out;
+	}
+
+	@State(Scope.Benchmark)
+	public static class BatchBenchmarkData {
+
+		@Param({"OFF", "IMMEDIATE"})
+		public SpelCompilerMode compilerMode;
+
+		@Param({"1000", "100000"})
+		public int size;
+
+		public EvaluationContext context;
+
+		public SpelExpression expression;
+
+		public List<Inventor> inventors = new ArrayList<>();
+
+		@Setup
+		public void setup() {
+			this.context = new StandardEvaluationContext();
+			SpelExpressionParser parser = new SpelExpressionParser(
+					new SpelParserConfiguration(this.compilerMode, getClass().getClassLoader()));
+			this.expression = parser.parseRaw("name.length() > 12");
+			for (int i = 0; i < this.size; i++) {
+				this.inventors.add(new Inventor("Inventor " + i, null, "Serbian"));
+			}
+			for (int i = 0; i < 3; i++) {
+				this.expression.getValue(this.context, this.inventors.get(0), Boolean.class);
+			}
+		}
+	}
+
+	@Benchmark
+	public Object loopedFilter(BatchBenchmarkData data) {
+		List<Inventor> result = new ArrayList<>();
+		for (Inventor inventor : data.inventors) {
+			if (Boolean.TRUE.equals(data.expression.getValue(data.context, inventor, Boolean.class))) {
+				result.add(inventor);
+			}
+		}
+		return result;
+	}
+
+	@Benchmark
+	public Object batchFilter(BatchBenchmarkData data) {
+		return data.expression.filter(data.context, data.inventors);
+	}
+
+	@Benchmark
+	public Object parallelBatchFilter(BatchBenchmarkData data) {
+		return data.expression.filter(data.context, data.inventors, ForkJoinPool.commonPool());
+	}
+
+	@State(Scope.Benchmark)
+	public static class PolymorphicBenchmarkData {
+
+		@Param({"2", "4", "8"})
+		public int receiverTypes;
+
+		public EvaluationContext context = new StandardEvaluationContext();
+
+		public Expression expression = new SpelExpressionParser().parseExpression("size()");
+
+		public Object[] receivers;
+
+		@Setup
+		public void setup() {
+			Object[] candidates = new Object[] {new ArrayList<>(), new LinkedList<>(), new HashSet<>(),
+					new TreeSet<>(), new ArrayDeque<>(), new HashMap<>(), new TreeMap<>(), new LinkedHashMap<>()};
+			this.receivers = Arrays.copyOf(candidates, this.receiverTypes);
+		}
+	}
+
+	@Benchmark
+	public void polymorphicMethodInvocation(PolymorphicBenchmarkData data, Blackhole bh) {
+		for (Object receiver : data.receivers) {
+			bh.consume(data.expression.getValue(data.context, receiver));
+		}
+	}
+
+	/**
+	 * Numeric rule evaluation in interpreted mode: best run with {@code -prof gc}
+	 * for the allocation per evaluation.
+	 */
+	@State(Scope.Benchmark)
+	public static class NumericBenchmarkData {
+
+		@Param({"(quantity * 3 + 7) % 100 < limit and quantity - 2 >= 0",
+				"quantity * 2 == limit or quantity / 4 > 10"})
+		public String expressionString;
+
+		public EvaluationContext context;
+
+		public Expression expression;
+
+		@Setup
+		public void setup() {
+			this.context = new StandardEvaluationContext(new NumericHolder());
+			this.expression = new SpelExpressionParser().parseExpression(this.expressionString);
+		}
+	}
+
+	public static class NumericHolder {
+
+		public int quantity = 42;
+
+		public int limit = 84;
+	}
+
+	@Benchmark
+	public Object numericRuleEvaluation(NumericBenchmarkData data) {
+		return data.expression.getValue(data.context);
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.expression.common;
 
+import java.io.IOException;
+
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.expression.EvaluationContext;
 import org.springframework.expression.EvaluationException;
@@ -143,6 +145,45 @@ public class CompositeStringExpression implements Expression {
 		return ExpressionUtils.convertTypedValue(context, new TypedValue(value), desiredResultType);
 	}
 
+	/**
+	 * Evaluate this template in the given context and write the result
+	 * to the given {@link Appendable}, part by part.
+	 * @param context the context in which to evaluate the expression parts
+	 * @param out the {@code Appendable} to write to
+	 * @throws IOException if thrown by the given {@code Appendable}
+	 * @since 5.3.5
+	 * @see #getValue(EvaluationContext)
+	 */
+	public void writeValue(EvaluationContext context, Appendable out) throws EvaluationException, IOException {
+		for (Expression expression : this.expressions) {
+			String value = expression.getValue(context, String.class);
+			if (value != null) {
+				out.append(value);
+			}
+		}
+	}
+
+	/**
+	 * Evaluate this template in the given context against the given root object
+	 * and write the result to the given {@link Appendable}, part by part.
+	 * @param context the context in which to evaluate the expression parts
+	 * @param rootObject the root object against which to evaluate the expression parts
+	 * @param out the {@code Appendable} to write to
+	 * @throws IOException if thrown by the given {@code Appendable}
+	 * @since 5.3.5
+	 * @see #getValue(EvaluationContext, Object)
+	 */
+	public void writeValue(EvaluationContext context, @Nullable Object rootObject, Appendable out)
+			throws EvaluationException, IOException {
+
+		for (Expression expression : this.expressions) {
+			String value = expression.getValue(context, rootObject, String.class);
+			if (value != null) {
+				out.append(value);
+			}
+		}
+	}
+
 	@Override
 	public Class<?> getValueType() {
 		return String.class;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -64,10 +64,24 @@ public abstract class TemplateAwareExpressionParser implements ExpressionParser
 			return expressions[0];
 		}
 		else {
-			return new CompositeStringExpression(expressionString, expressions);
+			return createCompositeStringExpression(expressionString, expressions);
 		}
 	}
 
+	/**
+	 * Create a {@link CompositeStringExpression} for the given template parts.
+	 * <p>The default implementation creates a plain {@code CompositeStringExpression}.
+	 * Can be overridden for a specialized variant, e.g. with compilation support.
+	 * @param expressionString the original template string
+	 * @param expressions the parsed parts of the template
+	 * @since 5.3.5
+	 */
+	protected CompositeStringExpression createCompositeStringExpression(
+			String expressionString, Expression[] expressions) {
+
+		return new CompositeStringExpression(expressionString, expressions);
+	}
+
 	/**
 	 * Helper that parses given expression string using the configured parser. The
 	 * expression string can contain any number of expressions all contained in "${...}"
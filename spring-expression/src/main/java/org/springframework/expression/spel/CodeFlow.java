@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2018 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,6 +24,7 @@ import java.util.Deque;
 import java.util.List;
 
 import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
 import org.springframework.asm.MethodVisitor;
 import org.springframework.asm.Opcodes;
 import org.springframework.lang.Nullable;
@@ -85,9 +86,16 @@ public class CodeFlow implements Opcodes {
 
 	/**
 	 * When code generation requires an intermediate variable within a method,
-	 * this method records the next available variable (variable 0 is 'this').
+	 * this method records the next available variable (variable 0 is 'this',
+	 * variables 1 and 2 are the target and the evaluation context).
 	 */
-	private int nextFreeVariableId = 1;
+	private int nextFreeVariableId = 3;
+
+	/**
+	 * Local variables holding the active context object for nested evaluation,
+	 * e.g. the current element of a collection being iterated over.
+	 */
+	private final Deque<Integer> activeContextVariables = new ArrayDeque<>();
 
 
 	/**
@@ -105,11 +113,13 @@ public class CodeFlow implements Opcodes {
 
 	/**
 	 * Push the byte code to load the target (i.e. what was passed as the first argument
-	 * to CompiledExpression.getValue(target, context))
+	 * to CompiledExpression.getValue(target, context)), or the current element when
+	 * called from within the body of a loop generated by {@link #insertIterableLoop}.
 	 * @param mv the visitor into which the load instruction should be inserted
 	 */
 	public void loadTarget(MethodVisitor mv) {
-		mv.visitVarInsn(ALOAD, 1);
+		Integer activeContextVariable = this.activeContextVariables.peek();
+		mv.visitVarInsn(ALOAD, (activeContextVariable != null ? activeContextVariable : 1));
 	}
 
 	/**
@@ -169,6 +179,43 @@ public class CodeFlow implements Opcodes {
 		}
 	}
 
+	/**
+	 * Insert a loop over the elements of the {@link Iterable} on top of the stack,
+	 * consuming it. Each element is stored in a new local variable which serves as
+	 * the target (see {@link #loadTarget}) for the code of the given loop body.
+	 * <p>The loop body is expected to leave the stack as it found it. It may leave
+	 * the loop early by jumping to a label placed after the loop by the caller.
+	 * @param mv the visitor into which the loop should be inserted
+	 * @param loopBody the generator for the body of the loop
+	 * @since 5.3.5
+	 */
+	public void insertIterableLoop(MethodVisitor mv, LoopBodyAdder loopBody) {
+		int iteratorVariable = nextFreeVariableId();
+		int elementVariable = nextFreeVariableId();
+		Label loopStart = new Label();
+		Label loopEnd = new Label();
+
+		mv.visitMethodInsn(INVOKEINTERFACE, "java/lang/Iterable", "iterator", "()Ljava/util/Iterator;", true);
+		mv.visitVarInsn(ASTORE, iteratorVariable);
+		mv.visitLabel(loopStart);
+		mv.visitVarInsn(ALOAD, iteratorVariable);
+		mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Iterator", "hasNext", "()Z", true);
+		mv.visitJumpInsn(IFEQ, loopEnd);
+		mv.visitVarInsn(ALOAD, iteratorVariable);
+		mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Iterator", "next", "()Ljava/lang/Object;", true);
+		mv.visitVarInsn(ASTORE, elementVariable);
+
+		this.activeContextVariables.push(elementVariable);
+		try {
+			loopBody.generateCode(mv, this);
+		}
+		finally {
+			this.activeContextVariables.pop();
+		}
+		mv.visitJumpInsn(GOTO, loopStart);
+		mv.visitLabel(loopEnd);
+	}
+
 	/**
 	 * Called after the main expression evaluation method has been generated, this
 	 * method will callback any registered FieldAdders or ClinitAdders to add any
@@ -524,8 +571,25 @@ public class CodeFlow implements Opcodes {
 		if (value == null) {
 			return "Ljava/lang/Object";
 		}
+		// Common operand types: avoid building the descriptor String for every evaluation
+		Class<?> type = value.getClass();
+		if (type == Integer.class) {
+			return "Ljava/lang/Integer";
+		}
+		else if (type == Long.class) {
+			return "Ljava/lang/Long";
+		}
+		else if (type == Double.class) {
+			return "Ljava/lang/Double";
+		}
+		else if (type == String.class) {
+			return "Ljava/lang/String";
+		}
+		else if (type == Boolean.class) {
+			return "Ljava/lang/Boolean";
+		}
 		else {
-			return toDescriptor(value.getClass());
+			return toDescriptor(type);
 		}
 	}
 
@@ -1060,4 +1124,16 @@ public class CodeFlow implements Opcodes {
 		void generateCode(MethodVisitor mv, CodeFlow codeflow);
 	}
 
+
+	/**
+	 * Interface used to generate the body of a loop.
+	 * @since 5.3.5
+	 * @see #insertIterableLoop
+	 */
+	@FunctionalInterface
+	public interface LoopBodyAdder {
+
+		void generateCode(MethodVisitor mv, CodeFlow codeflow);
+	}
+
 }
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel;
+
+import java.io.IOException;
+
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.EvaluationException;
+import org.springframework.lang.Nullable;
+
+/**
+ * Base superclass for compiled template expressions. Each generated compiled
+ * template class will extend this class and implement the {@link #write} method,
+ * appending all literal and evaluated parts of the template in one go. It is not
+ * intended to be subclassed by user code.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ * @see org.springframework.expression.spel.standard.SpelCompiler#compileTemplate
+ */
+public abstract class CompiledTemplate {
+
+	private final int estimatedLength;
+
+
+	/**
+	 * Create a new {@code CompiledTemplate}.
+	 * @param estimatedLength the estimated length of the rendered template
+	 */
+	protected CompiledTemplate(int estimatedLength) {
+		this.estimatedLength = estimatedLength;
+	}
+
+
+	/**
+	 * Render the template into a new String, using a builder presized
+	 * to the estimated length of the result.
+	 * @param target the target (root) object to evaluate against
+	 * @param context the evaluation context to use
+	 * @return the rendered template
+	 */
+	public String getValue(@Nullable Object target, EvaluationContext context) throws EvaluationException {
+		StringBuilder sb = new StringBuilder(this.estimatedLength);
+		try {
+			write(target, context, sb);
+		}
+		catch (IOException ex) {
+			// Not to be thrown by StringBuilder
+			throw new IllegalStateException(ex);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Subclasses of CompiledTemplate generated by SpelCompiler will provide an
+	 * implementation of this method, writing the rendered template to the given
+	 * {@link Appendable}.
+	 * @param target the target (root) object to evaluate against
+	 * @param context the evaluation context to use
+	 * @param out the {@code Appendable} to write to
+	 * @throws IOException if thrown by the given {@code Appendable}
+	 */
+	public abstract void write(@Nullable Object target, EvaluationContext context, Appendable out)
+			throws IOException, EvaluationException;
+
+}
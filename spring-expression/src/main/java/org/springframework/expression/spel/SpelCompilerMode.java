@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -42,6 +42,17 @@ public enum SpelCompilerMode {
 	 * type information changing) then that will be caught internally and the system switches back to
 	 * interpreted mode. It may subsequently compile it again later.
 	 */
-	MIXED
+	MIXED,
+
+	/**
+	 * In adaptive mode, expressions are compiled separately for each type of root object once the
+	 * types observed at each node of the expression have been stable for a number of interpreted runs.
+	 * Each compiled form is only used for root objects of the type it has been compiled for. If it
+	 * later fails, only that compiled form is discarded and evaluation silently switches back to
+	 * interpreted mode for that type of root object, while compiled forms for other types remain.
+	 * @since 5.3.5
+	 * @see org.springframework.expression.spel.standard.SpelExpression#getCompilationStatistics()
+	 */
+	ADAPTIVE
 
 }
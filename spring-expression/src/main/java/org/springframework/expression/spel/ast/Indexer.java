@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -195,10 +195,10 @@ public class Indexer extends SpelNodeImpl {
 	@Override
 	public boolean isCompilable() {
 		if (this.indexedType == IndexedType.ARRAY) {
-			return (this.exitTypeDescriptor != null);
+			return (this.exitTypeDescriptor != null && isCompilableIntegerIndex());
 		}
 		else if (this.indexedType == IndexedType.LIST) {
-			return this.children[0].isCompilable();
+			return isCompilableIntegerIndex();
 		}
 		else if (this.indexedType == IndexedType.MAP) {
 			return (this.children[0] instanceof PropertyOrFieldReference || this.children[0].isCompilable());
@@ -256,18 +256,13 @@ public class Indexer extends SpelNodeImpl {
 						//depthPlusOne(exitTypeDescriptor)+"Ljava/lang/Object;");
 				insn = AALOAD;
 			}
-			SpelNodeImpl index = this.children[0];
-			cf.enterCompilationScope();
-			index.generateCode(mv, cf);
-			cf.exitCompilationScope();
+			generateIntegerIndexCode(mv, cf);
 			mv.visitInsn(insn);
 		}
 
 		else if (this.indexedType == IndexedType.LIST) {
 			mv.visitTypeInsn(CHECKCAST, "java/util/List");
-			cf.enterCompilationScope();
-			this.children[0].generateCode(mv, cf);
-			cf.exitCompilationScope();
+			generateIntegerIndexCode(mv, cf);
 			mv.visitMethodInsn(INVOKEINTERFACE, "java/util/List", "get", "(I)Ljava/lang/Object;", true);
 		}
 
@@ -283,6 +278,7 @@ public class Indexer extends SpelNodeImpl {
 			else {
 				cf.enterCompilationScope();
 				this.children[0].generateCode(mv, cf);
+				CodeFlow.insertBoxIfNecessary(mv, cf.lastDescriptor());
 				cf.exitCompilationScope();
 			}
 			mv.visitMethodInsn(
@@ -319,6 +315,22 @@ public class Indexer extends SpelNodeImpl {
 		cf.pushDescriptor(this.exitTypeDescriptor);
 	}
 
+	/**
+	 * Determine whether the index expression is compilable and evaluates to a
+	 * (possibly boxed) number which can be coerced to an {@code int} index.
+	 */
+	private boolean isCompilableIntegerIndex() {
+		SpelNodeImpl index = this.children[0];
+		return (index.isCompilable() && CodeFlow.isPrimitiveOrUnboxableSupportedNumber(index.exitTypeDescriptor));
+	}
+
+	private void generateIntegerIndexCode(MethodVisitor mv, CodeFlow cf) {
+		cf.enterCompilationScope();
+		this.children[0].generateCode(mv, cf);
+		CodeFlow.insertNumericUnboxOrPrimitiveTypeCoercion(mv, cf.lastDescriptor(), 'I');
+		cf.exitCompilationScope();
+	}
+
 	@Override
 	public String toStringAST() {
 		StringJoiner sj = new StringJoiner(",", "[", "]");
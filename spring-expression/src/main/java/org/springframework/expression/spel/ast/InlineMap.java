@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,8 +20,10 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
+import org.springframework.asm.MethodVisitor;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.SpelNode;
 import org.springframework.lang.Nullable;
@@ -43,6 +45,7 @@ public class InlineMap extends SpelNodeImpl {
 	public InlineMap(int startPos, int endPos, SpelNodeImpl... args) {
 		super(startPos, endPos, args);
 		checkIfConstant();
+		this.exitTypeDescriptor = "Ljava/util/Map";
 	}
 
 
@@ -164,4 +167,90 @@ public class InlineMap extends SpelNodeImpl {
 		return (Map<Object, Object>) this.constant.getValue();
 	}
 
+	@Override
+	public boolean isCompilable() {
+		if (isConstant()) {
+			return true;
+		}
+		for (int c = 0, max = getChildCount(); c < max; c++) {
+			SpelNodeImpl child = this.children[c];
+			if (!(c % 2 == 0 && child instanceof PropertyOrFieldReference) && !child.isCompilable()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow codeflow) {
+		if (isConstant()) {
+			final String constantFieldName = "inlineMap$" + codeflow.nextFieldId();
+			final String className = codeflow.getClassName();
+
+			codeflow.registerNewField((cw, cflow) ->
+					cw.visitField(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, constantFieldName, "Ljava/util/Map;", null, null));
+
+			codeflow.registerNewClinit((mVisitor, cflow) -> {
+				generateMapCode(className, mVisitor, cflow);
+				mVisitor.visitFieldInsn(PUTSTATIC, className, constantFieldName, "Ljava/util/Map;");
+			});
+
+			mv.visitFieldInsn(GETSTATIC, className, constantFieldName, "Ljava/util/Map;");
+		}
+		else {
+			generateMapCode(null, mv, codeflow);
+		}
+		codeflow.pushDescriptor(this.exitTypeDescriptor);
+	}
+
+	/**
+	 * Generate the code for building the map, leaving it on the stack.
+	 * @param clinitClassName the name of the class whose static initializer
+	 * builds a constant map, or {@code null} for building a new map on each
+	 * evaluation
+	 */
+	private void generateMapCode(@Nullable String clinitClassName, MethodVisitor mv, CodeFlow codeflow) {
+		mv.visitTypeInsn(NEW, "java/util/LinkedHashMap");
+		mv.visitInsn(DUP);
+		mv.visitMethodInsn(INVOKESPECIAL, "java/util/LinkedHashMap", "<init>", "()V", false);
+		int childCount = getChildCount();
+		for (int c = 0; c < childCount; c++) {
+			mv.visitInsn(DUP);
+			SpelNodeImpl keyChild = this.children[c++];
+			if (keyChild instanceof PropertyOrFieldReference) {
+				mv.visitLdcInsn(((PropertyOrFieldReference) keyChild).getName());
+			}
+			else {
+				generateEntryCode(keyChild, clinitClassName, mv, codeflow);
+			}
+			generateEntryCode(this.children[c], clinitClassName, mv, codeflow);
+			mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Map", "put",
+					"(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;", true);
+			mv.visitInsn(POP);
+		}
+		if (clinitClassName != null) {
+			mv.visitMethodInsn(INVOKESTATIC, "java/util/Collections", "unmodifiableMap",
+					"(Ljava/util/Map;)Ljava/util/Map;", false);
+		}
+	}
+
+	private void generateEntryCode(
+			SpelNodeImpl child, @Nullable String clinitClassName, MethodVisitor mv, CodeFlow codeflow) {
+
+		// Within a static initializer, nested constant lists and maps need to be built in
+		// place: calling back into their generateCode() would register another clinit adder.
+		if (clinitClassName != null && child instanceof InlineList) {
+			((InlineList) child).generateClinitCode(clinitClassName, "", mv, codeflow, true);
+		}
+		else if (clinitClassName != null && child instanceof InlineMap) {
+			((InlineMap) child).generateMapCode(clinitClassName, mv, codeflow);
+		}
+		else {
+			codeflow.enterCompilationScope();
+			child.generateCode(mv, codeflow);
+			CodeFlow.insertBoxIfNecessary(mv, codeflow.lastDescriptor());
+			codeflow.exitCompilationScope();
+		}
+	}
+
 }
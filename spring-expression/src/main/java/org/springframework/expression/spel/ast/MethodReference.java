@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -34,6 +34,7 @@ import org.springframework.expression.EvaluationException;
 import org.springframework.expression.ExpressionInvocationTargetException;
 import org.springframework.expression.MethodExecutor;
 import org.springframework.expression.MethodResolver;
+import org.springframework.expression.TypeConverter;
 import org.springframework.expression.TypedValue;
 import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
@@ -43,6 +44,7 @@ import org.springframework.expression.spel.support.ReflectiveMethodExecutor;
 import org.springframework.expression.spel.support.ReflectiveMethodResolver;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.ConcurrentLruCache;
 import org.springframework.util.ObjectUtils;
 
 /**
@@ -54,6 +56,13 @@ import org.springframework.util.ObjectUtils;
  */
 public class MethodReference extends SpelNodeImpl {
 
+	// Maximum number of executors kept for different receiver and argument types
+	private static final int POLYMORPHIC_CACHE_LIMIT = 4;
+
+	// Maximum number of executors kept once the polymorphic cache is exhausted
+	private static final int MEGAMORPHIC_CACHE_LIMIT = 64;
+
+
 	private final String name;
 
 	private final boolean nullSafe;
@@ -64,6 +73,13 @@ public class MethodReference extends SpelNodeImpl {
 	@Nullable
 	private volatile CachedMethodExecutor cachedExecutor;
 
+	// Executors for the receiver and argument types encountered so far (bounded)
+	private volatile CachedMethodExecutor[] polymorphicExecutors = new CachedMethodExecutor[0];
+
+	// Executors for further receiver and argument types (lazily created, bounded)
+	@Nullable
+	private volatile ConcurrentLruCache<MegamorphicCacheKey, MegamorphicCacheEntry> megamorphicExecutors;
+
 
 	public MethodReference(boolean nullSafe, String methodName, int startPos, int endPos, SpelNodeImpl... arguments) {
 		super(startPos, endPos, arguments);
@@ -107,6 +123,13 @@ public class MethodReference extends SpelNodeImpl {
 		}
 
 		MethodExecutor executorToUse = getCachedExecutor(evaluationContext, value, targetType, argumentTypes);
+		MegamorphicCacheEntry megamorphicEntry = null;
+		if (executorToUse == null) {
+			megamorphicEntry = getMegamorphicCacheEntry(evaluationContext, value, argumentTypes);
+			if (megamorphicEntry != null) {
+				executorToUse = megamorphicEntry.executor;
+			}
+		}
 		if (executorToUse != null) {
 			try {
 				return executorToUse.execute(evaluationContext, value, arguments);
@@ -128,13 +151,23 @@ public class MethodReference extends SpelNodeImpl {
 				// At this point we know it wasn't a user problem so worth a retry if a
 				// better candidate can be found.
 				this.cachedExecutor = null;
+				this.polymorphicExecutors = new CachedMethodExecutor[0];
+				this.megamorphicExecutors = null;
+				megamorphicEntry = null;
 			}
 		}
 
 		// either there was no accessor or it no longer existed
 		executorToUse = findAccessorForMethod(argumentTypes, value, evaluationContext);
-		this.cachedExecutor = new CachedMethodExecutor(
-				executorToUse, (value instanceof Class ? (Class<?>) value : null), targetType, argumentTypes);
+		if (megamorphicEntry != null) {
+			megamorphicEntry.executor = executorToUse;
+		}
+		else {
+			CachedMethodExecutor newExecutor = new CachedMethodExecutor(
+					executorToUse, (value instanceof Class ? (Class<?>) value : null), targetType, argumentTypes);
+			this.cachedExecutor = newExecutor;
+			addPolymorphicExecutor(newExecutor, value, targetType, argumentTypes);
+		}
 		try {
 			return executorToUse.execute(evaluationContext, value, arguments);
 		}
@@ -192,10 +225,71 @@ public class MethodReference extends SpelNodeImpl {
 		if (executorToCheck != null && executorToCheck.isSuitable(value, target, argumentTypes)) {
 			return executorToCheck.get();
 		}
+		for (CachedMethodExecutor candidate : this.polymorphicExecutors) {
+			if (candidate != executorToCheck && candidate.isSuitable(value, target, argumentTypes)) {
+				// Switch to the executor for the current receiver and argument types,
+				// also for compilation purposes (as with a newly resolved executor)
+				this.cachedExecutor = candidate;
+				return candidate.get();
+			}
+		}
 		this.cachedExecutor = null;
 		return null;
 	}
 
+	/**
+	 * Keep the given executor for subsequent evaluations with the same receiver
+	 * and argument types. Once the limit of the polymorphic cache is reached,
+	 * further types go to the megamorphic cache.
+	 * @see #getMegamorphicCacheEntry
+	 */
+	private void addPolymorphicExecutor(CachedMethodExecutor executor, Object value,
+			@Nullable TypeDescriptor target, List<TypeDescriptor> argumentTypes) {
+
+		CachedMethodExecutor[] executors = this.polymorphicExecutors;
+		if (executors.length >= POLYMORPHIC_CACHE_LIMIT) {
+			// Megamorphic: keep the existing executors
+			return;
+		}
+		List<CachedMethodExecutor> newExecutors = new ArrayList<>(executors.length + 1);
+		for (CachedMethodExecutor existing : executors) {
+			// Replace any previous executor for the same types
+			if (!existing.isSuitable(value, target, argumentTypes)) {
+				newExecutors.add(existing);
+			}
+		}
+		newExecutors.add(executor);
+		this.polymorphicExecutors = newExecutors.toArray(new CachedMethodExecutor[0]);
+	}
+
+	/**
+	 * Obtain the megamorphic cache entry for the given receiver and argument types,
+	 * keyed by the identity of the method resolver and type converter in use.
+	 * Only applies once the polymorphic cache of this node is exhausted.
+	 * @return the cache entry, with an executor if already resolved for these types,
+	 * or {@code null} if the megamorphic cache does not apply
+	 */
+	@Nullable
+	private MegamorphicCacheEntry getMegamorphicCacheEntry(EvaluationContext evaluationContext,
+			Object value, List<TypeDescriptor> argumentTypes) {
+
+		if (this.polymorphicExecutors.length < POLYMORPHIC_CACHE_LIMIT) {
+			return null;
+		}
+		List<MethodResolver> methodResolvers = evaluationContext.getMethodResolvers();
+		if (methodResolvers.size() != 1 || !(methodResolvers.get(0) instanceof ReflectiveMethodResolver)) {
+			// Same restriction as for the polymorphic cache
+			return null;
+		}
+		ConcurrentLruCache<MegamorphicCacheKey, MegamorphicCacheEntry> executors = this.megamorphicExecutors;
+		if (executors == null) {
+			executors = new ConcurrentLruCache<>(MEGAMORPHIC_CACHE_LIMIT, key -> new MegamorphicCacheEntry());
+			this.megamorphicExecutors = executors;
+		}
+		return executors.get(new MegamorphicCacheKey(value, argumentTypes,
+				methodResolvers.get(0), evaluationContext.getTypeConverter()));
+	}
+
 	private MethodExecutor findAccessorForMethod(List<TypeDescriptor> argumentTypes, Object targetObject,
 			EvaluationContext evaluationContext) throws SpelEvaluationException {
 
@@ -297,6 +391,16 @@ public class MethodReference extends SpelNodeImpl {
 		return true;
 	}
 
+	@Override
+	public int getTypeProfileHash() {
+		int hash = super.getTypeProfileHash();
+		CachedMethodExecutor executorToCheck = this.cachedExecutor;
+		if (executorToCheck != null && executorToCheck.get() instanceof ReflectiveMethodExecutor) {
+			hash = 31 * hash + ((ReflectiveMethodExecutor) executorToCheck.get()).getMethod().hashCode();
+		}
+		return hash;
+	}
+
 	@Override
 	public void generateCode(MethodVisitor mv, CodeFlow cf) {
 		CachedMethodExecutor executorToCheck = this.cachedExecutor;
@@ -437,4 +541,65 @@ public class MethodReference extends SpelNodeImpl {
 		}
 	}
 
+
+	/**
+	 * Key for the megamorphic cache: the receiver type (or the class itself for
+	 * static method calls), the argument types, and the identity of the method
+	 * resolver and type converter which the executor got resolved with.
+	 */
+	private static final class MegamorphicCacheKey {
+
+		private final Class<?> receiverType;
+
+		private final boolean staticCall;
+
+		private final List<TypeDescriptor> argumentTypes;
+
+		private final MethodResolver methodResolver;
+
+		private final TypeConverter typeConverter;
+
+		public MegamorphicCacheKey(Object value, List<TypeDescriptor> argumentTypes,
+				MethodResolver methodResolver, TypeConverter typeConverter) {
+
+			this.staticCall = (value instanceof Class);
+			this.receiverType = (this.staticCall ? (Class<?>) value : value.getClass());
+			this.argumentTypes = argumentTypes;
+			this.methodResolver = methodResolver;
+			this.typeConverter = typeConverter;
+		}
+
+		@Override
+		public boolean equals(@Nullable Object other) {
+			if (this == other) {
+				return true;
+			}
+			if (!(other instanceof MegamorphicCacheKey)) {
+				return false;
+			}
+			MegamorphicCacheKey otherKey = (MegamorphicCacheKey) other;
+			return (this.receiverType == otherKey.receiverType && this.staticCall == otherKey.staticCall &&
+					this.methodResolver == otherKey.methodResolver && this.typeConverter == otherKey.typeConverter &&
+					this.argumentTypes.equals(otherKey.argumentTypes));
+		}
+
+		@Override
+		public int hashCode() {
+			int result = this.receiverType.hashCode();
+			result = 31 * result + this.argumentTypes.hashCode();
+			result = 31 * result + System.identityHashCode(this.methodResolver);
+			return 31 * result + System.identityHashCode(this.typeConverter);
+		}
+	}
+
+
+	/**
+	 * Entry in the megamorphic cache, with the executor resolved on first use.
+	 */
+	private static final class MegamorphicCacheEntry {
+
+		@Nullable
+		volatile MethodExecutor executor;
+	}
+
 }
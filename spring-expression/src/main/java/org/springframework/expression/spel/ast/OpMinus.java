@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -75,11 +75,11 @@ public class OpMinus extends Operator {
 				}
 				else if (operand instanceof Long) {
 					this.exitTypeDescriptor = "J";
-					return new TypedValue(0 - ((Number) operand).longValue());
+					return longResult(0 - ((Number) operand).longValue());
 				}
 				else if (operand instanceof Integer) {
 					this.exitTypeDescriptor = "I";
-					return new TypedValue(0 - ((Number) operand).intValue());
+					return intResult(0 - ((Number) operand).intValue());
 				}
 				else if (operand instanceof Short) {
 					return new TypedValue(0 - ((Number) operand).shortValue());
@@ -98,6 +98,12 @@ public class OpMinus extends Operator {
 		Object left = leftOp.getValueInternal(state).getValue();
 		Object right = getRightOperand().getValueInternal(state).getValue();
 
+		if (left instanceof Integer && right instanceof Integer) {
+			// Fast path for the common case of int operands
+			this.exitTypeDescriptor = "I";
+			return intResult((Integer) left - (Integer) right);
+		}
+
 		if (left instanceof Number && right instanceof Number) {
 			Number leftNumber = (Number) left;
 			Number rightNumber = (Number) right;
@@ -122,11 +128,11 @@ public class OpMinus extends Operator {
 			}
 			else if (leftNumber instanceof Long || rightNumber instanceof Long) {
 				this.exitTypeDescriptor = "J";
-				return new TypedValue(leftNumber.longValue() - rightNumber.longValue());
+				return longResult(leftNumber.longValue() - rightNumber.longValue());
 			}
 			else if (CodeFlow.isIntegerForNumericOp(leftNumber) || CodeFlow.isIntegerForNumericOp(rightNumber)) {
 				this.exitTypeDescriptor = "I";
-				return new TypedValue(leftNumber.intValue() - rightNumber.intValue());
+				return intResult(leftNumber.intValue() - rightNumber.intValue());
 			}
 			else {
 				// Unknown Number subtypes -> best guess is double subtraction
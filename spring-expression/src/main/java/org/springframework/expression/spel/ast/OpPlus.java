@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -85,6 +85,12 @@ public class OpPlus extends Operator {
 		TypedValue operandTwoValue = getRightOperand().getValueInternal(state);
 		Object rightOperand = operandTwoValue.getValue();
 
+		if (leftOperand instanceof Integer && rightOperand instanceof Integer) {
+			// Fast path for the common case of int operands
+			this.exitTypeDescriptor = "I";
+			return intResult((Integer) leftOperand + (Integer) rightOperand);
+		}
+
 		if (leftOperand instanceof Number && rightOperand instanceof Number) {
 			Number leftNumber = (Number) leftOperand;
 			Number rightNumber = (Number) rightOperand;
@@ -109,11 +115,11 @@ public class OpPlus extends Operator {
 			}
 			else if (leftNumber instanceof Long || rightNumber instanceof Long) {
 				this.exitTypeDescriptor = "J";
-				return new TypedValue(leftNumber.longValue() + rightNumber.longValue());
+				return longResult(leftNumber.longValue() + rightNumber.longValue());
 			}
 			else if (CodeFlow.isIntegerForNumericOp(leftNumber) || CodeFlow.isIntegerForNumericOp(rightNumber)) {
 				this.exitTypeDescriptor = "I";
-				return new TypedValue(leftNumber.intValue() + rightNumber.intValue());
+				return intResult(leftNumber.intValue() + rightNumber.intValue());
 			}
 			else {
 				// Unknown Number subtypes -> best guess is double addition
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,6 +22,7 @@ import java.math.BigInteger;
 import org.springframework.asm.Label;
 import org.springframework.asm.MethodVisitor;
 import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.TypedValue;
 import org.springframework.expression.spel.CodeFlow;
 import org.springframework.lang.Nullable;
 import org.springframework.util.ClassUtils;
@@ -40,6 +41,30 @@ import org.springframework.util.ObjectUtils;
  */
 public abstract class Operator extends SpelNodeImpl {
 
+	private static final int INT_RESULT_CACHE_LOW = -128;
+
+	private static final int INT_RESULT_CACHE_HIGH = 1023;
+
+	private static final int LONG_RESULT_CACHE_LOW = -128;
+
+	private static final int LONG_RESULT_CACHE_HIGH = 127;
+
+	private static final TypedValue[] intResultCache =
+			new TypedValue[INT_RESULT_CACHE_HIGH - INT_RESULT_CACHE_LOW + 1];
+
+	private static final TypedValue[] longResultCache =
+			new TypedValue[LONG_RESULT_CACHE_HIGH - LONG_RESULT_CACHE_LOW + 1];
+
+	static {
+		for (int i = 0; i < intResultCache.length; i++) {
+			intResultCache[i] = new TypedValue(INT_RESULT_CACHE_LOW + i);
+		}
+		for (int i = 0; i < longResultCache.length; i++) {
+			longResultCache[i] = new TypedValue((long) (LONG_RESULT_CACHE_LOW + i));
+		}
+	}
+
+
 	private final String operatorName;
 
 	// The descriptors of the runtime operand values are used if the discovered declared
@@ -72,6 +97,30 @@ public abstract class Operator extends SpelNodeImpl {
 		return this.operatorName;
 	}
 
+	/**
+	 * Return a {@link TypedValue} for the given {@code int} result of an operation,
+	 * shared for small values in order to avoid boxing and allocation per evaluation.
+	 * @since 5.3.5
+	 */
+	protected static TypedValue intResult(int value) {
+		if (value >= INT_RESULT_CACHE_LOW && value <= INT_RESULT_CACHE_HIGH) {
+			return intResultCache[value - INT_RESULT_CACHE_LOW];
+		}
+		return new TypedValue(value);
+	}
+
+	/**
+	 * Return a {@link TypedValue} for the given {@code long} result of an operation,
+	 * shared for small values in order to avoid boxing and allocation per evaluation.
+	 * @since 5.3.5
+	 */
+	protected static TypedValue longResult(long value) {
+		if (value >= LONG_RESULT_CACHE_LOW && value <= LONG_RESULT_CACHE_HIGH) {
+			return longResultCache[(int) value - LONG_RESULT_CACHE_LOW];
+		}
+		return new TypedValue(value);
+	}
+
 	/**
 	 * String format for all operators is the same
 	 * {@code '(' [operand] [operator] [operand] ')'}.
@@ -261,6 +310,11 @@ public abstract class Operator extends SpelNodeImpl {
 	 * @param right the right-hand operand value
 	 */
 	public static boolean equalityCheck(EvaluationContext context, @Nullable Object left, @Nullable Object right) {
+		if (left instanceof Integer && right instanceof Integer) {
+			// Fast path for the common case of int operands
+			return (((Integer) left).intValue() == ((Integer) right).intValue());
+		}
+
 		if (left instanceof Number && right instanceof Number) {
 			Number leftNumber = (Number) left;
 			Number rightNumber = (Number) right;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -22,8 +22,11 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.SpelEvaluationException;
 import org.springframework.expression.spel.SpelMessage;
@@ -63,6 +66,8 @@ public class Projection extends SpelNodeImpl {
 
 		Object operand = op.getValue();
 		boolean operandIsArray = ObjectUtils.isArray(operand);
+		// Only projection over a Map or an Iterable is compilable, resulting in a List
+		this.exitTypeDescriptor = (operand instanceof Map || operand instanceof Iterable ? "Ljava/util/List" : null);
 		// TypeDescriptor operandTypeDescriptor = op.getTypeDescriptor();
 
 		// When the input is a map, we push a special context object on the stack
@@ -137,6 +142,59 @@ public class Projection extends SpelNodeImpl {
 		return "![" + getChild(0).toStringAST() + "]";
 	}
 
+	@Override
+	public boolean isCompilable() {
+		// The scoped #index variable is not available to compiled code
+		return (this.exitTypeDescriptor != null && this.children[0].isCompilable() &&
+				!VariableReference.isReferenced(this.children[0], "index"));
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		if (cf.lastDescriptor() == null) {
+			// Stack is empty, should use context object
+			cf.loadTarget(mv);
+		}
+		Label endOfProjection = new Label();
+		if (this.nullSafe) {
+			Label notNull = new Label();
+			mv.visitInsn(DUP);
+			mv.visitJumpInsn(IFNONNULL, notNull);
+			mv.visitJumpInsn(GOTO, endOfProjection);
+			mv.visitLabel(notNull);
+		}
+
+		// Iterate over the entries of a Map, as during interpretation
+		Label iterable = new Label();
+		mv.visitInsn(DUP);
+		mv.visitTypeInsn(INSTANCEOF, "java/util/Map");
+		mv.visitJumpInsn(IFEQ, iterable);
+		mv.visitTypeInsn(CHECKCAST, "java/util/Map");
+		mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Map", "entrySet", "()Ljava/util/Set;", true);
+		mv.visitLabel(iterable);
+		mv.visitTypeInsn(CHECKCAST, "java/lang/Iterable");
+
+		int resultVariable = cf.nextFreeVariableId();
+		mv.visitTypeInsn(NEW, "java/util/ArrayList");
+		mv.visitInsn(DUP);
+		mv.visitMethodInsn(INVOKESPECIAL, "java/util/ArrayList", "<init>", "()V", false);
+		mv.visitVarInsn(ASTORE, resultVariable);
+
+		cf.insertIterableLoop(mv, (loopBody, codeflow) -> {
+			loopBody.visitVarInsn(ALOAD, resultVariable);
+			codeflow.enterCompilationScope();
+			this.children[0].generateCode(loopBody, codeflow);
+			CodeFlow.insertBoxIfNecessary(loopBody, codeflow.lastDescriptor());
+			codeflow.exitCompilationScope();
+			loopBody.visitMethodInsn(INVOKEINTERFACE, "java/util/List", "add", "(Ljava/lang/Object;)Z", true);
+			loopBody.visitInsn(POP);
+		});
+
+		mv.visitVarInsn(ALOAD, resultVariable);
+		mv.visitLabel(endOfProjection);
+		cf.pushDescriptor(this.exitTypeDescriptor);
+	}
+
 	private Class<?> determineCommonType(@Nullable Class<?> oldType, Class<?> newType) {
 		if (oldType == null) {
 			return newType;
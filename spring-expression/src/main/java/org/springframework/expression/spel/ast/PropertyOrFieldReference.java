@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -60,6 +60,9 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
 	@Nullable
 	private volatile PropertyAccessor cachedReadAccessor;
 
+	@Nullable
+	private volatile ReusableReadAccessor reusableReadAccessor;
+
 	@Nullable
 	private volatile PropertyAccessor cachedWriteAccessor;
 
@@ -174,6 +177,17 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
 			return TypedValue.NULL;
 		}
 
+		ReusableReadAccessor reusableAccessor = this.reusableReadAccessor;
+		if (reusableAccessor != null && reusableAccessor.isReusableFor(evalContext, targetObject)) {
+			try {
+				return reusableAccessor.accessor.read(evalContext, targetObject, name);
+			}
+			catch (Exception ex) {
+				// Stale - resolve the accessor again below
+				this.reusableReadAccessor = null;
+			}
+		}
+
 		PropertyAccessor accessorToUse = this.cachedReadAccessor;
 		if (accessorToUse != null) {
 			if (evalContext.getPropertyAccessors().contains(accessorToUse)) {
@@ -197,8 +211,14 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
 			for (PropertyAccessor accessor : accessorsToTry) {
 				if (accessor.canRead(evalContext, contextObject.getValue(), name)) {
 					if (accessor instanceof ReflectivePropertyAccessor) {
+						boolean firstToTry = (accessor == accessorsToTry.get(0));
 						accessor = ((ReflectivePropertyAccessor) accessor).createOptimalAccessor(
 								evalContext, contextObject.getValue(), name);
+						// Only reusable as long as no other accessor takes precedence
+						this.reusableReadAccessor = (firstToTry &&
+								accessor instanceof ReflectivePropertyAccessor.OptimalPropertyAccessor ?
+								new ReusableReadAccessor((ReflectivePropertyAccessor.OptimalPropertyAccessor) accessor,
+										evalContext.getPropertyAccessors()) : null);
 					}
 					this.cachedReadAccessor = accessor;
 					return accessor.read(evalContext, contextObject.getValue(), name);
@@ -335,6 +355,19 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
 				((CompilablePropertyAccessor) accessorToUse).isCompilable());
 	}
 
+	@Override
+	public int getTypeProfileHash() {
+		int hash = super.getTypeProfileHash();
+		PropertyAccessor accessorToUse = this.cachedReadAccessor;
+		if (accessorToUse instanceof ReflectivePropertyAccessor.OptimalPropertyAccessor) {
+			hash = 31 * hash + ((ReflectivePropertyAccessor.OptimalPropertyAccessor) accessorToUse).member.hashCode();
+		}
+		else if (accessorToUse != null) {
+			hash = 31 * hash + accessorToUse.getClass().hashCode();
+		}
+		return hash;
+	}
+
 	@Override
 	public void generateCode(MethodVisitor mv, CodeFlow cf) {
 		PropertyAccessor accessorToUse = this.cachedReadAccessor;
@@ -422,4 +455,37 @@ public class PropertyOrFieldReference extends SpelNodeImpl {
 		}
 	}
 
+
+	/**
+	 * An optimal read accessor along with the property accessors of the context
+	 * that it has been resolved against: reusable for contexts with exactly the
+	 * same property accessors, so that the same accessor would be resolved again.
+	 */
+	private static final class ReusableReadAccessor {
+
+		final ReflectivePropertyAccessor.OptimalPropertyAccessor accessor;
+
+		private final PropertyAccessor[] propertyAccessors;
+
+		ReusableReadAccessor(ReflectivePropertyAccessor.OptimalPropertyAccessor accessor,
+				List<PropertyAccessor> propertyAccessors) {
+
+			this.accessor = accessor;
+			this.propertyAccessors = propertyAccessors.toArray(new PropertyAccessor[0]);
+		}
+
+		boolean isReusableFor(EvaluationContext evalContext, @Nullable Object target) {
+			List<PropertyAccessor> propertyAccessors = evalContext.getPropertyAccessors();
+			if (propertyAccessors.size() != this.propertyAccessors.length) {
+				return false;
+			}
+			for (int i = 0; i < this.propertyAccessors.length; i++) {
+				if (propertyAccessors.get(i) != this.propertyAccessors[i]) {
+					return false;
+				}
+			}
+			return this.accessor.isReusableFor(evalContext, target);
+		}
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -23,9 +23,12 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.expression.EvaluationException;
 import org.springframework.expression.TypedValue;
+import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.SpelEvaluationException;
 import org.springframework.expression.spel.SpelMessage;
@@ -88,6 +91,7 @@ public class Selection extends SpelNodeImpl {
 		SpelNodeImpl selectionCriteria = this.children[0];
 
 		if (operand instanceof Map) {
+			this.exitTypeDescriptor = "Ljava/util/Map";
 			Map<?, ?> mapdata = (Map<?, ?>) operand;
 			// TODO don't lose generic info for the new map
 			Map<Object, Object> result = new HashMap<>();
@@ -135,6 +139,9 @@ public class Selection extends SpelNodeImpl {
 		}
 
 		if (operand instanceof Iterable || ObjectUtils.isArray(operand)) {
+			// Only selection over an Iterable is compilable, resulting in a List
+			this.exitTypeDescriptor = (operand instanceof Iterable ?
+					(this.variant == ALL ? "Ljava/util/List" : "Ljava/lang/Object") : null);
 			Iterable<?> data = (operand instanceof Iterable ?
 					(Iterable<?>) operand : Arrays.asList(ObjectUtils.toObjectArray(operand)));
 
@@ -208,6 +215,131 @@ public class Selection extends SpelNodeImpl {
 		return prefix() + getChild(0).toStringAST() + "]";
 	}
 
+	@Override
+	public boolean isCompilable() {
+		SpelNodeImpl selectionCriteria = this.children[0];
+		// The scoped #index variable is not available to compiled code
+		return (this.exitTypeDescriptor != null && selectionCriteria.isCompilable() &&
+				CodeFlow.isBooleanCompatible(selectionCriteria.exitTypeDescriptor) &&
+				!VariableReference.isReferenced(selectionCriteria, "index"));
+	}
+
+	@Override
+	public void generateCode(MethodVisitor mv, CodeFlow cf) {
+		if (cf.lastDescriptor() == null) {
+			// Stack is empty, should use context object
+			cf.loadTarget(mv);
+		}
+		Label endOfSelection = new Label();
+		if (this.nullSafe) {
+			Label notNull = new Label();
+			mv.visitInsn(DUP);
+			mv.visitJumpInsn(IFNONNULL, notNull);
+			mv.visitJumpInsn(GOTO, endOfSelection);
+			mv.visitLabel(notNull);
+		}
+
+		boolean mapSelection = "Ljava/util/Map".equals(this.exitTypeDescriptor);
+		if (mapSelection) {
+			mv.visitTypeInsn(CHECKCAST, "java/util/Map");
+			mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Map", "entrySet", "()Ljava/util/Set;", true);
+		}
+		else {
+			mv.visitTypeInsn(CHECKCAST, "java/lang/Iterable");
+		}
+
+		// For ALL: the map or list of selected elements; for LAST: the last selected element
+		int resultVariable = cf.nextFreeVariableId();
+		if (this.variant == ALL) {
+			String resultType = (mapSelection ? "java/util/HashMap" : "java/util/ArrayList");
+			mv.visitTypeInsn(NEW, resultType);
+			mv.visitInsn(DUP);
+			mv.visitMethodInsn(INVOKESPECIAL, resultType, "<init>", "()V", false);
+		}
+		else {
+			mv.visitInsn(ACONST_NULL);
+		}
+		mv.visitVarInsn(ASTORE, resultVariable);
+
+		cf.insertIterableLoop(mv, (loopBody, codeflow) -> {
+			Label notSelected = new Label();
+			codeflow.enterCompilationScope();
+			this.children[0].generateCode(loopBody, codeflow);
+			codeflow.unboxBooleanIfNecessary(loopBody);
+			codeflow.exitCompilationScope();
+			loopBody.visitJumpInsn(IFEQ, notSelected);
+			if (this.variant == ALL) {
+				loopBody.visitVarInsn(ALOAD, resultVariable);
+				if (mapSelection) {
+					codeflow.loadTarget(loopBody);
+					generatePutEntry(loopBody);
+				}
+				else {
+					codeflow.loadTarget(loopBody);
+					loopBody.visitMethodInsn(INVOKEINTERFACE, "java/util/List", "add", "(Ljava/lang/Object;)Z", true);
+					loopBody.visitInsn(POP);
+				}
+			}
+			else if (this.variant == FIRST) {
+				codeflow.loadTarget(loopBody);
+				if (mapSelection) {
+					generateSingleEntryMap(loopBody);
+				}
+				loopBody.visitJumpInsn(GOTO, endOfSelection);
+			}
+			else {
+				codeflow.loadTarget(loopBody);
+				loopBody.visitVarInsn(ASTORE, resultVariable);
+			}
+			loopBody.visitLabel(notSelected);
+		});
+
+		if (this.variant == FIRST) {
+			mv.visitInsn(ACONST_NULL);
+		}
+		else if (this.variant == LAST && mapSelection) {
+			Label noneSelected = new Label();
+			mv.visitVarInsn(ALOAD, resultVariable);
+			mv.visitJumpInsn(IFNULL, noneSelected);
+			mv.visitVarInsn(ALOAD, resultVariable);
+			generateSingleEntryMap(mv);
+			mv.visitJumpInsn(GOTO, endOfSelection);
+			mv.visitLabel(noneSelected);
+			mv.visitInsn(ACONST_NULL);
+		}
+		else {
+			mv.visitVarInsn(ALOAD, resultVariable);
+		}
+		mv.visitLabel(endOfSelection);
+		cf.pushDescriptor(this.exitTypeDescriptor);
+	}
+
+	/**
+	 * Replace the map entry on top of the stack with a new map containing that entry.
+	 */
+	private static void generateSingleEntryMap(MethodVisitor mv) {
+		mv.visitTypeInsn(NEW, "java/util/HashMap");
+		mv.visitInsn(DUP);
+		mv.visitMethodInsn(INVOKESPECIAL, "java/util/HashMap", "<init>", "()V", false);
+		mv.visitInsn(DUP_X1);
+		mv.visitInsn(SWAP);
+		generatePutEntry(mv);
+	}
+
+	/**
+	 * Put the map entry on top of the stack into the map below it, consuming both.
+	 */
+	private static void generatePutEntry(MethodVisitor mv) {
+		mv.visitTypeInsn(CHECKCAST, "java/util/Map$Entry");
+		mv.visitInsn(DUP);
+		mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Map$Entry", "getKey", "()Ljava/lang/Object;", true);
+		mv.visitInsn(SWAP);
+		mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Map$Entry", "getValue", "()Ljava/lang/Object;", true);
+		mv.visitMethodInsn(INVOKEINTERFACE, "java/util/Map", "put",
+				"(Ljava/lang/Object;Ljava/lang/Object;)Ljava/lang/Object;", true);
+		mv.visitInsn(POP);
+	}
+
 	private String prefix() {
 		switch (this.variant) {
 			case ALL:   return "?[";
@@ -183,6 +183,19 @@ public abstract class SpelNodeImpl implements SpelNode, Opcodes {
 		return this.exitTypeDescriptor;
 	}
 
+	/**
+	 * Return a hash code for the type information that this node has determined
+	 * during its last evaluation and that its compiled form would be specialized to.
+	 * <p>The default implementation is based on the exit type descriptor. Nodes
+	 * which resolve a method or property per receiver type include the resolved
+	 * member as well, since the exit type alone does not identify it.
+	 * @since 5.3.5
+	 * @see org.springframework.expression.spel.SpelCompilerMode#ADAPTIVE
+	 */
+	public int getTypeProfileHash() {
+		return ObjectUtils.nullSafeHashCode(this.exitTypeDescriptor);
+	}
+
 	@Nullable
 	protected final <T> T getValue(ExpressionState state, Class<T> desiredReturnType) throws EvaluationException {
 		return ExpressionUtils.convertTypedValue(state.getEvaluationContext(), getValueInternal(state), desiredReturnType);
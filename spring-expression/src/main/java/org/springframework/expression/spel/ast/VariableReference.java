@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,6 +24,7 @@ import org.springframework.expression.TypedValue;
 import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.ExpressionState;
 import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.SpelNode;
 import org.springframework.lang.Nullable;
 
 /**
@@ -65,15 +66,13 @@ public class VariableReference extends SpelNodeImpl {
 
 	@Override
 	public TypedValue getValueInternal(ExpressionState state) throws SpelEvaluationException {
-		if (this.name.equals(THIS)) {
-			return state.getActiveContextObject();
-		}
 		if (this.name.equals(ROOT)) {
 			TypedValue result = state.getRootContextObject();
 			this.exitTypeDescriptor = CodeFlow.toDescriptorFromObject(result.getValue());
 			return result;
 		}
-		TypedValue result = state.lookupVariable(this.name);
+		TypedValue result = (this.name.equals(THIS) ?
+				state.getActiveContextObject() : state.lookupVariable(this.name));
 		Object value = result.getValue();
 		if (value == null || !Modifier.isPublic(value.getClass().getModifiers())) {
 			// If the type is not public then when generateCode produces a checkcast to it
@@ -114,6 +113,16 @@ public class VariableReference extends SpelNodeImpl {
 		if (this.name.equals(ROOT)) {
 			mv.visitVarInsn(ALOAD,1);
 		}
+		else if (this.name.equals(THIS)) {
+			String descriptor = cf.lastDescriptor();
+			if (descriptor == null) {
+				// The active context object: the target or the current element of a selection/projection
+				cf.loadTarget(mv);
+			}
+			else {
+				CodeFlow.insertBoxIfNecessary(mv, descriptor);
+			}
+		}
 		else {
 			mv.visitVarInsn(ALOAD, 2);
 			mv.visitLdcInsn(this.name);
@@ -123,6 +132,25 @@ public class VariableReference extends SpelNodeImpl {
 		cf.pushDescriptor(this.exitTypeDescriptor);
 	}
 
+	/**
+	 * Determine whether the given node or any of its descendants
+	 * references the variable with the given name.
+	 * @param node the node to introspect
+	 * @param variableName the name of the variable
+	 * @since 5.3.5
+	 */
+	static boolean isReferenced(SpelNode node, String variableName) {
+		if (node instanceof VariableReference && ((VariableReference) node).name.equals(variableName)) {
+			return true;
+		}
+		for (int i = 0; i < node.getChildCount(); i++) {
+			if (isReferenced(node.getChild(i), variableName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 
 	private static class VariableRef implements ValueRef {
 
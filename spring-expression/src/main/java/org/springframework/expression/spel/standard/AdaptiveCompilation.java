@@ -0,0 +1,436 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel.standard;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.expression.spel.CompiledExpression;
+import org.springframework.expression.spel.SpelNode;
+import org.springframework.expression.spel.ast.SpelNodeImpl;
+import org.springframework.lang.Nullable;
+
+/**
+ * Adaptive compilation state of a {@link SpelExpression} running in
+ * {@link org.springframework.expression.spel.SpelCompilerMode#ADAPTIVE} mode.
+ *
+ * <p>Maintains a type profile per root object type, derived from the type
+ * information which the AST nodes record during interpretation: that is, the
+ * result types and the resolved methods and properties at each node. Once the profile
+ * for a root type has been stable for a number of interpreted evaluations, the
+ * expression gets compiled for it. The compiled form is selected by the root type,
+ * only being used for root objects of exactly that type, and guarded by the type
+ * profile of each of its nodes: a snapshot taken right before compilation, which
+ * has to remain unchanged during compilation since the AST is shared with
+ * concurrent evaluations.
+ *
+ * <p>If a compiled form fails, only that specialization is retired and its root
+ * type goes back to being profiled, while the specializations for other root types
+ * remain in place. The subsequent interpretation determines the nodes whose types
+ * changed against the guards of the retired specialization: a first change of a
+ * node is not held against the root type, and the retired specialization gets
+ * reinstated without recompilation once the node types match its guards again.
+ * A root type whose specialization keeps failing without a type change or with
+ * repeated changes at the same node (or which cannot be compiled at all) is
+ * eventually left interpreted.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ */
+final class AdaptiveCompilation {
+
+	// Number of consecutive interpretations with the same type profile before compiling
+	private static final int STABLE_COUNT_THRESHOLD = 10;
+
+	// Number of root types to compile specializations for at most
+	private static final int MAX_SPECIALIZATIONS = 4;
+
+	// Number of root types to maintain type profiles for at most
+	private static final int MAX_PROFILES = 16;
+
+	// Number of failed compilations or deoptimizations per root type before giving up on it
+	private static final int FAILED_ATTEMPTS_THRESHOLD = 10;
+
+	// Number of retired specializations to keep per root type for reinstatement
+	private static final int MAX_RETIRED_SPECIALIZATIONS = 2;
+
+	private static final Specialization[] NO_SPECIALIZATIONS = new Specialization[0];
+
+	private static final Log logger = LogFactory.getLog(AdaptiveCompilation.class);
+
+
+	private final SpelNodeImpl ast;
+
+	// All nodes of the AST in depth-first order, indexing the per-node type profiles
+	private final SpelNodeImpl[] nodes;
+
+	@Nullable
+	private final ClassLoader compilerClassLoader;
+
+	private final Map<Class<?>, TypeProfile> profiles = new ConcurrentHashMap<>();
+
+	// Copy-on-write array of compiled forms, checked in order by root type
+	private volatile Specialization[] specializations = NO_SPECIALIZATIONS;
+
+	private final LongAdder interpretedCount = new LongAdder();
+
+	private final LongAdder compiledCount = new LongAdder();
+
+	private final AtomicInteger compilationCount = new AtomicInteger();
+
+	private final AtomicInteger failedCompilationCount = new AtomicInteger();
+
+	private final AtomicInteger deoptimizationCount = new AtomicInteger();
+
+
+	AdaptiveCompilation(SpelNodeImpl ast, @Nullable ClassLoader compilerClassLoader) {
+		this.ast = ast;
+		List<SpelNodeImpl> nodes = new ArrayList<>();
+		collectNodes(ast, nodes);
+		this.nodes = nodes.toArray(new SpelNodeImpl[0]);
+		this.compilerClassLoader = compilerClassLoader;
+	}
+
+
+	/**
+	 * Return the compiled form specialized for the type of the given root object, if any.
+	 */
+	@Nullable
+	CompiledExpression getCompiledExpression(@Nullable Object rootObject) {
+		Specialization[] specializations = this.specializations;
+		if (specializations.length > 0) {
+			Class<?> rootType = getRootType(rootObject);
+			for (Specialization specialization : specializations) {
+				if (specialization.rootType == rootType) {
+					this.compiledCount.increment();
+					return specialization.compiledExpression;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Record an interpreted evaluation of the expression for the given root object,
+	 * compiling a specialization for its type once its type profile is stable.
+	 * <p>To be called right after the evaluation, while the AST nodes still hold
+	 * the type information for the given root object.
+	 */
+	void recordInterpretation(@Nullable Object rootObject) {
+		this.interpretedCount.increment();
+		Class<?> rootType = getRootType(rootObject);
+		TypeProfile profile = this.profiles.get(rootType);
+		if (profile == null) {
+			if (this.profiles.size() >= MAX_PROFILES) {
+				// Megamorphic: keep interpreting for any further root types
+				return;
+			}
+			profile = this.profiles.computeIfAbsent(rootType, TypeProfile::new);
+		}
+		int[] nodeProfiles = captureNodeProfiles();
+		Specialization deoptimized = profile.takeDeoptimized();
+		if (deoptimized != null) {
+			recordTypeChanges(profile, deoptimized, nodeProfiles);
+		}
+		boolean stable = profile.recordNodeProfiles(nodeProfiles);
+		if (stable && this.specializations.length < MAX_SPECIALIZATIONS) {
+			compile(profile);
+		}
+	}
+
+	/**
+	 * Attribute the failure of the given deoptimized specialization to the nodes
+	 * whose types differ from its guards, as observed by the interpretation that
+	 * replaced the failed compiled evaluation.
+	 */
+	private void recordTypeChanges(TypeProfile profile, Specialization deoptimized, int[] nodeProfiles) {
+		BitSet changedNodes = new BitSet(nodeProfiles.length);
+		for (int i = 0; i < nodeProfiles.length; i++) {
+			if (nodeProfiles[i] != deoptimized.nodeProfiles[i]) {
+				changedNodes.set(i);
+			}
+		}
+		if (logger.isDebugEnabled() && !changedNodes.isEmpty()) {
+			StringBuilder changed = new StringBuilder();
+			changedNodes.stream().forEach(i -> changed.append(changed.length() > 0 ? ", " : "")
+					.append(this.nodes[i].toStringAST()));
+			logger.debug("SpEL: types changed at [" + changed + "] in " + this.ast.toStringAST() +
+					" for root type [" + profile.rootType.getName() + "]");
+		}
+		profile.recordTypeChanges(changedNodes, deoptimized);
+	}
+
+	private synchronized void compile(TypeProfile profile) {
+		Specialization[] specializations = this.specializations;
+		if (specializations.length >= MAX_SPECIALIZATIONS) {
+			return;
+		}
+		for (Specialization specialization : specializations) {
+			if (specialization.rootType == profile.rootType) {
+				// Compiled by another thread in the meantime
+				return;
+			}
+		}
+
+		// The AST is shared with concurrent evaluations for other root types:
+		// only compile against a snapshot that matches the stable profile and
+		// remains unchanged until the compiled form has been generated.
+		int[] nodeProfiles = captureNodeProfiles();
+		if (!profile.isStableProfile(nodeProfiles)) {
+			profile.resetStability();
+			return;
+		}
+		Specialization specialization = profile.findRetired(nodeProfiles);
+		if (specialization == null) {
+			CompiledExpression compiledExpression = SpelCompiler.getCompiler(this.compilerClassLoader).compile(this.ast);
+			if (compiledExpression == null) {
+				this.failedCompilationCount.incrementAndGet();
+				profile.recordFailure();
+				return;
+			}
+			if (!Arrays.equals(nodeProfiles, captureNodeProfiles())) {
+				// Node types changed during compilation: the compiled form may mix them
+				profile.resetStability();
+				return;
+			}
+			specialization = new Specialization(profile.rootType, compiledExpression, nodeProfiles);
+			this.compilationCount.incrementAndGet();
+			if (logger.isDebugEnabled()) {
+				logger.debug("SpEL: compiled " + this.ast.toStringAST() +
+						" for root type [" + profile.rootType.getName() + "]");
+			}
+		}
+		else if (logger.isDebugEnabled()) {
+			logger.debug("SpEL: reinstated compiled " + this.ast.toStringAST() +
+					" for root type [" + profile.rootType.getName() + "]");
+		}
+		Specialization[] newSpecializations = Arrays.copyOf(specializations, specializations.length + 1);
+		newSpecializations[specializations.length] = specialization;
+		this.specializations = newSpecializations;
+	}
+
+	/**
+	 * Retire the given compiled form after it failed, reverting its root type
+	 * to interpreted evaluation (and profiling).
+	 * @return {@code true} if the compiled form was one of the specializations,
+	 * {@code false} if it is unknown (e.g. compiled explicitly)
+	 */
+	synchronized boolean deoptimize(CompiledExpression compiledExpression, Throwable ex) {
+		Specialization[] specializations = this.specializations;
+		for (int i = 0; i < specializations.length; i++) {
+			Specialization specialization = specializations[i];
+			if (specialization.compiledExpression == compiledExpression) {
+				List<Specialization> remaining = new ArrayList<>(Arrays.asList(specializations));
+				remaining.remove(i);
+				this.specializations = remaining.toArray(NO_SPECIALIZATIONS);
+				this.deoptimizationCount.incrementAndGet();
+				TypeProfile profile = this.profiles.get(specialization.rootType);
+				if (profile != null) {
+					profile.recordDeoptimized(specialization);
+				}
+				if (logger.isDebugEnabled()) {
+					logger.debug("SpEL: deoptimized " + this.ast.toStringAST() + " for root type [" +
+							specialization.rootType.getName() + "] after compiled evaluation failed: " + ex);
+				}
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Discard all specializations and type profiles.
+	 */
+	synchronized void reset() {
+		this.specializations = NO_SPECIALIZATIONS;
+		this.profiles.clear();
+	}
+
+	/**
+	 * Return a snapshot of the statistics collected so far.
+	 */
+	SpelCompilationStatistics getStatistics() {
+		Specialization[] specializations = this.specializations;
+		List<Class<?>> specializedTypes = new ArrayList<>(specializations.length);
+		for (Specialization specialization : specializations) {
+			specializedTypes.add(specialization.rootType);
+		}
+		return new SpelCompilationStatistics(this.interpretedCount.sum(), this.compiledCount.sum(),
+				this.compilationCount.get(), this.failedCompilationCount.get(), this.deoptimizationCount.get(),
+				specializedTypes);
+	}
+
+	/**
+	 * Capture the current type profile of each node in the AST.
+	 * @see SpelNodeImpl#getTypeProfileHash()
+	 */
+	private int[] captureNodeProfiles() {
+		SpelNodeImpl[] nodes = this.nodes;
+		int[] nodeProfiles = new int[nodes.length];
+		for (int i = 0; i < nodes.length; i++) {
+			nodeProfiles[i] = nodes[i].getTypeProfileHash();
+		}
+		return nodeProfiles;
+	}
+
+
+	private static Class<?> getRootType(@Nullable Object rootObject) {
+		return (rootObject != null ? rootObject.getClass() : Void.class);
+	}
+
+	private static void collectNodes(SpelNode node, List<SpelNodeImpl> nodes) {
+		nodes.add((SpelNodeImpl) node);
+		for (int i = 0, count = node.getChildCount(); i < count; i++) {
+			collectNodes(node.getChild(i), nodes);
+		}
+	}
+
+
+	/**
+	 * Type profile for a specific root type.
+	 */
+	private static final class TypeProfile {
+
+		final Class<?> rootType;
+
+		@Nullable
+		private int[] lastNodeProfiles;
+
+		private int stableCount;
+
+		private int failedAttempts;
+
+		// Nodes whose types changed under a compiled form before
+		private final BitSet changedNodes = new BitSet();
+
+		// Compiled forms retired after a type change, by their node profiles
+		private final Deque<Specialization> retired = new ArrayDeque<>(MAX_RETIRED_SPECIALIZATIONS);
+
+		@Nullable
+		private Specialization deoptimized;
+
+		TypeProfile(Class<?> rootType) {
+			this.rootType = rootType;
+		}
+
+		/**
+		 * Record the node type profiles of an interpreted evaluation.
+		 * @return whether the profile became stable enough for compilation
+		 */
+		synchronized boolean recordNodeProfiles(int[] nodeProfiles) {
+			if (this.failedAttempts >= FAILED_ATTEMPTS_THRESHOLD) {
+				return false;
+			}
+			if (this.stableCount > 0 && Arrays.equals(nodeProfiles, this.lastNodeProfiles)) {
+				this.stableCount++;
+			}
+			else {
+				this.lastNodeProfiles = nodeProfiles;
+				this.stableCount = 1;
+			}
+			return (this.stableCount >= STABLE_COUNT_THRESHOLD);
+		}
+
+		synchronized boolean isStableProfile(int[] nodeProfiles) {
+			return (this.stableCount >= STABLE_COUNT_THRESHOLD && Arrays.equals(nodeProfiles, this.lastNodeProfiles));
+		}
+
+		synchronized void resetStability() {
+			this.stableCount = 0;
+		}
+
+		synchronized void recordFailure() {
+			this.failedAttempts++;
+			this.stableCount = 0;
+		}
+
+		synchronized void recordDeoptimized(Specialization specialization) {
+			this.deoptimized = specialization;
+			this.stableCount = 0;
+		}
+
+		@Nullable
+		synchronized Specialization takeDeoptimized() {
+			Specialization deoptimized = this.deoptimized;
+			this.deoptimized = null;
+			return deoptimized;
+		}
+
+		/**
+		 * Record the nodes whose types changed under the given deoptimized specialization.
+		 * A failure without type change, or with a repeated change at the same node,
+		 * counts as a failed attempt; a first change at a node does not.
+		 */
+		synchronized void recordTypeChanges(BitSet changedNodes, Specialization deoptimized) {
+			if (changedNodes.isEmpty() || changedNodes.intersects(this.changedNodes)) {
+				this.failedAttempts++;
+			}
+			this.changedNodes.or(changedNodes);
+			if (!changedNodes.isEmpty()) {
+				if (this.retired.size() >= MAX_RETIRED_SPECIALIZATIONS) {
+					this.retired.removeLast();
+				}
+				this.retired.addFirst(deoptimized);
+			}
+		}
+
+		@Nullable
+		synchronized Specialization findRetired(int[] nodeProfiles) {
+			for (Iterator<Specialization> it = this.retired.iterator(); it.hasNext();) {
+				Specialization specialization = it.next();
+				if (Arrays.equals(nodeProfiles, specialization.nodeProfiles)) {
+					it.remove();
+					return specialization;
+				}
+			}
+			return null;
+		}
+	}
+
+
+	/**
+	 * A compiled form of the expression for the root type it has been compiled for,
+	 * guarded by the type profile of each of its nodes at compilation time.
+	 */
+	private static final class Specialization {
+
+		final Class<?> rootType;
+
+		final CompiledExpression compiledExpression;
+
+		final int[] nodeProfiles;
+
+		Specialization(Class<?> rootType, CompiledExpression compiledExpression, int[] nodeProfiles) {
+			this.rootType = rootType;
+			this.compiledExpression = compiledExpression;
+			this.nodeProfiles = nodeProfiles;
+		}
+	}
+
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel.standard;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Snapshot of the compilation statistics of a {@link SpelExpression}
+ * running in {@link org.springframework.expression.spel.SpelCompilerMode#ADAPTIVE}
+ * mode.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ * @see SpelExpression#getCompilationStatistics()
+ */
+public final class SpelCompilationStatistics {
+
+	private final long interpretedCount;
+
+	private final long compiledCount;
+
+	private final int compilationCount;
+
+	private final int failedCompilationCount;
+
+	private final int deoptimizationCount;
+
+	private final List<Class<?>> specializedTypes;
+
+
+	SpelCompilationStatistics(long interpretedCount, long compiledCount, int compilationCount,
+			int failedCompilationCount, int deoptimizationCount, List<Class<?>> specializedTypes) {
+
+		this.interpretedCount = interpretedCount;
+		this.compiledCount = compiledCount;
+		this.compilationCount = compilationCount;
+		this.failedCompilationCount = failedCompilationCount;
+		this.deoptimizationCount = deoptimizationCount;
+		this.specializedTypes = Collections.unmodifiableList(specializedTypes);
+	}
+
+
+	/**
+	 * Return the number of interpreted evaluations.
+	 */
+	public long getInterpretedCount() {
+		return this.interpretedCount;
+	}
+
+	/**
+	 * Return the number of evaluations through a compiled form
+	 * (including failed ones which got re-evaluated in interpreted mode).
+	 */
+	public long getCompiledCount() {
+		return this.compiledCount;
+	}
+
+	/**
+	 * Return the number of successful compilations.
+	 */
+	public int getCompilationCount() {
+		return this.compilationCount;
+	}
+
+	/**
+	 * Return the number of compilation attempts that failed since
+	 * the expression turned out to be not compilable.
+	 */
+	public int getFailedCompilationCount() {
+		return this.failedCompilationCount;
+	}
+
+	/**
+	 * Return the number of compiled forms discarded after failing
+	 * during evaluation.
+	 */
+	public int getDeoptimizationCount() {
+		return this.deoptimizationCount;
+	}
+
+	/**
+	 * Return the root object types that the expression is currently compiled for,
+	 * with {@code Void.class} representing a {@code null} root object.
+	 */
+	public List<Class<?>> getSpecializedTypes() {
+		return this.specializedTypes;
+	}
+
+
+	@Override
+	public String toString() {
+		return "interpreted=" + this.interpretedCount + ", compiled=" + this.compiledCount +
+				", compilations=" + this.compilationCount + ", failedCompilations=" + this.failedCompilationCount +
+				", deoptimizations=" + this.deoptimizationCount + ", specializedTypes=" + this.specializedTypes;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -25,11 +25,15 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
 import org.springframework.asm.MethodVisitor;
 import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
 import org.springframework.expression.Expression;
+import org.springframework.expression.common.LiteralExpression;
 import org.springframework.expression.spel.CodeFlow;
 import org.springframework.expression.spel.CompiledExpression;
+import org.springframework.expression.spel.CompiledTemplate;
 import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.expression.spel.ast.SpelNodeImpl;
 import org.springframework.lang.Nullable;
@@ -70,6 +74,9 @@ public final class SpelCompiler implements Opcodes {
 
 	private static final int CLASSES_DEFINED_LIMIT = 100;
 
+	// Number of characters to estimate for each expression part of a compiled template
+	private static final int ESTIMATED_PART_LENGTH = 16;
+
 	private static final Log logger = LogFactory.getLog(SpelCompiler.class);
 
 	// A compiler is created for each classloader, it manages a child class loader of that
@@ -121,6 +128,52 @@ public final class SpelCompiler implements Opcodes {
 		return null;
 	}
 
+	/**
+	 * Attempt compilation of the given template parts into a single method which
+	 * writes the literal parts and the results of the expression parts in turn.
+	 * Each expression part needs to be compilable on its own, as indicated by
+	 * {@link SpelNodeImpl#isCompilable()} for its AST.
+	 * @param expressions the parts of the template, each either a
+	 * {@link LiteralExpression} or a {@link SpelExpression}
+	 * @return an instance of the class implementing the compiled template,
+	 * or {@code null} if compilation is not possible
+	 * @since 5.3.5
+	 * @see SpelCompositeStringExpression
+	 */
+	@Nullable
+	public CompiledTemplate compileTemplate(Expression[] expressions) {
+		int estimatedLength = 0;
+		for (Expression expression : expressions) {
+			if (expression instanceof LiteralExpression) {
+				estimatedLength += expression.getExpressionString().length();
+			}
+			else if (expression instanceof SpelExpression &&
+					((SpelNodeImpl) ((SpelExpression) expression).getAST()).isCompilable()) {
+				estimatedLength += ESTIMATED_PART_LENGTH;
+			}
+			else {
+				if (logger.isDebugEnabled()) {
+					logger.debug("SpEL: unable to compile template part " + expression.getExpressionString());
+				}
+				return null;
+			}
+		}
+
+		if (logger.isDebugEnabled()) {
+			logger.debug("SpEL: compiling template with " + expressions.length + " parts");
+		}
+		Class<? extends CompiledTemplate> clazz = createTemplateClass(expressions, estimatedLength);
+		if (clazz != null) {
+			try {
+				return ReflectionUtils.accessibleConstructor(clazz).newInstance();
+			}
+			catch (Throwable ex) {
+				throw new IllegalStateException("Failed to instantiate CompiledTemplate", ex);
+			}
+		}
+		return null;
+	}
+
 	private int getNextSuffix() {
 		return this.suffixId.incrementAndGet();
 	}
@@ -187,6 +240,126 @@ public final class SpelCompiler implements Opcodes {
 		return loadClass(StringUtils.replace(className, "/", "."), data);
 	}
 
+	/**
+	 * Generate the class that encapsulates the compiled template and define it.
+	 * The generated class will be a subtype of CompiledTemplate.
+	 * @param expressions the literal and SpEL parts of the template
+	 * @param estimatedLength the estimated length of the rendered template
+	 * @return the template class, or {@code null} if the decision was to opt out of
+	 * compilation during code generation
+	 */
+	@Nullable
+	private Class<? extends CompiledTemplate> createTemplateClass(Expression[] expressions, int estimatedLength) {
+		// Create class outline 'spel/ExNNN extends org.springframework.expression.spel.CompiledTemplate'
+		String className = "spel/Ex" + getNextSuffix();
+		ClassWriter cw = new ExpressionClassWriter();
+		cw.visit(V1_8, ACC_PUBLIC, className, null, "org/springframework/expression/spel/CompiledTemplate", null);
+
+		// Create default constructor, passing the estimated length to the superclass
+		MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "()V", null, null);
+		mv.visitCode();
+		mv.visitVarInsn(ALOAD, 0);
+		mv.visitLdcInsn(estimatedLength);
+		mv.visitMethodInsn(INVOKESPECIAL, "org/springframework/expression/spel/CompiledTemplate",
+				"<init>", "(I)V", false);
+		mv.visitInsn(RETURN);
+		mv.visitMaxs(2, 1);
+		mv.visitEnd();
+
+		// Create write() method
+		mv = cw.visitMethod(ACC_PUBLIC, "write",
+				"(Ljava/lang/Object;Lorg/springframework/expression/EvaluationContext;Ljava/lang/Appendable;)V", null,
+				new String[] {"java/io/IOException", "org/springframework/expression/EvaluationException"});
+		mv.visitCode();
+
+		CodeFlow cf = new CodeFlow(className, cw);
+		// Variable 3 is the Appendable to write to, followed by a variable for intermediate values
+		int outVariable = cf.nextFreeVariableId();
+		int valueVariable = cf.nextFreeVariableId();
+
+		for (Expression expression : expressions) {
+			mv.visitVarInsn(ALOAD, outVariable);
+			if (expression instanceof LiteralExpression) {
+				mv.visitLdcInsn(expression.getExpressionString());
+				insertAppend(mv);
+				continue;
+			}
+			SpelNodeImpl ast = (SpelNodeImpl) ((SpelExpression) expression).getAST();
+			cf.enterCompilationScope();
+			try {
+				ast.generateCode(mv, cf);
+			}
+			catch (IllegalStateException ex) {
+				if (logger.isDebugEnabled()) {
+					logger.debug(ast.getClass().getSimpleName() +
+							".generateCode opted out of compilation: " + ex.getMessage());
+				}
+				return null;
+			}
+			String descriptor = cf.lastDescriptor();
+			cf.exitCompilationScope();
+			if (descriptor == null) {
+				return null;
+			}
+			else if ("V".equals(descriptor)) {
+				// No value to append
+				mv.visitInsn(POP);
+			}
+			else if (CodeFlow.isPrimitive(descriptor)) {
+				String valueDescriptor = (descriptor.equals("B") || descriptor.equals("S") ? "I" : descriptor);
+				mv.visitMethodInsn(INVOKESTATIC, "java/lang/String", "valueOf",
+						"(" + valueDescriptor + ")Ljava/lang/String;", false);
+				insertAppend(mv);
+			}
+			else {
+				// Skip null values, convert any other values to String through the TypeConverter
+				Label skipNull = new Label();
+				Label partEnd = new Label();
+				mv.visitInsn(DUP);
+				mv.visitJumpInsn(IFNULL, skipNull);
+				if (!"Ljava/lang/String".equals(descriptor)) {
+					mv.visitVarInsn(ASTORE, valueVariable);
+					cf.loadEvaluationContext(mv);
+					mv.visitTypeInsn(NEW, "org/springframework/expression/TypedValue");
+					mv.visitInsn(DUP);
+					mv.visitVarInsn(ALOAD, valueVariable);
+					mv.visitMethodInsn(INVOKESPECIAL, "org/springframework/expression/TypedValue",
+							"<init>", "(Ljava/lang/Object;)V", false);
+					mv.visitLdcInsn(Type.getType(String.class));
+					mv.visitMethodInsn(INVOKESTATIC, "org/springframework/expression/common/ExpressionUtils",
+							"convertTypedValue", "(Lorg/springframework/expression/EvaluationContext;" +
+							"Lorg/springframework/expression/TypedValue;Ljava/lang/Class;)Ljava/lang/Object;", false);
+					mv.visitTypeInsn(CHECKCAST, "java/lang/String");
+				}
+				insertAppend(mv);
+				mv.visitJumpInsn(GOTO, partEnd);
+				mv.visitLabel(skipNull);
+				mv.visitInsn(POP2);
+				mv.visitLabel(partEnd);
+			}
+		}
+		mv.visitInsn(RETURN);
+
+		mv.visitMaxs(0, 0);  // not supplied due to COMPUTE_MAXS
+		mv.visitEnd();
+		cw.visitEnd();
+
+		cf.finish();
+
+		byte[] data = cw.toByteArray();
+		return loadClass(StringUtils.replace(className, "/", "."), data);
+	}
+
+	/**
+	 * Insert an {@code Appendable.append(CharSequence)} call for the Appendable
+	 * and the value on top of the stack, consuming both.
+	 */
+	private static void insertAppend(MethodVisitor mv) {
+		mv.visitMethodInsn(INVOKEINTERFACE, "java/lang/Appendable", "append",
+				"(Ljava/lang/CharSequence;)Ljava/lang/Appendable;", true);
+		mv.visitInsn(POP);
+	}
+
 	/**
 	 * Load a compiled expression class. Makes sure the classloaders aren't used too much
 	 * because they anchor compiled classes in memory and prevent GC. If you have expressions
@@ -197,7 +370,7 @@ public final class SpelCompiler implements Opcodes {
 	 * @return the Class object for the compiled expression
 	 */
 	@SuppressWarnings("unchecked")
-	private Class<? extends CompiledExpression> loadClass(String name, byte[] bytes) {
+	private <T> Class<? extends T> loadClass(String name, byte[] bytes) {
 		ChildClassLoader ccl = this.childClassLoader;
 		if (ccl.getClassesDefinedCount() >= CLASSES_DEFINED_LIMIT) {
 			synchronized (this) {
@@ -213,7 +386,7 @@ public final class SpelCompiler implements Opcodes {
 				}
 			}
 		}
-		return (Class<? extends CompiledExpression>) ccl.defineClass(name, bytes);
+		return (Class<? extends T>) ccl.defineClass(name, bytes);
 	}
 
 
@@ -250,6 +423,9 @@ public final class SpelCompiler implements Opcodes {
 	 * {@code false} otherwise
 	 */
 	public static boolean compile(Expression expression) {
+		if (expression instanceof SpelCompositeStringExpression) {
+			return ((SpelCompositeStringExpression) expression).compileExpression();
+		}
 		return (expression instanceof SpelExpression && ((SpelExpression) expression).compileExpression());
 	}
 
@@ -262,6 +438,9 @@ public final class SpelCompiler implements Opcodes {
 		if (expression instanceof SpelExpression) {
 			((SpelExpression) expression).revertToInterpreted();
 		}
+		else if (expression instanceof SpelCompositeStringExpression) {
+			((SpelCompositeStringExpression) expression).revertToInterpreted();
+		}
 	}
 
 
@@ -0,0 +1,309 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel.standard;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.EvaluationException;
+import org.springframework.expression.Expression;
+import org.springframework.expression.common.CompositeStringExpression;
+import org.springframework.expression.spel.CompiledTemplate;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.SpelMessage;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * A {@link CompositeStringExpression} created by the {@link SpelExpressionParser}
+ * (unless its compiler is turned off), with support for compiling the entire template
+ * into a single generated method which writes all literal and evaluated parts in turn,
+ * instead of evaluating and converting each part separately.
+ *
+ * <p>Compilation follows the {@link SpelCompilerMode} of the parser configuration,
+ * just like for a {@link SpelExpression}: in {@code IMMEDIATE} mode, the template gets
+ * compiled after its second interpreted evaluation; in {@code MIXED} mode, it gets
+ * compiled after a number of interpreted evaluations and falls back to interpretation
+ * if the compiled form fails. In {@code ADAPTIVE} mode, the template itself is not
+ * compiled since each of its parts maintains its own specializations per root type.
+ * A template may also be compiled explicitly through {@link #compileExpression()}.
+ *
+ * <p>Note that primitive values get appended as-is in compiled form, whereas other
+ * values are converted to String through the context's
+ * {@link org.springframework.expression.TypeConverter}, as in interpreted mode.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ * @see SpelCompiler#compileTemplate
+ */
+public class SpelCompositeStringExpression extends CompositeStringExpression {
+
+	// Number of interpreted evaluations in mixed mode before compiling
+	private static final int INTERPRETED_COUNT_THRESHOLD = 100;
+
+	// Number of failed compilation attempts before giving up
+	private static final int FAILED_ATTEMPTS_THRESHOLD = 100;
+
+
+	private final SpelParserConfiguration configuration;
+
+	@Nullable
+	private EvaluationContext evaluationContext;
+
+	@Nullable
+	private volatile CompiledTemplate compiledTemplate;
+
+	private final AtomicInteger interpretedCount = new AtomicInteger();
+
+	private final AtomicInteger failedAttempts = new AtomicInteger();
+
+
+	/**
+	 * Construct a composite expression, only used by the parser.
+	 */
+	public SpelCompositeStringExpression(
+			String expressionString, Expression[] expressions, SpelParserConfiguration configuration) {
+
+		super(expressionString, expressions);
+		this.configuration = configuration;
+	}
+
+
+	/**
+	 * Return the default evaluation context that will be used by the compiled
+	 * form of this template if none is supplied on an evaluation call.
+	 */
+	private EvaluationContext getEvaluationContext() {
+		if (this.evaluationContext == null) {
+			this.evaluationContext = new StandardEvaluationContext();
+		}
+		return this.evaluationContext;
+	}
+
+	@Override
+	public String getValue() throws EvaluationException {
+		CompiledTemplate compiledTemplate = this.compiledTemplate;
+		if (compiledTemplate != null) {
+			try {
+				EvaluationContext context = getEvaluationContext();
+				return compiledTemplate.getValue(context.getRootObject().getValue(), context);
+			}
+			catch (Throwable ex) {
+				// If running in mixed mode, revert to interpreted
+				revertCompiledTemplate(ex);
+			}
+		}
+
+		String result = super.getValue();
+		checkCompile();
+		return result;
+	}
+
+	@Override
+	public String getValue(@Nullable Object rootObject) throws EvaluationException {
+		CompiledTemplate compiledTemplate = this.compiledTemplate;
+		if (compiledTemplate != null) {
+			try {
+				return compiledTemplate.getValue(rootObject, getEvaluationContext());
+			}
+			catch (Throwable ex) {
+				// If running in mixed mode, revert to interpreted
+				revertCompiledTemplate(ex);
+			}
+		}
+
+		String result = super.getValue(rootObject);
+		checkCompile();
+		return result;
+	}
+
+	@Override
+	public String getValue(EvaluationContext context) throws EvaluationException {
+		Assert.notNull(context, "EvaluationContext is required");
+
+		CompiledTemplate compiledTemplate = this.compiledTemplate;
+		if (compiledTemplate != null) {
+			try {
+				return compiledTemplate.getValue(context.getRootObject().getValue(), context);
+			}
+			catch (Throwable ex) {
+				// If running in mixed mode, revert to interpreted
+				revertCompiledTemplate(ex);
+			}
+		}
+
+		String result = super.getValue(context);
+		checkCompile();
+		return result;
+	}
+
+	@Override
+	public String getValue(EvaluationContext context, @Nullable Object rootObject) throws EvaluationException {
+		Assert.notNull(context, "EvaluationContext is required");
+
+		CompiledTemplate compiledTemplate = this.compiledTemplate;
+		if (compiledTemplate != null) {
+			try {
+				return compiledTemplate.getValue(rootObject, context);
+			}
+			catch (Throwable ex) {
+				// If running in mixed mode, revert to interpreted
+				revertCompiledTemplate(ex);
+			}
+		}
+
+		String result = super.getValue(context, rootObject);
+		checkCompile();
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>In compiled form, the result is written to the given {@code Appendable}
+	 * directly in {@code IMMEDIATE} mode. In {@code MIXED} mode, it is rendered
+	 * into a String first, in order to be able to fall back to interpretation
+	 * without partial output having been written.
+	 */
+	@Override
+	public void writeValue(EvaluationContext context, Appendable out) throws EvaluationException, IOException {
+		Assert.notNull(context, "EvaluationContext is required");
+		writeValue(context, context.getRootObject().getValue(), out);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * <p>In compiled form, the result is written to the given {@code Appendable}
+	 * directly in {@code IMMEDIATE} mode. In {@code MIXED} mode, it is rendered
+	 * into a String first, in order to be able to fall back to interpretation
+	 * without partial output having been written.
+	 */
+	@Override
+	public void writeValue(EvaluationContext context, @Nullable Object rootObject, Appendable out)
+			throws EvaluationException, IOException {
+
+		Assert.notNull(context, "EvaluationContext is required");
+
+		CompiledTemplate compiledTemplate = this.compiledTemplate;
+		if (compiledTemplate != null) {
+			if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
+				out.append(getValue(context, rootObject));
+				return;
+			}
+			try {
+				compiledTemplate.write(rootObject, context, out);
+				return;
+			}
+			catch (IOException ex) {
+				throw ex;
+			}
+			catch (Throwable ex) {
+				throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
+			}
+		}
+
+		super.writeValue(context, rootObject, out);
+		checkCompile();
+	}
+
+	/**
+	 * Compile the template if it has been evaluated more than the threshold
+	 * number of times to trigger compilation.
+	 */
+	private void checkCompile() {
+		SpelCompilerMode compilerMode = this.configuration.getCompilerMode();
+		if (compilerMode == SpelCompilerMode.IMMEDIATE) {
+			if (this.interpretedCount.incrementAndGet() > 1) {
+				compileExpression();
+			}
+		}
+		else if (compilerMode == SpelCompilerMode.MIXED) {
+			if (this.interpretedCount.incrementAndGet() > INTERPRETED_COUNT_THRESHOLD) {
+				compileExpression();
+			}
+		}
+	}
+
+	/**
+	 * Discard the compiled form of the template after its evaluation failed,
+	 * or propagate the exception to the caller in immediate mode.
+	 */
+	private void revertCompiledTemplate(Throwable ex) {
+		if (this.configuration.getCompilerMode() == SpelCompilerMode.IMMEDIATE) {
+			throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
+		}
+		this.compiledTemplate = null;
+		this.interpretedCount.set(0);
+	}
+
+	/**
+	 * Perform template compilation. This will only succeed once all expression
+	 * parts of the template have been evaluated and are compilable on their own.
+	 * If the compilation fails and has failed more than 100 times the template
+	 * is no longer considered suitable for compilation.
+	 * @return whether this template has been successfully compiled
+	 */
+	public boolean compileExpression() {
+		if (this.compiledTemplate != null) {
+			// Previously compiled
+			return true;
+		}
+		if (this.failedAttempts.get() > FAILED_ATTEMPTS_THRESHOLD) {
+			// Don't try again
+			return false;
+		}
+
+		synchronized (this) {
+			if (this.compiledTemplate != null) {
+				// Compiled by another thread before this thread got into the sync block
+				return true;
+			}
+			SpelCompiler compiler = SpelCompiler.getCompiler(this.configuration.getCompilerClassLoader());
+			CompiledTemplate compiledTemplate = compiler.compileTemplate(getExpressions());
+			if (compiledTemplate != null) {
+				// Successfully compiled
+				this.compiledTemplate = compiledTemplate;
+				return true;
+			}
+			else {
+				// Failed to compile
+				this.failedAttempts.incrementAndGet();
+				return false;
+			}
+		}
+	}
+
+	/**
+	 * Cause the template to revert to being interpreted if it has been using a
+	 * compiled form, including all of its expression parts. This also resets the
+	 * compilation attempt failure count.
+	 */
+	public void revertToInterpreted() {
+		this.compiledTemplate = null;
+		this.interpretedCount.set(0);
+		this.failedAttempts.set(0);
+		for (Expression expression : getExpressions()) {
+			if (expression instanceof SpelExpression) {
+				((SpelExpression) expression).revertToInterpreted();
+			}
+		}
+	}
+
+}
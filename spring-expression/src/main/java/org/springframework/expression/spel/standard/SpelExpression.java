@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,11 @@
 
 package org.springframework.expression.spel.standard;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.springframework.core.convert.TypeDescriptor;
@@ -54,6 +59,9 @@ public class SpelExpression implements Expression {
 	// Number of times to try compiling an expression before giving up
 	private static final int FAILED_ATTEMPTS_THRESHOLD = 100;
 
+	// Number of root objects to evaluate per task in a parallel batch evaluation
+	private static final int BATCH_CHUNK_SIZE = 1024;
+
 
 	private final String expression;
 
@@ -77,6 +85,10 @@ public class SpelExpression implements Expression {
 	// give up trying to compile it when it just doesn't seem to be possible.
 	private final AtomicInteger failedAttempts = new AtomicInteger();
 
+	// Holds the compiled forms per root type in adaptive mode
+	@Nullable
+	private final AdaptiveCompilation adaptiveCompilation;
+
 
 	/**
 	 * Construct an expression, only used by the parser.
@@ -85,6 +97,8 @@ public class SpelExpression implements Expression {
 		this.expression = expression;
 		this.ast = ast;
 		this.configuration = configuration;
+		this.adaptiveCompilation = (configuration.getCompilerMode() == SpelCompilerMode.ADAPTIVE ?
+				new AdaptiveCompilation(ast, configuration.getCompilerClassLoader()) : null);
 	}
 
 
@@ -118,22 +132,15 @@ public class SpelExpression implements Expression {
 	@Override
 	@Nullable
 	public Object getValue() throws EvaluationException {
-		CompiledExpression compiledAst = this.compiledAst;
+		EvaluationContext context = getEvaluationContext();
+		CompiledExpression compiledAst = getCompiledAst(context.getRootObject().getValue());
 		if (compiledAst != null) {
 			try {
-				EvaluationContext context = getEvaluationContext();
 				return compiledAst.getValue(context.getRootObject().getValue(), context);
 			}
 			catch (Throwable ex) {
-				// If running in mixed mode, revert to interpreted
-				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
-					this.compiledAst = null;
-					this.interpretedCount.set(0);
-				}
-				else {
-					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
-					throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
-				}
+				// If running in mixed or adaptive mode, revert to interpreted
+				revertCompiledAst(compiledAst, ex);
 			}
 		}
 
@@ -147,10 +154,10 @@ public class SpelExpression implements Expression {
 	@Override
 	@Nullable
 	public <T> T getValue(@Nullable Class<T> expectedResultType) throws EvaluationException {
-		CompiledExpression compiledAst = this.compiledAst;
+		EvaluationContext context = getEvaluationContext();
+		CompiledExpression compiledAst = getCompiledAst(context.getRootObject().getValue());
 		if (compiledAst != null) {
 			try {
-				EvaluationContext context = getEvaluationContext();
 				Object result = compiledAst.getValue(context.getRootObject().getValue(), context);
 				if (expectedResultType == null) {
 					return (T) result;
@@ -161,15 +168,8 @@ public class SpelExpression implements Expression {
 				}
 			}
 			catch (Throwable ex) {
-				// If running in mixed mode, revert to interpreted
-				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
-					this.compiledAst = null;
-					this.interpretedCount.set(0);
-				}
-				else {
-					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
-					throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
-				}
+				// If running in mixed or adaptive mode, revert to interpreted
+				revertCompiledAst(compiledAst, ex);
 			}
 		}
 
@@ -183,21 +183,14 @@ public class SpelExpression implements Expression {
 	@Override
 	@Nullable
 	public Object getValue(@Nullable Object rootObject) throws EvaluationException {
-		CompiledExpression compiledAst = this.compiledAst;
+		CompiledExpression compiledAst = getCompiledAst(rootObject);
 		if (compiledAst != null) {
 			try {
 				return compiledAst.getValue(rootObject, getEvaluationContext());
 			}
 			catch (Throwable ex) {
-				// If running in mixed mode, revert to interpreted
-				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
-					this.compiledAst = null;
-					this.interpretedCount.set(0);
-				}
-				else {
-					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
-					throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
-				}
+				// If running in mixed or adaptive mode, revert to interpreted
+				revertCompiledAst(compiledAst, ex);
 			}
 		}
 
@@ -212,7 +205,7 @@ public class SpelExpression implements Expression {
 	@Override
 	@Nullable
 	public <T> T getValue(@Nullable Object rootObject, @Nullable Class<T> expectedResultType) throws EvaluationException {
-		CompiledExpression compiledAst = this.compiledAst;
+		CompiledExpression compiledAst = getCompiledAst(rootObject);
 		if (compiledAst != null) {
 			try {
 				Object result = compiledAst.getValue(rootObject, getEvaluationContext());
@@ -225,15 +218,8 @@ public class SpelExpression implements Expression {
 				}
 			}
 			catch (Throwable ex) {
-				// If running in mixed mode, revert to interpreted
-				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
-					this.compiledAst = null;
-					this.interpretedCount.set(0);
-				}
-				else {
-					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
-					throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
-				}
+				// If running in mixed or adaptive mode, revert to interpreted
+				revertCompiledAst(compiledAst, ex);
 			}
 		}
 
@@ -250,21 +236,14 @@ public class SpelExpression implements Expression {
 	public Object getValue(EvaluationContext context) throws EvaluationException {
 		Assert.notNull(context, "EvaluationContext is required");
 
-		CompiledExpression compiledAst = this.compiledAst;
+		CompiledExpression compiledAst = getCompiledAst(context.getRootObject().getValue());
 		if (compiledAst != null) {
 			try {
 				return compiledAst.getValue(context.getRootObject().getValue(), context);
 			}
 			catch (Throwable ex) {
-				// If running in mixed mode, revert to interpreted
-				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
-					this.compiledAst = null;
-					this.interpretedCount.set(0);
-				}
-				else {
-					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
-					throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
-				}
+				// If running in mixed or adaptive mode, revert to interpreted
+				revertCompiledAst(compiledAst, ex);
 			}
 		}
 
@@ -280,7 +259,7 @@ public class SpelExpression implements Expression {
 	public <T> T getValue(EvaluationContext context, @Nullable Class<T> expectedResultType) throws EvaluationException {
 		Assert.notNull(context, "EvaluationContext is required");
 
-		CompiledExpression compiledAst = this.compiledAst;
+		CompiledExpression compiledAst = getCompiledAst(context.getRootObject().getValue());
 		if (compiledAst != null) {
 			try {
 				Object result = compiledAst.getValue(context.getRootObject().getValue(), context);
@@ -292,15 +271,8 @@ public class SpelExpression implements Expression {
 				}
 			}
 			catch (Throwable ex) {
-				// If running in mixed mode, revert to interpreted
-				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
-					this.compiledAst = null;
-					this.interpretedCount.set(0);
-				}
-				else {
-					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
-					throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
-				}
+				// If running in mixed or adaptive mode, revert to interpreted
+				revertCompiledAst(compiledAst, ex);
 			}
 		}
 
@@ -315,21 +287,14 @@ public class SpelExpression implements Expression {
 	public Object getValue(EvaluationContext context, @Nullable Object rootObject) throws EvaluationException {
 		Assert.notNull(context, "EvaluationContext is required");
 
-		CompiledExpression compiledAst = this.compiledAst;
+		CompiledExpression compiledAst = getCompiledAst(rootObject);
 		if (compiledAst != null) {
 			try {
 				return compiledAst.getValue(rootObject, context);
 			}
 			catch (Throwable ex) {
-				// If running in mixed mode, revert to interpreted
-				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
-					this.compiledAst = null;
-					this.interpretedCount.set(0);
-				}
-				else {
-					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
-					throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
-				}
+				// If running in mixed or adaptive mode, revert to interpreted
+				revertCompiledAst(compiledAst, ex);
 			}
 		}
 
@@ -347,7 +312,7 @@ public class SpelExpression implements Expression {
 
 		Assert.notNull(context, "EvaluationContext is required");
 
-		CompiledExpression compiledAst = this.compiledAst;
+		CompiledExpression compiledAst = getCompiledAst(rootObject);
 		if (compiledAst != null) {
 			try {
 				Object result = compiledAst.getValue(rootObject, context);
@@ -359,15 +324,8 @@ public class SpelExpression implements Expression {
 				}
 			}
 			catch (Throwable ex) {
-				// If running in mixed mode, revert to interpreted
-				if (this.configuration.getCompilerMode() == SpelCompilerMode.MIXED) {
-					this.compiledAst = null;
-					this.interpretedCount.set(0);
-				}
-				else {
-					// Running in SpelCompilerMode.immediate mode - propagate exception to caller
-					throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
-				}
+				// If running in mixed or adaptive mode, revert to interpreted
+				revertCompiledAst(compiledAst, ex);
 			}
 		}
 
@@ -477,6 +435,225 @@ public class SpelExpression implements Expression {
 	}
 
 
+	// Batch evaluation
+
+	/**
+	 * Evaluate this expression as a predicate against each of the given root
+	 * objects, returning those for which it evaluates to {@code true}.
+	 * @param context the context in which to evaluate the expression
+	 * @param rootObjects the root objects to evaluate against
+	 * @return the matching root objects, in their original order
+	 * @since 5.3.5
+	 * @see #filter(EvaluationContext, List, ForkJoinPool)
+	 */
+	public <T> List<T> filter(EvaluationContext context, List<T> rootObjects) throws EvaluationException {
+		return filter(context, rootObjects, null);
+	}
+
+	/**
+	 * Evaluate this expression as a predicate against each of the given root
+	 * objects, returning those for which it evaluates to {@code true}.
+	 * <p>Large inputs get split into chunks which are evaluated in parallel
+	 * on the given pool, if any. The given context needs to be safe for
+	 * concurrent evaluation in that case.
+	 * @param context the context in which to evaluate the expression
+	 * @param rootObjects the root objects to evaluate against
+	 * @param pool the pool to evaluate chunks of a large input on,
+	 * or {@code null} to evaluate sequentially on the calling thread
+	 * @return the matching root objects, in their original order
+	 * @since 5.3.5
+	 */
+	public <T> List<T> filter(EvaluationContext context, List<T> rootObjects, @Nullable ForkJoinPool pool)
+			throws EvaluationException {
+
+		boolean[] matches = getBooleanValues(context, rootObjects, pool);
+		List<T> result = new ArrayList<>();
+		int index = 0;
+		for (T rootObject : rootObjects) {
+			if (matches[index++]) {
+				result.add(rootObject);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Evaluate this expression against each of the given root objects.
+	 * @param context the context in which to evaluate the expression
+	 * @param rootObjects the root objects to evaluate against
+	 * @param expectedResultType the type to convert each result to
+	 * @return the results, in the order of the given root objects
+	 * @since 5.3.5
+	 * @see #getValues(EvaluationContext, List, Class, ForkJoinPool)
+	 */
+	public <T> List<T> getValues(EvaluationContext context, List<?> rootObjects, Class<T> expectedResultType)
+			throws EvaluationException {
+
+		return getValues(context, rootObjects, expectedResultType, null);
+	}
+
+	/**
+	 * Evaluate this expression against each of the given root objects.
+	 * <p>Large inputs get split into chunks which are evaluated in parallel
+	 * on the given pool, if any. The given context needs to be safe for
+	 * concurrent evaluation in that case.
+	 * @param context the context in which to evaluate the expression
+	 * @param rootObjects the root objects to evaluate against
+	 * @param expectedResultType the type to convert each result to
+	 * @param pool the pool to evaluate chunks of a large input on,
+	 * or {@code null} to evaluate sequentially on the calling thread
+	 * @return the results, in the order of the given root objects
+	 * @since 5.3.5
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> List<T> getValues(EvaluationContext context, List<?> rootObjects, Class<T> expectedResultType,
+			@Nullable ForkJoinPool pool) throws EvaluationException {
+
+		Object[] result = new Object[rootObjects.size()];
+		evaluateBatch(context, rootObjects, pool, (index, value) -> result[index] =
+				(expectedResultType.isInstance(value) ? value :
+						ExpressionUtils.convertTypedValue(context, new TypedValue(value), expectedResultType)));
+		return (List<T>) Arrays.asList(result);
+	}
+
+	/**
+	 * Evaluate this expression as a predicate against each of the given root objects,
+	 * with {@code null} results evaluating to {@code false}.
+	 * @param context the context in which to evaluate the expression
+	 * @param rootObjects the root objects to evaluate against
+	 * @return the results, in the order of the given root objects
+	 * @since 5.3.5
+	 * @see #getBooleanValues(EvaluationContext, List, ForkJoinPool)
+	 */
+	public boolean[] getBooleanValues(EvaluationContext context, List<?> rootObjects) throws EvaluationException {
+		return getBooleanValues(context, rootObjects, null);
+	}
+
+	/**
+	 * Evaluate this expression as a predicate against each of the given root objects,
+	 * with {@code null} results evaluating to {@code false}.
+	 * <p>Large inputs get split into chunks which are evaluated in parallel
+	 * on the given pool, if any. The given context needs to be safe for
+	 * concurrent evaluation in that case.
+	 * @param context the context in which to evaluate the expression
+	 * @param rootObjects the root objects to evaluate against
+	 * @param pool the pool to evaluate chunks of a large input on,
+	 * or {@code null} to evaluate sequentially on the calling thread
+	 * @return the results, in the order of the given root objects
+	 * @since 5.3.5
+	 * @see #filter(EvaluationContext, List, ForkJoinPool)
+	 */
+	public boolean[] getBooleanValues(EvaluationContext context, List<?> rootObjects, @Nullable ForkJoinPool pool)
+			throws EvaluationException {
+
+		boolean[] result = new boolean[rootObjects.size()];
+		evaluateBatch(context, rootObjects, pool, (index, value) -> result[index] =
+				(value instanceof Boolean ? (Boolean) value : Boolean.TRUE.equals(
+						ExpressionUtils.convertTypedValue(context, new TypedValue(value), Boolean.class))));
+		return result;
+	}
+
+	/**
+	 * Evaluate this expression against each of the given root objects,
+	 * converting each result to a {@code double}.
+	 * @param context the context in which to evaluate the expression
+	 * @param rootObjects the root objects to evaluate against
+	 * @return the results, in the order of the given root objects
+	 * @throws SpelEvaluationException if the expression evaluates to {@code null}
+	 * for any of the root objects
+	 * @since 5.3.5
+	 * @see #getDoubleValues(EvaluationContext, List, ForkJoinPool)
+	 */
+	public double[] getDoubleValues(EvaluationContext context, List<?> rootObjects) throws EvaluationException {
+		return getDoubleValues(context, rootObjects, null);
+	}
+
+	/**
+	 * Evaluate this expression against each of the given root objects,
+	 * converting each result to a {@code double}.
+	 * <p>Large inputs get split into chunks which are evaluated in parallel
+	 * on the given pool, if any. The given context needs to be safe for
+	 * concurrent evaluation in that case.
+	 * @param context the context in which to evaluate the expression
+	 * @param rootObjects the root objects to evaluate against
+	 * @param pool the pool to evaluate chunks of a large input on,
+	 * or {@code null} to evaluate sequentially on the calling thread
+	 * @return the results, in the order of the given root objects
+	 * @throws SpelEvaluationException if the expression evaluates to {@code null}
+	 * for any of the root objects
+	 * @since 5.3.5
+	 */
+	public double[] getDoubleValues(EvaluationContext context, List<?> rootObjects, @Nullable ForkJoinPool pool)
+			throws EvaluationException {
+
+		double[] result = new double[rootObjects.size()];
+		evaluateBatch(context, rootObjects, pool, (index, value) -> {
+			Number number = (value instanceof Number ? (Number) value :
+					ExpressionUtils.convertTypedValue(context, new TypedValue(value), Double.class));
+			if (number == null) {
+				throw new SpelEvaluationException(SpelMessage.TYPE_CONVERSION_ERROR, "null", "double");
+			}
+			result[index] = number.doubleValue();
+		});
+		return result;
+	}
+
+	/**
+	 * Evaluate this expression against each of the given root objects, passing
+	 * each result to the given consumer along with the index of its root object.
+	 * <p>The compiled form of the expression is used where available. The context
+	 * gets set up once for the entire batch, and large inputs get split into
+	 * chunks to be evaluated on the given pool, if any.
+	 */
+	private void evaluateBatch(EvaluationContext context, List<?> rootObjects, @Nullable ForkJoinPool pool,
+			BatchResultConsumer consumer) {
+
+		Assert.notNull(context, "EvaluationContext is required");
+		Assert.notNull(rootObjects, "Root objects must not be null");
+		Object[] roots = rootObjects.toArray();
+		if (pool != null && roots.length > BATCH_CHUNK_SIZE) {
+			// Initialize lazily created infrastructure of the context before concurrent access
+			context.getPropertyAccessors();
+			context.getMethodResolvers();
+			context.getConstructorResolvers();
+			context.getTypeLocator();
+			context.getTypeConverter();
+			pool.invoke(new BatchEvaluationTask(context, roots, 0, roots.length, consumer));
+		}
+		else {
+			evaluateBatch(context, roots, 0, roots.length, consumer);
+		}
+	}
+
+	private void evaluateBatch(EvaluationContext context, Object[] roots, int from, int to,
+			BatchResultConsumer consumer) {
+
+		for (int i = from; i < to; i++) {
+			Object rootObject = roots[i];
+			Object value = null;
+			boolean evaluated = false;
+			CompiledExpression compiledAst = getCompiledAst(rootObject);
+			if (compiledAst != null) {
+				try {
+					value = compiledAst.getValue(rootObject, context);
+					evaluated = true;
+				}
+				catch (Throwable ex) {
+					// If running in mixed or adaptive mode, revert to interpreted
+					revertCompiledAst(compiledAst, ex);
+				}
+			}
+			if (!evaluated) {
+				ExpressionState expressionState =
+						new ExpressionState(context, toTypedValue(rootObject), this.configuration);
+				value = this.ast.getValue(expressionState);
+				checkCompile(expressionState);
+			}
+			consumer.accept(i, value);
+		}
+	}
+
+
 	/**
 	 * Compile the expression if it has been evaluated more than the threshold number
 	 * of times to trigger compilation.
@@ -491,6 +668,10 @@ public class SpelExpression implements Expression {
 					compileExpression();
 				}
 			}
+			else if (this.adaptiveCompilation != null) {
+				// compilerMode = SpelCompilerMode.ADAPTIVE
+				this.adaptiveCompilation.recordInterpretation(expressionState.getRootContextObject().getValue());
+			}
 			else {
 				// compilerMode = SpelCompilerMode.MIXED
 				if (this.interpretedCount.get() > INTERPRETED_COUNT_THRESHOLD) {
@@ -500,6 +681,43 @@ public class SpelExpression implements Expression {
 		}
 	}
 
+	/**
+	 * Return the compiled form of the expression to use for the given root object:
+	 * in adaptive mode, the compiled form specialized for the type of the root object,
+	 * falling back to the general compiled form (if compiled explicitly).
+	 */
+	@Nullable
+	private CompiledExpression getCompiledAst(@Nullable Object rootObject) {
+		if (this.adaptiveCompilation != null) {
+			CompiledExpression compiledAst = this.adaptiveCompilation.getCompiledExpression(rootObject);
+			if (compiledAst != null) {
+				return compiledAst;
+			}
+		}
+		return this.compiledAst;
+	}
+
+	/**
+	 * Discard the given compiled form of the expression after its evaluation failed,
+	 * or propagate the exception to the caller in immediate mode.
+	 */
+	private void revertCompiledAst(CompiledExpression compiledAst, Throwable ex) {
+		SpelCompilerMode compilerMode = this.configuration.getCompilerMode();
+		if (compilerMode == SpelCompilerMode.ADAPTIVE && this.adaptiveCompilation != null &&
+				this.adaptiveCompilation.deoptimize(compiledAst, ex)) {
+			// Only the specialization for the current root type got discarded
+			return;
+		}
+		if (compilerMode == SpelCompilerMode.MIXED || compilerMode == SpelCompilerMode.ADAPTIVE) {
+			this.compiledAst = null;
+			this.interpretedCount.set(0);
+		}
+		else {
+			// Running in SpelCompilerMode.immediate mode - propagate exception to caller
+			throw new SpelEvaluationException(ex, SpelMessage.EXCEPTION_RUNNING_COMPILED_EXPRESSION);
+		}
+	}
+
 	/**
 	 * Perform expression compilation. This will only succeed once exit descriptors for
 	 * all nodes have been determined. If the compilation fails and has failed more than
@@ -546,6 +764,22 @@ public class SpelExpression implements Expression {
 		this.compiledAst = null;
 		this.interpretedCount.set(0);
 		this.failedAttempts.set(0);
+		if (this.adaptiveCompilation != null) {
+			this.adaptiveCompilation.reset();
+		}
+	}
+
+	/**
+	 * Return the compilation statistics for this expression: the number of
+	 * interpreted and compiled evaluations, compilations and deoptimizations,
+	 * as well as the root object types that the expression is compiled for.
+	 * @return a snapshot of the statistics, or {@code null} if this expression
+	 * is not running in {@link SpelCompilerMode#ADAPTIVE adaptive} mode
+	 * @since 5.3.5
+	 */
+	@Nullable
+	public SpelCompilationStatistics getCompilationStatistics() {
+		return (this.adaptiveCompilation != null ? this.adaptiveCompilation.getStatistics() : null);
 	}
 
 	/**
@@ -569,4 +803,56 @@ public class SpelExpression implements Expression {
 		return (object != null ? new TypedValue(object) : TypedValue.NULL);
 	}
 
+
+	/**
+	 * Callback for the result of a batch evaluation for a specific root object.
+	 * Called concurrently for distinct indexes in case of parallel evaluation.
+	 */
+	@FunctionalInterface
+	private interface BatchResultConsumer {
+
+		void accept(int index, @Nullable Object value);
+	}
+
+
+	/**
+	 * Fork-join task for the evaluation of a range of root objects,
+	 * splitting into subtasks until reaching the chunk size.
+	 */
+	@SuppressWarnings("serial")
+	private class BatchEvaluationTask extends RecursiveAction {
+
+		private final EvaluationContext context;
+
+		private final Object[] roots;
+
+		private final int from;
+
+		private final int to;
+
+		private final BatchResultConsumer consumer;
+
+		BatchEvaluationTask(EvaluationContext context, Object[] roots, int from, int to,
+				BatchResultConsumer consumer) {
+
+			this.context = context;
+			this.roots = roots;
+			this.from = from;
+			this.to = to;
+			this.consumer = consumer;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from <= BATCH_CHUNK_SIZE) {
+				evaluateBatch(this.context, this.roots, this.from, this.to, this.consumer);
+			}
+			else {
+				int middle = (this.from + this.to) >>> 1;
+				invokeAll(new BatchEvaluationTask(this.context, this.roots, this.from, middle, this.consumer),
+						new BatchEvaluationTask(this.context, this.roots, middle, this.to, this.consumer));
+			}
+		}
+	}
+
 }
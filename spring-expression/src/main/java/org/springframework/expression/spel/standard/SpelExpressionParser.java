@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2014 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,9 +16,12 @@
 
 package org.springframework.expression.spel.standard;
 
+import org.springframework.expression.Expression;
 import org.springframework.expression.ParseException;
 import org.springframework.expression.ParserContext;
+import org.springframework.expression.common.CompositeStringExpression;
 import org.springframework.expression.common.TemplateAwareExpressionParser;
+import org.springframework.expression.spel.SpelCompilerMode;
 import org.springframework.expression.spel.SpelParserConfiguration;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -61,4 +64,19 @@ public class SpelExpressionParser extends TemplateAwareExpressionParser {
 		return new InternalSpelExpressionParser(this.configuration).doParseExpression(expressionString, context);
 	}
 
+	/**
+	 * Create a compilable {@link SpelCompositeStringExpression} for the given template
+	 * parts, unless the compiler is turned {@link SpelCompilerMode#OFF off}.
+	 * @since 5.3.5
+	 */
+	@Override
+	protected CompositeStringExpression createCompositeStringExpression(
+			String expressionString, Expression[] expressions) {
+
+		if (this.configuration.getCompilerMode() == SpelCompilerMode.OFF) {
+			return super.createCompositeStringExpression(expressionString, expressions);
+		}
+		return new SpelCompositeStringExpression(expressionString, expressions, this.configuration);
+	}
+
 }
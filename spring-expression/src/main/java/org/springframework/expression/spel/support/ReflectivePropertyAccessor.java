@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -554,7 +554,7 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 				}
 			}
 			if (method != null) {
-				return new OptimalPropertyAccessor(invocationTarget);
+				return new OptimalPropertyAccessor(this, clazz, target instanceof Class, invocationTarget);
 			}
 		}
 
@@ -569,7 +569,7 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 				}
 			}
 			if (field != null) {
-				return new OptimalPropertyAccessor(invocationTarget);
+				return new OptimalPropertyAccessor(this, clazz, target instanceof Class, invocationTarget);
 			}
 		}
 
@@ -650,6 +650,7 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 	 * may be invoked to access different properties on different classes. This optimal
 	 * accessor exists because looking up the appropriate reflective object by class/name
 	 * on each read is not cheap.
+	 * @see #isReusableFor
 	 */
 	public static class OptimalPropertyAccessor implements CompilablePropertyAccessor {
 
@@ -660,9 +661,37 @@ public class ReflectivePropertyAccessor implements PropertyAccessor {
 
 		private final TypeDescriptor typeDescriptor;
 
-		OptimalPropertyAccessor(InvokerPair target) {
+		private final PropertyAccessor source;
+
+		private final Class<?> targetType;
+
+		private final boolean classTarget;
+
+		OptimalPropertyAccessor(PropertyAccessor source, Class<?> targetType, boolean classTarget, InvokerPair target) {
 			this.member = target.member;
 			this.typeDescriptor = target.typeDescriptor;
+			this.source = source;
+			this.targetType = targetType;
+			this.classTarget = classTarget;
+		}
+
+		/**
+		 * Determine whether this accessor can be reused for reading from the given target
+		 * in the given context: that is, whether the target is of exactly the type that this
+		 * accessor has been created for, and whether the accessor that created it is still
+		 * registered with the given context.
+		 * @param context the evaluation context
+		 * @param target the target object to read from
+		 * @since 5.3.5
+		 */
+		public boolean isReusableFor(EvaluationContext context, @Nullable Object target) {
+			if (target == null) {
+				return false;
+			}
+			boolean classTarget = (target instanceof Class);
+			Class<?> type = (classTarget ? (Class<?>) target : target.getClass());
+			return (type == this.targetType && classTarget == this.classTarget &&
+					context.getPropertyAccessors().contains(this.source));
 		}
 
 		@Override
@@ -0,0 +1,286 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel.support;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.expression.BeanResolver;
+import org.springframework.expression.ConstructorResolver;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.MethodResolver;
+import org.springframework.expression.OperatorOverloader;
+import org.springframework.expression.PropertyAccessor;
+import org.springframework.expression.TypeComparator;
+import org.springframework.expression.TypeConverter;
+import org.springframework.expression.TypeLocator;
+import org.springframework.expression.TypedValue;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * A lightweight {@link EvaluationContext} which is meant to be {@link #reset}
+ * and reused for a large number of evaluations, typically one instance per thread,
+ * avoiding the per-evaluation setup cost of a {@link StandardEvaluationContext}.
+ *
+ * <p>The evaluation infrastructure (property accessors, constructor and method
+ * resolvers, type locator, type converter etc) is taken from a given template
+ * context once and shared with every evaluation, as well as with any other
+ * {@code ReusableEvaluationContext} created from the same template. The template
+ * should therefore not be modified after its use for a reusable context.
+ *
+ * <p>Variables are primarily held in an array of values, keyed by a given array of
+ * variable names: e.g. the parameter names of a method, computed once upfront and
+ * passed into {@link #reset(Object, String...)} for every evaluation, with the
+ * corresponding values to be set via {@link #setVariable(int, Object)}. Any other
+ * variables may be set by name, just like with {@code StandardEvaluationContext}.
+ *
+ * <p>Note: This context is not thread-safe and must only be used by one thread
+ * at a time, with an explicit {@link #reset} call before each reuse.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ * @see StandardEvaluationContext
+ */
+public class ReusableEvaluationContext implements EvaluationContext {
+
+	private static final String[] NO_VARIABLE_NAMES = new String[0];
+
+	private static final Object[] NO_VARIABLE_VALUES = new Object[0];
+
+
+	private final List<PropertyAccessor> propertyAccessors;
+
+	private final List<ConstructorResolver> constructorResolvers;
+
+	private final List<MethodResolver> methodResolvers;
+
+	private final TypeLocator typeLocator;
+
+	private final TypeConverter typeConverter;
+
+	private final TypeComparator typeComparator;
+
+	private final OperatorOverloader operatorOverloader;
+
+	@Nullable
+	private final BeanResolver defaultBeanResolver;
+
+	@Nullable
+	private BeanResolver beanResolver;
+
+	private TypedValue rootObject = TypedValue.NULL;
+
+	private String[] variableNames = NO_VARIABLE_NAMES;
+
+	private Object[] variableValues = NO_VARIABLE_VALUES;
+
+	@Nullable
+	private Map<String, Object> additionalVariables;
+
+
+	/**
+	 * Create a new {@code ReusableEvaluationContext} with default infrastructure,
+	 * as provided by a default {@link StandardEvaluationContext}.
+	 */
+	public ReusableEvaluationContext() {
+		this(new StandardEvaluationContext());
+	}
+
+	/**
+	 * Create a new {@code ReusableEvaluationContext} sharing the infrastructure
+	 * of the given template context.
+	 * @param infrastructure the context to take property accessors, resolvers,
+	 * type locator, type converter, type comparator, operator overloader and
+	 * default bean resolver from (root object and variables are not exposed)
+	 */
+	public ReusableEvaluationContext(EvaluationContext infrastructure) {
+		Assert.notNull(infrastructure, "Infrastructure EvaluationContext must not be null");
+		this.propertyAccessors = infrastructure.getPropertyAccessors();
+		this.constructorResolvers = infrastructure.getConstructorResolvers();
+		this.methodResolvers = infrastructure.getMethodResolvers();
+		this.typeLocator = infrastructure.getTypeLocator();
+		this.typeConverter = infrastructure.getTypeConverter();
+		this.typeComparator = infrastructure.getTypeComparator();
+		this.operatorOverloader = infrastructure.getOperatorOverloader();
+		this.defaultBeanResolver = infrastructure.getBeanResolver();
+		this.beanResolver = this.defaultBeanResolver;
+	}
+
+
+	/**
+	 * Reset this context for a new evaluation against the given root object,
+	 * without any variables.
+	 * @param rootObject the root object to use
+	 */
+	public void reset(@Nullable Object rootObject) {
+		reset(rootObject, NO_VARIABLE_NAMES);
+	}
+
+	/**
+	 * Reset this context for a new evaluation against the given root object,
+	 * with the given variable names to be populated through
+	 * {@link #setVariable(int, Object)}.
+	 * <p>All variable values and any bean resolver set for the previous evaluation
+	 * are discarded.
+	 * @param rootObject the root object to use
+	 * @param variableNames the variable names to expose, with {@code null}
+	 * entries indicating unnamed positions (the given array is not copied
+	 * and therefore not meant to be modified afterwards)
+	 */
+	public void reset(@Nullable Object rootObject, String... variableNames) {
+		this.rootObject = (rootObject != null ? new TypedValue(rootObject) : TypedValue.NULL);
+		if (this.variableValues.length < variableNames.length) {
+			this.variableValues = new Object[variableNames.length];
+		}
+		else {
+			Arrays.fill(this.variableValues, 0, this.variableNames.length, null);
+		}
+		this.variableNames = variableNames;
+		if (this.additionalVariables != null) {
+			this.additionalVariables.clear();
+		}
+		this.beanResolver = this.defaultBeanResolver;
+	}
+
+	/**
+	 * Clear this context after an evaluation, releasing all references to the
+	 * root object, the variable names and values and the bean resolver of the
+	 * previous evaluation, as well as any internal storage allocated for them.
+	 * <p>Meant to be called when the context is retained in between evaluations,
+	 * e.g. in a {@code ThreadLocal}. A subsequent {@link #reset} call is required
+	 * before the context can be used again.
+	 */
+	public void clear() {
+		this.rootObject = TypedValue.NULL;
+		this.variableNames = NO_VARIABLE_NAMES;
+		this.variableValues = NO_VARIABLE_VALUES;
+		this.additionalVariables = null;
+		this.beanResolver = this.defaultBeanResolver;
+	}
+
+	@Override
+	public TypedValue getRootObject() {
+		return this.rootObject;
+	}
+
+	@Override
+	public List<PropertyAccessor> getPropertyAccessors() {
+		return this.propertyAccessors;
+	}
+
+	@Override
+	public List<ConstructorResolver> getConstructorResolvers() {
+		return this.constructorResolvers;
+	}
+
+	@Override
+	public List<MethodResolver> getMethodResolvers() {
+		return this.methodResolvers;
+	}
+
+	/**
+	 * Set the bean resolver to use for the current evaluation.
+	 * <p>Reverts to the default bean resolver of the infrastructure context
+	 * on the next {@link #reset}.
+	 */
+	public void setBeanResolver(@Nullable BeanResolver beanResolver) {
+		this.beanResolver = beanResolver;
+	}
+
+	@Override
+	@Nullable
+	public BeanResolver getBeanResolver() {
+		return this.beanResolver;
+	}
+
+	@Override
+	public TypeLocator getTypeLocator() {
+		return this.typeLocator;
+	}
+
+	@Override
+	public TypeConverter getTypeConverter() {
+		return this.typeConverter;
+	}
+
+	@Override
+	public TypeComparator getTypeComparator() {
+		return this.typeComparator;
+	}
+
+	@Override
+	public OperatorOverloader getOperatorOverloader() {
+		return this.operatorOverloader;
+	}
+
+	/**
+	 * Set the value of the variable at the given index in the variable names
+	 * passed into {@link #reset(Object, String...)}.
+	 * @param index the index of the variable
+	 * @param value the value of the variable ({@code null} for none)
+	 */
+	public void setVariable(int index, @Nullable Object value) {
+		Assert.isTrue(index < this.variableNames.length, "Variable index out of bounds");
+		this.variableValues[index] = value;
+	}
+
+	@Override
+	public void setVariable(@Nullable String name, @Nullable Object value) {
+		// Ignore null names, for consistency with StandardEvaluationContext
+		if (name == null) {
+			return;
+		}
+		int index = indexOf(name);
+		if (index != -1) {
+			this.variableValues[index] = value;
+		}
+		else if (value != null) {
+			if (this.additionalVariables == null) {
+				this.additionalVariables = new HashMap<>(4);
+			}
+			this.additionalVariables.put(name, value);
+		}
+		else if (this.additionalVariables != null) {
+			this.additionalVariables.remove(name);
+		}
+	}
+
+	@Override
+	@Nullable
+	public Object lookupVariable(String name) {
+		int index = indexOf(name);
+		if (index != -1) {
+			return this.variableValues[index];
+		}
+		return (this.additionalVariables != null ? this.additionalVariables.get(name) : null);
+	}
+
+	private int indexOf(String name) {
+		String[] variableNames = this.variableNames;
+		for (int i = 0; i < variableNames.length; i++) {
+			String candidate = variableNames[i];
+			if (candidate != null && (candidate == name || candidate.equals(name))) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -61,6 +61,11 @@ public class StandardTypeComparator implements TypeComparator {
 			return 1;  // left cannot be null at this point
 		}
 
+		// Fast path for the common case of int operands
+		if (left instanceof Integer && right instanceof Integer) {
+			return Integer.compare((Integer) left, (Integer) right);
+		}
+
 		// Basic number comparisons
 		if (left instanceof Number && right instanceof Number) {
 			Number leftNumber = (Number) left;
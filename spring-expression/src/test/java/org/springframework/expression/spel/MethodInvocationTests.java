@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,8 +20,14 @@ import java.lang.annotation.Annotation;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.reflect.Method;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.TreeSet;
 
 import org.junit.jupiter.api.Test;
 
@@ -35,8 +41,10 @@ import org.springframework.expression.MethodFilter;
 import org.springframework.expression.MethodResolver;
 import org.springframework.expression.spel.standard.SpelExpression;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.expression.spel.support.ReflectiveMethodResolver;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 import org.springframework.expression.spel.testresources.PlaceOfBirth;
+import org.springframework.lang.Nullable;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
@@ -278,6 +286,56 @@ public class MethodInvocationTests extends AbstractExpressionTests {
 		assertThat(outBytes).isSameAs(bytes);
 	}
 
+	@Test
+	public void invokeMethodOnPolymorphicReceivers() {
+		Expression expression = parser.parseExpression("size()");
+		List<Object> receivers = new ArrayList<>();
+		receivers.add(new ArrayList<>(Arrays.asList(1, 2)));
+		receivers.add(new LinkedList<>(Arrays.asList(1, 2, 3)));
+		receivers.add(new HashSet<>(Arrays.asList(1, 2, 3, 4)));
+		receivers.add(new TreeSet<>(Arrays.asList(1, 2, 3, 4, 5)));
+		receivers.add(Collections.singletonMap("key", "value"));
+		receivers.add(new ArrayDeque<>(Arrays.asList(1, 2, 3, 4, 5, 6)));
+		CountingMethodResolver resolver = new CountingMethodResolver();
+		StandardEvaluationContext context = new StandardEvaluationContext();
+		context.setMethodResolvers(Collections.singletonList(resolver));
+		for (int i = 0; i < 3; i++) {
+			assertThat(expression.getValue(context, receivers.get(0))).isEqualTo(2);
+			assertThat(expression.getValue(context, receivers.get(1))).isEqualTo(3);
+			assertThat(expression.getValue(context, receivers.get(2))).isEqualTo(4);
+			assertThat(expression.getValue(context, receivers.get(3))).isEqualTo(5);
+			assertThat(expression.getValue(context, receivers.get(4))).isEqualTo(1);
+			assertThat(expression.getValue(context, receivers.get(5))).isEqualTo(6);
+		}
+		// Each receiver type resolved once: four through the polymorphic cache,
+		// the remaining two through the megamorphic cache
+		assertThat(resolver.count).isEqualTo(6);
+
+		// Different resolver: no reuse of executors resolved with the previous one
+		CountingMethodResolver otherResolver = new CountingMethodResolver();
+		context.setMethodResolvers(Collections.singletonList(otherResolver));
+		for (int i = 0; i < 3; i++) {
+			assertThat(expression.getValue(context, receivers.get(4))).isEqualTo(1);
+			assertThat(expression.getValue(context, receivers.get(5))).isEqualTo(6);
+		}
+		assertThat(otherResolver.count).isEqualTo(2);
+	}
+
+
+	static class CountingMethodResolver extends ReflectiveMethodResolver {
+
+		int count;
+
+		@Override
+		@Nullable
+		public MethodExecutor resolve(EvaluationContext context, Object targetObject, String name,
+				List<TypeDescriptor> argumentTypes) throws AccessException {
+
+			this.count++;
+			return super.resolve(context, targetObject, name, argumentTypes);
+		}
+	}
+
 
 	// Simple filter
 	static class LocalFilter implements MethodFilter {
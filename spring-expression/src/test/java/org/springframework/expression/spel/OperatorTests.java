@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -387,6 +387,25 @@ public class OperatorTests extends AbstractExpressionTests {
 		evaluate("3 MOD 2", 1, Integer.class);
 	}
 
+	@Test
+	public void testIntegerArithmeticAcrossResultCache() {
+		evaluate("1000 + 23", 1023, Integer.class);
+		evaluate("1000 + 24", 1024, Integer.class);
+		evaluate("-100 - 28", -128, Integer.class);
+		evaluate("-100 - 29", -129, Integer.class);
+		evaluate("2147483647 + 1", Integer.MIN_VALUE, Integer.class);
+		evaluate("-(-5)", 5, Integer.class);
+		evaluate("100L + 27L", 127L, Long.class);
+		evaluate("100L + 28L", 128L, Long.class);
+		evaluate("-(3L)", -3L, Long.class);
+		evaluate("7 / 2 == 3", true, Boolean.class);
+		evaluate("7 % 2 < 2", true, Boolean.class);
+		evaluate("1024 >= 1024", true, Boolean.class);
+		evaluate("1024 > 1025", false, Boolean.class);
+		evaluate("-1 <= -2", false, Boolean.class);
+		assertThat(parser.parseExpression("1000 - 500").getValue()).isSameAs(parser.parseExpression("250 * 2").getValue());
+	}
+
 	@Test
 	public void testPlus() throws Exception {
 		evaluate("7 + 2", "9", Integer.class);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,9 +20,11 @@ import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -445,6 +447,160 @@ public class SpelCompilationCoverageTests extends AbstractExpressionTests {
 		assertThat(o).isEqualTo("op");
 	}
 
+	@Test
+	public void inlineMap() throws Exception {
+		expression = parser.parseExpression("{'a':1,'b':2}");
+		assertThat(expression.getValue().toString()).isEqualTo("{a=1, b=2}");
+		assertCanCompile(expression);
+		assertThat(expression.getValue().toString()).isEqualTo("{a=1, b=2}");
+		assertThat(expression.getValue()).isSameAs(expression.getValue());
+
+		expression = parser.parseExpression("{a:'x',b:{c:'y'},d:{1,2}}");
+		assertThat(expression.getValue().toString()).isEqualTo("{a=x, b={c=y}, d=[1, 2]}");
+		assertCanCompile(expression);
+		assertThat(expression.getValue().toString()).isEqualTo("{a=x, b={c=y}, d=[1, 2]}");
+
+		expression = parser.parseExpression("{a:{1,2}}['a'][1]");
+		assertThat(expression.getValue()).isEqualTo(2);
+		assertCanCompile(expression);
+		assertThat(expression.getValue()).isEqualTo(2);
+
+		expression = parser.parseExpression("{'key':#root,'length':#root.length()}");
+		assertThat(expression.getValue("abc").toString()).isEqualTo("{key=abc, length=3}");
+		assertCanCompile(expression);
+		assertThat(expression.getValue("abc").toString()).isEqualTo("{key=abc, length=3}");
+		assertThat(expression.getValue("de").toString()).isEqualTo("{key=de, length=2}");
+	}
+
+	@Test
+	public void selection() throws Exception {
+		List<Integer> numbers = new ArrayList<>();
+		Collections.addAll(numbers, 1, 2, 3, 4, 5, 6);
+		List<String> strings = new ArrayList<>();
+		Collections.addAll(strings, "a", "bb", "ccc");
+		Map<String, Integer> map = new LinkedHashMap<>();
+		map.put("a", 1);
+		map.put("b", 2);
+		map.put("c", 3);
+
+		expression = parser.parseExpression("?[#this > 3]");
+		assertThat(expression.getValue(numbers)).isEqualTo(Arrays.asList(4, 5, 6));
+		assertCanCompile(expression);
+		assertThat(expression.getValue(numbers)).isEqualTo(Arrays.asList(4, 5, 6));
+
+		expression = parser.parseExpression("^[#this > 3]");
+		assertThat(expression.getValue(numbers)).isEqualTo(4);
+		assertCanCompile(expression);
+		assertThat(expression.getValue(numbers)).isEqualTo(4);
+		assertThat(expression.getValue(Arrays.asList(1, 2))).isNull();
+
+		expression = parser.parseExpression("$[#this > 3]");
+		assertThat(expression.getValue(numbers)).isEqualTo(6);
+		assertCanCompile(expression);
+		assertThat(expression.getValue(numbers)).isEqualTo(6);
+		assertThat(expression.getValue(Arrays.asList(1, 2))).isNull();
+
+		expression = parser.parseExpression("?[length() > 1]");
+		assertThat(expression.getValue(strings)).isEqualTo(Arrays.asList("bb", "ccc"));
+		assertCanCompile(expression);
+		assertThat(expression.getValue(strings)).isEqualTo(Arrays.asList("bb", "ccc"));
+
+		expression = parser.parseExpression("#root.?[#this > 3].size()");
+		assertThat(expression.getValue(numbers)).isEqualTo(3);
+		assertCanCompile(expression);
+		assertThat(expression.getValue(numbers)).isEqualTo(3);
+
+		expression = parser.parseExpression("?[key != 'a']");
+		assertThat(expression.getValue(map).toString()).isEqualTo("{b=2, c=3}");
+		assertCanCompile(expression);
+		assertThat(expression.getValue(map).toString()).isEqualTo("{b=2, c=3}");
+
+		expression = parser.parseExpression("^[key != 'a']");
+		assertThat(expression.getValue(map).toString()).isEqualTo("{b=2}");
+		assertCanCompile(expression);
+		assertThat(expression.getValue(map).toString()).isEqualTo("{b=2}");
+		assertThat(expression.getValue(Collections.singletonMap("a", 1))).isNull();
+
+		expression = parser.parseExpression("$[key != 'a']");
+		assertThat(expression.getValue(map).toString()).isEqualTo("{c=3}");
+		assertCanCompile(expression);
+		assertThat(expression.getValue(map).toString()).isEqualTo("{c=3}");
+		assertThat(expression.getValue(Collections.singletonMap("a", 1))).isNull();
+
+		expression = parser.parseExpression("#root?.?[#this > 3]");
+		assertThat(expression.getValue(numbers)).isEqualTo(Arrays.asList(4, 5, 6));
+		assertCanCompile(expression);
+		assertThat(expression.getValue(numbers)).isEqualTo(Arrays.asList(4, 5, 6));
+		assertThat(expression.getValue((Object) null)).isNull();
+
+		// Selection over an array isn't compilable
+		expression = parser.parseExpression("?[#this > 3]");
+		assertThat(expression.getValue(new Integer[] {1, 4})).isEqualTo(new Integer[] {4});
+		assertCantCompile(expression);
+
+		// Selection referring to the scoped #index variable isn't compilable
+		expression = parser.parseExpression("?[#index == null]");
+		expression.getValue(numbers);
+		assertCantCompile(expression);
+	}
+
+	@Test
+	public void projection() throws Exception {
+		List<Integer> numbers = new ArrayList<>();
+		Collections.addAll(numbers, 1, 2, 3);
+		List<String> strings = new ArrayList<>();
+		Collections.addAll(strings, "a", "bb", "ccc");
+		Map<String, Integer> map = new LinkedHashMap<>();
+		map.put("a", 1);
+		map.put("b", 2);
+
+		expression = parser.parseExpression("![#this * 2]");
+		assertThat(expression.getValue(numbers)).isEqualTo(Arrays.asList(2, 4, 6));
+		assertCanCompile(expression);
+		assertThat(expression.getValue(numbers)).isEqualTo(Arrays.asList(2, 4, 6));
+
+		expression = parser.parseExpression("![length()]");
+		assertThat(expression.getValue(strings)).isEqualTo(Arrays.asList(1, 2, 3));
+		assertCanCompile(expression);
+		assertThat(expression.getValue(strings)).isEqualTo(Arrays.asList(1, 2, 3));
+
+		expression = parser.parseExpression("![key]");
+		assertThat(expression.getValue(map)).isEqualTo(Arrays.asList("a", "b"));
+		assertCanCompile(expression);
+		assertThat(expression.getValue(map)).isEqualTo(Arrays.asList("a", "b"));
+
+		expression = parser.parseExpression("?[#this > 1].![#this * 10]");
+		assertThat(expression.getValue(numbers)).isEqualTo(Arrays.asList(20, 30));
+		assertCanCompile(expression);
+		assertThat(expression.getValue(numbers)).isEqualTo(Arrays.asList(20, 30));
+
+		expression = parser.parseExpression("![#this + #root.size()]");
+		assertThat(expression.getValue(numbers)).isEqualTo(Arrays.asList(4, 5, 6));
+		assertCanCompile(expression);
+		assertThat(expression.getValue(numbers)).isEqualTo(Arrays.asList(4, 5, 6));
+
+		List<List<Integer>> nested = new ArrayList<>();
+		nested.add(numbers);
+		nested.add(numbers.subList(0, 1));
+		expression = parser.parseExpression("![#this.![#this * 2]]");
+		assertThat(expression.getValue(nested).toString()).isEqualTo("[[2, 4, 6], [2]]");
+		assertCanCompile(expression);
+		assertThat(expression.getValue(nested).toString()).isEqualTo("[[2, 4, 6], [2]]");
+
+		// Projection over an array isn't compilable
+		expression = parser.parseExpression("![#this * 2]");
+		assertThat(expression.getValue(new Integer[] {1, 2})).isEqualTo(new Integer[] {2, 4});
+		assertCantCompile(expression);
+
+		// Projection referring to the scoped #index variable isn't compilable
+		expression = parser.parseExpression("![#index]");
+		expression.getValue(numbers);
+		assertCantCompile(expression);
+		expression = parser.parseExpression("![#this.![#index]]");
+		expression.getValue(nested);
+		assertCantCompile(expression);
+	}
+
 	@Test
 	public void intLiteral() throws Exception {
 		expression = parser.parseExpression("42");
@@ -1028,7 +1184,7 @@ public class SpelCompilationCoverageTests extends AbstractExpressionTests {
 
 		expression = parser.parseExpression("#negate(#ints.?[#this<2][0])");
 		assertThat(expression.getValue(context, Integer.class).toString()).isEqualTo("-1");
-		// Selection isn't compilable.
+		// Selection over an array isn't compilable.
 		assertThat(((SpelNodeImpl)((SpelExpression) expression).getAST()).isCompilable()).isFalse();
 	}
 
@@ -4508,6 +4664,52 @@ public class SpelCompilationCoverageTests extends AbstractExpressionTests {
 		assertThat(getAst().getExitDescriptor()).isEqualTo("Ljava/lang/Object");
 	}
 
+	@Test
+	public void indexerWithNonLiteralIndex() throws Exception {
+		StandardEvaluationContext context = new StandardEvaluationContext();
+		context.setVariable("i", 1);
+		context.setVariable("key", "b");
+		List<String> list = new ArrayList<>();
+		Collections.addAll(list, "a", "b", "c");
+		Map<Object, String> map = new HashMap<>();
+		map.put("b", "bValue");
+		map.put(2, "twoValue");
+
+		expression = parser.parseExpression("[#i]");
+		assertThat(expression.getValue(context, list)).isEqualTo("b");
+		assertCanCompile(expression);
+		assertThat(expression.getValue(context, list)).isEqualTo("b");
+		context.setVariable("i", 2);
+		assertThat(expression.getValue(context, list)).isEqualTo("c");
+
+		expression = parser.parseExpression("[#i]");
+		assertThat(expression.getValue(context, new String[] {"x", "y", "z"})).isEqualTo("z");
+		assertCanCompile(expression);
+		context.setVariable("i", 0);
+		assertThat(expression.getValue(context, new String[] {"x", "y", "z"})).isEqualTo("x");
+
+		expression = parser.parseExpression("[#this.size() - 1]");
+		assertThat(expression.getValue(list)).isEqualTo("c");
+		assertCanCompile(expression);
+		assertThat(expression.getValue(list)).isEqualTo("c");
+
+		expression = parser.parseExpression("[#key]");
+		assertThat(expression.getValue(context, map)).isEqualTo("bValue");
+		assertCanCompile(expression);
+		assertThat(expression.getValue(context, map)).isEqualTo("bValue");
+
+		expression = parser.parseExpression("[2]");
+		assertThat(expression.getValue(map)).isEqualTo("twoValue");
+		assertCanCompile(expression);
+		assertThat(expression.getValue(map)).isEqualTo("twoValue");
+
+		// A String index can only be converted at runtime
+		context.setVariable("i", "1");
+		expression = parser.parseExpression("[#i]");
+		assertThat(expression.getValue(context, list)).isEqualTo("b");
+		assertCantCompile(expression);
+	}
+
 	@Test
 	public void plusNeedingCheckcast_SPR12426() {
 		expression = parser.parseExpression("object + ' world'");
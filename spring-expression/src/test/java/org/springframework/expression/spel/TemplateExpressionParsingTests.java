@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.expression.spel;
 
+import java.io.StringWriter;
+
 import org.junit.jupiter.api.Test;
 
 import org.springframework.expression.EvaluationContext;
@@ -25,6 +27,8 @@ import org.springframework.expression.ParseException;
 import org.springframework.expression.ParserContext;
 import org.springframework.expression.common.CompositeStringExpression;
 import org.springframework.expression.common.TemplateParserContext;
+import org.springframework.expression.spel.standard.SpelCompiler;
+import org.springframework.expression.spel.standard.SpelCompositeStringExpression;
 import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.expression.spel.support.StandardEvaluationContext;
 
@@ -241,4 +245,78 @@ public class TemplateExpressionParsingTests extends AbstractExpressionTests {
 		assertThat(pc.isTemplate()).isTrue();
 	}
 
+	@Test
+	public void testCompiledCompositeStringExpression() throws Exception {
+		SpelExpressionParser parser = new SpelExpressionParser(
+				new SpelParserConfiguration(SpelCompilerMode.IMMEDIATE, getClass().getClassLoader()));
+		SpelCompositeStringExpression ex = (SpelCompositeStringExpression) parser.parseExpression(
+				"#{name} is #{age} (#{nickname}) on #{weight} with #{tags}", HASH_DELIMITED_PARSER_CONTEXT);
+		EvaluationContext ctx = new StandardEvaluationContext();
+		Person person = new Person();
+		String expected = "Jane is 42 () on 61.5 with a,b";
+
+		assertThat(ex.getValue(ctx, person)).isEqualTo(expected);
+		assertThat(ex.getValue(ctx, person)).isEqualTo(expected);
+		// Compiled after the second interpreted evaluation
+		assertThat(ex.compileExpression()).isTrue();
+		assertThat(ex.getValue(ctx, person)).isEqualTo(expected);
+		assertThat(ex.getValue(person)).isEqualTo(expected);
+		assertThat(ex.getValue(ctx, person, String.class)).isEqualTo(expected);
+		StringWriter writer = new StringWriter();
+		ex.writeValue(ctx, person, writer);
+		assertThat(writer.toString()).isEqualTo(expected);
+
+		person.nickname = "JJ";
+		assertThat(ex.getValue(ctx, person)).isEqualTo("Jane is 42 (JJ) on 61.5 with a,b");
+
+		SpelCompiler.revertToInterpreted(ex);
+		writer = new StringWriter();
+		ex.writeValue(ctx, person, writer);
+		assertThat(writer.toString()).isEqualTo("Jane is 42 (JJ) on 61.5 with a,b");
+	}
+
+	@Test
+	public void testCompiledCompositeStringExpressionFallbackInMixedMode() {
+		SpelExpressionParser parser = new SpelExpressionParser(
+				new SpelParserConfiguration(SpelCompilerMode.MIXED, getClass().getClassLoader()));
+		SpelCompositeStringExpression ex = (SpelCompositeStringExpression) parser.parseExpression(
+				"Hello #{name}!", HASH_DELIMITED_PARSER_CONTEXT);
+		assertThat(ex.getValue(new Person())).isEqualTo("Hello Jane!");
+		assertThat(ex.compileExpression()).isTrue();
+		assertThat(ex.getValue(new Person())).isEqualTo("Hello Jane!");
+		// Compiled for Person: falls back to interpreted for a different root type
+		assertThat(ex.getValue(new Pet())).isEqualTo("Hello Rex!");
+	}
+
+	@Test
+	public void testCompositeStringExpressionNotCompiledWithNonCompilablePart() {
+		SpelExpressionParser parser = new SpelExpressionParser(
+				new SpelParserConfiguration(SpelCompilerMode.IMMEDIATE, getClass().getClassLoader()));
+		SpelCompositeStringExpression ex = (SpelCompositeStringExpression) parser.parseExpression(
+				"Hello #{name = 'Joe'}!", HASH_DELIMITED_PARSER_CONTEXT);
+		Person person = new Person();
+		assertThat(ex.getValue(person)).isEqualTo("Hello Joe!");
+		assertThat(ex.getValue(person)).isEqualTo("Hello Joe!");
+		assertThat(ex.compileExpression()).isFalse();
+	}
+
+
+	public static class Person {
+
+		public String name = "Jane";
+
+		public int age = 42;
+
+		public String nickname;
+
+		public double weight = 61.5;
+
+		public String[] tags = {"a", "b"};
+	}
+
+	public static class Pet {
+
+		public String name = "Rex";
+	}
+
 }
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -75,6 +75,124 @@ class SpelCompilerTests {
 		assertThat(expression.getValue(context)).isEqualTo(true);
 	}
 
+	@Test
+	void adaptiveCompilationPerRootType() {
+		SpelParserConfiguration config = new SpelParserConfiguration(SpelCompilerMode.ADAPTIVE, null);
+		SpelExpression expression = new SpelExpressionParser(config).parseRaw("name.length()");
+
+		for (int i = 0; i < 20; i++) {
+			assertThat(expression.getValue(new Dog())).isEqualTo(3);
+			assertThat(expression.getValue(new Cat())).isEqualTo(5);
+		}
+		SpelCompilationStatistics statistics = expression.getCompilationStatistics();
+		assertThat(statistics.getSpecializedTypes()).containsExactly(Dog.class, Cat.class);
+		assertThat(statistics.getCompilationCount()).isEqualTo(2);
+		assertThat(statistics.getCompiledCount()).isGreaterThan(0);
+		assertThat(statistics.getInterpretedCount() + statistics.getCompiledCount()).isEqualTo(40);
+	}
+
+	@Test
+	void adaptiveCompilationDeoptimizesFailingSpecializationOnly() {
+		SpelParserConfiguration config = new SpelParserConfiguration(SpelCompilerMode.ADAPTIVE, null);
+		SpelExpression expression = new SpelExpressionParser(config).parseRaw("name.toString()");
+
+		Holder holder = new Holder();
+		holder.name = "holder";
+		for (int i = 0; i < 20; i++) {
+			assertThat(expression.getValue(new Dog())).isEqualTo("Rex");
+			assertThat(expression.getValue(holder)).isEqualTo("holder");
+		}
+		assertThat(expression.getCompilationStatistics().getSpecializedTypes()).containsExactly(Dog.class, Holder.class);
+
+		holder.name = 42;
+		assertThat(expression.getValue(holder)).isEqualTo("42");
+		assertThat(expression.getValue(new Dog())).isEqualTo("Rex");
+		SpelCompilationStatistics statistics = expression.getCompilationStatistics();
+		assertThat(statistics.getSpecializedTypes()).containsExactly(Dog.class);
+		assertThat(statistics.getDeoptimizationCount()).isEqualTo(1);
+
+		// Recompiled for the new types once stable again
+		for (int i = 0; i < 20; i++) {
+			assertThat(expression.getValue(holder)).isEqualTo("42");
+		}
+		assertThat(expression.getCompilationStatistics().getSpecializedTypes()).containsExactly(Dog.class, Holder.class);
+	}
+
+	@Test
+	void adaptiveCompilationReinstatesSpecializationForNestedTypes() {
+		SpelParserConfiguration config = new SpelParserConfiguration(SpelCompilerMode.ADAPTIVE, null);
+		SpelExpression expression = new SpelExpressionParser(config).parseRaw("name.toString()");
+
+		Holder holder = new Holder();
+		holder.name = "holder";
+		for (int i = 0; i < 20; i++) {
+			assertThat(expression.getValue(holder)).isEqualTo("holder");
+		}
+		holder.name = 42;
+		for (int i = 0; i < 20; i++) {
+			assertThat(expression.getValue(holder)).isEqualTo("42");
+		}
+		SpelCompilationStatistics statistics = expression.getCompilationStatistics();
+		assertThat(statistics.getSpecializedTypes()).containsExactly(Holder.class);
+		assertThat(statistics.getCompilationCount()).isEqualTo(2);
+		assertThat(statistics.getDeoptimizationCount()).isEqualTo(1);
+
+		// Back to the nested type of the first specialization: no recompilation
+		holder.name = "again";
+		for (int i = 0; i < 20; i++) {
+			assertThat(expression.getValue(holder)).isEqualTo("again");
+		}
+		statistics = expression.getCompilationStatistics();
+		assertThat(statistics.getSpecializedTypes()).containsExactly(Holder.class);
+		assertThat(statistics.getCompilationCount()).isEqualTo(2);
+		assertThat(statistics.getDeoptimizationCount()).isEqualTo(2);
+		assertThat(statistics.getInterpretedCount()).isEqualTo(30);
+	}
+
+	@Test
+	void adaptiveCompilationSkipsUnstableTypes() {
+		SpelParserConfiguration config = new SpelParserConfiguration(SpelCompilerMode.ADAPTIVE, null);
+		SpelExpression expression = new SpelExpressionParser(config).parseRaw("name.toString()");
+
+		Holder holder = new Holder();
+		for (int i = 0; i < 50; i++) {
+			holder.name = (i % 2 == 0 ? "even" : i);
+			assertThat(expression.getValue(holder)).isEqualTo(holder.name.toString());
+		}
+		SpelCompilationStatistics statistics = expression.getCompilationStatistics();
+		assertThat(statistics.getCompilationCount()).isEqualTo(0);
+		assertThat(statistics.getInterpretedCount()).isEqualTo(50);
+	}
+
+	@Test
+	void noCompilationStatisticsUnlessAdaptive() {
+		SpelParserConfiguration config = new SpelParserConfiguration(SpelCompilerMode.MIXED, null);
+		SpelExpression expression = new SpelExpressionParser(config).parseRaw("name");
+		assertThat(expression.getCompilationStatistics()).isNull();
+	}
+
+
+	public static class Dog {
+
+		public String getName() {
+			return "Rex";
+		}
+	}
+
+
+	public static class Cat {
+
+		public String getName() {
+			return "Kitty";
+		}
+	}
+
+
+	public static class Holder {
+
+		public Object name;
+	}
+
 
 	static class OrderedComponent implements Ordered {
 
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.expression.spel.standard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.spel.SpelCompilationCoverageTests;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelEvaluationException;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for the batch evaluation methods on {@link SpelExpression}.
+ *
+ * @author Spring Framework Team
+ */
+class SpelExpressionBatchTests {
+
+	private final EvaluationContext context = new StandardEvaluationContext();
+
+	private final List<Item> items = new ArrayList<>();
+
+
+	SpelExpressionBatchTests() {
+		this.context.setVariable("limit", 5000);
+		for (int i = 0; i < 10000; i++) {
+			this.items.add(new Item(i));
+		}
+	}
+
+
+	@Test
+	void filter() {
+		SpelExpression expression = parse("quantity < #limit and quantity % 2 == 0", SpelCompilerMode.OFF);
+		List<Item> result = expression.filter(this.context, this.items);
+		assertThat(result).hasSize(2500);
+		assertThat(result.get(0).quantity).isEqualTo(0);
+		assertThat(result.get(2499).quantity).isEqualTo(4998);
+	}
+
+	@Test
+	void filterInParallel() {
+		SpelExpression expression = parse("quantity < #limit and quantity % 2 == 0", SpelCompilerMode.MIXED);
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			List<Item> result = expression.filter(this.context, this.items, pool);
+			assertThat(result).hasSize(2500);
+			for (int i = 0; i < result.size(); i++) {
+				assertThat(result.get(i).quantity).isEqualTo(i * 2);
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	void getValuesWithCompilation() {
+		SpelExpression expression = parse("quantity * 2", SpelCompilerMode.IMMEDIATE);
+		List<String> result = expression.getValues(this.context, this.items, String.class);
+		assertThat(result).hasSize(10000);
+		assertThat(result.get(0)).isEqualTo("0");
+		assertThat(result.get(9999)).isEqualTo("19998");
+		SpelCompilationCoverageTests.assertIsCompiled(expression);
+	}
+
+	@Test
+	void getBooleanValues() {
+		SpelExpression expression = parse("name?.startsWith('item1')", SpelCompilerMode.OFF);
+		List<Item> input = Arrays.asList(new Item(1), new Item(2), new Item(10), new Item(-1));
+		assertThat(expression.getBooleanValues(this.context, input)).containsExactly(true, false, true, false);
+	}
+
+	@Test
+	void getDoubleValues() {
+		SpelExpression expression = parse("quantity / 2.0", SpelCompilerMode.IMMEDIATE);
+		double[] result = expression.getDoubleValues(this.context, this.items, ForkJoinPool.commonPool());
+		assertThat(result).hasSize(10000);
+		assertThat(result[0]).isEqualTo(0.0);
+		assertThat(result[9999]).isEqualTo(4999.5);
+	}
+
+	@Test
+	void getDoubleValuesWithNullResult() {
+		SpelExpression expression = parse("name", SpelCompilerMode.OFF);
+		assertThatExceptionOfType(SpelEvaluationException.class).isThrownBy(() ->
+				expression.getDoubleValues(this.context, Arrays.asList(new Item(-1))));
+	}
+
+	private SpelExpression parse(String expression, SpelCompilerMode compilerMode) {
+		SpelExpressionParser parser = new SpelExpressionParser(
+				new SpelParserConfiguration(compilerMode, getClass().getClassLoader()));
+		return parser.parseRaw(expression);
+	}
+
+
+	public static class Item {
+
+		public final int quantity;
+
+		public final String name;
+
+		Item(int quantity) {
+			this.quantity = quantity;
+			this.name = (quantity >= 0 ? "item" + quantity : null);
+		}
+
+		public int getQuantity() {
+			return this.quantity;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -20,12 +20,15 @@ import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
 import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.Expression;
 import org.springframework.expression.ParseException;
 import org.springframework.expression.PropertyAccessor;
 import org.springframework.expression.TypedValue;
@@ -364,6 +367,50 @@ public class ReflectionHelperTests extends AbstractExpressionTests {
 				field.write(ctx, tester, "field", null));
 	}
 
+	@Test
+	public void testOptimalAccessorReusability() throws Exception {
+		ReflectivePropertyAccessor reflective = new ReflectivePropertyAccessor();
+		StandardEvaluationContext ctx = new StandardEvaluationContext();
+		ctx.setPropertyAccessors(Collections.singletonList(reflective));
+		Tester tester = new Tester();
+
+		ReflectivePropertyAccessor.OptimalPropertyAccessor property =
+				(ReflectivePropertyAccessor.OptimalPropertyAccessor) reflective.createOptimalAccessor(ctx, tester, "property");
+		assertThat(property.isReusableFor(ctx, new Tester())).isTrue();
+		assertThat(property.isReusableFor(ctx, new Sub())).isFalse();
+		assertThat(property.isReusableFor(ctx, Tester.class)).isFalse();
+		assertThat(property.isReusableFor(ctx, null)).isFalse();
+		assertThat(property.isReusableFor(new StandardEvaluationContext(), tester)).isFalse();
+	}
+
+	@Test
+	public void testOptimalAccessorReuseRespectsAccessorOrder() {
+		ReflectivePropertyAccessor reflective = new ReflectivePropertyAccessor();
+		StandardEvaluationContext ctx = new StandardEvaluationContext();
+		ctx.setPropertyAccessors(Collections.singletonList(reflective));
+		StandardEvaluationContext overridingCtx = new StandardEvaluationContext();
+		overridingCtx.setPropertyAccessors(Arrays.asList(new ConstantPropertyAccessor("overridden"), reflective));
+		Expression expr = parser.parseExpression("name");
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(expr.getValue(ctx, new PublicTester())).isEqualTo("public");
+			assertThat(expr.getValue(overridingCtx, new PublicTester())).isEqualTo("overridden");
+		}
+	}
+
+	@Test
+	public void testOptimalAccessorReuseAcrossTargetTypes() {
+		StandardEvaluationContext ctx = new StandardEvaluationContext();
+		ctx.setPropertyAccessors(Collections.singletonList(new ReflectivePropertyAccessor()));
+		ctx.setVariable("suffix", "!");
+		Expression expr = parser.parseExpression("name + #suffix");
+
+		for (int i = 0; i < 3; i++) {
+			assertThat(expr.getValue(ctx, new PublicTester())).isEqualTo("public!");
+			assertThat(expr.getValue(ctx, new OtherPublicTester())).isEqualTo("other!");
+		}
+	}
+
 
 	/**
 	 * Used to validate the match returned from a compareArguments call.
@@ -492,4 +539,55 @@ public class ReflectionHelperTests extends AbstractExpressionTests {
 		public void setpEBS(String pEBS) { this.pEBS = pEBS; }
 	}
 
+
+	private static class ConstantPropertyAccessor implements PropertyAccessor {
+
+		private final String value;
+
+		ConstantPropertyAccessor(String value) {
+			this.value = value;
+		}
+
+		@Override
+		public Class<?>[] getSpecificTargetClasses() {
+			return null;
+		}
+
+		@Override
+		public boolean canRead(EvaluationContext context, Object target, String name) {
+			return true;
+		}
+
+		@Override
+		public TypedValue read(EvaluationContext context, Object target, String name) {
+			return new TypedValue(this.value);
+		}
+
+		@Override
+		public boolean canWrite(EvaluationContext context, Object target, String name) {
+			return false;
+		}
+
+		@Override
+		public void write(EvaluationContext context, Object target, String name, Object newValue) {
+			throw new UnsupportedOperationException();
+		}
+	}
+
+
+	public static class PublicTester {
+
+		public String getName() {
+			return "public";
+		}
+	}
+
+
+	public static class OtherPublicTester {
+
+		public String getName() {
+			return "other";
+		}
+	}
+
 }
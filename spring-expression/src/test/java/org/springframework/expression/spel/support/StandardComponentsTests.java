@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -27,6 +27,7 @@ import org.springframework.expression.OperatorOverloader;
 import org.springframework.expression.TypeComparator;
 import org.springframework.expression.TypeConverter;
 import org.springframework.expression.TypeLocator;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
@@ -47,6 +48,30 @@ public class StandardComponentsTests {
 		assertThat(context.getTypeLocator()).isEqualTo(tl);
 	}
 
+	@Test
+	public void testReusableEvaluationContext() {
+		StandardEvaluationContext infrastructure = new StandardEvaluationContext();
+		ReusableEvaluationContext context = new ReusableEvaluationContext(infrastructure);
+		assertThat(context.getPropertyAccessors()).isSameAs(infrastructure.getPropertyAccessors());
+		assertThat(context.getMethodResolvers()).isSameAs(infrastructure.getMethodResolvers());
+		assertThat(context.getTypeConverter()).isSameAs(infrastructure.getTypeConverter());
+
+		SpelExpressionParser parser = new SpelExpressionParser();
+		context.reset("root", "a", null, "b");
+		context.setVariable(0, 1);
+		context.setVariable(2, 2);
+		context.setVariable("c", 3);
+		assertThat(parser.parseExpression("length() + #a + #b + #c").getValue(context)).isEqualTo(10);
+		context.setVariable("b", 5);
+		assertThat(context.lookupVariable("b")).isEqualTo(5);
+
+		context.reset("other", "b");
+		assertThat(parser.parseExpression("#root").getValue(context)).isEqualTo("other");
+		assertThat(context.lookupVariable("a")).isNull();
+		assertThat(context.lookupVariable("b")).isNull();
+		assertThat(context.lookupVariable("c")).isNull();
+	}
+
 	@Test
 	public void testStandardOperatorOverloader() throws EvaluationException {
 		OperatorOverloader oo = new StandardOperatorOverloader();
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmark for mapping 1M rows from a stub {@link ResultSet} through
+ * {@link BeanPropertyRowMapper} and {@link DataClassRowMapper}, with regular
+ * versus compiled mapping. Reported times are per row.
+ *
+ * @author Spring Framework Team
+ */
+@BenchmarkMode(Mode.AverageTime)
+public class BeanPropertyRowMapperBenchmark {
+
+	private static final int ROW_COUNT = 1_000_000;
+
+	private static final String[] COLUMNS = {"ID", "NAME", "ITEM_COUNT", "PRICE", "ACTIVE", "AMOUNT"};
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"false", "true"})
+		public boolean compiled;
+
+		public ResultSet resultSet;
+
+		public BeanPropertyRowMapper<Item> beanMapper;
+
+		public DataClassRowMapper<ItemRecord> dataClassMapper;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.resultSet = createResultSet();
+			this.beanMapper = new BeanPropertyRowMapper<>(Item.class);
+			this.beanMapper.setCompiledMapping(this.compiled);
+			this.dataClassMapper = new DataClassRowMapper<>(ItemRecord.class);
+			this.dataClassMapper.setCompiledMapping(this.compiled);
+		}
+	}
+
+
+	@Benchmark
+	@OperationsPerInvocation(ROW_COUNT)
+	public void beanPropertyRowMapper(BenchmarkState state, Blackhole bh) throws SQLException {
+		for (int i = 0; i < ROW_COUNT; i++) {
+			bh.consume(state.beanMapper.mapRow(state.resultSet, i));
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(ROW_COUNT)
+	public void dataClassRowMapper(BenchmarkState state, Blackhole bh) throws SQLException {
+		for (int i = 0; i < ROW_COUNT; i++) {
+			bh.consume(state.dataClassMapper.mapRow(state.resultSet, i));
+		}
+	}
+
+
+	/**
+	 * Create a ResultSet stub which returns the same values for every row.
+	 */
+	private static ResultSet createResultSet() {
+		BigDecimal amount = new BigDecimal("1234.56");
+		ResultSetMetaData rsmd = (ResultSetMetaData) Proxy.newProxyInstance(
+				BeanPropertyRowMapperBenchmark.class.getClassLoader(), new Class<?>[] {ResultSetMetaData.class},
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+						case "getColumnCount": return COLUMNS.length;
+						case "getColumnLabel": return COLUMNS[(Integer) args[0] - 1];
+						case "getColumnName": return COLUMNS[(Integer) args[0] - 1];
+						default: throw new UnsupportedOperationException(method.getName());
+					}
+				});
+		return (ResultSet) Proxy.newProxyInstance(
+				BeanPropertyRowMapperBenchmark.class.getClassLoader(), new Class<?>[] {ResultSet.class},
+				(proxy, method, args) -> {
+					switch (method.getName()) {
+						case "getMetaData": return rsmd;
+						case "findColumn":
+							for (int i = 0; i < COLUMNS.length; i++) {
+								if (COLUMNS[i].equalsIgnoreCase((String) args[0])) {
+									return i + 1;
+								}
+							}
+							throw new SQLException("Unknown column " + args[0]);
+						case "wasNull": return false;
+						case "getInt": return 42;
+						case "getString": return "item";
+						case "getLong": return 7L;
+						case "getDouble": return 9.99d;
+						case "getBoolean": return true;
+						case "getBigDecimal": return amount;
+						default: throw new UnsupportedOperationException(method.getName());
+					}
+				});
+	}
+
+
+	public static class Item {
+
+		private int id;
+
+		private String name;
+
+		private long itemCount;
+
+		private double price;
+
+		private boolean active;
+
+		private BigDecimal amount;
+
+		public int getId() {
+			return this.id;
+		}
+
+		public void setId(int id) {
+			this.id = id;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public long getItemCount() {
+			return this.itemCount;
+		}
+
+		public void setItemCount(long itemCount) {
+			this.itemCount = itemCount;
+		}
+
+		public double getPrice() {
+			return this.price;
+		}
+
+		public void setPrice(double price) {
+			this.price = price;
+		}
+
+		public boolean isActive() {
+			return this.active;
+		}
+
+		public void setActive(boolean active) {
+			this.active = active;
+		}
+
+		public BigDecimal getAmount() {
+			return this.amount;
+		}
+
+		public void setAmount(BigDecimal amount) {
+			this.amount = amount;
+		}
+	}
+
+
+	public static class ItemRecord {
+
+		private final int id;
+
+		private final String name;
+
+		private final long itemCount;
+
+		private final double price;
+
+		private final boolean active;
+
+		private final BigDecimal amount;
+
+		public ItemRecord(int id, String name, long itemCount, double price, boolean active, BigDecimal amount) {
+			this.id = id;
+			this.name = name;
+			this.itemCount = itemCount;
+			this.price = price;
+			this.active = active;
+			this.amount = amount;
+		}
+
+		public int getId() {
+			return this.id;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public long getItemCount() {
+			return this.itemCount;
+		}
+
+		public double getPrice() {
+			return this.price;
+		}
+
+		public boolean isActive() {
+			return this.active;
+		}
+
+		public BigDecimal getAmount() {
+			return this.amount;
+		}
+	}
+
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Benchmark for reading a large numeric result from an embedded H2 database
+ * through {@link JdbcTemplate#queryForList(String, Object...)} versus
+ * {@link JdbcTemplate#queryForColumnBatch} and the primitive array variants.
+ * Run with {@code -prof gc} to compare the allocation per query.
+ *
+ * @author Spring Framework Team
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ColumnBatchBenchmark {
+
+	private static final String QUERY = "select id, quantity, price, region from sale";
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"100000", "1000000"})
+		public int rowCount;
+
+		public EmbeddedDatabase db;
+
+		public JdbcTemplate jdbcTemplate;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.db = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+			this.jdbcTemplate = new JdbcTemplate(this.db);
+			this.jdbcTemplate.execute("create table sale (id int primary key, quantity bigint, " +
+					"price double, region varchar(20))");
+			this.jdbcTemplate.execute("insert into sale select x, x * 10, x * 0.25, " +
+					"casewhen(mod(x, 2) = 0, 'north', 'south') from system_range(1, " + this.rowCount + ")");
+		}
+
+		@TearDown(Level.Trial)
+		public void shutdown() {
+			this.db.shutdown();
+		}
+	}
+
+
+	@Benchmark
+	public List<Map<String, Object>> queryForList(BenchmarkState state) {
+		return state.jdbcTemplate.queryForList(QUERY);
+	}
+
+	@Benchmark
+	public ColumnBatch queryForColumnBatch(BenchmarkState state) {
+		return state.jdbcTemplate.queryForColumnBatch(QUERY);
+	}
+
+	@Benchmark
+	public List<Double> queryForSingleColumnList(BenchmarkState state) {
+		return state.jdbcTemplate.queryForList("select price from sale", Double.class);
+	}
+
+	@Benchmark
+	public double[] queryForDoubleArray(BenchmarkState state) {
+		return state.jdbcTemplate.queryForDoubleArray("select price from sale");
+	}
+
+}
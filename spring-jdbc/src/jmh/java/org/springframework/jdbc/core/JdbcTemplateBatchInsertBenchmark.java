@@ -0,0 +1,99 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+/**
+ * Benchmark for loading 100k rows through {@link JdbcTemplate#batchUpdate(String, List)}
+ * into embedded H2 and HSQL databases, with regular JDBC batches versus multi-row
+ * INSERT statements of different chunk sizes.
+ *
+ * @author Spring Framework Team
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JdbcTemplateBatchInsertBenchmark {
+
+	private static final String INSERT_SQL = "insert into item (id, name, price) values (?, ?, ?)";
+
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"H2", "HSQL"})
+		public EmbeddedDatabaseType databaseType;
+
+		@Param({"-1", "10", "100", "1000"})
+		public int chunkSize;
+
+		@Param("100000")
+		public int rowCount;
+
+		public EmbeddedDatabase db;
+
+		public JdbcTemplate jdbcTemplate;
+
+		public List<Object[]> rows;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.db = new EmbeddedDatabaseBuilder().setType(this.databaseType).generateUniqueName(true).build();
+			this.jdbcTemplate = new JdbcTemplate(this.db);
+			this.jdbcTemplate.setMultiRowInsertChunkSize(this.chunkSize);
+			this.jdbcTemplate.execute("create table item (id bigint primary key, name varchar(50), price double)");
+			this.rows = new ArrayList<>(this.rowCount);
+			for (int i = 0; i < this.rowCount; i++) {
+				this.rows.add(new Object[] {(long) i, "item" + i, i * 0.5});
+			}
+		}
+
+		@Setup(Level.Invocation)
+		public void clear() {
+			this.jdbcTemplate.execute("delete from item");
+		}
+
+		@TearDown(Level.Trial)
+		public void shutdown() {
+			this.db.shutdown();
+		}
+	}
+
+
+	@Benchmark
+	public int[] batchInsert(BenchmarkState state) {
+		return state.jdbcTemplate.batchUpdate(INSERT_SQL, state.rows);
+	}
+
+}
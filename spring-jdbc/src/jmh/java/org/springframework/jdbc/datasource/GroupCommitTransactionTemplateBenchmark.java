@@ -0,0 +1,90 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.GroupCommitTransactionTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Benchmark for the throughput of small concurrent write transactions against
+ * an embedded H2 database, with individual transactions versus group commit.
+ *
+ * @author Spring Framework Team
+ */
+@BenchmarkMode(Mode.Throughput)
+@Threads(8)
+public class GroupCommitTransactionTemplateBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"individual", "group"})
+		public String mode;
+
+		@Param({"0", "1"})
+		public long maxWaitMillis;
+
+		public EmbeddedDatabase db;
+
+		public JdbcTemplate jdbcTemplate;
+
+		public TransactionTemplate template;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.db = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+			this.jdbcTemplate = new JdbcTemplate(this.db);
+			this.jdbcTemplate.execute("create table item (id bigint auto_increment primary key, name varchar(50))");
+			DataSourceTransactionManager tm = new DataSourceTransactionManager(this.db);
+			if ("group".equals(this.mode)) {
+				GroupCommitTransactionTemplate template = new GroupCommitTransactionTemplate(tm);
+				template.setMaxWaitMillis(this.maxWaitMillis);
+				this.template = template;
+			}
+			else {
+				this.template = new TransactionTemplate(tm);
+			}
+		}
+
+		@TearDown(Level.Trial)
+		public void shutdown() {
+			this.db.shutdown();
+		}
+	}
+
+	@Benchmark
+	public Object insert(BenchmarkState state) {
+		return state.template.execute(status ->
+				state.jdbcTemplate.update("insert into item (name) values (?)", "item"));
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,12 +16,22 @@
 
 package org.springframework.jdbc.core;
 
+import java.beans.PropertyChangeEvent;
 import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.UndeclaredThrowableException;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
@@ -33,9 +43,12 @@ import org.springframework.beans.BeanUtils;
 import org.springframework.beans.BeanWrapper;
 import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.beans.NotWritablePropertyException;
+import org.springframework.beans.SimpleTypeConverter;
 import org.springframework.beans.TypeConverter;
 import org.springframework.beans.TypeMismatchException;
+import org.springframework.core.convert.ConversionException;
 import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.core.convert.support.DefaultConversionService;
 import org.springframework.dao.DataRetrievalFailureException;
 import org.springframework.dao.InvalidDataAccessApiUsageException;
@@ -43,6 +56,8 @@ import org.springframework.jdbc.support.JdbcUtils;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.util.ClassUtils;
+import org.springframework.util.ConcurrentLruCache;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.util.StringUtils;
 
 /**
@@ -69,7 +84,8 @@ import org.springframework.util.StringUtils;
  * will have been set to the primitive's default value instead of null.
  *
  * <p>Please note that this class is designed to provide convenience rather than high performance.
- * For best performance, consider using a custom {@link RowMapper} implementation.
+ * For best performance, consider using a custom {@link RowMapper} implementation, or switch on
+ * {@link #setCompiledMapping compiled mapping} which resolves the mapping once per result set shape.
  *
  * @author Thomas Risberg
  * @author Juergen Hoeller
@@ -78,6 +94,20 @@ import org.springframework.util.StringUtils;
  */
 public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 
+	private static final Map<Class<?>, String> typedGetterNames = new HashMap<>(16);
+
+	static {
+		typedGetterNames.put(boolean.class, "getBoolean");
+		typedGetterNames.put(byte.class, "getByte");
+		typedGetterNames.put(short.class, "getShort");
+		typedGetterNames.put(int.class, "getInt");
+		typedGetterNames.put(long.class, "getLong");
+		typedGetterNames.put(float.class, "getFloat");
+		typedGetterNames.put(double.class, "getDouble");
+		typedGetterNames.put(String.class, "getString");
+	}
+
+
 	/** Logger available to subclasses. */
 	protected final Log logger = LogFactory.getLog(getClass());
 
@@ -103,6 +133,17 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 	@Nullable
 	private Set<String> mappedProperties;
 
+	/** Whether we're mapping through compiled mappings per result set shape. */
+	private boolean compiledMapping = false;
+
+	/** Cache of compiled mappings, keyed by the list of column names. */
+	@Nullable
+	private volatile ConcurrentLruCache<List<String>, CompiledMapping> compiledMappingCache;
+
+	/** The compiled mapping for the most recently mapped ResultSet. */
+	@Nullable
+	private volatile ResultSetMapping lastResultSetMapping;
+
 
 	/**
 	 * Create a new {@code BeanPropertyRowMapper} for bean-style configuration.
@@ -212,6 +253,33 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 		return this.conversionService;
 	}
 
+	/**
+	 * Set whether to map rows through a compiled mapping per result set shape.
+	 * <p>Default is {@code false}, resolving column names against bean properties
+	 * and binding values through a {@link BeanWrapper} for every row. Switch this
+	 * to {@code true} to resolve the column-to-property plan once per distinct list
+	 * of column names, reading primitive and String values through typed
+	 * {@code ResultSet} getters and invoking setters (and data class constructors
+	 * in case of {@link DataClassRowMapper}) through pre-resolved method handles.
+	 * <p>Other column values are retrieved through {@link #getColumnValue(ResultSet, int, PropertyDescriptor)}
+	 * and converted through the {@link #setConversionService ConversionService} where
+	 * necessary. Custom {@link #initBeanWrapper} and {@link #constructMappedInstance}
+	 * implementations do not apply to compiled mappings; mapped classes that cannot
+	 * be compiled (e.g. due to inaccessible constructors) fall back to regular mapping.
+	 * @since 5.3.5
+	 */
+	public void setCompiledMapping(boolean compiledMapping) {
+		this.compiledMapping = compiledMapping;
+	}
+
+	/**
+	 * Return whether to map rows through a compiled mapping per result set shape.
+	 * @since 5.3.5
+	 */
+	public boolean isCompiledMapping() {
+		return this.compiledMapping;
+	}
+
 
 	/**
 	 * Initialize the mapping meta-data for the given class.
@@ -279,6 +347,13 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 	 */
 	@Override
 	public T mapRow(ResultSet rs, int rowNumber) throws SQLException {
+		if (this.compiledMapping) {
+			CompiledMapping mapping = getCompiledMapping(rs);
+			if (mapping.isCompiled()) {
+				return mapping.mapRow(rs, rowNumber);
+			}
+		}
+
 		BeanWrapperImpl bw = new BeanWrapperImpl();
 		initBeanWrapper(bw);
 
@@ -408,29 +483,331 @@ public class BeanPropertyRowMapper<T> implements RowMapper<T> {
 
 
 	/**
-	 * Static factory method to create a new {@code BeanPropertyRowMapper}.
-	 * @param mappedClass the class that each row should be mapped to
-	 * @see #newInstance(Class, ConversionService)
+	 * Obtain the compiled mapping for the given ResultSet, reusing the mapping
+	 * for the most recently mapped ResultSet without accessing its meta-data.
 	 */
-	public static <T> BeanPropertyRowMapper<T> newInstance(Class<T> mappedClass) {
-		return new BeanPropertyRowMapper<>(mappedClass);
+	private CompiledMapping getCompiledMapping(ResultSet rs) throws SQLException {
+		ResultSetMapping last = this.lastResultSetMapping;
+		if (last != null && last.resultSet.get() == rs) {
+			return last.mapping;
+		}
+
+		ResultSetMetaData rsmd = rs.getMetaData();
+		int columnCount = rsmd.getColumnCount();
+		List<String> columns = new ArrayList<>(columnCount);
+		for (int index = 1; index <= columnCount; index++) {
+			columns.add(JdbcUtils.lookupColumnName(rsmd, index));
+		}
+		ConcurrentLruCache<List<String>, CompiledMapping> cache = this.compiledMappingCache;
+		if (cache == null) {
+			cache = new ConcurrentLruCache<>(64, this::compileMapping);
+			this.compiledMappingCache = cache;
+		}
+		CompiledMapping mapping = cache.get(columns);
+		this.lastResultSetMapping = new ResultSetMapping(rs, mapping);
+		return mapping;
 	}
 
 	/**
-	 * Static factory method to create a new {@code BeanPropertyRowMapper}.
-	 * @param mappedClass the class that each row should be mapped to
-	 * @param conversionService the {@link ConversionService} for binding
-	 * JDBC values to bean properties, or {@code null} for none
-	 * @since 5.2.3
-	 * @see #newInstance(Class)
-	 * @see #setConversionService
+	 * Compile the mapping for the given list of column names.
 	 */
-	public static <T> BeanPropertyRowMapper<T> newInstance(
-			Class<T> mappedClass, @Nullable ConversionService conversionService) {
+	private CompiledMapping compileMapping(List<String> columns) {
+		Map<String, Integer> columnIndexes = new HashMap<>();
+		List<PropertyBinding> bindings = new ArrayList<>(columns.size());
+		Set<String> populatedProperties = new HashSet<>();
+		try {
+			for (int index = 1; index <= columns.size(); index++) {
+				String column = columns.get(index - 1);
+				columnIndexes.putIfAbsent(lowerCaseName(column), index);
+				String field = lowerCaseName(StringUtils.delete(column, " "));
+				PropertyDescriptor pd = (this.mappedFields != null ? this.mappedFields.get(field) : null);
+				if (pd != null) {
+					bindings.add(new PropertyBinding(this, pd, index));
+					populatedProperties.add(pd.getName());
+					if (logger.isDebugEnabled()) {
+						logger.debug("Mapping column '" + column + "' to property '" + pd.getName() +
+								"' of type '" + ClassUtils.getQualifiedName(pd.getPropertyType()) + "'");
+					}
+				}
+				else if (logger.isDebugEnabled()) {
+					logger.debug("No property found for column '" + column + "' mapped to field '" + field + "'");
+				}
+			}
+			MethodHandle instantiator = compileInstantiator(columnIndexes);
+			if (instantiator != null) {
+				return new CompiledMapping(instantiator, bindings.toArray(new PropertyBinding[0]),
+						populatedProperties.equals(this.mappedProperties));
+			}
+		}
+		catch (ReflectiveOperationException | RuntimeException ex) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Cannot compile row mapping for " + this.mappedClass +
+						" - falling back to regular mapping", ex);
+			}
+		}
+		return new CompiledMapping(null, new PropertyBinding[0], false);
+	}
+
+	/**
+	 * Compile a method handle of type {@code (ResultSet)Object} which creates an
+	 * instance of the mapped class for the current row. The default implementation
+	 * invokes the default constructor.
+	 * @param columnIndexes the column indexes by lower-case column name
+	 * @return the method handle, or {@code null} if no compiled instantiation is possible
+	 */
+	@Nullable
+	MethodHandle compileInstantiator(Map<String, Integer> columnIndexes) throws ReflectiveOperationException {
+		Assert.state(this.mappedClass != null, "Mapped class was not specified");
+		Constructor<T> ctor = ReflectionUtils.accessibleConstructor(this.mappedClass);
+		MethodHandle handle = MethodHandles.lookup().unreflectConstructor(ctor);
+		return MethodHandles.dropArguments(handle.asType(MethodType.methodType(Object.class)), 0, ResultSet.class);
+	}
+
+	/**
+	 * Compile a method handle of type {@code (ResultSet)type} which retrieves the
+	 * value of the given column, through a typed {@code ResultSet} getter for
+	 * primitives and Strings and through {@link #getColumnValue(ResultSet, int, Class)}
+	 * with subsequent conversion otherwise.
+	 * @param index the column index
+	 * @param typeDescriptor the required type, including generics information
+	 * @return the method handle
+	 */
+	MethodHandle compileColumnGetter(int index, TypeDescriptor typeDescriptor) throws ReflectiveOperationException {
+		Class<?> type = typeDescriptor.getType();
+		String getterName = typedGetterNames.get(type);
+		if (getterName != null) {
+			MethodHandle getter = MethodHandles.publicLookup().findVirtual(
+					ResultSet.class, getterName, MethodType.methodType(type, int.class));
+			return MethodHandles.insertArguments(getter, 1, index);
+		}
+		MethodHandle getter = MethodHandles.lookup().findVirtual(BeanPropertyRowMapper.class, "getConvertedColumnValue",
+				MethodType.methodType(Object.class, ResultSet.class, int.class, ColumnValueConverter.class)).bindTo(this);
+		return MethodHandles.insertArguments(getter, 1, index, new ColumnValueConverter(typeDescriptor, getConversionService()))
+				.asType(MethodType.methodType(type, ResultSet.class));
+	}
+
+	@Nullable
+	private Object getConvertedColumnValue(ResultSet rs, int index, ColumnValueConverter converter) throws SQLException {
+		return converter.convert(getColumnValue(rs, index, converter.type));
+	}
+
+	/**
+	 * Holder for the compiled mapping of a specific ResultSet,
+	 * not preventing the ResultSet from being garbage-collected.
+	 */
+	private class ResultSetMapping {
+
+		final WeakReference<ResultSet> resultSet;
+
+		final CompiledMapping mapping;
+
+		ResultSetMapping(ResultSet resultSet, CompiledMapping mapping) {
+			this.resultSet = new WeakReference<>(resultSet);
+			this.mapping = mapping;
+		}
+	}
+
+
+	/**
+	 * Compiled mapping for a specific list of column names, or a marker
+	 * for falling back to regular mapping if no instantiator is available.
+	 */
+	private class CompiledMapping {
+
+		@Nullable
+		private final MethodHandle instantiator;
 
-		BeanPropertyRowMapper<T> rowMapper = newInstance(mappedClass);
-		rowMapper.setConversionService(conversionService);
-		return rowMapper;
+		private final PropertyBinding[] bindings;
+
+		private final boolean fullyPopulated;
+
+		CompiledMapping(@Nullable MethodHandle instantiator, PropertyBinding[] bindings, boolean fullyPopulated) {
+			this.instantiator = instantiator;
+			this.bindings = bindings;
+			this.fullyPopulated = fullyPopulated;
+		}
+
+		boolean isCompiled() {
+			return (this.instantiator != null);
+		}
+
+		@SuppressWarnings("unchecked")
+		T mapRow(ResultSet rs, int rowNumber) throws SQLException {
+			Assert.state(this.instantiator != null, "No compiled instantiator");
+			if (isCheckFullyPopulated() && !this.fullyPopulated) {
+				throw new InvalidDataAccessApiUsageException("Given ResultSet does not contain all fields " +
+						"necessary to populate object of " + mappedClass + ": " + mappedProperties);
+			}
+			try {
+				Object mappedObject = (Object) this.instantiator.invokeExact(rs);
+				for (PropertyBinding binding : this.bindings) {
+					binding.apply(mappedObject, rs, rowNumber);
+				}
+				return (T) mappedObject;
+			}
+			catch (SQLException | RuntimeException | Error ex) {
+				throw ex;
+			}
+			catch (Throwable ex) {
+				throw new UndeclaredThrowableException(ex);
+			}
+		}
+	}
+
+
+	/**
+	 * Binding of a column to a bean property, reading primitive and String values
+	 * through typed {@code ResultSet} getters and passing them to the pre-resolved
+	 * setter method handle without boxing.
+	 */
+	private static class PropertyBinding {
+
+		private final BeanPropertyRowMapper<?> mapper;
+
+		private final PropertyDescriptor pd;
+
+		private final Class<?> type;
+
+		private final int index;
+
+		@Nullable
+		private final ColumnValueConverter converter;
+
+		private final MethodHandle setter;
+
+		PropertyBinding(BeanPropertyRowMapper<?> mapper, PropertyDescriptor pd, int index)
+				throws IllegalAccessException {
+
+			Method writeMethod = pd.getWriteMethod();
+			Assert.state(writeMethod != null, "No write method");
+			ReflectionUtils.makeAccessible(writeMethod);
+			this.mapper = mapper;
+			this.pd = pd;
+			this.type = pd.getPropertyType();
+			this.index = index;
+			boolean typed = typedGetterNames.containsKey(this.type);
+			this.converter = (typed ? null : new ColumnValueConverter(
+					new TypeDescriptor(BeanUtils.getWriteMethodParameter(pd)), mapper.getConversionService()));
+			this.setter = MethodHandles.lookup().unreflect(writeMethod).asType(
+					MethodType.methodType(void.class, Object.class, (typed ? this.type : Object.class)));
+		}
+
+		void apply(Object mappedObject, ResultSet rs, int rowNumber) throws Throwable {
+			Class<?> type = this.type;
+			if (type == String.class) {
+				this.setter.invokeExact(mappedObject, rs.getString(this.index));
+				return;
+			}
+			else if (type == int.class) {
+				int value = rs.getInt(this.index);
+				if (!rs.wasNull()) {
+					this.setter.invokeExact(mappedObject, value);
+					return;
+				}
+			}
+			else if (type == long.class) {
+				long value = rs.getLong(this.index);
+				if (!rs.wasNull()) {
+					this.setter.invokeExact(mappedObject, value);
+					return;
+				}
+			}
+			else if (type == double.class) {
+				double value = rs.getDouble(this.index);
+				if (!rs.wasNull()) {
+					this.setter.invokeExact(mappedObject, value);
+					return;
+				}
+			}
+			else if (type == boolean.class) {
+				boolean value = rs.getBoolean(this.index);
+				if (!rs.wasNull()) {
+					this.setter.invokeExact(mappedObject, value);
+					return;
+				}
+			}
+			else if (type == float.class) {
+				float value = rs.getFloat(this.index);
+				if (!rs.wasNull()) {
+					this.setter.invokeExact(mappedObject, value);
+					return;
+				}
+			}
+			else if (type == short.class) {
+				short value = rs.getShort(this.index);
+				if (!rs.wasNull()) {
+					this.setter.invokeExact(mappedObject, value);
+					return;
+				}
+			}
+			else if (type == byte.class) {
+				byte value = rs.getByte(this.index);
+				if (!rs.wasNull()) {
+					this.setter.invokeExact(mappedObject, value);
+					return;
+				}
+			}
+			else {
+				Assert.state(this.converter != null, "No column value converter");
+				Object value = this.converter.convert(this.mapper.getColumnValue(rs, this.index, this.pd));
+				this.setter.invokeExact(mappedObject, value);
+				return;
+			}
+
+			// Null value for a primitive property
+			if (!this.mapper.isPrimitivesDefaultedForNullValue()) {
+				throw new TypeMismatchException(
+						new PropertyChangeEvent(mappedObject, this.pd.getName(), null, null), type);
+			}
+			if (this.mapper.logger.isDebugEnabled()) {
+				this.mapper.logger.debug("Skipping null value for row " + rowNumber + " and property '" + this.pd.getName() +
+						"' of type '" + ClassUtils.getQualifiedName(type) + "' on object: " + mappedObject);
+			}
+		}
+	}
+
+
+	/**
+	 * Conversion of column values to a specific target type, resolved once per
+	 * compiled binding: values are converted through the {@link ConversionService}
+	 * where it supports the value type, falling back to the default property
+	 * editors of a {@link SimpleTypeConverter} (as with regular mapping) otherwise.
+	 */
+	private static class ColumnValueConverter {
+
+		private final Class<?> type;
+
+		private final TypeDescriptor typeDescriptor;
+
+		@Nullable
+		private final ConversionService conversionService;
+
+		ColumnValueConverter(TypeDescriptor typeDescriptor, @Nullable ConversionService conversionService) {
+			this.type = typeDescriptor.getType();
+			this.typeDescriptor = typeDescriptor;
+			this.conversionService = conversionService;
+		}
+
+		@Nullable
+		Object convert(@Nullable Object value) {
+			if (value == null || ClassUtils.isAssignableValue(this.type, value)) {
+				return value;
+			}
+			if (this.conversionService != null) {
+				TypeDescriptor sourceType = TypeDescriptor.forObject(value);
+				if (this.conversionService.canConvert(sourceType, this.typeDescriptor)) {
+					try {
+						return this.conversionService.convert(value, sourceType, this.typeDescriptor);
+					}
+					catch (ConversionException ex) {
+						throw new TypeMismatchException(value, this.type, ex);
+					}
+				}
+			}
+			// Not supported by the ConversionService: a new converter is required
+			// here since SimpleTypeConverter is not safe for concurrent use.
+			return new SimpleTypeConverter().convertIfNecessary(value, this.type, this.typeDescriptor);
+		}
 	}
 
 }
@@ -0,0 +1,595 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Column-oriented view of a query result, holding the values of each column
+ * in a primitive array ({@code int[]}, {@code long[]}, {@code double[]}) or,
+ * for String columns, as dictionary codes in an {@code int[]} with one String
+ * instance per distinct value. This avoids an object per row and per value,
+ * which makes a considerable difference for large numeric results. Values of
+ * any other type are kept as-is in an {@code Object[]}.
+ *
+ * <p>Typically populated through a {@link ColumnBatchResultSetExtractor},
+ * e.g. via {@link JdbcTemplate#queryForColumnBatch}. Columns are accessed
+ * through typed views, by 0-based index or by case-insensitive column name.
+ * SQL NULL values are tracked per column and reported by {@link Column#isNull},
+ * with primitive columns holding {@code 0} for such rows.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ * @see ColumnBatchResultSetExtractor
+ * @see JdbcTemplate#queryForColumnBatch
+ */
+public final class ColumnBatch {
+
+	/**
+	 * The storage type of a column.
+	 */
+	public enum ColumnType {
+
+		/** Column values stored in an {@code int[]}. */
+		INT,
+
+		/** Column values stored in a {@code long[]}. */
+		LONG,
+
+		/** Column values stored in a {@code double[]}. */
+		DOUBLE,
+
+		/** Column values stored as dictionary-encoded Strings. */
+		STRING,
+
+		/** Column values stored as plain objects in an {@code Object[]}. */
+		OBJECT
+	}
+
+
+	private final List<Column> columns;
+
+	private final int rowCount;
+
+
+	ColumnBatch(List<Column> columns, int rowCount) {
+		this.columns = Collections.unmodifiableList(columns);
+		this.rowCount = rowCount;
+	}
+
+
+	/**
+	 * Return the number of rows in this batch.
+	 */
+	public int getRowCount() {
+		return this.rowCount;
+	}
+
+	/**
+	 * Return the number of columns in this batch.
+	 */
+	public int getColumnCount() {
+		return this.columns.size();
+	}
+
+	/**
+	 * Return all columns in this batch, in result set order.
+	 */
+	public List<Column> getColumns() {
+		return this.columns;
+	}
+
+	/**
+	 * Return the column at the given 0-based index.
+	 */
+	public Column getColumn(int index) {
+		return this.columns.get(index);
+	}
+
+	/**
+	 * Return the column with the given name (case-insensitive).
+	 * @throws IllegalArgumentException if there is no such column
+	 */
+	public Column getColumn(String name) {
+		for (Column column : this.columns) {
+			if (column.getName().equalsIgnoreCase(name)) {
+				return column;
+			}
+		}
+		throw new IllegalArgumentException("No column named '" + name + "' in " + this);
+	}
+
+	/**
+	 * Return the {@code int} column at the given 0-based index.
+	 * @throws IllegalStateException if the column is of a different type
+	 */
+	public IntColumn getIntColumn(int index) {
+		return typedColumn(getColumn(index), IntColumn.class);
+	}
+
+	/**
+	 * Return the {@code int} column with the given name.
+	 * @throws IllegalStateException if the column is of a different type
+	 */
+	public IntColumn getIntColumn(String name) {
+		return typedColumn(getColumn(name), IntColumn.class);
+	}
+
+	/**
+	 * Return the {@code long} column at the given 0-based index.
+	 * @throws IllegalStateException if the column is of a different type
+	 */
+	public LongColumn getLongColumn(int index) {
+		return typedColumn(getColumn(index), LongColumn.class);
+	}
+
+	/**
+	 * Return the {@code long} column with the given name.
+	 * @throws IllegalStateException if the column is of a different type
+	 */
+	public LongColumn getLongColumn(String name) {
+		return typedColumn(getColumn(name), LongColumn.class);
+	}
+
+	/**
+	 * Return the {@code double} column at the given 0-based index.
+	 * @throws IllegalStateException if the column is of a different type
+	 */
+	public DoubleColumn getDoubleColumn(int index) {
+		return typedColumn(getColumn(index), DoubleColumn.class);
+	}
+
+	/**
+	 * Return the {@code double} column with the given name.
+	 * @throws IllegalStateException if the column is of a different type
+	 */
+	public DoubleColumn getDoubleColumn(String name) {
+		return typedColumn(getColumn(name), DoubleColumn.class);
+	}
+
+	/**
+	 * Return the String column at the given 0-based index.
+	 * @throws IllegalStateException if the column is of a different type
+	 */
+	public StringColumn getStringColumn(int index) {
+		return typedColumn(getColumn(index), StringColumn.class);
+	}
+
+	/**
+	 * Return the String column with the given name.
+	 * @throws IllegalStateException if the column is of a different type
+	 */
+	public StringColumn getStringColumn(String name) {
+		return typedColumn(getColumn(name), StringColumn.class);
+	}
+
+	/**
+	 * Return the Object column at the given 0-based index.
+	 * @throws IllegalStateException if the column is of a different type
+	 */
+	public ObjectColumn getObjectColumn(int index) {
+		return typedColumn(getColumn(index), ObjectColumn.class);
+	}
+
+	/**
+	 * Return the Object column with the given name.
+	 * @throws IllegalStateException if the column is of a different type
+	 */
+	public ObjectColumn getObjectColumn(String name) {
+		return typedColumn(getColumn(name), ObjectColumn.class);
+	}
+
+	private static <C extends Column> C typedColumn(Column column, Class<C> columnClass) {
+		if (!columnClass.isInstance(column)) {
+			throw new IllegalStateException("Column '" + column.getName() + "' is of type " +
+					column.getType() + ", not " + columnClass.getSimpleName());
+		}
+		return columnClass.cast(column);
+	}
+
+	@Override
+	public String toString() {
+		return "ColumnBatch with " + this.rowCount + " rows and columns " + this.columns;
+	}
+
+
+	/**
+	 * Base class for a growable column of values.
+	 */
+	public abstract static class Column {
+
+		private static final int INITIAL_CAPACITY = 256;
+
+		private final String name;
+
+		int size;
+
+		@Nullable
+		private BitSet nulls;
+
+		Column(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Return the name of this column.
+		 */
+		public String getName() {
+			return this.name;
+		}
+
+		/**
+		 * Return the storage type of this column.
+		 */
+		public abstract ColumnType getType();
+
+		/**
+		 * Return the number of values in this column.
+		 */
+		public int size() {
+			return this.size;
+		}
+
+		/**
+		 * Return whether the value in the given row is SQL NULL.
+		 */
+		public boolean isNull(int row) {
+			checkRow(row);
+			return (this.nulls != null && this.nulls.get(row));
+		}
+
+		/**
+		 * Return the value in the given row as a (boxed) Object,
+		 * or {@code null} for SQL NULL.
+		 */
+		@Nullable
+		public abstract Object getObject(int row);
+
+		void addNull() {
+			if (this.nulls == null) {
+				this.nulls = new BitSet();
+			}
+			this.nulls.set(this.size);
+		}
+
+		void checkRow(int row) {
+			if (row < 0 || row >= this.size) {
+				throw new IndexOutOfBoundsException("Row " + row + " out of bounds for column '" +
+						this.name + "' with " + this.size + " values");
+			}
+		}
+
+		static int grow(int capacity) {
+			return (capacity == 0 ? INITIAL_CAPACITY : capacity + (capacity >> 1));
+		}
+
+		@Override
+		public String toString() {
+			return this.name + " (" + getType() + ")";
+		}
+	}
+
+
+	/**
+	 * Column of {@code int} values.
+	 */
+	public static final class IntColumn extends Column {
+
+		private int[] values = new int[0];
+
+		IntColumn(String name) {
+			super(name);
+		}
+
+		@Override
+		public ColumnType getType() {
+			return ColumnType.INT;
+		}
+
+		/**
+		 * Return the value in the given row, or {@code 0} for SQL NULL.
+		 */
+		public int getInt(int row) {
+			checkRow(row);
+			return this.values[row];
+		}
+
+		@Override
+		@Nullable
+		public Object getObject(int row) {
+			return (isNull(row) ? null : this.values[row]);
+		}
+
+		/**
+		 * Return a copy of all values in this column.
+		 */
+		public int[] toIntArray() {
+			return Arrays.copyOf(this.values, this.size);
+		}
+
+		void add(int value) {
+			if (this.size == this.values.length) {
+				this.values = Arrays.copyOf(this.values, grow(this.size));
+			}
+			this.values[this.size++] = value;
+		}
+	}
+
+
+	/**
+	 * Column of {@code long} values.
+	 */
+	public static final class LongColumn extends Column {
+
+		private long[] values = new long[0];
+
+		LongColumn(String name) {
+			super(name);
+		}
+
+		@Override
+		public ColumnType getType() {
+			return ColumnType.LONG;
+		}
+
+		/**
+		 * Return the value in the given row, or {@code 0} for SQL NULL.
+		 */
+		public long getLong(int row) {
+			checkRow(row);
+			return this.values[row];
+		}
+
+		@Override
+		@Nullable
+		public Object getObject(int row) {
+			return (isNull(row) ? null : this.values[row]);
+		}
+
+		/**
+		 * Return a copy of all values in this column.
+		 */
+		public long[] toLongArray() {
+			return Arrays.copyOf(this.values, this.size);
+		}
+
+		void add(long value) {
+			if (this.size == this.values.length) {
+				this.values = Arrays.copyOf(this.values, grow(this.size));
+			}
+			this.values[this.size++] = value;
+		}
+	}
+
+
+	/**
+	 * Column of {@code double} values.
+	 */
+	public static final class DoubleColumn extends Column {
+
+		private double[] values = new double[0];
+
+		DoubleColumn(String name) {
+			super(name);
+		}
+
+		@Override
+		public ColumnType getType() {
+			return ColumnType.DOUBLE;
+		}
+
+		/**
+		 * Return the value in the given row, or {@code 0} for SQL NULL.
+		 */
+		public double getDouble(int row) {
+			checkRow(row);
+			return this.values[row];
+		}
+
+		@Override
+		@Nullable
+		public Object getObject(int row) {
+			return (isNull(row) ? null : this.values[row]);
+		}
+
+		/**
+		 * Return a copy of all values in this column.
+		 */
+		public double[] toDoubleArray() {
+			return Arrays.copyOf(this.values, this.size);
+		}
+
+		void add(double value) {
+			if (this.size == this.values.length) {
+				this.values = Arrays.copyOf(this.values, grow(this.size));
+			}
+			this.values[this.size++] = value;
+		}
+	}
+
+
+	/**
+	 * Column of dictionary-encoded String values: each row holds the code of
+	 * its value in the {@link #getDictionary() dictionary} of distinct values,
+	 * or {@code -1} for SQL NULL.
+	 */
+	public static final class StringColumn extends Column {
+
+		private int[] codes = new int[0];
+
+		private final List<String> dictionary = new ArrayList<>();
+
+		// Open-addressing table of dictionary codes + 1 (0 for an empty slot),
+		// for looking up the code of a value without boxing
+		@Nullable
+		private int[] slots = new int[16];
+
+		StringColumn(String name) {
+			super(name);
+		}
+
+		@Override
+		public ColumnType getType() {
+			return ColumnType.STRING;
+		}
+
+		/**
+		 * Return the value in the given row, or {@code null} for SQL NULL.
+		 */
+		@Nullable
+		public String getString(int row) {
+			int code = getCode(row);
+			return (code != -1 ? this.dictionary.get(code) : null);
+		}
+
+		/**
+		 * Return the dictionary code of the value in the given row,
+		 * or {@code -1} for SQL NULL.
+		 */
+		public int getCode(int row) {
+			checkRow(row);
+			return this.codes[row];
+		}
+
+		@Override
+		@Nullable
+		public Object getObject(int row) {
+			return getString(row);
+		}
+
+		/**
+		 * Return the distinct values in this column, indexed by their code.
+		 */
+		public List<String> getDictionary() {
+			return Collections.unmodifiableList(this.dictionary);
+		}
+
+		/**
+		 * Return a copy of the dictionary codes of all values in this column.
+		 */
+		public int[] toCodeArray() {
+			return Arrays.copyOf(this.codes, this.size);
+		}
+
+		void add(@Nullable String value) {
+			Assert.state(this.slots != null, "Column already completed");
+			if (this.size == this.codes.length) {
+				this.codes = Arrays.copyOf(this.codes, grow(this.size));
+			}
+			int code = -1;
+			if (value != null) {
+				code = getOrAddCode(value, this.slots);
+			}
+			else {
+				addNull();
+			}
+			this.codes[this.size++] = code;
+		}
+
+		private int getOrAddCode(String value, int[] slots) {
+			int mask = slots.length - 1;
+			int slot = spread(value.hashCode()) & mask;
+			while (slots[slot] != 0) {
+				int code = slots[slot] - 1;
+				if (this.dictionary.get(code).equals(value)) {
+					return code;
+				}
+				slot = (slot + 1) & mask;
+			}
+			int code = this.dictionary.size();
+			this.dictionary.add(value);
+			slots[slot] = code + 1;
+			if (this.dictionary.size() * 2 > slots.length) {
+				rehash(slots.length * 2);
+			}
+			return code;
+		}
+
+		private void rehash(int capacity) {
+			int[] slots = new int[capacity];
+			int mask = capacity - 1;
+			for (int code = 0; code < this.dictionary.size(); code++) {
+				int slot = spread(this.dictionary.get(code).hashCode()) & mask;
+				while (slots[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				slots[slot] = code + 1;
+			}
+			this.slots = slots;
+		}
+
+		private static int spread(int hash) {
+			return (hash ^ (hash >>> 16));
+		}
+
+		void complete() {
+			this.slots = null;
+		}
+	}
+
+
+	/**
+	 * Column of plain Object values, as returned by
+	 * {@link org.springframework.jdbc.support.JdbcUtils#getResultSetValue},
+	 * for types without a more specific storage.
+	 */
+	public static final class ObjectColumn extends Column {
+
+		private Object[] values = new Object[0];
+
+		ObjectColumn(String name) {
+			super(name);
+		}
+
+		@Override
+		public ColumnType getType() {
+			return ColumnType.OBJECT;
+		}
+
+		@Override
+		@Nullable
+		public Object getObject(int row) {
+			checkRow(row);
+			return this.values[row];
+		}
+
+		/**
+		 * Return a copy of all values in this column.
+		 */
+		public Object[] toObjectArray() {
+			return Arrays.copyOf(this.values, this.size);
+		}
+
+		void add(@Nullable Object value) {
+			if (this.size == this.values.length) {
+				this.values = Arrays.copyOf(this.values, grow(this.size));
+			}
+			if (value == null) {
+				addNull();
+			}
+			this.values[this.size++] = value;
+		}
+	}
+
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.dao.TypeMismatchDataAccessException;
+import org.springframework.jdbc.IncorrectResultSetColumnCountException;
+import org.springframework.jdbc.core.ColumnBatch.Column;
+import org.springframework.jdbc.core.ColumnBatch.ColumnType;
+import org.springframework.jdbc.core.ColumnBatch.DoubleColumn;
+import org.springframework.jdbc.core.ColumnBatch.IntColumn;
+import org.springframework.jdbc.core.ColumnBatch.LongColumn;
+import org.springframework.jdbc.core.ColumnBatch.ObjectColumn;
+import org.springframework.jdbc.core.ColumnBatch.StringColumn;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.lang.Nullable;
+
+/**
+ * {@link ResultSetExtractor} implementation that reads all rows into a
+ * column-oriented {@link ColumnBatch}, with primitive arrays for numeric
+ * columns and dictionary-encoded String columns. Numeric values are read
+ * through a primitive {@code ResultSet} getter, without an object per row;
+ * String columns retain a single instance per distinct value.
+ *
+ * <p>Column types can be specified explicitly, in which case the result set
+ * needs to have exactly that number of columns. Otherwise they are derived
+ * from the result set meta-data: {@code TINYINT}, {@code SMALLINT} and
+ * {@code INTEGER} columns are stored as {@code int},
+ * {@code BIGINT} as well as {@code DECIMAL} and {@code NUMERIC} columns with
+ * a scale of 0 and a precision of up to 18 digits as {@code long},
+ * {@code REAL}, {@code FLOAT} and {@code DOUBLE} columns as {@code double},
+ * character columns as Strings, and all other columns (including any other
+ * {@code DECIMAL} and {@code NUMERIC} columns, as {@code BigDecimal}) as objects.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ * @see JdbcTemplate#queryForColumnBatch
+ * @see ColumnMapRowMapper
+ */
+public class ColumnBatchResultSetExtractor implements ResultSetExtractor<ColumnBatch> {
+
+	@Nullable
+	private final ColumnType[] columnTypes;
+
+
+	/**
+	 * Create a new {@code ColumnBatchResultSetExtractor},
+	 * deriving the column types from the result set meta-data.
+	 */
+	public ColumnBatchResultSetExtractor() {
+		this.columnTypes = null;
+	}
+
+	/**
+	 * Create a new {@code ColumnBatchResultSetExtractor} for the given column types.
+	 * @param columnTypes the type of each column, in result set order
+	 */
+	public ColumnBatchResultSetExtractor(ColumnType... columnTypes) {
+		this.columnTypes = columnTypes.clone();
+	}
+
+
+	@Override
+	public ColumnBatch extractData(ResultSet rs) throws SQLException {
+		ResultSetMetaData rsmd = rs.getMetaData();
+		int columnCount = rsmd.getColumnCount();
+		if (this.columnTypes != null && this.columnTypes.length != columnCount) {
+			throw new IncorrectResultSetColumnCountException(this.columnTypes.length, columnCount);
+		}
+
+		List<Column> columns = new ArrayList<>(columnCount);
+		for (int index = 1; index <= columnCount; index++) {
+			String name = JdbcUtils.lookupColumnName(rsmd, index);
+			ColumnType type;
+			if (this.columnTypes != null) {
+				type = this.columnTypes[index - 1];
+				if (type == ColumnType.INT && !isIntCompatible(rsmd, index)) {
+					throw new TypeMismatchDataAccessException("Column '" + name + "' is of SQL type " +
+							rsmd.getColumnTypeName(index) + ": values may not fit into int, use LONG or OBJECT storage instead");
+				}
+			}
+			else {
+				type = getColumnType(rsmd, index);
+			}
+			columns.add(createColumn(name, type));
+		}
+
+		Column[] columnArray = columns.toArray(new Column[0]);
+		int rowCount = 0;
+		while (rs.next()) {
+			for (int i = 0; i < columnArray.length; i++) {
+				readValue(rs, i + 1, columnArray[i]);
+			}
+			rowCount++;
+		}
+
+		for (Column column : columnArray) {
+			if (column instanceof StringColumn) {
+				((StringColumn) column).complete();
+			}
+		}
+		return new ColumnBatch(columns, rowCount);
+	}
+
+	/**
+	 * Determine the column type for the given column.
+	 * <p>Can be overridden in subclasses to customize the type derivation.
+	 * @param rsmd the result set meta-data
+	 * @param index the column index, starting at 1
+	 * @return the column type to use
+	 * @throws SQLException if thrown by the JDBC API
+	 */
+	protected ColumnType getColumnType(ResultSetMetaData rsmd, int index) throws SQLException {
+		switch (rsmd.getColumnType(index)) {
+			case Types.TINYINT:
+			case Types.SMALLINT:
+			case Types.INTEGER:
+				return ColumnType.INT;
+			case Types.BIGINT:
+				return ColumnType.LONG;
+			case Types.DECIMAL:
+			case Types.NUMERIC:
+				// Integral values only as long: anything else as BigDecimal, without rounding
+				int precision = rsmd.getPrecision(index);
+				return (rsmd.getScale(index) == 0 && precision > 0 && precision <= 18 ?
+						ColumnType.LONG : ColumnType.OBJECT);
+			case Types.REAL:
+			case Types.FLOAT:
+			case Types.DOUBLE:
+				return ColumnType.DOUBLE;
+			case Types.CHAR:
+			case Types.VARCHAR:
+			case Types.LONGVARCHAR:
+			case Types.NCHAR:
+			case Types.NVARCHAR:
+			case Types.LONGNVARCHAR:
+			case Types.CLOB:
+			case Types.NCLOB:
+				return ColumnType.STRING;
+			default:
+				return ColumnType.OBJECT;
+		}
+	}
+
+	/**
+	 * Check whether the values of the given column are guaranteed to fit into
+	 * {@code int} storage, rejecting BIGINT as well as DECIMAL and NUMERIC
+	 * columns with a fractional part or with a precision beyond 9 digits.
+	 */
+	private static boolean isIntCompatible(ResultSetMetaData rsmd, int index) throws SQLException {
+		switch (rsmd.getColumnType(index)) {
+			case Types.BIGINT:
+				return false;
+			case Types.DECIMAL:
+			case Types.NUMERIC:
+				return (rsmd.getScale(index) == 0 && rsmd.getPrecision(index) <= 9);
+			default:
+				return true;
+		}
+	}
+
+	private static Column createColumn(String name, ColumnType type) {
+		switch (type) {
+			case INT:
+				return new IntColumn(name);
+			case LONG:
+				return new LongColumn(name);
+			case DOUBLE:
+				return new DoubleColumn(name);
+			case STRING:
+				return new StringColumn(name);
+			default:
+				return new ObjectColumn(name);
+		}
+	}
+
+	private static void readValue(ResultSet rs, int index, Column column) throws SQLException {
+		if (column instanceof IntColumn) {
+			int value = rs.getInt(index);
+			if (rs.wasNull()) {
+				column.addNull();
+			}
+			((IntColumn) column).add(value);
+		}
+		else if (column instanceof LongColumn) {
+			long value = rs.getLong(index);
+			if (rs.wasNull()) {
+				column.addNull();
+			}
+			((LongColumn) column).add(value);
+		}
+		else if (column instanceof DoubleColumn) {
+			double value = rs.getDouble(index);
+			if (rs.wasNull()) {
+				column.addNull();
+			}
+			((DoubleColumn) column).add(value);
+		}
+		else if (column instanceof StringColumn) {
+			((StringColumn) column).add(rs.getString(index));
+		}
+		else {
+			((ObjectColumn) column).add(JdbcUtils.getResultSetValue(rs, index));
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,15 +16,23 @@
 
 package org.springframework.jdbc.core;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.Map;
 
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.TypeConverter;
+import org.springframework.core.KotlinDetector;
+import org.springframework.core.MethodParameter;
 import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.TypeDescriptor;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
 
 /**
  * {@link RowMapper} implementation that converts a row into a new instance
@@ -101,6 +109,42 @@ public class DataClassRowMapper<T> extends BeanPropertyRowMapper<T> {
 		return BeanUtils.instantiateClass(this.mappedConstructor, args);
 	}
 
+	/**
+	 * This implementation invokes the data class constructor with each argument
+	 * retrieved through a column getter, composed into a single method handle.
+	 * Kotlin classes are not compiled, since their constructors may declare
+	 * default values for optional parameters.
+	 */
+	@Override
+	@Nullable
+	MethodHandle compileInstantiator(Map<String, Integer> columnIndexes) throws ReflectiveOperationException {
+		Assert.state(this.mappedConstructor != null, "Mapped constructor was not initialized");
+		if (KotlinDetector.isKotlinReflectPresent() &&
+				KotlinDetector.isKotlinType(this.mappedConstructor.getDeclaringClass())) {
+			return null;
+		}
+
+		ReflectionUtils.makeAccessible(this.mappedConstructor);
+		MethodHandle handle = MethodHandles.lookup().unreflectConstructor(this.mappedConstructor);
+		if (this.constructorParameterNames != null && this.constructorParameterTypes != null) {
+			MethodHandle[] getters = new MethodHandle[this.constructorParameterNames.length];
+			for (int i = 0; i < getters.length; i++) {
+				Integer index = columnIndexes.get(lowerCaseName(underscoreName(this.constructorParameterNames[i])));
+				if (index == null) {
+					// Let regular mapping report the missing column
+					return null;
+				}
+				TypeDescriptor td = new TypeDescriptor(MethodParameter.forExecutable(this.mappedConstructor, i));
+				getters[i] = compileColumnGetter(index, td);
+			}
+			handle = MethodHandles.filterArguments(handle, 0, getters);
+			handle = MethodHandles.permuteArguments(handle,
+					MethodType.methodType(handle.type().returnType(), ResultSet.class), new int[getters.length]);
+			return handle.asType(MethodType.methodType(Object.class, ResultSet.class));
+		}
+		return MethodHandles.dropArguments(handle.asType(MethodType.methodType(Object.class)), 0, ResultSet.class);
+	}
+
 
 	/**
 	 * Static factory method to create a new {@code DataClassRowMapper}.
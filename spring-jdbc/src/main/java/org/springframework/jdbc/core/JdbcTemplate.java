@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -29,6 +29,7 @@ import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
@@ -153,6 +154,12 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	 */
 	private boolean resultsMapCaseInsensitive = false;
 
+	/**
+	 * If this variable is set to a value greater than 1, single-row INSERT statements
+	 * will be rewritten into multi-row INSERT statements for batch updates.
+	 */
+	private int multiRowInsertChunkSize = -1;
+
 
 	/**
 	 * Construct a new JdbcTemplate for bean usage.
@@ -317,6 +324,38 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return this.resultsMapCaseInsensitive;
 	}
 
+	/**
+	 * Set the number of rows to combine into a single multi-row INSERT statement
+	 * for batch updates, rewriting a single-row {@code INSERT ... VALUES (?, ...)}
+	 * statement into {@code INSERT ... VALUES (?, ...), (?, ...), ...} chunks.
+	 * <p>This applies to {@link #batchUpdate(String, BatchPreparedStatementSetter)}
+	 * and its variants for argument arrays, as well as to batch updates issued by a
+	 * {@link org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate}
+	 * on top of this JdbcTemplate. Statements which do not end with a single value
+	 * list containing all of their parameter placeholders are executed as regular
+	 * JDBC batches, as are batches driven by an
+	 * {@link InterruptibleBatchPreparedStatementSetter}.
+	 * <p>Default is -1, indicating to not rewrite INSERT statements. This is an
+	 * opt-in setting since not all databases support multi-row VALUES lists, and
+	 * the chunk size times the number of parameters per row needs to stay within
+	 * the database's limit for parameters per statement. Each row of a chunk
+	 * reports an update count of 1 if the chunk's update count matches its number
+	 * of rows, and {@link Statement#SUCCESS_NO_INFO} otherwise.
+	 * @since 5.3.5
+	 * @see #batchUpdate(String, BatchPreparedStatementSetter)
+	 */
+	public void setMultiRowInsertChunkSize(int multiRowInsertChunkSize) {
+		this.multiRowInsertChunkSize = multiRowInsertChunkSize;
+	}
+
+	/**
+	 * Return the number of rows to combine into a single multi-row INSERT statement.
+	 * @since 5.3.5
+	 */
+	public int getMultiRowInsertChunkSize() {
+		return this.multiRowInsertChunkSize;
+	}
+
 
 	//-------------------------------------------------------------------------
 	// Methods dealing with a plain java.sql.Connection
@@ -952,6 +991,88 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 		return result(query(sql, args, new SqlRowSetResultSetExtractor()));
 	}
 
+	/**
+	 * Query given SQL to create a prepared statement from SQL and a list of
+	 * arguments to bind to the query, reading the result into a column-oriented
+	 * {@link ColumnBatch} with primitive arrays for numeric columns and
+	 * dictionary-encoded String columns.
+	 * <p>Compared to {@link #queryForList(String, Object...)}, this avoids a Map
+	 * and boxed values per row, which is particularly beneficial for analytical
+	 * queries with large numeric results.
+	 * @param sql the SQL query to execute
+	 * @param args arguments to bind to the query
+	 * @return the result as a ColumnBatch
+	 * @throws DataAccessException if the query fails
+	 * @since 5.3.5
+	 * @see ColumnBatchResultSetExtractor
+	 */
+	public ColumnBatch queryForColumnBatch(String sql, @Nullable Object... args) throws DataAccessException {
+		return result(query(sql, new ColumnBatchResultSetExtractor(), args));
+	}
+
+	/**
+	 * Query given SQL to create a prepared statement from SQL and a list of
+	 * arguments to bind to the query, expecting a single-column result and
+	 * reading it into an {@code int} array.
+	 * <p>SQL NULL values are represented as {@code 0}; use
+	 * {@link #queryForColumnBatch} to distinguish them. {@code BIGINT} columns
+	 * (e.g. {@code count(*)} on many databases) as well as {@code DECIMAL} and
+	 * {@code NUMERIC} columns with a fractional part or more than 9 digits are
+	 * rejected rather than silently truncated; use {@link #queryForLongArray}
+	 * for integral values of those.
+	 * @param sql the SQL query to execute
+	 * @param args arguments to bind to the query
+	 * @return the values of the result column
+	 * @throws org.springframework.jdbc.IncorrectResultSetColumnCountException
+	 * if the result does not have exactly one column
+	 * @throws org.springframework.dao.TypeMismatchDataAccessException
+	 * if the values of the result column may not fit into {@code int}
+	 * @throws DataAccessException if the query fails
+	 * @since 5.3.5
+	 */
+	public int[] queryForIntArray(String sql, @Nullable Object... args) throws DataAccessException {
+		ColumnBatch batch = result(query(sql, new ColumnBatchResultSetExtractor(ColumnBatch.ColumnType.INT), args));
+		return batch.getIntColumn(0).toIntArray();
+	}
+
+	/**
+	 * Query given SQL to create a prepared statement from SQL and a list of
+	 * arguments to bind to the query, expecting a single-column result and
+	 * reading it into a {@code long} array.
+	 * <p>SQL NULL values are represented as {@code 0}; use
+	 * {@link #queryForColumnBatch} to distinguish them.
+	 * @param sql the SQL query to execute
+	 * @param args arguments to bind to the query
+	 * @return the values of the result column
+	 * @throws org.springframework.jdbc.IncorrectResultSetColumnCountException
+	 * if the result does not have exactly one column
+	 * @throws DataAccessException if the query fails
+	 * @since 5.3.5
+	 */
+	public long[] queryForLongArray(String sql, @Nullable Object... args) throws DataAccessException {
+		ColumnBatch batch = result(query(sql, new ColumnBatchResultSetExtractor(ColumnBatch.ColumnType.LONG), args));
+		return batch.getLongColumn(0).toLongArray();
+	}
+
+	/**
+	 * Query given SQL to create a prepared statement from SQL and a list of
+	 * arguments to bind to the query, expecting a single-column result and
+	 * reading it into a {@code double} array.
+	 * <p>SQL NULL values are represented as {@code 0}; use
+	 * {@link #queryForColumnBatch} to distinguish them.
+	 * @param sql the SQL query to execute
+	 * @param args arguments to bind to the query
+	 * @return the values of the result column
+	 * @throws org.springframework.jdbc.IncorrectResultSetColumnCountException
+	 * if the result does not have exactly one column
+	 * @throws DataAccessException if the query fails
+	 * @since 5.3.5
+	 */
+	public double[] queryForDoubleArray(String sql, @Nullable Object... args) throws DataAccessException {
+		ColumnBatch batch = result(query(sql, new ColumnBatchResultSetExtractor(ColumnBatch.ColumnType.DOUBLE), args));
+		return batch.getDoubleColumn(0).toDoubleArray();
+	}
+
 	protected int update(final PreparedStatementCreator psc, @Nullable final PreparedStatementSetter pss)
 			throws DataAccessException {
 
@@ -1031,6 +1152,15 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 			logger.debug("Executing SQL batch update [" + sql + "]");
 		}
 
+		if (this.multiRowInsertChunkSize > 1 && !(pss instanceof InterruptibleBatchPreparedStatementSetter)) {
+			MultiRowInsertSql insertSql = MultiRowInsertSql.parse(sql);
+			if (insertSql != null) {
+				int[] result = execute(new MultiRowInsertCallback(insertSql, pss, this.multiRowInsertChunkSize));
+				Assert.state(result != null, "No result array");
+				return result;
+			}
+		}
+
 		int[] result = execute(sql, (PreparedStatementCallback<int[]>) ps -> {
 			try {
 				int batchSize = pss.getBatchSize();
@@ -1628,6 +1758,123 @@ public class JdbcTemplate extends JdbcAccessor implements JdbcOperations {
 	}
 
 
+	/**
+	 * Invocation handler that shifts parameter indexes on a JDBC PreparedStatement,
+	 * binding a row's parameters to their position within a multi-row INSERT statement.
+	 */
+	private static class ParameterOffsetInvocationHandler implements InvocationHandler {
+
+		private final PreparedStatement target;
+
+		private int offset;
+
+		public ParameterOffsetInvocationHandler(PreparedStatement target) {
+			this.target = target;
+		}
+
+		public void setOffset(int offset) {
+			this.offset = offset;
+		}
+
+		@Override
+		@Nullable
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if (this.offset > 0 && method.getDeclaringClass() == PreparedStatement.class &&
+					method.getName().startsWith("set") && method.getParameterCount() > 1 &&
+					method.getParameterTypes()[0] == int.class) {
+				args[0] = (Integer) args[0] + this.offset;
+			}
+			try {
+				return method.invoke(this.target, args);
+			}
+			catch (InvocationTargetException ex) {
+				throw ex.getTargetException();
+			}
+		}
+	}
+
+
+	/**
+	 * Connection callback for a batch update through multi-row INSERT statements,
+	 * executing full chunks through one statement and any remaining rows through
+	 * a second statement.
+	 */
+	private class MultiRowInsertCallback implements ConnectionCallback<int[]>, SqlProvider {
+
+		private final MultiRowInsertSql insertSql;
+
+		private final BatchPreparedStatementSetter pss;
+
+		private final int chunkSize;
+
+		public MultiRowInsertCallback(MultiRowInsertSql insertSql, BatchPreparedStatementSetter pss, int chunkSize) {
+			this.insertSql = insertSql;
+			this.pss = pss;
+			this.chunkSize = chunkSize;
+		}
+
+		@Override
+		public int[] doInConnection(Connection con) throws SQLException {
+			try {
+				int batchSize = this.pss.getBatchSize();
+				int[] rowsAffected = new int[batchSize];
+				int rowsPerChunk = Math.min(this.chunkSize, batchSize);
+				int row = 0;
+				if (rowsPerChunk > 0) {
+					row = executeChunks(con, rowsPerChunk, batchSize / rowsPerChunk, 0, rowsAffected);
+				}
+				if (row < batchSize) {
+					executeChunks(con, batchSize - row, 1, row, rowsAffected);
+				}
+				return rowsAffected;
+			}
+			finally {
+				if (this.pss instanceof ParameterDisposer) {
+					((ParameterDisposer) this.pss).cleanupParameters();
+				}
+			}
+		}
+
+		private int executeChunks(Connection con, int rowsPerChunk, int chunkCount, int startRow,
+				int[] rowsAffected) throws SQLException {
+
+			String sql = this.insertSql.getSql(rowsPerChunk);
+			if (logger.isTraceEnabled()) {
+				logger.trace("Sending " + chunkCount + " multi-row INSERT statement(s) with " +
+						rowsPerChunk + " rows each");
+			}
+			PreparedStatement ps = con.prepareStatement(sql);
+			try {
+				ParameterOffsetInvocationHandler handler = new ParameterOffsetInvocationHandler(ps);
+				PreparedStatement psToUse = (PreparedStatement) Proxy.newProxyInstance(
+						PreparedStatement.class.getClassLoader(), new Class<?>[] {PreparedStatement.class}, handler);
+				int parameterCount = this.insertSql.getParameterCount();
+				int row = startRow;
+				for (int chunk = 0; chunk < chunkCount; chunk++) {
+					for (int i = 0; i < rowsPerChunk; i++) {
+						handler.setOffset(i * parameterCount);
+						this.pss.setValues(psToUse, row + i);
+					}
+					int count = ps.executeUpdate();
+					Arrays.fill(rowsAffected, row, row + rowsPerChunk,
+							(count == rowsPerChunk ? 1 : Statement.SUCCESS_NO_INFO));
+					row += rowsPerChunk;
+				}
+				handleWarnings(ps);
+				return row;
+			}
+			finally {
+				JdbcUtils.closeStatement(ps);
+			}
+		}
+
+		@Override
+		public String getSql() {
+			return this.insertSql.getSql(1);
+		}
+	}
+
+
 	/**
 	 * Simple adapter for PreparedStatementCreator, allowing to use a plain SQL statement.
 	 */
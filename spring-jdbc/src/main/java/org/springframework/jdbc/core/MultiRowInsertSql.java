@@ -0,0 +1,171 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Holder for a single-row {@code INSERT ... VALUES (?, ...)} statement that can
+ * be expanded into a multi-row {@code INSERT ... VALUES (...), (...)} statement.
+ * Used by {@link JdbcTemplate} for its multi-row batch insert mode.
+ *
+ * <p>Only statements that end with a single parenthesized value list after a
+ * top-level {@code VALUES} keyword qualify, with all of the statement's
+ * {@code ?} placeholders contained in that value list. Quoted literals and
+ * comments are skipped when scanning the statement.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ * @see JdbcTemplate#setMultiRowInsertChunkSize
+ */
+final class MultiRowInsertSql {
+
+	private static final String VALUES_KEYWORD = "VALUES";
+
+
+	private final String prefix;
+
+	private final String valueList;
+
+	private final int parameterCount;
+
+
+	private MultiRowInsertSql(String prefix, String valueList, int parameterCount) {
+		this.prefix = prefix;
+		this.valueList = valueList;
+		this.parameterCount = parameterCount;
+	}
+
+
+	/**
+	 * Return the number of parameter placeholders per row.
+	 */
+	public int getParameterCount() {
+		return this.parameterCount;
+	}
+
+	/**
+	 * Build the SQL statement for inserting the given number of rows.
+	 * @param rowCount the number of rows (at least 1)
+	 * @return the corresponding multi-row INSERT statement
+	 */
+	public String getSql(int rowCount) {
+		StringBuilder sb = new StringBuilder(this.prefix.length() + (rowCount - 1) * (this.valueList.length() + 2));
+		sb.append(this.prefix);
+		for (int i = 1; i < rowCount; i++) {
+			sb.append(", ").append(this.valueList);
+		}
+		return sb.toString();
+	}
+
+
+	/**
+	 * Parse the given SQL statement into a {@code MultiRowInsertSql} holder,
+	 * if it is a single-row INSERT statement with parameter placeholders.
+	 * @param sql the SQL statement to parse
+	 * @return the corresponding holder, or {@code null} if the statement
+	 * does not qualify for multi-row rewriting
+	 */
+	@Nullable
+	public static MultiRowInsertSql parse(String sql) {
+		String statement = sql.trim();
+		if (statement.endsWith(";")) {
+			statement = statement.substring(0, statement.length() - 1).trim();
+		}
+		if (!statement.regionMatches(true, 0, "INSERT", 0, 6)) {
+			return null;
+		}
+
+		int length = statement.length();
+		int depth = 0;
+		int placeholders = 0;
+		int valuesIndex = -1;
+		int valueListStart = -1;
+		int valueListEnd = -1;
+		int valueListPlaceholders = 0;
+		int i = 0;
+		while (i < length) {
+			char c = statement.charAt(i);
+			if (valueListEnd != -1 || (valuesIndex != -1 && valueListStart == -1 && c != '(')) {
+				// Only whitespace allowed between VALUES and the value list as well as after it
+				if (!Character.isWhitespace(c)) {
+					return null;
+				}
+			}
+			else if (c == '\'' || c == '"' || c == '`') {
+				int end = statement.indexOf(c, i + 1);
+				if (end == -1) {
+					return null;
+				}
+				i = end;
+			}
+			else if (c == '-' && i + 1 < length && statement.charAt(i + 1) == '-') {
+				int end = statement.indexOf('\n', i + 2);
+				i = (end != -1 ? end : length);
+			}
+			else if (c == '/' && i + 1 < length && statement.charAt(i + 1) == '*') {
+				int end = statement.indexOf("*/", i + 2);
+				if (end == -1) {
+					return null;
+				}
+				i = end + 1;
+			}
+			else if (c == '(') {
+				if (depth == 0 && valuesIndex != -1) {
+					valueListStart = i;
+				}
+				depth++;
+			}
+			else if (c == ')') {
+				depth--;
+				if (depth < 0) {
+					return null;
+				}
+				if (depth == 0 && valueListStart != -1) {
+					valueListEnd = i;
+				}
+			}
+			else if (c == '?') {
+				placeholders++;
+				if (valueListStart != -1) {
+					valueListPlaceholders++;
+				}
+			}
+			else if (depth == 0 && valuesIndex == -1 && isValuesKeyword(statement, i)) {
+				valuesIndex = i;
+				i += VALUES_KEYWORD.length() - 1;
+			}
+			i++;
+		}
+
+		if (valueListEnd == -1 || placeholders == 0 || valueListPlaceholders != placeholders) {
+			return null;
+		}
+		return new MultiRowInsertSql(statement.substring(0, valueListEnd + 1),
+				statement.substring(valueListStart, valueListEnd + 1), placeholders);
+	}
+
+	private static boolean isValuesKeyword(String statement, int index) {
+		if (!statement.regionMatches(true, index, VALUES_KEYWORD, 0, VALUES_KEYWORD.length())) {
+			return false;
+		}
+		int end = index + VALUES_KEYWORD.length();
+		return ((index == 0 || !Character.isJavaIdentifierPart(statement.charAt(index - 1))) &&
+				(end == statement.length() || !Character.isJavaIdentifierPart(statement.charAt(end))));
+	}
+
+}
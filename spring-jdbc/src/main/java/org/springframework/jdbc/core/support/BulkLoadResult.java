@@ -0,0 +1,260 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.support;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Result of a {@link JdbcBulkLoader} run, holding a {@link ChunkResult}
+ * for every chunk in the order of the row source.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ * @see JdbcBulkLoader#load
+ */
+public final class BulkLoadResult {
+
+	private final List<ChunkResult> chunkResults;
+
+	private final boolean complete;
+
+	private final long elapsedTimeNanos;
+
+
+	BulkLoadResult(List<ChunkResult> chunkResults, boolean complete, long elapsedTimeNanos) {
+		this.chunkResults = Collections.unmodifiableList(chunkResults);
+		this.complete = complete;
+		this.elapsedTimeNanos = elapsedTimeNanos;
+	}
+
+
+	/**
+	 * Return the results for all chunks, in the order of the row source.
+	 */
+	public List<ChunkResult> getChunkResults() {
+		return this.chunkResults;
+	}
+
+	/**
+	 * Return the total number of rows consumed from the row source.
+	 */
+	public long getRowCount() {
+		long count = 0;
+		for (ChunkResult result : this.chunkResults) {
+			count += result.getRowCount();
+		}
+		return count;
+	}
+
+	/**
+	 * Return the number of rows in successfully executed chunks.
+	 */
+	public long getLoadedRowCount() {
+		long count = 0;
+		for (ChunkResult result : this.chunkResults) {
+			if (result.isSuccessful()) {
+				count += result.getRowCount();
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Return whether the row source has been consumed completely.
+	 * <p>This is {@code false} if the load has been stopped after a failed chunk
+	 * or on interruption of the calling thread, with further rows remaining
+	 * in the row source.
+	 */
+	public boolean isComplete() {
+		return this.complete;
+	}
+
+	/**
+	 * Return whether all rows of the row source have been loaded,
+	 * i.e. whether the load is complete and all chunks have been
+	 * executed successfully.
+	 */
+	public boolean isSuccessful() {
+		if (!this.complete) {
+			return false;
+		}
+		for (ChunkResult result : this.chunkResults) {
+			if (!result.isSuccessful()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Return the results for all failed chunks, in the order of the row source.
+	 */
+	public List<ChunkResult> getFailedChunks() {
+		List<ChunkResult> failed = new ArrayList<>();
+		for (ChunkResult result : this.chunkResults) {
+			if (result.getFailure() != null) {
+				failed.add(result);
+			}
+		}
+		return failed;
+	}
+
+	/**
+	 * Return the total time of the load, in nanoseconds.
+	 */
+	public long getElapsedTimeNanos() {
+		return this.elapsedTimeNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "BulkLoadResult: " + this.chunkResults.size() + " chunks with " + getRowCount() +
+				" rows, " + getLoadedRowCount() + " rows loaded, " + getFailedChunks().size() +
+				" chunks failed, " + (this.complete ? "" : "incomplete, ") + this.elapsedTimeNanos / 1000000 + " ms";
+	}
+
+
+	/**
+	 * Result of a single chunk of rows.
+	 */
+	public static final class ChunkResult {
+
+		private final int index;
+
+		private final int rowCount;
+
+		private final boolean executed;
+
+		private final long updateCount;
+
+		private final long queueTimeNanos;
+
+		private final long executionTimeNanos;
+
+		@Nullable
+		private final RuntimeException failure;
+
+		private ChunkResult(int index, int rowCount, boolean executed, long updateCount,
+				long queueTimeNanos, long executionTimeNanos, @Nullable RuntimeException failure) {
+
+			this.index = index;
+			this.rowCount = rowCount;
+			this.executed = executed;
+			this.updateCount = updateCount;
+			this.queueTimeNanos = queueTimeNanos;
+			this.executionTimeNanos = executionTimeNanos;
+			this.failure = failure;
+		}
+
+		static ChunkResult executed(int index, int rowCount, int[] updateCounts,
+				long queueTimeNanos, long executionTimeNanos) {
+
+			// Only keep the total, not an array per chunk
+			long updateCount = 0;
+			for (int count : updateCounts) {
+				if (count > 0) {
+					updateCount += count;
+				}
+			}
+			return new ChunkResult(index, rowCount, true, updateCount, queueTimeNanos, executionTimeNanos, null);
+		}
+
+		static ChunkResult failed(int index, int rowCount, long queueTimeNanos, long executionTimeNanos,
+				RuntimeException failure) {
+
+			return new ChunkResult(index, rowCount, false, 0, queueTimeNanos, executionTimeNanos, failure);
+		}
+
+		static ChunkResult skipped(int index, int rowCount, long queueTimeNanos) {
+			return new ChunkResult(index, rowCount, false, 0, queueTimeNanos, 0, null);
+		}
+
+		/**
+		 * Return the index of this chunk, starting from 0.
+		 */
+		public int getIndex() {
+			return this.index;
+		}
+
+		/**
+		 * Return the number of rows in this chunk.
+		 */
+		public int getRowCount() {
+			return this.rowCount;
+		}
+
+		/**
+		 * Return the total number of rows affected by this chunk, summed up from
+		 * the update counts of the JDBC batch, or 0 if this chunk failed or has
+		 * been skipped.
+		 * <p>Statements reported with {@link java.sql.Statement#SUCCESS_NO_INFO}
+		 * do not contribute to the total.
+		 */
+		public long getUpdateCount() {
+			return this.updateCount;
+		}
+
+		/**
+		 * Return the time between the submission of this chunk
+		 * and the start of its execution, in nanoseconds.
+		 */
+		public long getQueueTimeNanos() {
+			return this.queueTimeNanos;
+		}
+
+		/**
+		 * Return the time for binding and executing this chunk, in nanoseconds.
+		 */
+		public long getExecutionTimeNanos() {
+			return this.executionTimeNanos;
+		}
+
+		/**
+		 * Return the exception that this chunk failed with, if any.
+		 */
+		@Nullable
+		public RuntimeException getFailure() {
+			return this.failure;
+		}
+
+		/**
+		 * Return whether this chunk has been executed successfully.
+		 */
+		public boolean isSuccessful() {
+			return this.executed;
+		}
+
+		/**
+		 * Return whether this chunk has been skipped after a failure of another chunk
+		 * or on interruption of the calling thread.
+		 */
+		public boolean isSkipped() {
+			return (!this.executed && this.failure == null);
+		}
+
+		@Override
+		public String toString() {
+			return "ChunkResult #" + this.index + ": " + this.rowCount + " rows, " +
+					(isSuccessful() ? "successful" : (isSkipped() ? "skipped" : "failed: " + this.failure));
+		}
+	}
+
+}
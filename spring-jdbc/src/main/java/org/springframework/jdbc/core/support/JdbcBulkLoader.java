@@ -0,0 +1,413 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.support;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.util.CustomizableThreadCreator;
+
+/**
+ * Helper for loading large numbers of rows through a parameterized statement,
+ * consuming a {@link Stream} or {@link Iterator} of row objects lazily and
+ * executing chunks of rows as JDBC batches on multiple connections concurrently.
+ *
+ * <p>The calling thread pulls rows from the source and collects them into chunks
+ * of the configured {@link #setChunkSize chunk size}, while previously collected
+ * chunks are being bound and executed by the configured {@link #setExecutor Executor},
+ * each through {@link JdbcTemplate#batchUpdate(String, BatchPreparedStatementSetter)}
+ * on a connection of its own. At most {@link #setConcurrency concurrency} chunks
+ * are in flight at any time, with the calling thread blocking until a chunk has
+ * been completed, so no more than {@code (concurrency + 1) * chunkSize} rows are
+ * held in memory, independent of the total number of rows.
+ *
+ * <p>Chunks may execute in any order by default; {@link ChunkOrdering#SEQUENTIAL}
+ * executes them one after the other in the order of the source, while still
+ * collecting the next chunks upfront. Since every chunk runs on its own connection,
+ * each chunk is committed independently according to the DataSource's auto-commit
+ * setting, not as part of a transaction of the calling thread.
+ *
+ * <p>By default, no further chunks are executed after a chunk has failed; chunks
+ * that have not been started at that point are reported as skipped. The same
+ * applies to a chunk pending when the calling thread gets interrupted. In both
+ * cases, the remaining rows are not consumed and the result is marked as
+ * {@link BulkLoadResult#isComplete() incomplete}. Per-chunk
+ * results, including the total update count, queue and execution times and any failure,
+ * are available from the returned {@link BulkLoadResult} as well as to an optional
+ * {@link #setChunkListener chunk listener} while the load is in progress.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ * @see #load(String, Stream, ParameterizedPreparedStatementSetter)
+ * @see JdbcTemplate#batchUpdate(String, java.util.Collection, int, ParameterizedPreparedStatementSetter)
+ */
+public class JdbcBulkLoader {
+
+	/**
+	 * Ordering guarantees for the execution of chunks.
+	 */
+	public enum ChunkOrdering {
+
+		/**
+		 * Chunks may execute concurrently and complete in any order.
+		 */
+		UNORDERED,
+
+		/**
+		 * Chunks execute one after the other in the order of the row source.
+		 */
+		SEQUENTIAL
+	}
+
+
+	private static final Log logger = LogFactory.getLog(JdbcBulkLoader.class);
+
+	private final JdbcTemplate jdbcTemplate;
+
+	private int chunkSize = 1000;
+
+	private int concurrency = 4;
+
+	private ChunkOrdering chunkOrdering = ChunkOrdering.UNORDERED;
+
+	private boolean continueOnFailure = false;
+
+	@Nullable
+	private Executor executor;
+
+	@Nullable
+	private Consumer<BulkLoadResult.ChunkResult> chunkListener;
+
+
+	/**
+	 * Create a new JdbcBulkLoader for the given DataSource.
+	 * @param dataSource the JDBC DataSource to obtain connections from
+	 */
+	public JdbcBulkLoader(DataSource dataSource) {
+		this(new JdbcTemplate(dataSource));
+	}
+
+	/**
+	 * Create a new JdbcBulkLoader for the given JdbcTemplate,
+	 * applying its statement settings to every chunk.
+	 * @param jdbcTemplate the JdbcTemplate to execute chunks with
+	 */
+	public JdbcBulkLoader(JdbcTemplate jdbcTemplate) {
+		Assert.notNull(jdbcTemplate, "JdbcTemplate must not be null");
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+
+	/**
+	 * Set the number of rows per chunk, i.e. per JDBC batch. Default is 1000.
+	 */
+	public void setChunkSize(int chunkSize) {
+		Assert.isTrue(chunkSize > 0, "Chunk size must be greater than 0");
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Return the number of rows per chunk.
+	 */
+	public int getChunkSize() {
+		return this.chunkSize;
+	}
+
+	/**
+	 * Set the maximum number of chunks to execute concurrently, each on a
+	 * connection of its own. Default is 4.
+	 * <p>The DataSource needs to be able to provide this number of connections
+	 * concurrently, in addition to any connection held by the calling thread.
+	 */
+	public void setConcurrency(int concurrency) {
+		Assert.isTrue(concurrency > 0, "Concurrency must be greater than 0");
+		this.concurrency = concurrency;
+	}
+
+	/**
+	 * Return the maximum number of chunks to execute concurrently.
+	 */
+	public int getConcurrency() {
+		return this.concurrency;
+	}
+
+	/**
+	 * Set the ordering guarantee for the execution of chunks.
+	 * Default is {@link ChunkOrdering#UNORDERED}.
+	 */
+	public void setChunkOrdering(ChunkOrdering chunkOrdering) {
+		Assert.notNull(chunkOrdering, "ChunkOrdering must not be null");
+		this.chunkOrdering = chunkOrdering;
+	}
+
+	/**
+	 * Return the ordering guarantee for the execution of chunks.
+	 */
+	public ChunkOrdering getChunkOrdering() {
+		return this.chunkOrdering;
+	}
+
+	/**
+	 * Set whether to keep executing further chunks after a chunk has failed.
+	 * <p>Default is "false", stopping to consume the row source after the first
+	 * failure and skipping chunks that have not been started yet. Switch this
+	 * to "true" to load all rows and collect all failures in the result.
+	 */
+	public void setContinueOnFailure(boolean continueOnFailure) {
+		this.continueOnFailure = continueOnFailure;
+	}
+
+	/**
+	 * Return whether to keep executing further chunks after a chunk has failed.
+	 */
+	public boolean isContinueOnFailure() {
+		return this.continueOnFailure;
+	}
+
+	/**
+	 * Set the Executor to execute chunks with.
+	 * <p>Default is a fixed thread pool with as many threads as the configured
+	 * {@link #setConcurrency concurrency}, created for every load and shut down
+	 * once the load has completed. A given Executor is not shut down by this
+	 * loader; the number of concurrent chunks is limited by the concurrency
+	 * setting either way.
+	 */
+	public void setExecutor(@Nullable Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Return the Executor to execute chunks with, if any.
+	 */
+	@Nullable
+	public Executor getExecutor() {
+		return this.executor;
+	}
+
+	/**
+	 * Set a listener to be notified of every completed or skipped chunk,
+	 * e.g. for reporting progress. Called on the thread that executed the chunk.
+	 * <p>An exception thrown by the listener is logged but does not affect
+	 * the load or the result of the chunk.
+	 */
+	public void setChunkListener(@Nullable Consumer<BulkLoadResult.ChunkResult> chunkListener) {
+		this.chunkListener = chunkListener;
+	}
+
+	/**
+	 * Return the listener to be notified of every completed or skipped chunk, if any.
+	 */
+	@Nullable
+	public Consumer<BulkLoadResult.ChunkResult> getChunkListener() {
+		return this.chunkListener;
+	}
+
+
+	/**
+	 * Load all rows from the given Stream through the given SQL statement.
+	 * <p>The Stream is consumed lazily but not closed by this method.
+	 * @param sql the SQL statement to execute for every row
+	 * @param rows the source of row objects
+	 * @param pss the setter for binding a row object to the statement parameters
+	 * @return the result of the load, with a result for every chunk
+	 * @see #load(String, Iterator, ParameterizedPreparedStatementSetter)
+	 */
+	public <T> BulkLoadResult load(String sql, Stream<T> rows, ParameterizedPreparedStatementSetter<T> pss) {
+		return load(sql, rows.iterator(), pss);
+	}
+
+	/**
+	 * Load all rows from the given Iterator through the given SQL statement.
+	 * <p>Returns once all executed chunks have completed. Failures of individual
+	 * chunks are reported in the result; an exception thrown by the row source
+	 * is propagated after in-flight chunks have completed.
+	 * @param sql the SQL statement to execute for every row
+	 * @param rows the source of row objects
+	 * @param pss the setter for binding a row object to the statement parameters
+	 * @return the result of the load, with a result for every chunk
+	 */
+	public <T> BulkLoadResult load(String sql, Iterator<T> rows, ParameterizedPreparedStatementSetter<T> pss) {
+		Assert.notNull(sql, "SQL must not be null");
+		Assert.notNull(rows, "Row source must not be null");
+		Assert.notNull(pss, "ParameterizedPreparedStatementSetter must not be null");
+
+		Executor executor = this.executor;
+		ExecutorService defaultExecutor = null;
+		if (executor == null) {
+			CustomizableThreadCreator threadCreator = new CustomizableThreadCreator("jdbc-bulk-load-");
+			defaultExecutor = Executors.newFixedThreadPool(this.concurrency, threadCreator::createThread);
+			executor = defaultExecutor;
+		}
+		try {
+			return doLoad(sql, rows, pss, executor);
+		}
+		finally {
+			if (defaultExecutor != null) {
+				defaultExecutor.shutdown();
+			}
+		}
+	}
+
+	private <T> BulkLoadResult doLoad(String sql, Iterator<T> rows, ParameterizedPreparedStatementSetter<T> pss,
+			Executor executor) {
+
+		long startTime = System.nanoTime();
+		Semaphore permits = new Semaphore(this.concurrency);
+		AtomicBoolean failed = new AtomicBoolean();
+		List<CompletableFuture<BulkLoadResult.ChunkResult>> futures = new ArrayList<>();
+		CompletableFuture<BulkLoadResult.ChunkResult> previous = null;
+		boolean complete = true;
+
+		try {
+			while (rows.hasNext()) {
+				if (!this.continueOnFailure && failed.get()) {
+					complete = false;
+					break;
+				}
+				List<T> chunk = new ArrayList<>(this.chunkSize);
+				while (chunk.size() < this.chunkSize && rows.hasNext()) {
+					chunk.add(rows.next());
+				}
+				int index = futures.size();
+				try {
+					permits.acquire();
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+					logger.debug("Interrupted while waiting for chunk execution - stopping bulk load");
+					// Report the pending chunk as skipped
+					BulkLoadResult.ChunkResult result = BulkLoadResult.ChunkResult.skipped(index, chunk.size(), 0);
+					notifyChunkListener(result);
+					futures.add(CompletableFuture.completedFuture(result));
+					complete = false;
+					break;
+				}
+				long submitTime = System.nanoTime();
+				Supplier<BulkLoadResult.ChunkResult> task = () -> executeChunk(sql, index, chunk, pss, submitTime, failed);
+				CompletableFuture<BulkLoadResult.ChunkResult> future;
+				try {
+					future = (this.chunkOrdering == ChunkOrdering.SEQUENTIAL && previous != null ?
+							previous.thenApplyAsync(result -> task.get(), executor) :
+							CompletableFuture.supplyAsync(task, executor));
+				}
+				catch (RuntimeException ex) {
+					permits.release();
+					throw ex;
+				}
+				future.whenComplete((result, ex) -> permits.release());
+				futures.add(future);
+				previous = future;
+			}
+		}
+		catch (RuntimeException | Error ex) {
+			// Row source or executor failure: let in-flight chunks complete first
+			for (CompletableFuture<BulkLoadResult.ChunkResult> future : futures) {
+				future.handle((result, ex2) -> null).join();
+			}
+			throw ex;
+		}
+
+		List<BulkLoadResult.ChunkResult> chunkResults = new ArrayList<>(futures.size());
+		for (CompletableFuture<BulkLoadResult.ChunkResult> future : futures) {
+			try {
+				chunkResults.add(future.join());
+			}
+			catch (CompletionException ex) {
+				Throwable cause = ex.getCause();
+				if (cause instanceof RuntimeException) {
+					throw (RuntimeException) cause;
+				}
+				if (cause instanceof Error) {
+					throw (Error) cause;
+				}
+				throw ex;
+			}
+		}
+		return new BulkLoadResult(chunkResults, complete, System.nanoTime() - startTime);
+	}
+
+	private <T> BulkLoadResult.ChunkResult executeChunk(String sql, int index, List<T> chunk,
+			ParameterizedPreparedStatementSetter<T> pss, long submitTime, AtomicBoolean failed) {
+
+		long startTime = System.nanoTime();
+		BulkLoadResult.ChunkResult result;
+		if (!this.continueOnFailure && failed.get()) {
+			result = BulkLoadResult.ChunkResult.skipped(index, chunk.size(), startTime - submitTime);
+		}
+		else {
+			try {
+				int[] updateCounts = this.jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+					@Override
+					public void setValues(PreparedStatement ps, int i) throws SQLException {
+						pss.setValues(ps, chunk.get(i));
+					}
+					@Override
+					public int getBatchSize() {
+						return chunk.size();
+					}
+				});
+				result = BulkLoadResult.ChunkResult.executed(index, chunk.size(), updateCounts,
+						startTime - submitTime, System.nanoTime() - startTime);
+			}
+			catch (RuntimeException ex) {
+				failed.set(true);
+				if (logger.isDebugEnabled()) {
+					logger.debug("Bulk load chunk #" + index + " with " + chunk.size() + " rows failed", ex);
+				}
+				result = BulkLoadResult.ChunkResult.failed(index, chunk.size(),
+						startTime - submitTime, System.nanoTime() - startTime, ex);
+			}
+		}
+		notifyChunkListener(result);
+		return result;
+	}
+
+	private void notifyChunkListener(BulkLoadResult.ChunkResult result) {
+		if (this.chunkListener != null) {
+			try {
+				this.chunkListener.accept(result);
+			}
+			catch (RuntimeException ex) {
+				logger.warn("Bulk load chunk listener failed for " + result, ex);
+			}
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,6 +16,8 @@
 
 package org.springframework.jdbc.core;
 
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
@@ -30,6 +32,10 @@ import org.springframework.jdbc.core.test.SpacePerson;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 /**
  * @author Thomas Risberg
@@ -134,4 +140,91 @@ public class BeanPropertyRowMapperTests extends AbstractRowMapperTests {
 		mock.verifyClosed();
 	}
 
+	@Test
+	public void testStaticQueryWithCompiledMapping() throws Exception {
+		Mock mock = new Mock();
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				compiled(new BeanPropertyRowMapper<>(Person.class)));
+		assertThat(result.size()).isEqualTo(1);
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void testMappingWithInheritanceAndCompiledMapping() throws Exception {
+		Mock mock = new Mock();
+		List<ConcretePerson> result = mock.getJdbcTemplate().query(
+				"select name, age, birth_date, balance from people",
+				compiled(new BeanPropertyRowMapper<>(ConcretePerson.class, true)));
+		assertThat(result.size()).isEqualTo(1);
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void testMappingWithUnpopulatedFieldsNotAcceptedAndCompiledMapping() throws Exception {
+		Mock mock = new Mock();
+		assertThatExceptionOfType(InvalidDataAccessApiUsageException.class).isThrownBy(() ->
+				mock.getJdbcTemplate().query("select name, age, birth_date, balance from people",
+						compiled(new BeanPropertyRowMapper<>(ExtendedPerson.class, true))));
+	}
+
+	@Test
+	public void testMappingNullValueWithCompiledMapping() throws Exception {
+		BeanPropertyRowMapper<Person> mapper = compiled(new BeanPropertyRowMapper<>(Person.class));
+		Mock mock = new Mock(MockType.TWO);
+		assertThatExceptionOfType(TypeMismatchException.class).isThrownBy(() ->
+				mock.getJdbcTemplate().query("select name, null as age, birth_date, balance from people", mapper));
+	}
+
+	@Test
+	public void testMappingNullValueWithPrimitivesDefaultedAndCompiledMapping() throws Exception {
+		BeanPropertyRowMapper<Person> mapper = compiled(new BeanPropertyRowMapper<>(Person.class));
+		mapper.setPrimitivesDefaultedForNullValue(true);
+		Mock mock = new Mock(MockType.TWO);
+		List<Person> result = mock.getJdbcTemplate().query(
+				"select name, null as age, birth_date, balance from people", mapper);
+		assertThat(result.size()).isEqualTo(1);
+		assertThat(result.get(0).getAge()).isEqualTo(0L);
+	}
+
+	@Test
+	public void testQueryWithSpaceInColumnNameAndLocalDateTimeAndCompiledMapping() throws Exception {
+		Mock mock = new Mock(MockType.THREE);
+		List<SpacePerson> result = mock.getJdbcTemplate().query(
+				"select last_name as \"Last Name\", age, birth_date, balance from people",
+				compiled(new BeanPropertyRowMapper<>(SpacePerson.class)));
+		assertThat(result.size()).isEqualTo(1);
+		verifyPerson(result.get(0));
+		mock.verifyClosed();
+	}
+
+	@Test
+	public void testCompiledMappingResolvedOncePerResultSet() throws Exception {
+		ResultSet rs = mock(ResultSet.class);
+		ResultSetMetaData rsmd = mock(ResultSetMetaData.class);
+		given(rs.getMetaData()).willReturn(rsmd);
+		given(rsmd.getColumnCount()).willReturn(2);
+		given(rsmd.getColumnLabel(1)).willReturn("NAME");
+		given(rsmd.getColumnLabel(2)).willReturn("AGE");
+		given(rs.getString(1)).willReturn("Bubba", "Billy");
+		given(rs.getLong(2)).willReturn(22L, 33L);
+
+		BeanPropertyRowMapper<Person> mapper = compiled(new BeanPropertyRowMapper<>(Person.class));
+		Person first = mapper.mapRow(rs, 0);
+		Person second = mapper.mapRow(rs, 1);
+		assertThat(first.getName()).isEqualTo("Bubba");
+		assertThat(first.getAge()).isEqualTo(22L);
+		assertThat(second.getName()).isEqualTo("Billy");
+		assertThat(second.getAge()).isEqualTo(33L);
+		verify(rs, times(1)).getMetaData();
+	}
+
+
+	private static <T> BeanPropertyRowMapper<T> compiled(BeanPropertyRowMapper<T> mapper) {
+		mapper.setCompiledMapping(true);
+		return mapper;
+	}
+
 }
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.dao.TypeMismatchDataAccessException;
+import org.springframework.jdbc.IncorrectResultSetColumnCountException;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link ColumnBatchResultSetExtractor} and the corresponding
+ * {@link JdbcTemplate} methods against an embedded H2 database.
+ *
+ * @author Spring Framework Team
+ */
+class ColumnBatchResultSetExtractorTests {
+
+	private EmbeddedDatabase db;
+
+	private JdbcTemplate jdbcTemplate;
+
+
+	@BeforeEach
+	void setup() {
+		this.db = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+		this.jdbcTemplate = new JdbcTemplate(this.db);
+		this.jdbcTemplate.execute("create table sale (id int primary key, quantity bigint, " +
+				"price double, amount decimal(10,2), units numeric(9,0), region varchar(20))");
+		this.jdbcTemplate.update("insert into sale values (1, 10, 1.5, 15.00, 3, 'north')");
+		this.jdbcTemplate.update("insert into sale values (2, 20, 2.5, 50.00, 4, 'south')");
+		this.jdbcTemplate.update("insert into sale values (3, null, null, null, null, null)");
+		this.jdbcTemplate.update("insert into sale values (4, 40, 4.5, 180.00, 6, 'north')");
+	}
+
+	@AfterEach
+	void shutdown() {
+		this.db.shutdown();
+	}
+
+
+	@Test
+	void queryForColumnBatch() {
+		ColumnBatch batch = this.jdbcTemplate.queryForColumnBatch("select * from sale where id > ? order by id", 0);
+
+		assertThat(batch.getRowCount()).isEqualTo(4);
+		assertThat(batch.getColumnCount()).isEqualTo(6);
+		assertThat(batch.getColumns()).extracting(ColumnBatch.Column::getType).containsExactly(
+				ColumnBatch.ColumnType.INT, ColumnBatch.ColumnType.LONG, ColumnBatch.ColumnType.DOUBLE,
+				ColumnBatch.ColumnType.OBJECT, ColumnBatch.ColumnType.LONG, ColumnBatch.ColumnType.STRING);
+
+		assertThat(batch.getIntColumn("id").toIntArray()).containsExactly(1, 2, 3, 4);
+		ColumnBatch.LongColumn quantity = batch.getLongColumn("QUANTITY");
+		assertThat(quantity.toLongArray()).containsExactly(10, 20, 0, 40);
+		assertThat(quantity.isNull(1)).isFalse();
+		assertThat(quantity.isNull(2)).isTrue();
+		assertThat(quantity.getObject(2)).isNull();
+		assertThat(quantity.getObject(3)).isEqualTo(40L);
+		assertThat(batch.getDoubleColumn(2).getDouble(3)).isEqualTo(4.5);
+		assertThat(batch.getObjectColumn("amount").toObjectArray()).containsExactly(
+				new BigDecimal("15.00"), new BigDecimal("50.00"), null, new BigDecimal("180.00"));
+		assertThat(batch.getLongColumn("units").getLong(0)).isEqualTo(3L);
+
+		ColumnBatch.StringColumn region = batch.getStringColumn("region");
+		assertThat(region.getDictionary()).containsExactly("north", "south");
+		assertThat(region.toCodeArray()).containsExactly(0, 1, -1, 0);
+		assertThat(region.getString(3)).isEqualTo("north");
+		assertThat(region.getString(2)).isNull();
+		assertThat(region.isNull(2)).isTrue();
+	}
+
+	@Test
+	void queryForColumnBatchWithEmptyResult() {
+		ColumnBatch batch = this.jdbcTemplate.queryForColumnBatch("select id, region from sale where id < 0");
+		assertThat(batch.getRowCount()).isEqualTo(0);
+		assertThat(batch.getIntColumn(0).toIntArray()).isEmpty();
+		assertThat(batch.getStringColumn(1).getDictionary()).isEmpty();
+	}
+
+	@Test
+	void queryForColumnBatchWithTypeMismatch() {
+		ColumnBatch batch = this.jdbcTemplate.queryForColumnBatch("select id from sale");
+		assertThatIllegalStateException().isThrownBy(() -> batch.getDoubleColumn(0));
+		assertThatExceptionOfType(IllegalArgumentException.class).isThrownBy(() -> batch.getColumn("price"));
+	}
+
+	@Test
+	void queryForColumnBatchWithObjectColumn() {
+		ColumnBatch batch = this.jdbcTemplate.queryForColumnBatch(
+				"select id, cast('2021-02-01' as date) as day, cast(null as timestamp) as ts from sale where id = 1");
+		assertThat(batch.getColumns()).extracting(ColumnBatch.Column::getType).containsExactly(
+				ColumnBatch.ColumnType.INT, ColumnBatch.ColumnType.OBJECT, ColumnBatch.ColumnType.OBJECT);
+		assertThat(batch.getObjectColumn("day").getObject(0)).isEqualTo(java.sql.Date.valueOf("2021-02-01"));
+		assertThat(batch.getObjectColumn(2).isNull(0)).isTrue();
+		assertThat(batch.getObjectColumn(2).toObjectArray()).containsExactly((Object) null);
+	}
+
+	@Test
+	void queryWithExplicitColumnTypes() {
+		ColumnBatch batch = this.jdbcTemplate.query("select id, quantity from sale order by id",
+				new ColumnBatchResultSetExtractor(ColumnBatch.ColumnType.LONG, ColumnBatch.ColumnType.DOUBLE));
+		assertThat(batch.getLongColumn(0).toLongArray()).containsExactly(1, 2, 3, 4);
+		assertThat(batch.getDoubleColumn(1).toDoubleArray()).containsExactly(10.0, 20.0, 0.0, 40.0);
+
+		assertThatExceptionOfType(IncorrectResultSetColumnCountException.class).isThrownBy(() ->
+				this.jdbcTemplate.query("select id, quantity from sale",
+						new ColumnBatchResultSetExtractor(ColumnBatch.ColumnType.LONG)));
+	}
+
+	@Test
+	void queryForPrimitiveArrays() {
+		assertThat(this.jdbcTemplate.queryForIntArray("select id from sale where id > ? order by id", 1))
+				.containsExactly(2, 3, 4);
+		assertThat(this.jdbcTemplate.queryForLongArray("select quantity from sale order by id"))
+				.containsExactly(10, 20, 0, 40);
+		assertThat(this.jdbcTemplate.queryForDoubleArray("select price from sale order by id"))
+				.containsExactly(1.5, 2.5, 0.0, 4.5);
+
+		assertThatExceptionOfType(IncorrectResultSetColumnCountException.class).isThrownBy(() ->
+				this.jdbcTemplate.queryForIntArray("select id, quantity from sale"));
+		assertThatExceptionOfType(TypeMismatchDataAccessException.class).isThrownBy(() ->
+				this.jdbcTemplate.queryForIntArray("select quantity from sale"));
+		assertThatExceptionOfType(TypeMismatchDataAccessException.class).isThrownBy(() ->
+				this.jdbcTemplate.queryForIntArray("select amount from sale"));
+		assertThatExceptionOfType(TypeMismatchDataAccessException.class).isThrownBy(() ->
+				this.jdbcTemplate.queryForIntArray("select cast(units as numeric(12,0)) from sale"));
+		assertThat(this.jdbcTemplate.queryForIntArray("select units from sale order by id"))
+				.containsExactly(3, 4, 0, 6);
+	}
+
+	@Test
+	void queryForColumnBatchWithManyDistinctStrings() {
+		for (int i = 5; i < 1005; i++) {
+			this.jdbcTemplate.update("insert into sale (id, region) values (?, ?)", i, "region" + (i % 300));
+		}
+		ColumnBatch.StringColumn region = this.jdbcTemplate.queryForColumnBatch(
+				"select region from sale where id >= 5 order by id").getStringColumn(0);
+		assertThat(region.getDictionary()).hasSize(300);
+		for (int row = 0; row < 1000; row++) {
+			assertThat(region.getString(row)).isEqualTo("region" + ((row + 5) % 300));
+			assertThat(region.getCode(row)).isEqualTo(region.getDictionary().indexOf(region.getString(row)));
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -516,6 +516,61 @@ public class JdbcTemplateTests {
 		verify(this.connection, atLeastOnce()).close();
 	}
 
+	@Test
+	public void testBatchUpdateWithMultiRowInsert() throws Exception {
+		final String sql = "INSERT INTO NOSUCHTABLE (ID, NAME) VALUES (?, ?)";
+		final List<Object[]> rows = new ArrayList<>(5);
+		for (int i = 0; i < 5; i++) {
+			rows.add(new Object[] {i, "name" + i});
+		}
+		PreparedStatement remainderStatement = mock(PreparedStatement.class);
+		given(this.connection.prepareStatement("INSERT INTO NOSUCHTABLE (ID, NAME) VALUES (?, ?), (?, ?)"))
+				.willReturn(this.preparedStatement);
+		given(this.connection.prepareStatement("INSERT INTO NOSUCHTABLE (ID, NAME) VALUES (?, ?)"))
+				.willReturn(remainderStatement);
+		given(this.preparedStatement.executeUpdate()).willReturn(2, 0);
+		given(remainderStatement.executeUpdate()).willReturn(1);
+
+		JdbcTemplate template = new JdbcTemplate(this.dataSource, false);
+		template.setMultiRowInsertChunkSize(2);
+
+		int[] actualRowsAffected = template.batchUpdate(sql, rows);
+		assertThat(actualRowsAffected).containsExactly(1, 1, Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO, 1);
+
+		verify(this.preparedStatement).setObject(1, 0);
+		verify(this.preparedStatement).setString(2, "name0");
+		verify(this.preparedStatement).setObject(3, 1);
+		verify(this.preparedStatement).setString(4, "name1");
+		verify(this.preparedStatement).setObject(1, 2);
+		verify(this.preparedStatement).setString(4, "name3");
+		verify(this.preparedStatement, times(2)).executeUpdate();
+		verify(this.preparedStatement, never()).addBatch();
+		verify(this.preparedStatement).close();
+		verify(remainderStatement).setObject(1, 4);
+		verify(remainderStatement).setString(2, "name4");
+		verify(remainderStatement).close();
+		verify(this.connection, atLeastOnce()).close();
+	}
+
+	@Test
+	public void testBatchUpdateWithMultiRowInsertForUnsupportedStatement() throws Exception {
+		final String sql = "UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = ?";
+		final List<Object[]> ids = new ArrayList<>(2);
+		ids.add(new Object[] {100});
+		ids.add(new Object[] {200});
+		final int[] rowsAffected = new int[] {1, 2};
+
+		given(this.preparedStatement.executeBatch()).willReturn(rowsAffected);
+		mockDatabaseMetaData(true);
+		JdbcTemplate template = new JdbcTemplate(this.dataSource, false);
+		template.setMultiRowInsertChunkSize(10);
+
+		int[] actualRowsAffected = template.batchUpdate(sql, ids);
+		assertThat(actualRowsAffected).containsExactly(1, 2);
+		verify(this.preparedStatement, times(2)).addBatch();
+		verify(this.preparedStatement).close();
+	}
+
 	@Test
 	public void testInterruptibleBatchUpdate() throws Exception {
 		final String sql = "UPDATE NOSUCHTABLE SET DATE_DISPATCHED = SYSDATE WHERE ID = ?";
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link MultiRowInsertSql}.
+ *
+ * @author Spring Framework Team
+ */
+public class MultiRowInsertSqlTests {
+
+	@Test
+	public void singleRowInsert() {
+		MultiRowInsertSql insertSql = MultiRowInsertSql.parse("INSERT INTO person (id, name) VALUES (?, ?)");
+		assertThat(insertSql).isNotNull();
+		assertThat(insertSql.getParameterCount()).isEqualTo(2);
+		assertThat(insertSql.getSql(1)).isEqualTo("INSERT INTO person (id, name) VALUES (?, ?)");
+		assertThat(insertSql.getSql(3)).isEqualTo(
+				"INSERT INTO person (id, name) VALUES (?, ?), (?, ?), (?, ?)");
+	}
+
+	@Test
+	public void singleRowInsertWithExpressionsAndLiterals() {
+		MultiRowInsertSql insertSql = MultiRowInsertSql.parse(
+				"insert into person (id, name, status) values (?, upper(?), 'a?b') ;");
+		assertThat(insertSql).isNotNull();
+		assertThat(insertSql.getParameterCount()).isEqualTo(2);
+		assertThat(insertSql.getSql(2)).isEqualTo(
+				"insert into person (id, name, status) values (?, upper(?), 'a?b'), (?, upper(?), 'a?b')");
+	}
+
+	@Test
+	public void singleRowInsertWithComment() {
+		MultiRowInsertSql insertSql = MultiRowInsertSql.parse(
+				"INSERT INTO person /* VALUES (?) */ (id) -- VALUES\n VALUES (?)");
+		assertThat(insertSql).isNotNull();
+		assertThat(insertSql.getParameterCount()).isEqualTo(1);
+		assertThat(insertSql.getSql(2)).endsWith("VALUES (?), (?)");
+	}
+
+	@Test
+	public void unsupportedStatements() {
+		assertThat(MultiRowInsertSql.parse("UPDATE person SET name = ? WHERE id = ?")).isNull();
+		assertThat(MultiRowInsertSql.parse("INSERT INTO person (id) SELECT id FROM employee WHERE id = ?")).isNull();
+		assertThat(MultiRowInsertSql.parse("INSERT INTO person (id) VALUES (1)")).isNull();
+		assertThat(MultiRowInsertSql.parse("INSERT INTO person (id) VALUES (?), (?)")).isNull();
+		assertThat(MultiRowInsertSql.parse("INSERT INTO person (id) VALUES (?) RETURNING id")).isNull();
+		assertThat(MultiRowInsertSql.parse("INSERT INTO person (id) VALUES (?) ON CONFLICT DO NOTHING")).isNull();
+		assertThat(MultiRowInsertSql.parse("INSERT INTO person (id, name) VALUES (?, 'x)")).isNull();
+		assertThat(MultiRowInsertSql.parse("INSERT INTO my_values (id) SELECT ? FROM dual")).isNull();
+	}
+
+}
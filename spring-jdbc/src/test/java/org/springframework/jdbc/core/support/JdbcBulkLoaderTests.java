@@ -0,0 +1,196 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.core.support;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link JdbcBulkLoader} against an embedded H2 database.
+ *
+ * @author Spring Framework Team
+ */
+class JdbcBulkLoaderTests {
+
+	private static final String INSERT_SQL = "insert into item (id, name) values (?, ?)";
+
+	private static final ParameterizedPreparedStatementSetter<Integer> SETTER = (ps, id) -> {
+		ps.setInt(1, id);
+		ps.setString(2, "item" + id);
+	};
+
+
+	private EmbeddedDatabase db;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private JdbcBulkLoader loader;
+
+
+	@BeforeEach
+	void setup() {
+		this.db = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+		this.jdbcTemplate = new JdbcTemplate(this.db);
+		this.jdbcTemplate.execute("create table item (id int primary key, name varchar(50))");
+		this.loader = new JdbcBulkLoader(this.jdbcTemplate);
+		this.loader.setChunkSize(1000);
+		this.loader.setConcurrency(4);
+	}
+
+	@AfterEach
+	void shutdown() {
+		this.db.shutdown();
+	}
+
+
+	@Test
+	void loadAllRows() {
+		AtomicInteger consumed = new AtomicInteger();
+		AtomicInteger consumedAtFirstBind = new AtomicInteger(-1);
+		Stream<Integer> rows = IntStream.range(0, 10050).boxed().peek(id -> consumed.incrementAndGet());
+
+		BulkLoadResult result = this.loader.load(INSERT_SQL, rows, (ps, id) -> {
+			if (id == 0) {
+				consumedAtFirstBind.set(consumed.get());
+			}
+			SETTER.setValues(ps, id);
+		});
+
+		assertThat(result.isSuccessful()).isTrue();
+		assertThat(result.isComplete()).isTrue();
+		assertThat(result.getRowCount()).isEqualTo(10050);
+		assertThat(result.getLoadedRowCount()).isEqualTo(10050);
+		assertThat(result.getChunkResults()).hasSize(11);
+		for (int i = 0; i < 11; i++) {
+			BulkLoadResult.ChunkResult chunkResult = result.getChunkResults().get(i);
+			assertThat(chunkResult.getIndex()).isEqualTo(i);
+			assertThat(chunkResult.getRowCount()).isEqualTo(i < 10 ? 1000 : 50);
+			assertThat(chunkResult.getUpdateCount()).isEqualTo(chunkResult.getRowCount());
+		}
+		assertThat(result.getFailedChunks()).isEmpty();
+		assertThat(consumedAtFirstBind.get()).isBetween(1000, 5000);
+		assertThat(this.jdbcTemplate.queryForObject("select count(*) from item", Integer.class)).isEqualTo(10050);
+	}
+
+	@Test
+	void loadWithSequentialOrdering() {
+		List<Integer> executed = new CopyOnWriteArrayList<>();
+		this.loader.setChunkOrdering(JdbcBulkLoader.ChunkOrdering.SEQUENTIAL);
+		this.loader.setChunkListener(chunkResult -> executed.add(chunkResult.getIndex()));
+
+		BulkLoadResult result = this.loader.load(INSERT_SQL, IntStream.range(0, 8000).boxed().iterator(), SETTER);
+
+		assertThat(result.isSuccessful()).isTrue();
+		assertThat(executed).containsExactly(0, 1, 2, 3, 4, 5, 6, 7);
+		assertThat(this.jdbcTemplate.queryForObject("select count(*) from item", Integer.class)).isEqualTo(8000);
+	}
+
+	@Test
+	void chunkListenerFailureIsolated() {
+		AtomicInteger notified = new AtomicInteger();
+		this.loader.setChunkListener(chunkResult -> {
+			notified.incrementAndGet();
+			throw new IllegalStateException("Listener failure");
+		});
+
+		BulkLoadResult result = this.loader.load(INSERT_SQL, IntStream.range(0, 5000).boxed().iterator(), SETTER);
+
+		assertThat(result.isSuccessful()).isTrue();
+		assertThat(result.getChunkResults()).hasSize(5);
+		assertThat(notified.get()).isEqualTo(5);
+		assertThat(this.jdbcTemplate.queryForObject("select count(*) from item", Integer.class)).isEqualTo(5000);
+	}
+
+	@Test
+	void stopAfterFailure() {
+		this.loader.setChunkOrdering(JdbcBulkLoader.ChunkOrdering.SEQUENTIAL);
+		this.loader.setConcurrency(1);
+		Stream<Integer> rows = IntStream.range(0, 5000).map(id -> (id == 1500 ? 1499 : id)).boxed();
+
+		BulkLoadResult result = this.loader.load(INSERT_SQL, rows, SETTER);
+
+		assertThat(result.isSuccessful()).isFalse();
+		assertThat(result.getLoadedRowCount()).isEqualTo(1000);
+		assertThat(result.getFailedChunks()).hasSize(1);
+		BulkLoadResult.ChunkResult failed = result.getFailedChunks().get(0);
+		assertThat(failed.getIndex()).isEqualTo(1);
+		assertThat(failed.getFailure()).isInstanceOf(DuplicateKeyException.class);
+		assertThat(failed.getUpdateCount()).isEqualTo(0);
+		assertThat(result.getChunkResults()).hasSizeLessThan(5);
+		assertThat(result.isComplete()).isFalse();
+		for (BulkLoadResult.ChunkResult chunkResult : result.getChunkResults().subList(2, result.getChunkResults().size())) {
+			assertThat(chunkResult.isSkipped()).isTrue();
+		}
+	}
+
+	@Test
+	void continueOnFailure() {
+		this.loader.setContinueOnFailure(true);
+		Stream<Integer> rows = IntStream.range(0, 5000).map(id -> (id == 1500 ? 1499 : id)).boxed();
+
+		BulkLoadResult result = this.loader.load(INSERT_SQL, rows, SETTER);
+
+		assertThat(result.isSuccessful()).isFalse();
+		assertThat(result.isComplete()).isTrue();
+		assertThat(result.getChunkResults()).hasSize(5);
+		assertThat(result.getLoadedRowCount()).isEqualTo(4000);
+		assertThat(result.getFailedChunks()).extracting(BulkLoadResult.ChunkResult::getIndex).containsExactly(1);
+		assertThat(this.jdbcTemplate.queryForObject("select count(*) from item where id >= 2000", Integer.class))
+				.isEqualTo(3000);
+	}
+
+	@Test
+	void stopOnInterrupt() {
+		List<BulkLoadResult.ChunkResult> notified = new CopyOnWriteArrayList<>();
+		this.loader.setChunkListener(notified::add);
+		BulkLoadResult result;
+		Thread.currentThread().interrupt();
+		try {
+			result = this.loader.load(INSERT_SQL, IntStream.range(0, 5000).boxed().iterator(), SETTER);
+			assertThat(Thread.currentThread().isInterrupted()).isTrue();
+		}
+		finally {
+			Thread.interrupted();
+		}
+
+		assertThat(result.isComplete()).isFalse();
+		assertThat(result.isSuccessful()).isFalse();
+		assertThat(result.getChunkResults()).hasSize(1);
+		BulkLoadResult.ChunkResult pending = result.getChunkResults().get(0);
+		assertThat(pending.isSkipped()).isTrue();
+		assertThat(pending.getRowCount()).isEqualTo(1000);
+		assertThat(notified).containsExactly(pending);
+		assertThat(this.jdbcTemplate.queryForObject("select count(*) from item", Integer.class)).isEqualTo(0);
+	}
+
+}
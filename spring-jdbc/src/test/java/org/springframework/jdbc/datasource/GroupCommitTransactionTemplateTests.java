@@ -0,0 +1,368 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.jdbc.datasource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.GroupCommitTransactionTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+/**
+ * Tests for {@link GroupCommitTransactionTemplate} against an embedded H2 database.
+ *
+ * @author Spring Framework Team
+ */
+class GroupCommitTransactionTemplateTests {
+
+	private static final int THREADS = 8;
+
+	private static final int CALLS_PER_THREAD = 50;
+
+
+	private EmbeddedDatabase db;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private CountingTransactionManager tm;
+
+	private GroupCommitTransactionTemplate template;
+
+	private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+
+	@BeforeEach
+	void setup() {
+		this.db = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+		this.jdbcTemplate = new JdbcTemplate(this.db);
+		this.jdbcTemplate.execute("create table item (id int primary key, name varchar(50))");
+		this.tm = new CountingTransactionManager(this.db);
+		this.template = new GroupCommitTransactionTemplate(this.tm);
+		this.template.setMaxWaitMillis(5);
+	}
+
+	@AfterEach
+	void shutdown() {
+		this.executor.shutdownNow();
+		this.db.shutdown();
+	}
+
+
+	@Test
+	void concurrentCallbacksShareTransactions() throws Exception {
+		List<Integer> results = runConcurrently(id -> this.template.execute(status -> {
+			assertThat(status.isNewTransaction()).isTrue();
+			assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isTrue();
+			return this.jdbcTemplate.update("insert into item values (?, ?)", id, "item" + id);
+		}));
+
+		assertThat(results).hasSize(THREADS * CALLS_PER_THREAD).containsOnly(1);
+		assertThat(countItems()).isEqualTo(THREADS * CALLS_PER_THREAD);
+		assertThat(this.tm.commits.get()).isLessThan(THREADS * CALLS_PER_THREAD);
+		assertThat(TransactionSynchronizationManager.isSynchronizationActive()).isFalse();
+	}
+
+	@Test
+	void failingCallbacksRolledBackIndividually() throws Exception {
+		List<Integer> completionStatus = new ArrayList<>();
+		List<Object> results = runConcurrently(id -> {
+			try {
+				return this.template.execute(status -> {
+					TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+						@Override
+						public void afterCompletion(int status) {
+							synchronized (completionStatus) {
+								completionStatus.add(id % 10 == 0 ? -status : status);
+							}
+						}
+					});
+					this.jdbcTemplate.update("insert into item values (?, ?)", id, "item" + id);
+					if (id % 10 == 0) {
+						throw new IllegalStateException("Failure " + id);
+					}
+					if (id % 10 == 1) {
+						status.setRollbackOnly();
+					}
+					return id;
+				});
+			}
+			catch (IllegalStateException ex) {
+				return ex.getMessage();
+			}
+		});
+
+		int total = THREADS * CALLS_PER_THREAD;
+		assertThat(results).filteredOn(String.class::isInstance).hasSize(total / 10);
+		assertThat(countItems()).isEqualTo(total - (total / 10) * 2);
+		assertThat(this.jdbcTemplate.queryForObject("select count(*) from item where mod(id, 10) = 0", Integer.class)).isEqualTo(0);
+		assertThat(this.jdbcTemplate.queryForObject("select count(*) from item where mod(id, 10) = 1", Integer.class)).isEqualTo(0);
+		assertThat(completionStatus).hasSize(total);
+		// Failed callbacks: rolled back, negated for identification
+		assertThat(completionStatus).filteredOn(status -> status < 0).hasSize(total / 10)
+				.containsOnly(-TransactionSynchronization.STATUS_ROLLED_BACK);
+		assertThat(completionStatus).filteredOn(status -> status == TransactionSynchronization.STATUS_ROLLED_BACK)
+				.hasSize(total / 10);
+		assertThat(completionStatus).filteredOn(status -> status == TransactionSynchronization.STATUS_COMMITTED)
+				.hasSize(total - (total / 10) * 2);
+	}
+
+	@Test
+	void participatingTransactionFailureRollsBackOnlyItsCallback() throws Exception {
+		CountDownLatch leaderBusy = new CountDownLatch(1);
+		CountDownLatch releaseLeader = new CountDownLatch(1);
+		List<String> events = new ArrayList<>();
+		TransactionTemplate participating = new TransactionTemplate(this.tm);
+
+		FutureTask<Object> leader = new FutureTask<>(() -> this.template.execute(status -> {
+			leaderBusy.countDown();
+			try {
+				releaseLeader.await();
+			}
+			catch (InterruptedException ex) {
+				throw new IllegalStateException(ex);
+			}
+			return this.jdbcTemplate.update("insert into item values (1, 'leader')");
+		}));
+		FutureTask<Object> good = new FutureTask<>(() -> this.template.execute(status ->
+				this.jdbcTemplate.update("insert into item values (2, 'good')")));
+		FutureTask<Object> bad = new FutureTask<>(() -> this.template.execute(status -> {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void beforeCompletion() {
+					events.add("beforeCompletion");
+				}
+				@Override
+				public void afterCompletion(int status) {
+					events.add("afterCompletion " + status);
+				}
+			});
+			this.jdbcTemplate.update("insert into item values (3, 'bad')");
+			try {
+				participating.executeWithoutResult(inner -> {
+					this.jdbcTemplate.update("insert into item values (4, 'inner')");
+					throw new IllegalStateException("Inner failure");
+				});
+			}
+			catch (IllegalStateException ex) {
+				// Marks the shared transaction as rollback-only
+			}
+			return 1;
+		}));
+
+		Thread leaderThread = new Thread(leader);
+		leaderThread.start();
+		leaderBusy.await();
+		// Queue both callbacks behind the busy leader, for a shared transaction
+		Thread goodThread = new Thread(good);
+		Thread badThread = new Thread(bad);
+		goodThread.start();
+		badThread.start();
+		while (goodThread.getState() != Thread.State.WAITING || badThread.getState() != Thread.State.WAITING) {
+			Thread.sleep(1);
+		}
+		releaseLeader.countDown();
+
+		assertThat(leader.get()).isEqualTo(1);
+		assertThat(good.get()).isEqualTo(1);
+		assertThatExceptionOfType(ExecutionException.class).isThrownBy(bad::get)
+				.withCauseInstanceOf(UnexpectedRollbackException.class);
+		assertThat(this.tm.commits.get()).isEqualTo(2);
+		assertThat(this.jdbcTemplate.queryForList("select name from item order by id", String.class))
+				.containsExactly("leader", "good");
+		assertThat(events).containsExactly("beforeCompletion",
+				"afterCompletion " + TransactionSynchronization.STATUS_ROLLED_BACK);
+	}
+
+	@Test
+	void sharedCommitFailureReportedWithoutRetry() throws Exception {
+		this.tm.failOnNextCommit.set(true);
+		AtomicInteger invocations = new AtomicInteger();
+		List<Integer> completionStatus = new ArrayList<>();
+		List<Object> results = runConcurrently(id -> {
+			try {
+				return this.template.execute(status -> {
+					invocations.incrementAndGet();
+					TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+						@Override
+						public void afterCompletion(int status) {
+							synchronized (completionStatus) {
+								completionStatus.add(status);
+							}
+						}
+					});
+					return this.jdbcTemplate.update("insert into item values (?, ?)", id, "item" + id);
+				});
+			}
+			catch (TransactionSystemException ex) {
+				return ex.getMessage();
+			}
+		});
+
+		int total = THREADS * CALLS_PER_THREAD;
+		int failed = (int) results.stream().filter(String.class::isInstance).count();
+		assertThat(failed).isGreaterThan(0);
+		assertThat(invocations.get()).isEqualTo(total);
+		assertThat(countItems()).isEqualTo(total - failed);
+		assertThat(completionStatus).hasSize(total);
+		// Commit failure without rollbackOnCommitFailure: outcome unknown
+		assertThat(completionStatus).filteredOn(status -> status == TransactionSynchronization.STATUS_UNKNOWN)
+				.hasSize(failed);
+	}
+
+	@Test
+	void sharedTransactionFailureBeforeCommitTriggersIndividualRetries() throws Exception {
+		this.tm.failOnNextBegin.set(true);
+		AtomicInteger invocations = new AtomicInteger();
+		List<Integer> results = runConcurrently(id -> this.template.execute(status -> {
+			invocations.incrementAndGet();
+			return this.jdbcTemplate.update("insert into item values (?, ?)", id, "item" + id);
+		}));
+
+		assertThat(results).hasSize(THREADS * CALLS_PER_THREAD).containsOnly(1);
+		assertThat(countItems()).isEqualTo(THREADS * CALLS_PER_THREAD);
+		assertThat(invocations.get()).isEqualTo(THREADS * CALLS_PER_THREAD);
+	}
+
+	@Test
+	void singleCallerWithoutWaiting() {
+		this.template.setMaxWaitMillis(10000);
+		for (int i = 0; i < 10; i++) {
+			int id = i;
+			this.template.executeWithoutResult(status ->
+					this.jdbcTemplate.update("insert into item values (?, ?)", id, "item" + id));
+		}
+		assertThat(countItems()).isEqualTo(10);
+		assertThat(this.tm.commits.get()).isEqualTo(10);
+	}
+
+	@Test
+	void uncheckedExceptionPropagated() {
+		assertThatIllegalStateException().isThrownBy(() -> this.template.executeWithoutResult(status -> {
+			this.jdbcTemplate.update("insert into item values (1, 'item')");
+			throw new IllegalStateException();
+		}));
+		assertThat(countItems()).isEqualTo(0);
+	}
+
+	@Test
+	void withinExistingTransaction() {
+		new TransactionTemplate(this.tm).executeWithoutResult(outer -> {
+			Object connectionHolder = TransactionSynchronizationManager.getResource(this.db);
+			this.template.executeWithoutResult(status -> {
+				assertThat(status.isNewTransaction()).isTrue();
+				assertThat(TransactionSynchronizationManager.getResource(this.db)).isNotSameAs(connectionHolder);
+				this.jdbcTemplate.update("insert into item values (1, 'item')");
+			});
+			outer.setRollbackOnly();
+		});
+		assertThat(countItems()).isEqualTo(1);
+	}
+
+	private <T> List<T> runConcurrently(CallFunction<T> call) throws Exception {
+		List<Future<List<T>>> futures = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			int thread = t;
+			Callable<List<T>> task = () -> {
+				List<T> results = new ArrayList<>();
+				for (int i = 0; i < CALLS_PER_THREAD; i++) {
+					results.add(call.apply(thread * CALLS_PER_THREAD + i));
+				}
+				return results;
+			};
+			futures.add(this.executor.submit(task));
+		}
+		List<T> results = new ArrayList<>();
+		for (Future<List<T>> future : futures) {
+			results.addAll(future.get());
+		}
+		return results;
+	}
+
+	private int countItems() {
+		return this.jdbcTemplate.queryForObject("select count(*) from item", Integer.class);
+	}
+
+
+	@FunctionalInterface
+	private interface CallFunction<T> {
+
+		T apply(int id);
+	}
+
+
+	@SuppressWarnings("serial")
+	private static class CountingTransactionManager extends DataSourceTransactionManager {
+
+		final AtomicInteger commits = new AtomicInteger();
+
+		final AtomicBoolean failOnNextCommit = new AtomicBoolean();
+
+		final AtomicBoolean failOnNextBegin = new AtomicBoolean();
+
+		CountingTransactionManager(EmbeddedDatabase dataSource) {
+			super(dataSource);
+		}
+
+		@Override
+		protected void doBegin(Object transaction, TransactionDefinition definition) {
+			if (this.failOnNextBegin.compareAndSet(true, false)) {
+				throw new CannotCreateTransactionException("Begin failure");
+			}
+			super.doBegin(transaction, definition);
+		}
+
+		@Override
+		protected void doCommit(DefaultTransactionStatus status) {
+			if (this.failOnNextCommit.compareAndSet(true, false)) {
+				// Simulate a failed commit: nothing committed
+				doRollback(status);
+				throw new TransactionSystemException("Commit failure");
+			}
+			this.commits.incrementAndGet();
+			super.doCommit(status);
+		}
+	}
+
+}
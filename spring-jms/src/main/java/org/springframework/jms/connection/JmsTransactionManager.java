@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -198,6 +198,11 @@ public class JmsTransactionManager extends AbstractPlatformTransactionManager
 		return txObject;
 	}
 
+	@Override
+	protected boolean isExistingTransactionResourceBound() {
+		return true;
+	}
+
 	@Override
 	protected boolean isExistingTransaction(Object transaction) {
 		JmsTransactionObject txObject = (JmsTransactionObject) transaction;
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -450,6 +450,12 @@ public class HibernateTransactionManager extends AbstractPlatformTransactionMana
 		return txObject;
 	}
 
+	@Override
+	protected boolean isExistingTransactionResourceBound() {
+		// A Hibernate-managed transaction is not bound to the thread by us
+		return !this.hibernateManagedSession;
+	}
+
 	@Override
 	protected boolean isExistingTransaction(Object transaction) {
 		HibernateTransactionObject txObject = (HibernateTransactionObject) transaction;
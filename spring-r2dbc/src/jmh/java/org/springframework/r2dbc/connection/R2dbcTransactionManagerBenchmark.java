@@ -0,0 +1,191 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.r2dbc.connection;
+
+import io.r2dbc.spi.Batch;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.ConnectionMetadata;
+import io.r2dbc.spi.IsolationLevel;
+import io.r2dbc.spi.Statement;
+import io.r2dbc.spi.ValidationDepth;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+/**
+ * Benchmark for the per-transaction overhead of {@link TransactionalOperator}
+ * on top of {@link R2dbcTransactionManager}, against an in-memory
+ * {@link ConnectionFactory} stub which completes all operations immediately.
+ * Run with {@code -prof gc} to compare the allocation rate per transaction.
+ *
+ * @author Spring Framework Team
+ */
+@BenchmarkMode(Mode.Throughput)
+public class R2dbcTransactionManagerBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		public ConnectionFactory connectionFactory;
+
+		public TransactionalOperator operator;
+
+		public TransactionalOperator requiresNewOperator;
+
+		public Mono<Object> resourceLookup;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			this.connectionFactory = new StubConnectionFactory();
+			R2dbcTransactionManager tm = new R2dbcTransactionManager(this.connectionFactory);
+			this.operator = TransactionalOperator.create(tm);
+			DefaultTransactionDefinition requiresNew = new DefaultTransactionDefinition();
+			requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+			this.requiresNewOperator = TransactionalOperator.create(tm, requiresNew);
+			this.resourceLookup = ConnectionFactoryUtils.getConnection(this.connectionFactory).cast(Object.class);
+		}
+	}
+
+	@Benchmark
+	public Object transactional(BenchmarkState state) {
+		return state.resourceLookup.as(state.operator::transactional).block();
+	}
+
+	@Benchmark
+	public Object transactionalNested(BenchmarkState state) {
+		return state.resourceLookup.as(state.operator::transactional).as(state.operator::transactional).block();
+	}
+
+	@Benchmark
+	public Object transactionalRequiresNew(BenchmarkState state) {
+		return state.resourceLookup.as(state.requiresNewOperator::transactional)
+				.as(state.operator::transactional).block();
+	}
+
+	@Benchmark
+	public Object execute(BenchmarkState state) {
+		return state.operator.execute(status -> state.resourceLookup).blockLast();
+	}
+
+
+	private static class StubConnectionFactory implements ConnectionFactory {
+
+		private final Connection connection = new StubConnection();
+
+		@Override
+		public Publisher<? extends Connection> create() {
+			return Mono.just(this.connection);
+		}
+
+		@Override
+		public ConnectionFactoryMetadata getMetadata() {
+			return () -> "stub";
+		}
+	}
+
+
+	private static class StubConnection implements Connection {
+
+		@Override
+		public Publisher<Void> beginTransaction() {
+			return Mono.empty();
+		}
+
+		@Override
+		public Publisher<Void> close() {
+			return Mono.empty();
+		}
+
+		@Override
+		public Publisher<Void> commitTransaction() {
+			return Mono.empty();
+		}
+
+		@Override
+		public Batch createBatch() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public Publisher<Void> createSavepoint(String name) {
+			return Mono.empty();
+		}
+
+		@Override
+		public Statement createStatement(String sql) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public boolean isAutoCommit() {
+			return false;
+		}
+
+		@Override
+		public ConnectionMetadata getMetadata() {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public IsolationLevel getTransactionIsolationLevel() {
+			return IsolationLevel.READ_COMMITTED;
+		}
+
+		@Override
+		public Publisher<Void> releaseSavepoint(String name) {
+			return Mono.empty();
+		}
+
+		@Override
+		public Publisher<Void> rollbackTransaction() {
+			return Mono.empty();
+		}
+
+		@Override
+		public Publisher<Void> rollbackTransactionToSavepoint(String name) {
+			return Mono.empty();
+		}
+
+		@Override
+		public Publisher<Void> setAutoCommit(boolean autoCommit) {
+			return Mono.empty();
+		}
+
+		@Override
+		public Publisher<Void> setTransactionIsolationLevel(IsolationLevel isolationLevel) {
+			return Mono.empty();
+		}
+
+		@Override
+		public Publisher<Boolean> validate(ValidationDepth depth) {
+			return Mono.just(true);
+		}
+	}
+
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.interceptor;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.AnnotationTransactionAttributeSource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.ResourceTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Benchmark for the overhead of {@link TransactionInterceptor} per propagation
+ * behavior, against a no-op resource transaction manager.
+ * Run with {@code -prof gc} to compare the allocation rate per invocation.
+ *
+ * @author Spring Framework Team
+ */
+@BenchmarkMode(Mode.Throughput)
+public class TransactionInterceptorBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"ALWAYS", "ON_ACTUAL_TRANSACTION"})
+		public String synchronization;
+
+		public Service proxy;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			NoOpTransactionManager tm = new NoOpTransactionManager();
+			tm.setTransactionSynchronizationName("SYNCHRONIZATION_" + this.synchronization);
+			TransactionInterceptor ti = new TransactionInterceptor();
+			ti.setTransactionManager(tm);
+			ti.setTransactionAttributeSource(new AnnotationTransactionAttributeSource());
+			ProxyFactory pf = new ProxyFactory(new DefaultService());
+			pf.addAdvice(ti);
+			this.proxy = (Service) pf.getProxy();
+		}
+	}
+
+	@Benchmark
+	public int required(BenchmarkState state) {
+		return state.proxy.required(42);
+	}
+
+	@Benchmark
+	public int requiredReadOnly(BenchmarkState state) {
+		return state.proxy.requiredReadOnly(42);
+	}
+
+	@Benchmark
+	public int supports(BenchmarkState state) {
+		return state.proxy.supports(42);
+	}
+
+	@Benchmark
+	public int supportsReadOnly(BenchmarkState state) {
+		return state.proxy.supportsReadOnly(42);
+	}
+
+	@Benchmark
+	public int notSupported(BenchmarkState state) {
+		return state.proxy.notSupported(42);
+	}
+
+	@Benchmark
+	public int never(BenchmarkState state) {
+		return state.proxy.never(42);
+	}
+
+
+	public interface Service {
+
+		int required(int value);
+
+		int requiredReadOnly(int value);
+
+		int supports(int value);
+
+		int supportsReadOnly(int value);
+
+		int notSupported(int value);
+
+		int never(int value);
+	}
+
+
+	public static class DefaultService implements Service {
+
+		@Override
+		@Transactional
+		public int required(int value) {
+			return value + 1;
+		}
+
+		@Override
+		@Transactional(readOnly = true)
+		public int requiredReadOnly(int value) {
+			return value + 1;
+		}
+
+		@Override
+		@Transactional(propagation = Propagation.SUPPORTS)
+		public int supports(int value) {
+			return value + 1;
+		}
+
+		@Override
+		@Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
+		public int supportsReadOnly(int value) {
+			return value + 1;
+		}
+
+		@Override
+		@Transactional(propagation = Propagation.NOT_SUPPORTED)
+		public int notSupported(int value) {
+			return value + 1;
+		}
+
+		@Override
+		@Transactional(propagation = Propagation.NEVER)
+		public int never(int value) {
+			return value + 1;
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	private static class NoOpTransactionManager extends AbstractPlatformTransactionManager
+			implements ResourceTransactionManager {
+
+		private final Object resourceFactory = new Object();
+
+		@Override
+		public Object getResourceFactory() {
+			return this.resourceFactory;
+		}
+
+		@Override
+		protected Object doGetTransaction() {
+			return new Object();
+		}
+
+		@Override
+		protected boolean isExistingTransaction(Object transaction) {
+			return TransactionSynchronizationManager.hasResource(this.resourceFactory);
+		}
+
+		@Override
+		protected void doBegin(Object transaction, TransactionDefinition definition) {
+			TransactionSynchronizationManager.bindResource(this.resourceFactory, transaction);
+		}
+
+		@Override
+		protected void doCommit(DefaultTransactionStatus status) {
+		}
+
+		@Override
+		protected void doRollback(DefaultTransactionStatus status) {
+		}
+
+		@Override
+		protected void doCleanupAfterCompletion(Object transaction) {
+			TransactionSynchronizationManager.unbindResource(this.resourceFactory);
+		}
+	}
+
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.springframework.transaction.TransactionDefinition;
+
+/**
+ * Benchmark for the per-transaction overhead of {@link TransactionTemplate#execute}
+ * against a no-op transaction manager, including the thread-bound state managed
+ * by {@link TransactionSynchronizationManager}.
+ * Run with {@code -prof gc} to compare the allocation rate per transaction.
+ *
+ * @author Spring Framework Team
+ */
+@BenchmarkMode(Mode.Throughput)
+public class TransactionTemplateBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkState {
+
+		@Param({"true", "false"})
+		public boolean bindResource;
+
+		public TransactionTemplate template;
+
+		public TransactionTemplate readOnlyTemplate;
+
+		@Setup(Level.Trial)
+		public void setup() {
+			NoOpTransactionManager tm = new NoOpTransactionManager(this.bindResource);
+			this.template = new TransactionTemplate(tm);
+			this.template.setName("benchmark");
+			this.readOnlyTemplate = new TransactionTemplate(tm);
+			this.readOnlyTemplate.setReadOnly(true);
+			this.readOnlyTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+		}
+	}
+
+	@Benchmark
+	public Object execute(BenchmarkState state) {
+		return state.template.execute(status -> TransactionSynchronizationManager.getResource(state));
+	}
+
+	@Benchmark
+	public Object executeReadOnly(BenchmarkState state) {
+		return state.readOnlyTemplate.execute(status -> TransactionSynchronizationManager.isCurrentTransactionReadOnly());
+	}
+
+	@Benchmark
+	public Object executeWithSynchronization(BenchmarkState state) {
+		return state.template.execute(status -> {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {});
+			return status;
+		});
+	}
+
+
+	@SuppressWarnings("serial")
+	private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+		private final boolean bindResource;
+
+		private final Object resourceKey = new Object();
+
+		NoOpTransactionManager(boolean bindResource) {
+			this.bindResource = bindResource;
+		}
+
+		@Override
+		protected Object doGetTransaction() {
+			return this.resourceKey;
+		}
+
+		@Override
+		protected boolean isExistingTransaction(Object transaction) {
+			return (this.bindResource && TransactionSynchronizationManager.hasResource(this.resourceKey));
+		}
+
+		@Override
+		protected void doBegin(Object transaction, TransactionDefinition definition) {
+			if (this.bindResource) {
+				TransactionSynchronizationManager.bindResource(this.resourceKey, this.resourceKey);
+			}
+		}
+
+		@Override
+		protected void doCommit(DefaultTransactionStatus status) {
+		}
+
+		@Override
+		protected void doRollback(DefaultTransactionStatus status) {
+		}
+
+		@Override
+		protected void doCleanupAfterCompletion(Object transaction) {
+			if (this.bindResource) {
+				TransactionSynchronizationManager.unbindResource(this.resourceKey);
+			}
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -48,6 +48,10 @@ import org.springframework.transaction.ReactiveTransactionManager;
 import org.springframework.transaction.TransactionManager;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.metrics.TransactionOutcome;
+import org.springframework.transaction.metrics.TransactionRecorder;
+import org.springframework.transaction.metrics.TransactionRecording;
 import org.springframework.transaction.reactive.TransactionContextManager;
 import org.springframework.transaction.support.CallbackPreferringPlatformTransactionManager;
 import org.springframework.util.Assert;
@@ -179,12 +183,17 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	@Nullable
 	private BeanFactory beanFactory;
 
+	private TransactionRecorder transactionRecorder = TransactionRecorder.DEFAULT;
+
 	private final ConcurrentMap<Object, TransactionManager> transactionManagerCache =
 			new ConcurrentReferenceHashMap<>(4);
 
 	private final ConcurrentMap<Method, ReactiveTransactionSupport> transactionSupportCache =
 			new ConcurrentReferenceHashMap<>(1024);
 
+	private final ConcurrentMap<Method, NamedTransactionAttribute> namedAttributeCache =
+			new ConcurrentReferenceHashMap<>(1024);
+
 
 	protected TransactionAspectSupport() {
 		if (reactiveStreamsPresent) {
@@ -287,6 +296,31 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		return this.transactionAttributeSource;
 	}
 
+	/**
+	 * Set the {@link TransactionRecorder} to report transactional method invocations to:
+	 * their total time including transaction begin and completion, their outcome,
+	 * rollback causes and nesting depth.
+	 * <p>Default is {@link TransactionRecorder#DEFAULT}, not recording anything
+	 * and not imposing any overhead. Only applies to transactions demarcated through
+	 * a regular {@link PlatformTransactionManager}; transactions on the
+	 * {@code AbstractPlatformTransactionManager} level can be recorded as well,
+	 * through its own {@code transactionRecorder} setting.
+	 * @since 5.3.5
+	 * @see org.springframework.transaction.support.AbstractPlatformTransactionManager#setTransactionRecorder
+	 */
+	public void setTransactionRecorder(TransactionRecorder transactionRecorder) {
+		Assert.notNull(transactionRecorder, "TransactionRecorder must not be null");
+		this.transactionRecorder = transactionRecorder;
+	}
+
+	/**
+	 * Return the {@link TransactionRecorder} to report transactional method invocations to.
+	 * @since 5.3.5
+	 */
+	public TransactionRecorder getTransactionRecorder() {
+		return this.transactionRecorder;
+	}
+
 	/**
 	 * Set the BeanFactory to use for retrieving {@code TransactionManager} beans.
 	 */
@@ -379,7 +413,8 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 
 		if (txAttr == null || !(ptm instanceof CallbackPreferringPlatformTransactionManager)) {
 			// Standard transaction demarcation with getTransaction and commit/rollback calls.
-			TransactionInfo txInfo = createTransactionIfNecessary(ptm, txAttr, joinpointIdentification);
+			TransactionInfo txInfo = createTransactionIfNecessary(
+					ptm, applyTransactionName(method, txAttr, joinpointIdentification), joinpointIdentification);
 
 			Object retVal;
 			try {
@@ -546,6 +581,27 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		return methodIdentification;
 	}
 
+	/**
+	 * Apply the given joinpoint identification as transaction name to the given
+	 * attribute if no name has been specified, as in
+	 * {@link #createTransactionIfNecessary}, but with a wrapper cached per method
+	 * instead of a new wrapper for every invocation.
+	 */
+	@Nullable
+	private TransactionAttribute applyTransactionName(Method method, @Nullable TransactionAttribute txAttr,
+			String joinpointIdentification) {
+
+		if (txAttr == null || txAttr.getName() != null) {
+			return txAttr;
+		}
+		NamedTransactionAttribute namedAttr = this.namedAttributeCache.get(method);
+		if (namedAttr == null || !namedAttr.matches(txAttr, joinpointIdentification)) {
+			namedAttr = new NamedTransactionAttribute(txAttr, joinpointIdentification);
+			this.namedAttributeCache.put(method, namedAttr);
+		}
+		return namedAttr;
+	}
+
 	/**
 	 * Convenience method to return a String representation of this Method
 	 * for use in logging. Can be overridden in subclasses to provide a
@@ -590,9 +646,19 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		}
 
 		TransactionStatus status = null;
+		TransactionRecording recording = null;
 		if (txAttr != null) {
 			if (tm != null) {
-				status = tm.getTransaction(txAttr);
+				recording = startRecording(txAttr, joinpointIdentification);
+				try {
+					status = tm.getTransaction(txAttr);
+				}
+				catch (RuntimeException | Error ex) {
+					if (recording != null) {
+						recording.end(TransactionOutcome.UNKNOWN, ex);
+					}
+					throw ex;
+				}
 			}
 			else {
 				if (logger.isDebugEnabled()) {
@@ -601,7 +667,29 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 				}
 			}
 		}
-		return prepareTransactionInfo(tm, txAttr, joinpointIdentification, status);
+		TransactionInfo txInfo = prepareTransactionInfo(tm, txAttr, joinpointIdentification, status);
+		txInfo.recording = recording;
+		return txInfo;
+	}
+
+	/**
+	 * Start a recording for the given transactional method invocation,
+	 * unless recording is disabled.
+	 * @see #setTransactionRecorder
+	 */
+	@Nullable
+	private TransactionRecording startRecording(TransactionAttribute txAttr, String joinpointIdentification) {
+		TransactionRecorder recorder = this.transactionRecorder;
+		if (recorder == TransactionRecorder.DEFAULT) {
+			return null;
+		}
+		int depth = 0;
+		for (TransactionInfo info = transactionInfoHolder.get(); info != null; info = info.oldTransactionInfo) {
+			if (info.hasTransaction()) {
+				depth++;
+			}
+		}
+		return recorder.startMethod(joinpointIdentification, txAttr, depth);
 	}
 
 	/**
@@ -651,7 +739,16 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 			if (logger.isTraceEnabled()) {
 				logger.trace("Completing transaction for [" + txInfo.getJoinpointIdentification() + "]");
 			}
-			txInfo.getTransactionManager().commit(txInfo.getTransactionStatus());
+			boolean rollbackOnly = (txInfo.recording != null && txInfo.getTransactionStatus().isRollbackOnly());
+			try {
+				txInfo.getTransactionManager().commit(txInfo.getTransactionStatus());
+			}
+			catch (RuntimeException | Error ex) {
+				txInfo.endRecording(ex instanceof UnexpectedRollbackException ?
+						TransactionOutcome.ROLLED_BACK : TransactionOutcome.UNKNOWN, ex);
+				throw ex;
+			}
+			txInfo.endRecording(rollbackOnly ? TransactionOutcome.ROLLED_BACK : TransactionOutcome.COMMITTED, null);
 		}
 	}
 
@@ -674,28 +771,36 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 				catch (TransactionSystemException ex2) {
 					logger.error("Application exception overridden by rollback exception", ex);
 					ex2.initApplicationException(ex);
+					txInfo.endRecording(TransactionOutcome.UNKNOWN, ex2);
 					throw ex2;
 				}
 				catch (RuntimeException | Error ex2) {
 					logger.error("Application exception overridden by rollback exception", ex);
+					txInfo.endRecording(TransactionOutcome.UNKNOWN, ex2);
 					throw ex2;
 				}
+				txInfo.endRecording(TransactionOutcome.ROLLED_BACK, ex);
 			}
 			else {
 				// We don't roll back on this exception.
 				// Will still roll back if TransactionStatus.isRollbackOnly() is true.
+				boolean rollbackOnly = (txInfo.recording != null && txInfo.getTransactionStatus().isRollbackOnly());
 				try {
 					txInfo.getTransactionManager().commit(txInfo.getTransactionStatus());
 				}
 				catch (TransactionSystemException ex2) {
 					logger.error("Application exception overridden by commit exception", ex);
 					ex2.initApplicationException(ex);
+					txInfo.endRecording(TransactionOutcome.UNKNOWN, ex2);
 					throw ex2;
 				}
 				catch (RuntimeException | Error ex2) {
 					logger.error("Application exception overridden by commit exception", ex);
+					txInfo.endRecording(ex2 instanceof UnexpectedRollbackException ?
+							TransactionOutcome.ROLLED_BACK : TransactionOutcome.UNKNOWN, ex2);
 					throw ex2;
 				}
+				txInfo.endRecording(rollbackOnly ? TransactionOutcome.ROLLED_BACK : TransactionOutcome.COMMITTED, null);
 			}
 		}
 	}
@@ -732,6 +837,9 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 		@Nullable
 		private TransactionInfo oldTransactionInfo;
 
+		@Nullable
+		private TransactionRecording recording;
+
 		public TransactionInfo(@Nullable PlatformTransactionManager transactionManager,
 				@Nullable TransactionAttribute transactionAttribute, String joinpointIdentification) {
 
@@ -788,6 +896,14 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 			transactionInfoHolder.set(this.oldTransactionInfo);
 		}
 
+		private void endRecording(TransactionOutcome outcome, @Nullable Throwable cause) {
+			TransactionRecording recording = this.recording;
+			if (recording != null) {
+				this.recording = null;
+				recording.end(outcome, cause);
+			}
+		}
+
 		@Override
 		public String toString() {
 			return (this.transactionAttribute != null ? this.transactionAttribute.toString() : "No transaction");
@@ -823,6 +939,33 @@ public abstract class TransactionAspectSupport implements BeanFactoryAware, Init
 	}
 
 
+	/**
+	 * TransactionAttribute with a given name, for an attribute without specified name.
+	 */
+	@SuppressWarnings("serial")
+	private static class NamedTransactionAttribute extends DelegatingTransactionAttribute {
+
+		private final TransactionAttribute targetAttribute;
+
+		private final String name;
+
+		public NamedTransactionAttribute(TransactionAttribute targetAttribute, String name) {
+			super(targetAttribute);
+			this.targetAttribute = targetAttribute;
+			this.name = name;
+		}
+
+		@Override
+		public String getName() {
+			return this.name;
+		}
+
+		public boolean matches(TransactionAttribute targetAttribute, String name) {
+			return (this.targetAttribute == targetAttribute && this.name.equals(name));
+		}
+	}
+
+
 	/**
 	 * Internal holder class for a Throwable in a callback transaction model.
 	 */
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.metrics;
+
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.TransactionDefinition;
+
+/**
+ * Default "no op" {@code TransactionRecorder} implementation.
+ *
+ * <p>This variant is designed for minimal overhead and does not record events.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ */
+class DefaultTransactionRecorder implements TransactionRecorder {
+
+	private static final TransactionRecording NO_OP_RECORDING = new DefaultTransactionRecording();
+
+
+	@Override
+	public TransactionRecording startTransaction(TransactionDefinition definition, int depth) {
+		return NO_OP_RECORDING;
+	}
+
+	@Override
+	public TransactionRecording startMethod(String methodIdentification, TransactionDefinition definition, int depth) {
+		return NO_OP_RECORDING;
+	}
+
+
+	private static class DefaultTransactionRecording implements TransactionRecording {
+
+		@Override
+		public void resourceAcquired() {
+		}
+
+		@Override
+		public void suspended() {
+		}
+
+		@Override
+		public void resumed() {
+		}
+
+		@Override
+		public void end(TransactionOutcome outcome, @Nullable Throwable cause) {
+		}
+	}
+
+}
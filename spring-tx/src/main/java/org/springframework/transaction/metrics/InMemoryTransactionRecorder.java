@@ -0,0 +1,313 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.metrics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.TransactionDefinition;
+
+/**
+ * {@link TransactionRecorder} implementation which aggregates transaction
+ * metrics in memory, keyed by transaction name for transactions and by
+ * method identification for transactional method invocations.
+ * <p>Aggregation is lock-free: each {@link Statistics} instance is based on
+ * {@link LongAdder} and {@link LongAccumulator} counters, suitable for highly
+ * concurrent updates with occasional reads from a monitoring endpoint.
+ * Unnamed transactions are aggregated under an empty name.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ */
+public class InMemoryTransactionRecorder implements TransactionRecorder {
+
+	private final ConcurrentMap<String, Statistics> transactionStatistics = new ConcurrentHashMap<>(64);
+
+	private final ConcurrentMap<String, Statistics> methodStatistics = new ConcurrentHashMap<>(64);
+
+
+	@Override
+	public TransactionRecording startTransaction(TransactionDefinition definition, int depth) {
+		String name = definition.getName();
+		return new InMemoryTransactionRecording(
+				getStatistics(this.transactionStatistics, (name != null ? name : "")), depth);
+	}
+
+	@Override
+	public TransactionRecording startMethod(String methodIdentification, TransactionDefinition definition, int depth) {
+		return new InMemoryTransactionRecording(getStatistics(this.methodStatistics, methodIdentification), depth);
+	}
+
+	private static Statistics getStatistics(ConcurrentMap<String, Statistics> statisticsMap, String key) {
+		Statistics statistics = statisticsMap.get(key);
+		if (statistics == null) {
+			statistics = statisticsMap.computeIfAbsent(key, k -> new Statistics());
+		}
+		return statistics;
+	}
+
+	/**
+	 * Return the statistics for transactions, keyed by transaction name.
+	 * @return an unmodifiable live view of the statistics
+	 */
+	public Map<String, Statistics> getTransactionStatistics() {
+		return Collections.unmodifiableMap(this.transactionStatistics);
+	}
+
+	/**
+	 * Return the statistics for the given transaction name, if any.
+	 * @param name the transaction name (or {@code null} for unnamed transactions)
+	 */
+	@Nullable
+	public Statistics getTransactionStatistics(@Nullable String name) {
+		return this.transactionStatistics.get(name != null ? name : "");
+	}
+
+	/**
+	 * Return the statistics for transactional methods, keyed by method identification.
+	 * @return an unmodifiable live view of the statistics
+	 */
+	public Map<String, Statistics> getMethodStatistics() {
+		return Collections.unmodifiableMap(this.methodStatistics);
+	}
+
+	/**
+	 * Return the statistics for the given method identification, if any.
+	 * @param methodIdentification the method identification
+	 * (typically the fully qualified method name)
+	 */
+	@Nullable
+	public Statistics getMethodStatistics(String methodIdentification) {
+		return this.methodStatistics.get(methodIdentification);
+	}
+
+	/**
+	 * Reset all statistics collected so far.
+	 * <p>Recordings in progress will still be reported to their
+	 * previous statistics instances, which are not visible anymore.
+	 */
+	public void reset() {
+		this.transactionStatistics.clear();
+		this.methodStatistics.clear();
+	}
+
+
+	/**
+	 * Aggregated statistics for a specific transaction name or method.
+	 */
+	public static final class Statistics {
+
+		private final LongAdder count = new LongAdder();
+
+		private final LongAdder commitCount = new LongAdder();
+
+		private final LongAdder rollbackCount = new LongAdder();
+
+		private final LongAdder unknownOutcomeCount = new LongAdder();
+
+		private final LongAdder suspensionCount = new LongAdder();
+
+		private final LongAdder totalTimeNanos = new LongAdder();
+
+		private final LongAccumulator maxTimeNanos = new LongAccumulator(Math::max, 0);
+
+		private final LongAdder resourceAcquisitionCount = new LongAdder();
+
+		private final LongAdder resourceAcquisitionTimeNanos = new LongAdder();
+
+		private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+
+		private final ConcurrentMap<String, LongAdder> rollbackCauses = new ConcurrentHashMap<>(8);
+
+		Statistics() {
+		}
+
+		void record(TransactionOutcome outcome, @Nullable Throwable cause, long timeNanos,
+				long resourceAcquisitionTimeNanos, int suspensionCount, int depth) {
+
+			this.count.increment();
+			switch (outcome) {
+				case COMMITTED:
+					this.commitCount.increment();
+					break;
+				case ROLLED_BACK:
+					this.rollbackCount.increment();
+					break;
+				default:
+					this.unknownOutcomeCount.increment();
+			}
+			if (cause != null) {
+				this.rollbackCauses.computeIfAbsent(cause.getClass().getName(), k -> new LongAdder()).increment();
+			}
+			this.totalTimeNanos.add(timeNanos);
+			this.maxTimeNanos.accumulate(timeNanos);
+			if (resourceAcquisitionTimeNanos >= 0) {
+				this.resourceAcquisitionCount.increment();
+				this.resourceAcquisitionTimeNanos.add(resourceAcquisitionTimeNanos);
+			}
+			if (suspensionCount > 0) {
+				this.suspensionCount.add(suspensionCount);
+			}
+			this.maxDepth.accumulate(depth);
+		}
+
+		/**
+		 * Return the number of completed recordings.
+		 */
+		public long getCount() {
+			return this.count.sum();
+		}
+
+		/**
+		 * Return the number of committed transactions.
+		 */
+		public long getCommitCount() {
+			return this.commitCount.sum();
+		}
+
+		/**
+		 * Return the number of rolled back transactions.
+		 */
+		public long getRollbackCount() {
+			return this.rollbackCount.sum();
+		}
+
+		/**
+		 * Return the number of transactions with an unknown outcome,
+		 * e.g. due to a failed commit attempt.
+		 */
+		public long getUnknownOutcomeCount() {
+			return this.unknownOutcomeCount.sum();
+		}
+
+		/**
+		 * Return the number of suspensions in favor of inner transactions.
+		 */
+		public long getSuspensionCount() {
+			return this.suspensionCount.sum();
+		}
+
+		/**
+		 * Return the total time of all completed recordings, in nanoseconds.
+		 */
+		public long getTotalTimeNanos() {
+			return this.totalTimeNanos.sum();
+		}
+
+		/**
+		 * Return the average time of the completed recordings, in nanoseconds.
+		 */
+		public long getAverageTimeNanos() {
+			long count = this.count.sum();
+			return (count > 0 ? this.totalTimeNanos.sum() / count : 0);
+		}
+
+		/**
+		 * Return the maximum time of a single completed recording, in nanoseconds.
+		 */
+		public long getMaxTimeNanos() {
+			return this.maxTimeNanos.get();
+		}
+
+		/**
+		 * Return the average time-to-first-resource, in nanoseconds:
+		 * that is, the time between the start of a transaction and the
+		 * acquisition of its transactional resource (e.g. JDBC Connection).
+		 */
+		public long getAverageResourceAcquisitionTimeNanos() {
+			long count = this.resourceAcquisitionCount.sum();
+			return (count > 0 ? this.resourceAcquisitionTimeNanos.sum() / count : 0);
+		}
+
+		/**
+		 * Return the maximum nesting depth encountered.
+		 */
+		public int getMaxDepth() {
+			return (int) this.maxDepth.get();
+		}
+
+		/**
+		 * Return the number of occurrences per rollback cause,
+		 * keyed by exception class name.
+		 * @return a snapshot of the rollback causes
+		 */
+		public Map<String, Long> getRollbackCauses() {
+			Map<String, Long> result = new LinkedHashMap<>(this.rollbackCauses.size());
+			this.rollbackCauses.forEach((key, value) -> result.put(key, value.sum()));
+			return result;
+		}
+
+		@Override
+		public String toString() {
+			return "count=" + getCount() + ", committed=" + getCommitCount() + ", rolledBack=" +
+					getRollbackCount() + ", unknown=" + getUnknownOutcomeCount() + ", avgTimeNanos=" +
+					getAverageTimeNanos() + ", maxTimeNanos=" + getMaxTimeNanos();
+		}
+	}
+
+
+	/**
+	 * Recording for a single transaction or method invocation,
+	 * reporting to its {@link Statistics} on completion.
+	 */
+	private static class InMemoryTransactionRecording implements TransactionRecording {
+
+		private final Statistics statistics;
+
+		private final int depth;
+
+		private final long startTime = System.nanoTime();
+
+		private long resourceAcquisitionTime = -1;
+
+		private int suspensionCount;
+
+		InMemoryTransactionRecording(Statistics statistics, int depth) {
+			this.statistics = statistics;
+			this.depth = depth;
+		}
+
+		@Override
+		public void resourceAcquired() {
+			if (this.resourceAcquisitionTime < 0) {
+				this.resourceAcquisitionTime = System.nanoTime() - this.startTime;
+			}
+		}
+
+		@Override
+		public void suspended() {
+			this.suspensionCount++;
+		}
+
+		@Override
+		public void resumed() {
+		}
+
+		@Override
+		public void end(TransactionOutcome outcome, @Nullable Throwable cause) {
+			this.statistics.record(outcome, cause, System.nanoTime() - this.startTime,
+					this.resourceAcquisitionTime, this.suspensionCount, this.depth);
+		}
+	}
+
+}
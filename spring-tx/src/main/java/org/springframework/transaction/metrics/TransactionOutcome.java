@@ -0,0 +1,44 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.metrics;
+
+/**
+ * Enumeration of the outcomes reported for a {@link TransactionRecording}.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ * @see TransactionRecording#end
+ */
+public enum TransactionOutcome {
+
+	/**
+	 * The transaction has been committed.
+	 */
+	COMMITTED,
+
+	/**
+	 * The transaction has been rolled back, either explicitly or
+	 * due to a rollback-only marker or a rollback rule match.
+	 */
+	ROLLED_BACK,
+
+	/**
+	 * The outcome is unknown, typically due to a failed commit or rollback attempt.
+	 */
+	UNKNOWN
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.metrics;
+
+import org.springframework.transaction.TransactionDefinition;
+
+/**
+ * Instruments transaction demarcation through {@link TransactionRecording recordings}.
+ * <p>Transaction managers and transaction interceptors can use a {@code TransactionRecorder}
+ * to report the beginning, suspension and completion of transactions, collecting data
+ * about their timing and outcome.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ * @see org.springframework.transaction.support.AbstractPlatformTransactionManager#setTransactionRecorder
+ * @see org.springframework.transaction.interceptor.TransactionAspectSupport#setTransactionRecorder
+ * @see InMemoryTransactionRecorder
+ * @see org.springframework.transaction.metrics.jfr.FlightRecorderTransactionRecorder
+ */
+public interface TransactionRecorder {
+
+	/**
+	 * Default "no op" {@code TransactionRecorder} implementation.
+	 * <p>This variant is designed for minimal overhead and does not record data.
+	 * Transaction managers and interceptors detect this instance and skip any
+	 * recording-related work (including timestamps) for it.
+	 */
+	TransactionRecorder DEFAULT = new DefaultTransactionRecorder();
+
+	/**
+	 * Start a new recording for a transaction begun by a transaction manager.
+	 * <p>This covers new transactions as well as nested transactions
+	 * (savepoints) but not participation in existing transactions.
+	 * @param definition the definition of the transaction
+	 * (with {@link TransactionDefinition#getName()} as the transaction name)
+	 * @param depth the nesting depth of the transaction on the current thread:
+	 * 0 for an outermost transaction, 1 for a transaction started while another
+	 * transaction is suspended or holds a savepoint, etc
+	 * @return the recording for the transaction, to be ended on completion
+	 */
+	TransactionRecording startTransaction(TransactionDefinition definition, int depth);
+
+	/**
+	 * Start a new recording for a transactional method invocation.
+	 * <p>This covers all transactional invocations, whether beginning
+	 * a new transaction or participating in an existing transaction.
+	 * @param methodIdentification the identification of the method
+	 * (typically its fully qualified name)
+	 * @param definition the definition of the method's transaction
+	 * @param depth the nesting depth of the method on the current thread:
+	 * 0 for an outermost transactional method, 1 for a transactional method
+	 * invoked from within another transactional method, etc
+	 * @return the recording for the invocation, to be ended on completion
+	 */
+	TransactionRecording startMethod(String methodIdentification, TransactionDefinition definition, int depth);
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.metrics;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Recording of a single transaction or transactional method invocation,
+ * as started by a {@link TransactionRecorder}.
+ * <p>A recording is confined to the thread that started it and is expected
+ * to be {@link #end ended} exactly once.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ * @see TransactionRecorder#startTransaction
+ * @see TransactionRecorder#startMethod
+ */
+public interface TransactionRecording {
+
+	/**
+	 * Mark the acquisition of the transactional resource,
+	 * e.g. the JDBC Connection bound for the transaction.
+	 * <p>The time between the start of the recording and this call
+	 * is reported as time-to-first-resource.
+	 */
+	void resourceAcquired();
+
+	/**
+	 * Mark the suspension of the transaction, e.g. for an inner
+	 * transaction with propagation {@code REQUIRES_NEW}.
+	 */
+	void suspended();
+
+	/**
+	 * Mark the resumption of a previously suspended transaction.
+	 */
+	void resumed();
+
+	/**
+	 * Mark the end of the recording.
+	 * @param outcome the outcome of the transaction
+	 * @param cause the exception that caused a rollback or an unknown outcome, if any
+	 */
+	void end(TransactionOutcome outcome, @Nullable Throwable cause);
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.metrics.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Timespan;
+
+/**
+ * {@link Event} extension for recording {@link FlightRecorderTransactionRecording}
+ * in Java Flight Recorder.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ */
+@Category("Spring Application")
+@Label("Transaction")
+@Description("Spring Transaction Demarcation")
+class FlightRecorderTransactionEvent extends Event {
+
+	@Label("Kind")
+	public final String kind;
+
+	@Label("Name")
+	public final String name;
+
+	@Label("Read-only")
+	public final boolean readOnly;
+
+	@Label("Depth")
+	public final int depth;
+
+	@Label("Time to First Resource")
+	@Timespan(Timespan.NANOSECONDS)
+	long resourceAcquisitionTime = -1;
+
+	@Label("Suspensions")
+	int suspensionCount;
+
+	@Label("Outcome")
+	String outcome = "";
+
+	@Label("Rollback Cause")
+	String rollbackCause = "";
+
+	public FlightRecorderTransactionEvent(String kind, String name, boolean readOnly, int depth) {
+		this.kind = kind;
+		this.name = name;
+		this.readOnly = readOnly;
+		this.depth = depth;
+	}
+
+}
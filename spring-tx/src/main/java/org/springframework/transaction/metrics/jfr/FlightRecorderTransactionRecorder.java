@@ -0,0 +1,49 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.metrics.jfr;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.metrics.TransactionRecorder;
+import org.springframework.transaction.metrics.TransactionRecording;
+
+/**
+ * {@link TransactionRecorder} implementation for the Java Flight Recorder.
+ * <p>This variant records transactions and transactional method invocations
+ * as Flight Recorder events, distinguished by their "kind" attribute.
+ * <p>Once this is configured on the transaction manager and/or transaction
+ * interceptor, you can record data by launching the application with recording
+ * enabled: {@code java -XX:StartFlightRecording:filename=recording.jfr,duration=10s -jar app.jar}.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ */
+public class FlightRecorderTransactionRecorder implements TransactionRecorder {
+
+	@Override
+	public TransactionRecording startTransaction(TransactionDefinition definition, int depth) {
+		String name = definition.getName();
+		return new FlightRecorderTransactionRecording(
+				"transaction", (name != null ? name : ""), definition.isReadOnly(), depth);
+	}
+
+	@Override
+	public TransactionRecording startMethod(String methodIdentification, TransactionDefinition definition, int depth) {
+		return new FlightRecorderTransactionRecording(
+				"method", methodIdentification, definition.isReadOnly(), depth);
+	}
+
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.metrics.jfr;
+
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.metrics.TransactionOutcome;
+import org.springframework.transaction.metrics.TransactionRecording;
+
+/**
+ * {@link TransactionRecording} implementation for the Java Flight Recorder.
+ * <p>This variant delegates to a {@link FlightRecorderTransactionEvent JFR event extension}
+ * to collect and record data in Java Flight Recorder.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ */
+class FlightRecorderTransactionRecording implements TransactionRecording {
+
+	private final FlightRecorderTransactionEvent event;
+
+	private final long startTime = System.nanoTime();
+
+
+	public FlightRecorderTransactionRecording(String kind, String name, boolean readOnly, int depth) {
+		this.event = new FlightRecorderTransactionEvent(kind, name, readOnly, depth);
+		this.event.begin();
+	}
+
+
+	@Override
+	public void resourceAcquired() {
+		if (this.event.resourceAcquisitionTime < 0) {
+			this.event.resourceAcquisitionTime = System.nanoTime() - this.startTime;
+		}
+	}
+
+	@Override
+	public void suspended() {
+		this.event.suspensionCount++;
+	}
+
+	@Override
+	public void resumed() {
+	}
+
+	@Override
+	public void end(TransactionOutcome outcome, @Nullable Throwable cause) {
+		this.event.end();
+		if (this.event.shouldCommit()) {
+			this.event.outcome = outcome.name();
+			if (cause != null) {
+				this.event.rollbackCause = cause.getClass().getName();
+			}
+			this.event.commit();
+		}
+	}
+
+	protected FlightRecorderTransactionEvent getEvent() {
+		return this.event;
+	}
+
+}
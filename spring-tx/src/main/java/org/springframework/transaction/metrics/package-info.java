@@ -0,0 +1,10 @@
+/**
+ * Support package for recording metrics about transaction demarcation:
+ * timing and outcome of transactions and transactional method invocations.
+ */
+@NonNullApi
+@NonNullFields
+package org.springframework.transaction.metrics;
+
+import org.springframework.lang.NonNullApi;
+import org.springframework.lang.NonNullFields;
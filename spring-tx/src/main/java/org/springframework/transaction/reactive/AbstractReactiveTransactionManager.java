@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -98,67 +98,86 @@ public abstract class AbstractReactiveTransactionManager implements ReactiveTran
 	public final Mono<ReactiveTransaction> getReactiveTransaction(@Nullable TransactionDefinition definition)
 			throws TransactionException {
 
+		return TransactionSynchronizationManager.forCurrentTransaction()
+				.flatMap(synchronizationManager -> getReactiveTransaction(synchronizationManager, definition));
+	}
+
+	/**
+	 * Variant of {@link #getReactiveTransaction(TransactionDefinition)} for a
+	 * synchronization manager that the caller has obtained for the current
+	 * transaction context already, avoiding a repeated context lookup.
+	 * <p>To be called at subscription time, e.g. within a {@code flatMap}.
+	 * @since 5.3.5
+	 * @see TransactionalOperatorImpl
+	 */
+	Mono<ReactiveTransaction> getReactiveTransaction(TransactionSynchronizationManager synchronizationManager,
+			@Nullable TransactionDefinition definition) throws TransactionException {
+
 		// Use defaults if no transaction definition given.
 		TransactionDefinition def = (definition != null ? definition : TransactionDefinition.withDefaults());
 
-		return TransactionSynchronizationManager.forCurrentTransaction()
-				.flatMap(synchronizationManager -> {
+		Object transaction = doGetTransaction(synchronizationManager);
 
-			Object transaction = doGetTransaction(synchronizationManager);
+		// Cache debug flag to avoid repeated checks.
+		boolean debugEnabled = logger.isDebugEnabled();
 
-			// Cache debug flag to avoid repeated checks.
-			boolean debugEnabled = logger.isDebugEnabled();
-
-			if (isExistingTransaction(transaction)) {
-				// Existing transaction found -> check propagation behavior to find out how to behave.
-				return handleExistingTransaction(synchronizationManager, def, transaction, debugEnabled);
-			}
+		if (isExistingTransaction(transaction)) {
+			// Existing transaction found -> check propagation behavior to find out how to behave.
+			return handleExistingTransaction(synchronizationManager, def, transaction, debugEnabled);
+		}
 
-			// Check definition settings for new transaction.
-			if (def.getTimeout() < TransactionDefinition.TIMEOUT_DEFAULT) {
-				return Mono.error(new InvalidTimeoutException("Invalid transaction timeout", def.getTimeout()));
-			}
+		// Check definition settings for new transaction.
+		if (def.getTimeout() < TransactionDefinition.TIMEOUT_DEFAULT) {
+			return Mono.error(new InvalidTimeoutException("Invalid transaction timeout", def.getTimeout()));
+		}
 
-			// No existing transaction found -> check propagation behavior to find out how to proceed.
-			if (def.getPropagationBehavior() == TransactionDefinition.PROPAGATION_MANDATORY) {
-				return Mono.error(new IllegalTransactionStateException(
-						"No existing transaction found for transaction marked with propagation 'mandatory'"));
-			}
-			else if (def.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRED ||
-					def.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW ||
-					def.getPropagationBehavior() == TransactionDefinition.PROPAGATION_NESTED) {
-
-				return TransactionContextManager.currentContext()
-						.map(TransactionSynchronizationManager::new)
-						.flatMap(nestedSynchronizationManager ->
-								suspend(nestedSynchronizationManager, null)
-								.map(Optional::of)
-								.defaultIfEmpty(Optional.empty())
-								.flatMap(suspendedResources -> {
-							if (debugEnabled) {
-								logger.debug("Creating new transaction with name [" + def.getName() + "]: " + def);
-							}
-							return Mono.defer(() -> {
-								GenericReactiveTransaction status = newReactiveTransaction(
-										nestedSynchronizationManager, def, transaction, true,
-										debugEnabled, suspendedResources.orElse(null));
-								return doBegin(nestedSynchronizationManager, transaction, def)
-										.doOnSuccess(ignore -> prepareSynchronization(nestedSynchronizationManager, status, def))
-										.thenReturn(status);
-							}).onErrorResume(ErrorPredicates.RUNTIME_OR_ERROR,
-									ex -> resume(nestedSynchronizationManager, null, suspendedResources.orElse(null))
-									.then(Mono.error(ex)));
-						}));
+		// No existing transaction found -> check propagation behavior to find out how to proceed.
+		if (def.getPropagationBehavior() == TransactionDefinition.PROPAGATION_MANDATORY) {
+			return Mono.error(new IllegalTransactionStateException(
+					"No existing transaction found for transaction marked with propagation 'mandatory'"));
+		}
+		else if (def.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRED ||
+				def.getPropagationBehavior() == TransactionDefinition.PROPAGATION_REQUIRES_NEW ||
+				def.getPropagationBehavior() == TransactionDefinition.PROPAGATION_NESTED) {
+
+			if (!synchronizationManager.isSynchronizationActive()) {
+				// Nothing to suspend -> begin right away, without further operators.
+				if (debugEnabled) {
+					logger.debug("Creating new transaction with name [" + def.getName() + "]: " + def);
+				}
+				GenericReactiveTransaction status = newReactiveTransaction(
+						synchronizationManager, def, transaction, true, debugEnabled, null);
+				return doBegin(synchronizationManager, transaction, def)
+						.doOnSuccess(ignore -> prepareSynchronization(synchronizationManager, status, def))
+						.thenReturn(status);
 			}
-			else {
-				// Create "empty" transaction: no actual transaction, but potentially synchronization.
-				if (def.getIsolationLevel() != TransactionDefinition.ISOLATION_DEFAULT && logger.isWarnEnabled()) {
-					logger.warn("Custom isolation level specified but no actual transaction initiated; " +
-							"isolation level will effectively be ignored: " + def);
+			return suspend(synchronizationManager, null)
+					.map(Optional::of)
+					.defaultIfEmpty(Optional.empty())
+					.flatMap(suspendedResources -> {
+				if (debugEnabled) {
+					logger.debug("Creating new transaction with name [" + def.getName() + "]: " + def);
 				}
-				return Mono.just(prepareReactiveTransaction(synchronizationManager, def, null, true, debugEnabled, null));
+				return Mono.defer(() -> {
+					GenericReactiveTransaction status = newReactiveTransaction(
+							synchronizationManager, def, transaction, true,
+							debugEnabled, suspendedResources.orElse(null));
+					return doBegin(synchronizationManager, transaction, def)
+							.doOnSuccess(ignore -> prepareSynchronization(synchronizationManager, status, def))
+							.thenReturn(status);
+				}).onErrorResume(ErrorPredicates.RUNTIME_OR_ERROR,
+						ex -> resume(synchronizationManager, null, suspendedResources.orElse(null))
+						.then(Mono.error(ex)));
+			});
+		}
+		else {
+			// Create "empty" transaction: no actual transaction, but potentially synchronization.
+			if (def.getIsolationLevel() != TransactionDefinition.ISOLATION_DEFAULT && logger.isWarnEnabled()) {
+				logger.warn("Custom isolation level specified but no actual transaction initiated; " +
+						"isolation level will effectively be ignored: " + def);
 			}
-		});
+			return Mono.just(prepareReactiveTransaction(synchronizationManager, def, null, true, debugEnabled, null));
+		}
 	}
 
 	/**
@@ -405,20 +424,32 @@ public abstract class AbstractReactiveTransactionManager implements ReactiveTran
 	@Override
 	public final Mono<Void> commit(ReactiveTransaction transaction) throws TransactionException {
 		if (transaction.isCompleted()) {
-			return Mono.error(new IllegalTransactionStateException(
-					"Transaction is already completed - do not call commit or rollback more than once per transaction"));
+			return alreadyCompleted();
 		}
+		return TransactionSynchronizationManager.forCurrentTransaction()
+				.flatMap(synchronizationManager -> commit(synchronizationManager, transaction));
+	}
 
-		return TransactionSynchronizationManager.forCurrentTransaction().flatMap(synchronizationManager -> {
-			GenericReactiveTransaction reactiveTx = (GenericReactiveTransaction) transaction;
-			if (reactiveTx.isRollbackOnly()) {
-				if (reactiveTx.isDebug()) {
-					logger.debug("Transactional code has requested rollback");
-				}
-				return processRollback(synchronizationManager, reactiveTx);
+	/**
+	 * Variant of {@link #commit(ReactiveTransaction)} for a synchronization manager
+	 * that the caller has obtained for the current transaction context already.
+	 * @since 5.3.5
+	 * @see #getReactiveTransaction(TransactionSynchronizationManager, TransactionDefinition)
+	 */
+	Mono<Void> commit(TransactionSynchronizationManager synchronizationManager, ReactiveTransaction transaction)
+			throws TransactionException {
+
+		if (transaction.isCompleted()) {
+			return alreadyCompleted();
+		}
+		GenericReactiveTransaction reactiveTx = (GenericReactiveTransaction) transaction;
+		if (reactiveTx.isRollbackOnly()) {
+			if (reactiveTx.isDebug()) {
+				logger.debug("Transactional code has requested rollback");
 			}
-			return processCommit(synchronizationManager, reactiveTx);
-		});
+			return processRollback(synchronizationManager, reactiveTx);
+		}
+		return processCommit(synchronizationManager, reactiveTx);
 	}
 
 	/**
@@ -489,13 +520,30 @@ public abstract class AbstractReactiveTransactionManager implements ReactiveTran
 	@Override
 	public final Mono<Void> rollback(ReactiveTransaction transaction) throws TransactionException {
 		if (transaction.isCompleted()) {
-			return Mono.error(new IllegalTransactionStateException(
-					"Transaction is already completed - do not call commit or rollback more than once per transaction"));
+			return alreadyCompleted();
 		}
-		return TransactionSynchronizationManager.forCurrentTransaction().flatMap(synchronizationManager -> {
-			GenericReactiveTransaction reactiveTx = (GenericReactiveTransaction) transaction;
-			return processRollback(synchronizationManager, reactiveTx);
-		});
+		return TransactionSynchronizationManager.forCurrentTransaction()
+				.flatMap(synchronizationManager -> rollback(synchronizationManager, transaction));
+	}
+
+	/**
+	 * Variant of {@link #rollback(ReactiveTransaction)} for a synchronization manager
+	 * that the caller has obtained for the current transaction context already.
+	 * @since 5.3.5
+	 * @see #getReactiveTransaction(TransactionSynchronizationManager, TransactionDefinition)
+	 */
+	Mono<Void> rollback(TransactionSynchronizationManager synchronizationManager, ReactiveTransaction transaction)
+			throws TransactionException {
+
+		if (transaction.isCompleted()) {
+			return alreadyCompleted();
+		}
+		return processRollback(synchronizationManager, (GenericReactiveTransaction) transaction);
+	}
+
+	private static Mono<Void> alreadyCompleted() {
+		return Mono.error(new IllegalTransactionStateException(
+				"Transaction is already completed - do not call commit or rollback more than once per transaction"));
 	}
 
 	/**
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -40,7 +40,8 @@ public class TransactionContext {
 
 	private final @Nullable TransactionContext parent;
 
-	private final UUID contextId = UUID.randomUUID();
+	@Nullable
+	private volatile UUID contextId;
 
 	private final Map<Object, Object> resources = new LinkedHashMap<>();
 
@@ -72,13 +73,29 @@ public class TransactionContext {
 
 	public String getName() {
 		if (StringUtils.hasText(this.currentTransactionName)) {
-			return this.contextId + ": " + this.currentTransactionName;
+			return getContextId() + ": " + this.currentTransactionName;
 		}
-		return this.contextId.toString();
+		return getContextId().toString();
 	}
 
+	/**
+	 * Return the unique id of this context.
+	 * <p>Lazily generated on first access, since random UUID generation
+	 * is comparatively expensive and only needed for logging purposes
+	 * in common scenarios.
+	 */
 	public UUID getContextId() {
-		return this.contextId;
+		UUID contextId = this.contextId;
+		if (contextId == null) {
+			synchronized (this) {
+				contextId = this.contextId;
+				if (contextId == null) {
+					contextId = UUID.randomUUID();
+					this.contextId = contextId;
+				}
+			}
+		}
+		return contextId;
 	}
 
 	public Map<Object, Object> getResources() {
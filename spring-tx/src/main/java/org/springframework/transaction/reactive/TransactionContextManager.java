@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -37,6 +37,27 @@ import org.springframework.transaction.NoTransactionException;
  */
 public abstract class TransactionContextManager {
 
+	private static final Function<Context, Context> GET_OR_CREATE_CONTEXT = context -> {
+		TransactionContextHolder holder = context.get(TransactionContextHolder.class);
+		if (holder.hasContext()) {
+			TransactionContext currentContext = holder.currentContext();
+			// Nested transactional flow: avoid a Context copy if already registered.
+			if (context.getOrDefault(TransactionContext.class, null) == currentContext) {
+				return context;
+			}
+			return context.put(TransactionContext.class, currentContext);
+		}
+		return context.put(TransactionContext.class, holder.createContext());
+	};
+
+	private static final Function<Context, Context> GET_OR_CREATE_CONTEXT_HOLDER = context -> {
+		if (!context.hasKey(TransactionContextHolder.class)) {
+			return context.put(TransactionContextHolder.class, new TransactionContextHolder(new ArrayDeque<>()));
+		}
+		return context;
+	};
+
+
 	private TransactionContextManager() {
 	}
 
@@ -83,13 +104,7 @@ public abstract class TransactionContextManager {
 	 * @return functional context registration.
 	 */
 	public static Function<Context, Context> getOrCreateContext() {
-		return context -> {
-			TransactionContextHolder holder = context.get(TransactionContextHolder.class);
-			if (holder.hasContext()) {
-				return context.put(TransactionContext.class, holder.currentContext());
-			}
-			return context.put(TransactionContext.class, holder.createContext());
-		};
+		return GET_OR_CREATE_CONTEXT;
 	}
 
 	/**
@@ -101,12 +116,7 @@ public abstract class TransactionContextManager {
 	 * @return functional context registration.
 	 */
 	public static Function<Context, Context> getOrCreateContextHolder() {
-		return context -> {
-			if (!context.hasKey(TransactionContextHolder.class)) {
-				return context.put(TransactionContextHolder.class, new TransactionContextHolder(new ArrayDeque<>()));
-			}
-			return context;
-		};
+		return GET_OR_CREATE_CONTEXT_HOLDER;
 	}
 
 
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -47,6 +47,9 @@ final class TransactionalOperatorImpl implements TransactionalOperator {
 
 	private final TransactionDefinition transactionDefinition;
 
+	@Nullable
+	private final AbstractReactiveTransactionManager abstractTransactionManager;
+
 
 	/**
 	 * Construct a new TransactionTemplate using the given transaction manager,
@@ -60,6 +63,8 @@ final class TransactionalOperatorImpl implements TransactionalOperator {
 		Assert.notNull(transactionManager, "TransactionDefinition must not be null");
 		this.transactionManager = transactionManager;
 		this.transactionDefinition = transactionDefinition;
+		this.abstractTransactionManager = (transactionManager instanceof AbstractReactiveTransactionManager ?
+				(AbstractReactiveTransactionManager) transactionManager : null);
 	}
 
 
@@ -73,14 +78,16 @@ final class TransactionalOperatorImpl implements TransactionalOperator {
 	@Override
 	public <T> Mono<T> transactional(Mono<T> mono) {
 		return TransactionContextManager.currentContext().flatMap(context -> {
-			Mono<ReactiveTransaction> status = this.transactionManager.getReactiveTransaction(this.transactionDefinition);
+			TransactionSynchronizationManager synchronizationManager = new TransactionSynchronizationManager(context);
+			Mono<ReactiveTransaction> status = getReactiveTransaction(synchronizationManager);
 			// This is an around advice: Invoke the next interceptor in the chain.
 			// This will normally result in a target object being invoked.
 			// Need re-wrapping of ReactiveTransaction until we get hold of the exception
 			// through usingWhen.
 			return status.flatMap(it -> Mono.usingWhen(Mono.just(it), ignore -> mono,
-					this.transactionManager::commit, (res, err) -> Mono.empty(), this.transactionManager::rollback)
-					.onErrorResume(ex -> rollbackOnException(it, ex).then(Mono.error(ex))));
+					tx -> commit(synchronizationManager, tx), (res, err) -> Mono.empty(),
+					tx -> rollback(synchronizationManager, tx))
+					.onErrorResume(ex -> rollbackOnException(synchronizationManager, it, ex).then(Mono.error(ex))));
 		})
 		.contextWrite(TransactionContextManager.getOrCreateContext())
 		.contextWrite(TransactionContextManager.getOrCreateContextHolder());
@@ -89,7 +96,8 @@ final class TransactionalOperatorImpl implements TransactionalOperator {
 	@Override
 	public <T> Flux<T> execute(TransactionCallback<T> action) throws TransactionException {
 		return TransactionContextManager.currentContext().flatMapMany(context -> {
-			Mono<ReactiveTransaction> status = this.transactionManager.getReactiveTransaction(this.transactionDefinition);
+			TransactionSynchronizationManager synchronizationManager = new TransactionSynchronizationManager(context);
+			Mono<ReactiveTransaction> status = getReactiveTransaction(synchronizationManager);
 			// This is an around advice: Invoke the next interceptor in the chain.
 			// This will normally result in a target object being invoked.
 			// Need re-wrapping of ReactiveTransaction until we get hold of the exception
@@ -98,25 +106,55 @@ final class TransactionalOperatorImpl implements TransactionalOperator {
 					.usingWhen(
 							Mono.just(it),
 							action::doInTransaction,
-							this.transactionManager::commit,
+							tx -> commit(synchronizationManager, tx),
 							(tx, ex) -> Mono.empty(),
-							this.transactionManager::rollback)
+							tx -> rollback(synchronizationManager, tx))
 					.onErrorResume(ex ->
-							rollbackOnException(it, ex).then(Mono.error(ex))));
+							rollbackOnException(synchronizationManager, it, ex).then(Mono.error(ex))));
 		})
 		.contextWrite(TransactionContextManager.getOrCreateContext())
 		.contextWrite(TransactionContextManager.getOrCreateContextHolder());
 	}
 
+	/**
+	 * Obtain a transaction for the given synchronization manager: through the
+	 * {@link AbstractReactiveTransactionManager} variant for an existing context
+	 * lookup if possible, otherwise through the regular manager method.
+	 */
+	private Mono<ReactiveTransaction> getReactiveTransaction(TransactionSynchronizationManager synchronizationManager) {
+		if (this.abstractTransactionManager != null) {
+			return this.abstractTransactionManager.getReactiveTransaction(
+					synchronizationManager, this.transactionDefinition);
+		}
+		return this.transactionManager.getReactiveTransaction(this.transactionDefinition);
+	}
+
+	private Mono<Void> commit(TransactionSynchronizationManager synchronizationManager, ReactiveTransaction status) {
+		if (this.abstractTransactionManager != null) {
+			return this.abstractTransactionManager.commit(synchronizationManager, status);
+		}
+		return this.transactionManager.commit(status);
+	}
+
+	private Mono<Void> rollback(TransactionSynchronizationManager synchronizationManager, ReactiveTransaction status) {
+		if (this.abstractTransactionManager != null) {
+			return this.abstractTransactionManager.rollback(synchronizationManager, status);
+		}
+		return this.transactionManager.rollback(status);
+	}
+
 	/**
 	 * Perform a rollback, handling rollback exceptions properly.
+	 * @param synchronizationManager the synchronization manager for the current transaction context
 	 * @param status object representing the transaction
 	 * @param ex the thrown application exception or error
 	 * @throws TransactionException in case of a rollback error
 	 */
-	private Mono<Void> rollbackOnException(ReactiveTransaction status, Throwable ex) throws TransactionException {
+	private Mono<Void> rollbackOnException(TransactionSynchronizationManager synchronizationManager,
+			ReactiveTransaction status, Throwable ex) throws TransactionException {
+
 		logger.debug("Initiating transaction rollback on application exception", ex);
-		return this.transactionManager.rollback(status).onErrorMap(ex2 -> {
+		return rollback(synchronizationManager, status).onErrorMap(ex2 -> {
 					logger.error("Application exception overridden by rollback exception", ex);
 					if (ex2 instanceof TransactionSystemException) {
 						((TransactionSystemException) ex2).initApplicationException(ex);
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,12 +19,15 @@ package org.springframework.transaction.support;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Serializable;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
 import org.springframework.core.Constants;
+import org.springframework.core.NamedThreadLocal;
 import org.springframework.lang.Nullable;
 import org.springframework.transaction.IllegalTransactionStateException;
 import org.springframework.transaction.InvalidTimeoutException;
@@ -35,6 +38,10 @@ import org.springframework.transaction.TransactionException;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.TransactionSuspensionNotSupportedException;
 import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.transaction.metrics.TransactionOutcome;
+import org.springframework.transaction.metrics.TransactionRecorder;
+import org.springframework.transaction.metrics.TransactionRecording;
+import org.springframework.util.Assert;
 
 /**
  * Abstract base class that implements Spring's standard transaction workflow,
@@ -110,6 +117,10 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 	/** Constants instance for AbstractPlatformTransactionManager. */
 	private static final Constants constants = new Constants(AbstractPlatformTransactionManager.class);
 
+	/** Recordings of the transactions currently open on this thread, innermost first. */
+	private static final ThreadLocal<Deque<TransactionRecording>> currentRecordings =
+			new NamedThreadLocal<>("Current transaction recordings");
+
 
 	protected transient Log logger = LogFactory.getLog(getClass());
 
@@ -127,6 +138,8 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 
 	private boolean rollbackOnCommitFailure = false;
 
+	private transient TransactionRecorder transactionRecorder = TransactionRecorder.DEFAULT;
+
 
 	/**
 	 * Set the transaction synchronization by the name of the corresponding constant
@@ -324,6 +337,30 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 		return this.rollbackOnCommitFailure;
 	}
 
+	/**
+	 * Set the {@link TransactionRecorder} to report transactions to:
+	 * their begin, suspension and completion, along with the time-to-first-resource
+	 * (i.e. the time spent in {@code doBegin}) and the total time, their outcome
+	 * and nesting depth.
+	 * <p>Default is {@link TransactionRecorder#DEFAULT}, not recording anything
+	 * and not imposing any overhead. Note that the recorder is not serialized.
+	 * @since 5.3.5
+	 * @see org.springframework.transaction.metrics.InMemoryTransactionRecorder
+	 * @see org.springframework.transaction.metrics.jfr.FlightRecorderTransactionRecorder
+	 */
+	public final void setTransactionRecorder(TransactionRecorder transactionRecorder) {
+		Assert.notNull(transactionRecorder, "TransactionRecorder must not be null");
+		this.transactionRecorder = transactionRecorder;
+	}
+
+	/**
+	 * Return the {@link TransactionRecorder} to report transactions to.
+	 * @since 5.3.5
+	 */
+	public final TransactionRecorder getTransactionRecorder() {
+		return this.transactionRecorder;
+	}
+
 
 	//---------------------------------------------------------------------
 	// Implementation of PlatformTransactionManager
@@ -344,12 +381,17 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 		// Use defaults if no transaction definition given.
 		TransactionDefinition def = (definition != null ? definition : TransactionDefinition.withDefaults());
 
-		Object transaction = doGetTransaction();
+		Object transaction = null;
 		boolean debugEnabled = logger.isDebugEnabled();
 
-		if (isExistingTransaction(transaction)) {
-			// Existing transaction found -> check propagation behavior to find out how to behave.
-			return handleExistingTransaction(def, transaction, debugEnabled);
+		// Fast path for non-transactional propagation behaviors without any bound resource:
+		// no existing transaction possible, so no need to obtain a transaction object.
+		if (!isExistingTransactionCheckSkippable(def)) {
+			transaction = doGetTransaction();
+			if (isExistingTransaction(transaction)) {
+				// Existing transaction found -> check propagation behavior to find out how to behave.
+				return handleExistingTransaction(def, transaction, debugEnabled);
+			}
 		}
 
 		// Check definition settings for new transaction.
@@ -388,6 +430,21 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 		}
 	}
 
+	/**
+	 * Determine whether the existing transaction check can be skipped for the
+	 * given definition: for a non-transactional propagation behavior, with no
+	 * resource bound for this transaction manager's resource factory.
+	 * @see #isExistingTransactionResourceBound()
+	 */
+	private boolean isExistingTransactionCheckSkippable(TransactionDefinition definition) {
+		int propagation = definition.getPropagationBehavior();
+		return ((propagation == TransactionDefinition.PROPAGATION_SUPPORTS ||
+				propagation == TransactionDefinition.PROPAGATION_NOT_SUPPORTED ||
+				propagation == TransactionDefinition.PROPAGATION_NEVER) &&
+				this instanceof ResourceTransactionManager && isExistingTransactionResourceBound() &&
+				!TransactionSynchronizationManager.hasResource(((ResourceTransactionManager) this).getResourceFactory()));
+	}
+
 	/**
 	 * Start a new transaction.
 	 */
@@ -397,7 +454,18 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 		boolean newSynchronization = (getTransactionSynchronization() != SYNCHRONIZATION_NEVER);
 		DefaultTransactionStatus status = newTransactionStatus(
 				definition, transaction, true, newSynchronization, debugEnabled, suspendedResources);
-		doBegin(transaction, definition);
+		startRecording(status, definition);
+		try {
+			doBegin(transaction, definition);
+		}
+		catch (RuntimeException | Error ex) {
+			endRecording(status, TransactionOutcome.UNKNOWN, ex);
+			throw ex;
+		}
+		TransactionRecording recording = status.getRecording();
+		if (recording != null) {
+			recording.resourceAcquired();
+		}
 		prepareSynchronization(status, definition);
 		return status;
 	}
@@ -454,7 +522,18 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 				// Usually uses JDBC 3.0 savepoints. Never activates Spring synchronization.
 				DefaultTransactionStatus status =
 						prepareTransactionStatus(definition, transaction, false, false, debugEnabled, null);
-				status.createAndHoldSavepoint();
+				startRecording(status, definition);
+				try {
+					status.createAndHoldSavepoint();
+				}
+				catch (RuntimeException | Error ex) {
+					endRecording(status, TransactionOutcome.UNKNOWN, ex);
+					throw ex;
+				}
+				TransactionRecording recording = status.getRecording();
+				if (recording != null) {
+					recording.resourceAcquired();
+				}
 				return status;
 			}
 			else {
@@ -522,6 +601,61 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 				definition.isReadOnly(), debug, suspendedResources);
 	}
 
+	/**
+	 * Start a recording for the given new transaction, unless recording is disabled.
+	 * @see #setTransactionRecorder
+	 */
+	private void startRecording(DefaultTransactionStatus status, TransactionDefinition definition) {
+		TransactionRecorder recorder = this.transactionRecorder;
+		if (recorder != TransactionRecorder.DEFAULT) {
+			Deque<TransactionRecording> recordings = currentRecordings.get();
+			if (recordings == null) {
+				recordings = new ArrayDeque<>(4);
+				currentRecordings.set(recordings);
+			}
+			TransactionRecording recording = recorder.startTransaction(definition, recordings.size());
+			recordings.push(recording);
+			status.setRecording(recording);
+		}
+	}
+
+	/**
+	 * Report the suspension or resumption of the innermost recorded transaction
+	 * on the current thread, if any.
+	 */
+	private void recordSuspension(boolean suspended) {
+		if (this.transactionRecorder != TransactionRecorder.DEFAULT) {
+			Deque<TransactionRecording> recordings = currentRecordings.get();
+			if (recordings != null && !recordings.isEmpty()) {
+				if (suspended) {
+					recordings.peek().suspended();
+				}
+				else {
+					recordings.peek().resumed();
+				}
+			}
+		}
+	}
+
+	/**
+	 * End the recording for the given transaction, if any.
+	 * Subsequent calls for the same transaction are ignored.
+	 */
+	private void endRecording(DefaultTransactionStatus status, TransactionOutcome outcome, @Nullable Throwable cause) {
+		TransactionRecording recording = status.getRecording();
+		if (recording != null) {
+			status.setRecording(null);
+			Deque<TransactionRecording> recordings = currentRecordings.get();
+			if (recordings != null) {
+				recordings.removeFirstOccurrence(recording);
+				if (recordings.isEmpty()) {
+					currentRecordings.remove();
+				}
+			}
+			recording.end(outcome, cause);
+		}
+	}
+
 	/**
 	 * Initialize transaction synchronization as appropriate.
 	 */
@@ -572,6 +706,7 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 				Object suspendedResources = null;
 				if (transaction != null) {
 					suspendedResources = doSuspend(transaction);
+					recordSuspension(true);
 				}
 				String name = TransactionSynchronizationManager.getCurrentTransactionName();
 				TransactionSynchronizationManager.setCurrentTransactionName(null);
@@ -593,6 +728,7 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 		else if (transaction != null) {
 			// Transaction active but no synchronization active.
 			Object suspendedResources = doSuspend(transaction);
+			recordSuspension(true);
 			return new SuspendedResourcesHolder(suspendedResources);
 		}
 		else {
@@ -618,6 +754,7 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 			Object suspendedResources = resourcesHolder.suspendedResources;
 			if (suspendedResources != null) {
 				doResume(transaction, suspendedResources);
+				recordSuspension(false);
 			}
 			List<TransactionSynchronization> suspendedSynchronizations = resourcesHolder.suspendedSynchronizations;
 			if (suspendedSynchronizations != null) {
@@ -755,6 +892,7 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 			}
 			catch (UnexpectedRollbackException ex) {
 				// can only be caused by doCommit
+				endRecording(status, TransactionOutcome.ROLLED_BACK, ex);
 				triggerAfterCompletion(status, TransactionSynchronization.STATUS_ROLLED_BACK);
 				throw ex;
 			}
@@ -762,8 +900,10 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 				// can only be caused by doCommit
 				if (isRollbackOnCommitFailure()) {
 					doRollbackOnCommitException(status, ex);
+					endRecording(status, TransactionOutcome.ROLLED_BACK, ex);
 				}
 				else {
+					endRecording(status, TransactionOutcome.UNKNOWN, ex);
 					triggerAfterCompletion(status, TransactionSynchronization.STATUS_UNKNOWN);
 				}
 				throw ex;
@@ -773,9 +913,12 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 					triggerBeforeCompletion(status);
 				}
 				doRollbackOnCommitException(status, ex);
+				endRecording(status, TransactionOutcome.ROLLED_BACK, ex);
 				throw ex;
 			}
 
+			endRecording(status, TransactionOutcome.COMMITTED, null);
+
 			// Trigger afterCommit callbacks, with an exception thrown there
 			// propagated to callers but the transaction still considered as committed.
 			try {
@@ -859,10 +1002,12 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 				}
 			}
 			catch (RuntimeException | Error ex) {
+				endRecording(status, TransactionOutcome.UNKNOWN, ex);
 				triggerAfterCompletion(status, TransactionSynchronization.STATUS_UNKNOWN);
 				throw ex;
 			}
 
+			endRecording(status, TransactionOutcome.ROLLED_BACK, null);
 			triggerAfterCompletion(status, TransactionSynchronization.STATUS_ROLLED_BACK);
 
 			// Raise UnexpectedRollbackException if we had a global rollback-only marker
@@ -997,6 +1142,7 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 	 */
 	private void cleanupAfterCompletion(DefaultTransactionStatus status) {
 		status.setCompleted();
+		endRecording(status, TransactionOutcome.UNKNOWN, null);
 		if (status.isNewSynchronization()) {
 			TransactionSynchronizationManager.clear();
 		}
@@ -1041,6 +1187,26 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 	 */
 	protected abstract Object doGetTransaction() throws TransactionException;
 
+	/**
+	 * Return whether an existing transaction always comes with a thread-bound
+	 * resource for this transaction manager's
+	 * {@link ResourceTransactionManager#getResourceFactory() resource factory}.
+	 * <p>If so, {@code getTransaction} skips {@link #doGetTransaction()} and
+	 * {@link #isExistingTransaction} for non-transactional propagation behaviors
+	 * (SUPPORTS, NOT_SUPPORTED, NEVER) when no such resource is bound, creating
+	 * an "empty" transaction right away, with synchronization as configured.
+	 * Only applies to a {@link ResourceTransactionManager}.
+	 * <p>The default implementation returns {@code false}. Subclasses may
+	 * override this to return {@code true} if their {@link #isExistingTransaction}
+	 * check is exclusively based on the resource bound for their resource factory.
+	 * @since 5.3.5
+	 * @see ResourceTransactionManager#getResourceFactory()
+	 * @see TransactionSynchronizationManager#hasResource
+	 */
+	protected boolean isExistingTransactionResourceBound() {
+		return false;
+	}
+
 	/**
 	 * Check if the given transaction object indicates an existing transaction
 	 * (that is, a transaction which has already started).
@@ -1265,6 +1431,7 @@ public abstract class AbstractPlatformTransactionManager implements PlatformTran
 
 		// Initialize transient fields.
 		this.logger = LogFactory.getLog(getClass());
+		this.transactionRecorder = TransactionRecorder.DEFAULT;
 	}
 
 
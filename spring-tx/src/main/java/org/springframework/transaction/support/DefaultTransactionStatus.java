@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -19,6 +19,7 @@ package org.springframework.transaction.support;
 import org.springframework.lang.Nullable;
 import org.springframework.transaction.NestedTransactionNotSupportedException;
 import org.springframework.transaction.SavepointManager;
+import org.springframework.transaction.metrics.TransactionRecording;
 import org.springframework.util.Assert;
 
 /**
@@ -64,6 +65,9 @@ public class DefaultTransactionStatus extends AbstractTransactionStatus {
 	@Nullable
 	private final Object suspendedResources;
 
+	@Nullable
+	private TransactionRecording recording;
+
 
 	/**
 	 * Create a new {@code DefaultTransactionStatus} instance.
@@ -147,6 +151,23 @@ public class DefaultTransactionStatus extends AbstractTransactionStatus {
 		return this.suspendedResources;
 	}
 
+	/**
+	 * Set the recording for this transaction, as started by the transaction manager.
+	 * @since 5.3.5
+	 */
+	void setRecording(@Nullable TransactionRecording recording) {
+		this.recording = recording;
+	}
+
+	/**
+	 * Return the recording for this transaction, if any.
+	 * @since 5.3.5
+	 */
+	@Nullable
+	TransactionRecording getRecording() {
+		return this.recording;
+	}
+
 
 	//---------------------------------------------------------------------
 	// Enable functionality through underlying transaction object
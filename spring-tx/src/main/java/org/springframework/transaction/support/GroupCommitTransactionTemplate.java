@@ -0,0 +1,446 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.SavepointManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.UnexpectedRollbackException;
+import org.springframework.util.Assert;
+
+/**
+ * {@link TransactionTemplate} variant which coalesces the callbacks of concurrent
+ * {@code execute} calls into shared physical transactions ("group commit"),
+ * for high rates of small independent write transactions where each commit
+ * round-trip would otherwise dominate.
+ *
+ * <p>Each caller blocks until its own callback has been completed. One of the
+ * waiting callers acts as leader for a batch of pending callbacks: waiting for
+ * up to {@link #setMaxWaitMillis "maxWaitMillis"} for further callbacks to arrive
+ * (if concurrent callers are pending at all), then executing up to
+ * {@link #setMaxBatchSize "maxBatchSize"} callbacks in turn within a single
+ * transaction, according to this template's transaction definition.
+ *
+ * <p>Each callback runs against a savepoint of the shared transaction and with
+ * its own set of transaction synchronizations: if a callback throws an exception
+ * or sets its status to rollback-only, only its own work is rolled back, its own
+ * synchronizations get {@code beforeCompletion} and {@code afterCompletion}
+ * callbacks with status "rolled back", and the exception gets rethrown to its
+ * caller. The same applies to a failure of a participating transaction within
+ * a callback which marks the shared transaction as rollback-only: the callback
+ * gets rolled back to its savepoint, and its caller receives an
+ * {@link UnexpectedRollbackException}, just like for an individual transaction.
+ * The synchronizations of successful callbacks participate in the shared commit.
+ *
+ * <p>If the shared transaction fails before its commit, e.g. on savepoint
+ * handling, each affected caller retries its callback in an individual
+ * transaction of its own, just like a regular {@code TransactionTemplate}
+ * would execute it. If the shared commit itself fails, the commit exception
+ * gets rethrown to the callers of all participating callbacks, without any
+ * retry: their synchronizations have been triggered already, and the outcome
+ * of the commit may be unknown.
+ *
+ * <p><b>NOTE:</b> Callbacks within a batch are executed on the leader's thread,
+ * so must not depend on any thread-bound state of their callers. A callback
+ * may be executed twice in case of a retry, so must be free of non-transactional
+ * side effects. Savepoint support is required from the transaction manager,
+ * e.g. a {@code DataSourceTransactionManager} with JDBC 3.0 savepoints. Within
+ * an existing transaction scope, {@code execute} calls do not participate in
+ * group commit but rather delegate to regular {@code TransactionTemplate} behavior.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ * @see #setMaxBatchSize
+ * @see #setMaxWaitMillis
+ */
+@SuppressWarnings("serial")
+public class GroupCommitTransactionTemplate extends TransactionTemplate {
+
+	private int maxBatchSize = 64;
+
+	private long maxWaitMillis = 1;
+
+	private final Deque<Unit<?>> pendingUnits = new ArrayDeque<>();
+
+	private final Object monitor = new Object();
+
+	private boolean leaderActive;
+
+
+	/**
+	 * Construct a new GroupCommitTransactionTemplate for bean usage.
+	 * <p>Note: The PlatformTransactionManager needs to be set before
+	 * any {@code execute} calls.
+	 * @see #setTransactionManager
+	 */
+	public GroupCommitTransactionTemplate() {
+		setPropagationBehavior(PROPAGATION_REQUIRES_NEW);
+	}
+
+	/**
+	 * Construct a new GroupCommitTransactionTemplate using the given transaction manager.
+	 * @param transactionManager the transaction management strategy to be used
+	 */
+	public GroupCommitTransactionTemplate(PlatformTransactionManager transactionManager) {
+		super(transactionManager);
+		setPropagationBehavior(PROPAGATION_REQUIRES_NEW);
+	}
+
+
+	/**
+	 * Set the maximum number of callbacks to execute within a shared transaction.
+	 * <p>Default is 64.
+	 */
+	public void setMaxBatchSize(int maxBatchSize) {
+		Assert.isTrue(maxBatchSize > 0, "'maxBatchSize' must be greater than 0");
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/**
+	 * Return the maximum number of callbacks to execute within a shared transaction.
+	 */
+	public int getMaxBatchSize() {
+		return this.maxBatchSize;
+	}
+
+	/**
+	 * Set the maximum time in milliseconds that a batch leader waits for further
+	 * callbacks before starting a shared transaction, in case of concurrent callers
+	 * with less than the maximum batch size pending.
+	 * <p>Default is 1 millisecond. Set this to 0 for starting right away, only
+	 * coalescing the callbacks which arrived while the previous batch was running.
+	 */
+	public void setMaxWaitMillis(long maxWaitMillis) {
+		Assert.isTrue(maxWaitMillis >= 0, "'maxWaitMillis' must not be negative");
+		this.maxWaitMillis = maxWaitMillis;
+	}
+
+	/**
+	 * Return the maximum time in milliseconds that a batch leader waits for
+	 * further callbacks.
+	 */
+	public long getMaxWaitMillis() {
+		return this.maxWaitMillis;
+	}
+
+
+	@Override
+	@Nullable
+	public <T> T execute(TransactionCallback<T> action) throws TransactionException {
+		Assert.state(getTransactionManager() != null, "No PlatformTransactionManager set");
+
+		if (TransactionSynchronizationManager.isSynchronizationActive() ||
+				getTransactionManager() instanceof CallbackPreferringPlatformTransactionManager) {
+			// Within an existing transaction scope: no group commit.
+			return super.execute(action);
+		}
+
+		Unit<T> unit = new Unit<>(action);
+		synchronized (this.monitor) {
+			this.pendingUnits.add(unit);
+			if (this.pendingUnits.size() >= this.maxBatchSize) {
+				this.monitor.notifyAll();
+			}
+		}
+
+		boolean interrupted = false;
+		while (true) {
+			List<Unit<?>> batch;
+			synchronized (this.monitor) {
+				if (unit.completed) {
+					break;
+				}
+				if (this.leaderActive) {
+					try {
+						this.monitor.wait();
+					}
+					catch (InterruptedException ex) {
+						interrupted = true;
+					}
+					continue;
+				}
+				// Become leader for the next batch...
+				this.leaderActive = true;
+				interrupted |= awaitBatch();
+				batch = takeBatch();
+			}
+			try {
+				executeBatch(batch);
+			}
+			finally {
+				synchronized (this.monitor) {
+					for (Unit<?> batchUnit : batch) {
+						batchUnit.completed = true;
+					}
+					this.leaderActive = false;
+					this.monitor.notifyAll();
+				}
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+
+		if (unit.retry) {
+			if (logger.isDebugEnabled()) {
+				logger.debug("Retrying transaction callback individually after failure of shared transaction");
+			}
+			return super.execute(action);
+		}
+		Throwable failure = unit.failure;
+		if (failure != null) {
+			if (failure instanceof RuntimeException) {
+				throw (RuntimeException) failure;
+			}
+			if (failure instanceof Error) {
+				throw (Error) failure;
+			}
+			throw new UndeclaredThrowableException(failure, "TransactionCallback threw undeclared checked exception");
+		}
+		return unit.result;
+	}
+
+	/**
+	 * Wait for the pending units to fill up a batch, within the configured
+	 * maximum wait time. To be called within the shared monitor.
+	 * @return whether the current thread has been interrupted while waiting
+	 */
+	private boolean awaitBatch() {
+		// Only wait for further units in case of concurrent callers...
+		if (this.maxWaitMillis > 0 && this.pendingUnits.size() > 1) {
+			long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.maxWaitMillis);
+			long remaining;
+			while (this.pendingUnits.size() < this.maxBatchSize &&
+					(remaining = deadline - System.nanoTime()) > 0) {
+				try {
+					TimeUnit.NANOSECONDS.timedWait(this.monitor, remaining);
+				}
+				catch (InterruptedException ex) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Take the next batch of units from the queue of pending units.
+	 * To be called within the shared monitor.
+	 */
+	private List<Unit<?>> takeBatch() {
+		int batchSize = Math.min(this.pendingUnits.size(), this.maxBatchSize);
+		List<Unit<?>> batch = new ArrayList<>(batchSize);
+		for (int i = 0; i < batchSize; i++) {
+			batch.add(this.pendingUnits.poll());
+		}
+		return batch;
+	}
+
+	/**
+	 * Execute the given batch of units within a shared transaction, determining
+	 * the outcome of each unit: either its result or exception, or a retry
+	 * in case of a failure before the shared commit.
+	 * <p>The units are marked as completed afterwards within the shared monitor,
+	 * making their outcome visible to their callers.
+	 */
+	private void executeBatch(List<Unit<?>> batch) {
+		PlatformTransactionManager tm = getTransactionManager();
+		Assert.state(tm != null, "No PlatformTransactionManager set");
+
+		TransactionStatus status = null;
+		boolean commitAttempted = false;
+		try {
+			status = tm.getTransaction(this);
+			boolean synchronizationActive = TransactionSynchronizationManager.isSynchronizationActive();
+			List<TransactionSynchronization> synchronizations = new ArrayList<>();
+			for (Unit<?> unit : batch) {
+				executeUnit(unit, status, synchronizationActive, synchronizations);
+			}
+			if (synchronizationActive) {
+				// Expose the synchronizations of all successful units for the shared commit
+				TransactionSynchronizationManager.clearSynchronization();
+				TransactionSynchronizationManager.initSynchronization();
+				for (TransactionSynchronization synchronization : synchronizations) {
+					TransactionSynchronizationManager.registerSynchronization(synchronization);
+				}
+			}
+			commitAttempted = true;
+			tm.commit(status);
+		}
+		catch (RuntimeException | Error ex) {
+			if (commitAttempted) {
+				// Synchronizations triggered, outcome potentially unknown: no retry
+				logger.debug("Commit of shared transaction failed", ex);
+				for (Unit<?> unit : batch) {
+					if (!unit.rolledBack) {
+						unit.failure = ex;
+					}
+				}
+				return;
+			}
+			logger.debug("Shared transaction failed before commit - retrying callbacks individually", ex);
+			if (status != null && !status.isCompleted()) {
+				if (TransactionSynchronizationManager.isSynchronizationActive()) {
+					// Do not trigger the synchronizations of callbacks to be retried
+					TransactionSynchronizationManager.clearSynchronization();
+					TransactionSynchronizationManager.initSynchronization();
+				}
+				try {
+					tm.rollback(status);
+				}
+				catch (RuntimeException | Error ex2) {
+					logger.debug("Could not roll back shared transaction", ex2);
+				}
+			}
+			for (Unit<?> unit : batch) {
+				if (!unit.rolledBack) {
+					unit.retry = true;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Execute the given unit against a savepoint of the shared transaction,
+	 * either rolling back to the savepoint or collecting the unit's
+	 * synchronizations for the shared commit.
+	 */
+	private void executeUnit(Unit<?> unit, TransactionStatus status, boolean synchronizationActive,
+			List<TransactionSynchronization> synchronizations) {
+
+		Object savepoint = status.createSavepoint();
+		if (synchronizationActive) {
+			TransactionSynchronizationManager.clearSynchronization();
+			TransactionSynchronizationManager.initSynchronization();
+		}
+		UnitTransactionStatus unitStatus = new UnitTransactionStatus(status);
+		unit.execute(unitStatus);
+		List<TransactionSynchronization> unitSynchronizations = (synchronizationActive ?
+				TransactionSynchronizationManager.getSynchronizations() : null);
+		if (unit.failure != null || unitStatus.isRollbackOnly()) {
+			if (unit.failure != null) {
+				logger.debug("Rolling back transaction callback to savepoint on application exception", unit.failure);
+			}
+			else if (unitStatus.isGlobalRollbackOnly()) {
+				unit.failure = new UnexpectedRollbackException(
+						"Transaction rolled back because it has been marked as rollback-only");
+			}
+			if (synchronizationActive) {
+				TransactionSynchronizationUtils.triggerBeforeCompletion();
+			}
+			status.rollbackToSavepoint(savepoint);
+			unit.rolledBack = true;
+			TransactionSynchronizationUtils.invokeAfterCompletion(
+					unitSynchronizations, TransactionSynchronization.STATUS_ROLLED_BACK);
+			if (status.isRollbackOnly()) {
+				// Rollback-only marker not reset on savepoint rollback: retry the others individually
+				throw new IllegalTransactionStateException(
+						"Shared transaction still marked as rollback-only after rollback to savepoint");
+			}
+		}
+		else {
+			status.releaseSavepoint(savepoint);
+			if (unitSynchronizations != null) {
+				synchronizations.addAll(unitSynchronizations);
+			}
+		}
+	}
+
+
+	/**
+	 * A callback of an individual caller, along with its outcome.
+	 */
+	private static class Unit<T> {
+
+		private final TransactionCallback<T> action;
+
+		@Nullable
+		private T result;
+
+		@Nullable
+		private Throwable failure;
+
+		private boolean rolledBack;
+
+		private boolean retry;
+
+		private boolean completed;
+
+		public Unit(TransactionCallback<T> action) {
+			this.action = action;
+		}
+
+		public void execute(TransactionStatus status) {
+			try {
+				this.result = this.action.doInTransaction(status);
+			}
+			catch (Throwable ex) {
+				this.failure = ex;
+			}
+		}
+	}
+
+
+	/**
+	 * TransactionStatus exposed to an individual callback within a shared transaction,
+	 * with a local rollback-only flag, with the global rollback-only flag of the
+	 * shared transaction, and with savepoints in the shared transaction.
+	 */
+	private static class UnitTransactionStatus extends AbstractTransactionStatus {
+
+		private final TransactionStatus sharedStatus;
+
+		public UnitTransactionStatus(TransactionStatus sharedStatus) {
+			this.sharedStatus = sharedStatus;
+		}
+
+		@Override
+		public boolean isNewTransaction() {
+			return true;
+		}
+
+		@Override
+		public boolean isGlobalRollbackOnly() {
+			// Set by a participating transaction within the callback, if any
+			return (this.sharedStatus instanceof DefaultTransactionStatus ?
+					((DefaultTransactionStatus) this.sharedStatus).isGlobalRollbackOnly() :
+					this.sharedStatus.isRollbackOnly());
+		}
+
+		@Override
+		protected SavepointManager getSavepointManager() {
+			return this.sharedStatus;
+		}
+
+		@Override
+		public void flush() {
+			this.sharedStatus.flush();
+		}
+	}
+
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import org.springframework.core.NamedThreadLocal;
+import org.springframework.lang.Nullable;
+
+/**
+ * {@link TransactionContextHolderStrategy} based on a {@link ThreadLocal},
+ * used by {@link TransactionSynchronizationManager} by default.
+ *
+ * <p>The context is strictly confined to its thread: it is not inherited by
+ * child threads. For propagating selected resources to other threads, consider
+ * a {@link TransactionContextSnapshot} or a {@link TransactionContextTaskDecorator}.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ * @see TransactionSynchronizationManager#setContextHolderStrategy
+ */
+public class ThreadLocalTransactionContextHolderStrategy implements TransactionContextHolderStrategy {
+
+	private static final String THREAD_LOCAL_NAME = "Transactional resources and synchronizations";
+
+
+	private final ThreadLocal<Object> context = new NamedThreadLocal<>(THREAD_LOCAL_NAME);
+
+
+	@Override
+	@Nullable
+	public Object getContext() {
+		return this.context.get();
+	}
+
+	@Override
+	public void setContext(Object context) {
+		this.context.set(context);
+	}
+
+	@Override
+	public void removeContext() {
+		this.context.remove();
+	}
+
+}
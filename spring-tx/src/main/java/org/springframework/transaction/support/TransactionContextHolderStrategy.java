@@ -0,0 +1,55 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * Strategy for holding the transaction context of the current thread, as managed
+ * by {@link TransactionSynchronizationManager}: that is, all bound resources,
+ * registered synchronizations and current transaction characteristics.
+ *
+ * <p>The context object is opaque to the strategy. It is created and mutated by
+ * {@code TransactionSynchronizationManager} and must never be exposed to any
+ * other thread while in use.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ * @see TransactionSynchronizationManager#setContextHolderStrategy
+ * @see ThreadLocalTransactionContextHolderStrategy
+ */
+public interface TransactionContextHolderStrategy {
+
+	/**
+	 * Return the context of the current thread, if any.
+	 * @return the current context, or {@code null} if none
+	 */
+	@Nullable
+	Object getContext();
+
+	/**
+	 * Associate the given context with the current thread.
+	 * @param context the context object to hold
+	 */
+	void setContext(Object context);
+
+	/**
+	 * Remove the context of the current thread, if any.
+	 */
+	void removeContext();
+
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import java.util.concurrent.Callable;
+import java.util.function.Predicate;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * Snapshot of the transaction context of a thread, as managed by
+ * {@link TransactionSynchronizationManager}, for explicit propagation
+ * of the current transactional resources to other threads.
+ *
+ * <p>A snapshot captures the bound resources and the current transaction
+ * characteristics (name, read-only flag, isolation level, actual transaction
+ * active flag) but not the registered synchronizations, which remain confined
+ * to the transaction's own thread. A wrapped task operates on its own copy of
+ * the captured context: resources bound or unbound by the task do not affect
+ * the originating thread, and the previous context of the executing thread
+ * gets restored after the task.
+ *
+ * <p><b>NOTE:</b> The propagated resources will be used by several threads
+ * concurrently, so this is only safe with resources which are thread-safe in
+ * the first place, typically for read-only work within a read-only transaction.
+ * Only the originating thread may complete the transaction, after all wrapped
+ * tasks have completed. Prefer {@link #capture(Predicate)} with a filter for
+ * the resources which are known to be safe to share.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ * @see TransactionContextTaskDecorator
+ */
+public final class TransactionContextSnapshot {
+
+	private static final TransactionContextSnapshot EMPTY = new TransactionContextSnapshot(null);
+
+
+	@Nullable
+	private final Object context;
+
+
+	private TransactionContextSnapshot(@Nullable Object context) {
+		this.context = context;
+	}
+
+
+	/**
+	 * Return whether this snapshot is empty, i.e. whether the originating
+	 * thread had neither an actual transaction nor any bound resources.
+	 */
+	public boolean isEmpty() {
+		return (this.context == null);
+	}
+
+	/**
+	 * Return whether this snapshot has been captured within a read-only transaction.
+	 * @see TransactionSynchronizationManager#isCurrentTransactionReadOnly()
+	 */
+	public boolean isReadOnly() {
+		return (this.context != null && TransactionSynchronizationManager.isReadOnly(this.context));
+	}
+
+	/**
+	 * Wrap the given task to run within a copy of the captured context.
+	 * @param task the original task
+	 * @return the wrapped task (or the original task if this snapshot is empty)
+	 */
+	public Runnable wrap(Runnable task) {
+		Assert.notNull(task, "Runnable must not be null");
+		Object context = this.context;
+		if (context == null) {
+			return task;
+		}
+		return () -> {
+			Object previousContext = TransactionSynchronizationManager.attachContext(context);
+			try {
+				task.run();
+			}
+			finally {
+				TransactionSynchronizationManager.detachContext(previousContext);
+			}
+		};
+	}
+
+	/**
+	 * Wrap the given task to run within a copy of the captured context.
+	 * @param task the original task
+	 * @return the wrapped task (or the original task if this snapshot is empty)
+	 */
+	public <T> Callable<T> wrap(Callable<T> task) {
+		Assert.notNull(task, "Callable must not be null");
+		Object context = this.context;
+		if (context == null) {
+			return task;
+		}
+		return () -> {
+			Object previousContext = TransactionSynchronizationManager.attachContext(context);
+			try {
+				return task.call();
+			}
+			finally {
+				TransactionSynchronizationManager.detachContext(previousContext);
+			}
+		};
+	}
+
+
+	/**
+	 * Capture the transaction context of the current thread,
+	 * including all bound resources.
+	 * @return the snapshot (potentially {@link #isEmpty() empty})
+	 * @see #capture(Predicate)
+	 */
+	public static TransactionContextSnapshot capture() {
+		Object context = TransactionSynchronizationManager.captureContext(null);
+		return (context != null ? new TransactionContextSnapshot(context) : EMPTY);
+	}
+
+	/**
+	 * Capture the transaction context of the current thread, including only
+	 * the bound resources whose keys match the given filter.
+	 * @param resourceKeyFilter the filter for the keys of the resources which
+	 * are safe to share (usually matching specific resource factories)
+	 * @return the snapshot ({@link #isEmpty() empty} if no bound resource matches)
+	 */
+	public static TransactionContextSnapshot capture(Predicate<Object> resourceKeyFilter) {
+		Assert.notNull(resourceKeyFilter, "Resource key filter must not be null");
+		Object context = TransactionSynchronizationManager.captureContext(resourceKeyFilter);
+		return (context != null ? new TransactionContextSnapshot(context) : EMPTY);
+	}
+
+}
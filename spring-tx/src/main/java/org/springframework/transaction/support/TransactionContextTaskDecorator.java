@@ -0,0 +1,102 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import java.util.function.Predicate;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.lang.Nullable;
+
+/**
+ * {@link TaskDecorator} which propagates selected parts of the transaction
+ * context of the submitting thread to the executing thread, through a
+ * {@link TransactionContextSnapshot}. Applicable to any executor with
+ * decorator support, e.g. a {@code ThreadPoolTaskExecutor} or an adapter
+ * for a {@code java.util.concurrent.Executor} with virtual threads.
+ *
+ * <p>Nothing is propagated by default: the resources which are safe to share
+ * need to be specified explicitly through {@link #setSharedResourceFilter},
+ * typically matching specific resource factories. Furthermore, the context of
+ * read-only transactions is propagated only, with tasks submitted within any
+ * other transaction (or outside of any transaction) executing without
+ * transactional resources. Switch the {@link #setReadOnlyOnly "readOnlyOnly"}
+ * flag off for propagating the shared resources of any transaction.
+ *
+ * @author Spring Framework Team
+ * @since 5.3.5
+ * @see org.springframework.core.task.support.TaskExecutorAdapter#setTaskDecorator
+ */
+public class TransactionContextTaskDecorator implements TaskDecorator {
+
+	@Nullable
+	private Predicate<Object> sharedResourceFilter;
+
+	private boolean readOnlyOnly = true;
+
+
+	/**
+	 * Specify the bound resources to propagate, as a filter for their keys
+	 * (usually the resource factory, e.g. a specific {@code DataSource}).
+	 * <p>Default is none, not propagating any transaction context. Only specify
+	 * resources which are safe for concurrent use, with the transaction getting
+	 * completed after all tasks have completed.
+	 * @see TransactionContextSnapshot#capture(Predicate)
+	 */
+	public void setSharedResourceFilter(@Nullable Predicate<Object> sharedResourceFilter) {
+		this.sharedResourceFilter = sharedResourceFilter;
+	}
+
+	/**
+	 * Return the filter for the keys of the bound resources to propagate, if any.
+	 */
+	@Nullable
+	public Predicate<Object> getSharedResourceFilter() {
+		return this.sharedResourceFilter;
+	}
+
+	/**
+	 * Specify whether to propagate the context of read-only transactions only.
+	 * <p>Default is "true". Switch this to "false" for propagating the shared
+	 * resources of read-write transactions as well, and outside of any transaction.
+	 * @see TransactionContextSnapshot#isReadOnly()
+	 */
+	public void setReadOnlyOnly(boolean readOnlyOnly) {
+		this.readOnlyOnly = readOnlyOnly;
+	}
+
+	/**
+	 * Return whether to propagate the context of read-only transactions only.
+	 */
+	public boolean isReadOnlyOnly() {
+		return this.readOnlyOnly;
+	}
+
+
+	@Override
+	public Runnable decorate(Runnable runnable) {
+		Predicate<Object> sharedResourceFilter = this.sharedResourceFilter;
+		if (sharedResourceFilter == null) {
+			return runnable;
+		}
+		TransactionContextSnapshot snapshot = TransactionContextSnapshot.capture(sharedResourceFilter);
+		if (this.readOnlyOnly && !snapshot.isReadOnly()) {
+			return runnable;
+		}
+		return snapshot.wrap(runnable);
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -17,17 +17,16 @@
 package org.springframework.transaction.support;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.function.Predicate;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 
-import org.springframework.core.NamedThreadLocal;
 import org.springframework.core.annotation.AnnotationAwareOrderComparator;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
@@ -64,6 +63,21 @@ import org.springframework.util.Assert;
  * within a JTA transaction, e.g. a JDBC Connection or a Hibernate Session for
  * any given DataSource or SessionFactory, respectively.
  *
+ * <p>As of 5.3.5, all of this state is held in a single per-thread holder:
+ * with small arrays for resources and synchronizations instead of a separate
+ * Map and Set, and with a single thread-local lookup per operation. All
+ * references to resources and synchronizations are released on unbinding and
+ * on clearing, respectively, with the holder itself removed from the thread
+ * once it does not hold any resources, synchronizations or transaction
+ * characteristics anymore, i.e. typically at the end of each transaction.
+ *
+ * <p>The per-thread holder is managed by a pluggable
+ * {@link TransactionContextHolderStrategy}, by default a plain {@code ThreadLocal}.
+ * For read-only work to be fanned out from within a transaction, selected
+ * resources and the current transaction characteristics can be exposed to other
+ * threads explicitly through a {@link TransactionContextSnapshot}, e.g. applied
+ * by a {@link TransactionContextTaskDecorator} for a pooled executor.
+ *
  * @author Juergen Hoeller
  * @since 02.06.2003
  * @see #isSynchronizationActive
@@ -78,23 +92,62 @@ public abstract class TransactionSynchronizationManager {
 
 	private static final Log logger = LogFactory.getLog(TransactionSynchronizationManager.class);
 
-	private static final ThreadLocal<Map<Object, Object>> resources =
-			new NamedThreadLocal<>("Transactional resources");
+	private static volatile TransactionContextHolderStrategy contextHolderStrategy =
+			new ThreadLocalTransactionContextHolderStrategy();
 
-	private static final ThreadLocal<Set<TransactionSynchronization>> synchronizations =
-			new NamedThreadLocal<>("Transaction synchronizations");
 
-	private static final ThreadLocal<String> currentTransactionName =
-			new NamedThreadLocal<>("Current transaction name");
+	/**
+	 * Set the strategy for holding the transaction context of each thread.
+	 * <p>Default is a {@link ThreadLocalTransactionContextHolderStrategy}.
+	 * To be called on startup, before any transaction
+	 * is started: the contexts held by a previous strategy get ignored.
+	 * @param strategy the strategy to use
+	 * @since 5.3.5
+	 */
+	public static void setContextHolderStrategy(TransactionContextHolderStrategy strategy) {
+		Assert.notNull(strategy, "TransactionContextHolderStrategy must not be null");
+		contextHolderStrategy = strategy;
+	}
 
-	private static final ThreadLocal<Boolean> currentTransactionReadOnly =
-			new NamedThreadLocal<>("Current transaction read-only status");
+	/**
+	 * Return the strategy for holding the transaction context of each thread.
+	 * @since 5.3.5
+	 */
+	public static TransactionContextHolderStrategy getContextHolderStrategy() {
+		return contextHolderStrategy;
+	}
 
-	private static final ThreadLocal<Integer> currentTransactionIsolationLevel =
-			new NamedThreadLocal<>("Current transaction isolation level");
+	/**
+	 * Return the transaction state holder for the current thread, if any.
+	 */
+	@Nullable
+	private static TransactionState getState() {
+		return (TransactionState) contextHolderStrategy.getContext();
+	}
 
-	private static final ThreadLocal<Boolean> actualTransactionActive =
-			new NamedThreadLocal<>("Actual transaction active");
+	/**
+	 * Return the transaction state holder for the current thread,
+	 * creating it on first access.
+	 */
+	private static TransactionState currentState() {
+		TransactionContextHolderStrategy strategy = contextHolderStrategy;
+		TransactionState state = (TransactionState) strategy.getContext();
+		if (state == null) {
+			state = new TransactionState();
+			strategy.setContext(state);
+		}
+		return state;
+	}
+
+	/**
+	 * Remove the given transaction state holder from the current thread
+	 * if it does not hold any state anymore.
+	 */
+	private static void removeStateIfEmpty(TransactionState state) {
+		if (state.isEmpty()) {
+			contextHolderStrategy.removeContext();
+		}
+	}
 
 
 	//-------------------------------------------------------------------------
@@ -111,8 +164,15 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #hasResource
 	 */
 	public static Map<Object, Object> getResourceMap() {
-		Map<Object, Object> map = resources.get();
-		return (map != null ? Collections.unmodifiableMap(map) : Collections.emptyMap());
+		TransactionState state = getState();
+		if (state == null || state.resourceCount == 0) {
+			return Collections.emptyMap();
+		}
+		Map<Object, Object> map = new LinkedHashMap<>(state.resourceCount * 2);
+		for (int i = 0; i < state.resourceCount; i++) {
+			map.put(state.resourceKeys[i], state.resourceValues[i]);
+		}
+		return Collections.unmodifiableMap(map);
 	}
 
 	/**
@@ -150,18 +210,19 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	private static Object doGetResource(Object actualKey) {
-		Map<Object, Object> map = resources.get();
-		if (map == null) {
+		TransactionState state = getState();
+		if (state == null) {
+			return null;
+		}
+		int index = state.indexOfResource(actualKey);
+		if (index == -1) {
 			return null;
 		}
-		Object value = map.get(actualKey);
+		Object value = state.resourceValues[index];
 		// Transparently remove ResourceHolder that was marked as void...
 		if (value instanceof ResourceHolder && ((ResourceHolder) value).isVoid()) {
-			map.remove(actualKey);
-			// Remove entire ThreadLocal if empty...
-			if (map.isEmpty()) {
-				resources.remove();
-			}
+			state.removeResource(index);
+			removeStateIfEmpty(state);
 			value = null;
 		}
 		return value;
@@ -177,13 +238,7 @@ public abstract class TransactionSynchronizationManager {
 	public static void bindResource(Object key, Object value) throws IllegalStateException {
 		Object actualKey = TransactionSynchronizationUtils.unwrapResourceIfNecessary(key);
 		Assert.notNull(value, "Value must not be null");
-		Map<Object, Object> map = resources.get();
-		// set ThreadLocal Map if none found
-		if (map == null) {
-			map = new HashMap<>();
-			resources.set(map);
-		}
-		Object oldValue = map.put(actualKey, value);
+		Object oldValue = currentState().putResource(actualKey, value);
 		// Transparently suppress a ResourceHolder that was marked as void...
 		if (oldValue instanceof ResourceHolder && ((ResourceHolder) oldValue).isVoid()) {
 			oldValue = null;
@@ -231,15 +286,16 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	private static Object doUnbindResource(Object actualKey) {
-		Map<Object, Object> map = resources.get();
-		if (map == null) {
+		TransactionState state = getState();
+		if (state == null) {
 			return null;
 		}
-		Object value = map.remove(actualKey);
-		// Remove entire ThreadLocal if empty...
-		if (map.isEmpty()) {
-			resources.remove();
+		int index = state.indexOfResource(actualKey);
+		if (index == -1) {
+			return null;
 		}
+		Object value = state.removeResource(index);
+		removeStateIfEmpty(state);
 		// Transparently suppress a ResourceHolder that was marked as void...
 		if (value instanceof ResourceHolder && ((ResourceHolder) value).isVoid()) {
 			value = null;
@@ -262,7 +318,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #registerSynchronization
 	 */
 	public static boolean isSynchronizationActive() {
-		return (synchronizations.get() != null);
+		TransactionState state = getState();
+		return (state != null && state.synchronizationActive);
 	}
 
 	/**
@@ -271,11 +328,12 @@ public abstract class TransactionSynchronizationManager {
 	 * @throws IllegalStateException if synchronization is already active
 	 */
 	public static void initSynchronization() throws IllegalStateException {
-		if (isSynchronizationActive()) {
+		TransactionState state = currentState();
+		if (state.synchronizationActive) {
 			throw new IllegalStateException("Cannot activate transaction synchronization - already active");
 		}
 		logger.trace("Initializing transaction synchronization");
-		synchronizations.set(new LinkedHashSet<>());
+		state.synchronizationActive = true;
 	}
 
 	/**
@@ -292,11 +350,11 @@ public abstract class TransactionSynchronizationManager {
 			throws IllegalStateException {
 
 		Assert.notNull(synchronization, "TransactionSynchronization must not be null");
-		Set<TransactionSynchronization> synchs = synchronizations.get();
-		if (synchs == null) {
+		TransactionState state = getState();
+		if (state == null || !state.synchronizationActive) {
 			throw new IllegalStateException("Transaction synchronization is not active");
 		}
-		synchs.add(synchronization);
+		state.addSynchronization(synchronization);
 	}
 
 	/**
@@ -307,19 +365,24 @@ public abstract class TransactionSynchronizationManager {
 	 * @see TransactionSynchronization
 	 */
 	public static List<TransactionSynchronization> getSynchronizations() throws IllegalStateException {
-		Set<TransactionSynchronization> synchs = synchronizations.get();
-		if (synchs == null) {
+		TransactionState state = getState();
+		if (state == null || !state.synchronizationActive) {
 			throw new IllegalStateException("Transaction synchronization is not active");
 		}
 		// Return unmodifiable snapshot, to avoid ConcurrentModificationExceptions
 		// while iterating and invoking synchronization callbacks that in turn
 		// might register further synchronizations.
-		if (synchs.isEmpty()) {
+		int count = state.synchronizationCount;
+		if (count == 0) {
 			return Collections.emptyList();
 		}
+		else if (count == 1) {
+			return Collections.singletonList(state.synchronizations[0]);
+		}
 		else {
 			// Sort lazily here, not in registerSynchronization.
-			List<TransactionSynchronization> sortedSynchs = new ArrayList<>(synchs);
+			List<TransactionSynchronization> sortedSynchs =
+					new ArrayList<>(Arrays.asList(state.synchronizations).subList(0, count));
 			AnnotationAwareOrderComparator.sort(sortedSynchs);
 			return Collections.unmodifiableList(sortedSynchs);
 		}
@@ -331,11 +394,13 @@ public abstract class TransactionSynchronizationManager {
 	 * @throws IllegalStateException if synchronization is not active
 	 */
 	public static void clearSynchronization() throws IllegalStateException {
-		if (!isSynchronizationActive()) {
+		TransactionState state = getState();
+		if (state == null || !state.synchronizationActive) {
 			throw new IllegalStateException("Cannot deactivate transaction synchronization - not active");
 		}
 		logger.trace("Clearing transaction synchronization");
-		synchronizations.remove();
+		state.clearSynchronizations();
+		removeStateIfEmpty(state);
 	}
 
 
@@ -350,7 +415,10 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#getName()
 	 */
 	public static void setCurrentTransactionName(@Nullable String name) {
-		currentTransactionName.set(name);
+		TransactionState state = (name != null ? currentState() : getState());
+		if (state != null) {
+			state.name = name;
+		}
 	}
 
 	/**
@@ -361,7 +429,8 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	public static String getCurrentTransactionName() {
-		return currentTransactionName.get();
+		TransactionState state = getState();
+		return (state != null ? state.name : null);
 	}
 
 	/**
@@ -372,7 +441,10 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#isReadOnly()
 	 */
 	public static void setCurrentTransactionReadOnly(boolean readOnly) {
-		currentTransactionReadOnly.set(readOnly ? Boolean.TRUE : null);
+		TransactionState state = (readOnly ? currentState() : getState());
+		if (state != null) {
+			state.readOnly = readOnly;
+		}
 	}
 
 	/**
@@ -388,7 +460,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see TransactionSynchronization#beforeCommit(boolean)
 	 */
 	public static boolean isCurrentTransactionReadOnly() {
-		return (currentTransactionReadOnly.get() != null);
+		TransactionState state = getState();
+		return (state != null && state.readOnly);
 	}
 
 	/**
@@ -408,7 +481,10 @@ public abstract class TransactionSynchronizationManager {
 	 * @see org.springframework.transaction.TransactionDefinition#getIsolationLevel()
 	 */
 	public static void setCurrentTransactionIsolationLevel(@Nullable Integer isolationLevel) {
-		currentTransactionIsolationLevel.set(isolationLevel);
+		TransactionState state = (isolationLevel != null ? currentState() : getState());
+		if (state != null) {
+			state.isolationLevel = isolationLevel;
+		}
 	}
 
 	/**
@@ -430,7 +506,8 @@ public abstract class TransactionSynchronizationManager {
 	 */
 	@Nullable
 	public static Integer getCurrentTransactionIsolationLevel() {
-		return currentTransactionIsolationLevel.get();
+		TransactionState state = getState();
+		return (state != null ? state.isolationLevel : null);
 	}
 
 	/**
@@ -440,7 +517,10 @@ public abstract class TransactionSynchronizationManager {
 	 * with an actual transaction; {@code false} to reset that marker
 	 */
 	public static void setActualTransactionActive(boolean active) {
-		actualTransactionActive.set(active ? Boolean.TRUE : null);
+		TransactionState state = (active ? currentState() : getState());
+		if (state != null) {
+			state.actualTransactionActive = active;
+		}
 	}
 
 	/**
@@ -455,7 +535,8 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #isSynchronizationActive()
 	 */
 	public static boolean isActualTransactionActive() {
-		return (actualTransactionActive.get() != null);
+		TransactionState state = getState();
+		return (state != null && state.actualTransactionActive);
 	}
 
 
@@ -469,11 +550,227 @@ public abstract class TransactionSynchronizationManager {
 	 * @see #setActualTransactionActive
 	 */
 	public static void clear() {
-		synchronizations.remove();
-		currentTransactionName.remove();
-		currentTransactionReadOnly.remove();
-		currentTransactionIsolationLevel.remove();
-		actualTransactionActive.remove();
+		TransactionState state = getState();
+		if (state != null) {
+			state.clearSynchronizations();
+			state.name = null;
+			state.readOnly = false;
+			state.isolationLevel = null;
+			state.actualTransactionActive = false;
+			removeStateIfEmpty(state);
+		}
+	}
+
+
+	//-------------------------------------------------------------------------
+	// Propagation of the transaction context to other threads
+	//-------------------------------------------------------------------------
+
+	/**
+	 * Capture a read-only copy of the transaction context of the current thread.
+	 * @param resourceKeyFilter the filter for the keys of the bound resources
+	 * to include in the copy, or {@code null} to include all resources
+	 * @return the captured context, or {@code null} if there is none to propagate
+	 * @see TransactionContextSnapshot#capture()
+	 */
+	@Nullable
+	static Object captureContext(@Nullable Predicate<Object> resourceKeyFilter) {
+		TransactionState state = getState();
+		if (state == null || (state.resourceCount == 0 && !state.actualTransactionActive)) {
+			return null;
+		}
+		if (resourceKeyFilter == null) {
+			return new TransactionState(state);
+		}
+		TransactionState capturedState = new TransactionState(state, resourceKeyFilter);
+		return (capturedState.resourceCount > 0 ? capturedState : null);
+	}
+
+	/**
+	 * Attach a copy of the given captured context to the current thread.
+	 * @param capturedContext the context as returned by {@link #captureContext()}
+	 * @return the previous context of the current thread (if any),
+	 * to be passed into {@link #detachContext} afterwards
+	 * @see TransactionContextSnapshot#wrap(Runnable)
+	 */
+	@Nullable
+	static Object attachContext(Object capturedContext) {
+		TransactionContextHolderStrategy strategy = contextHolderStrategy;
+		Object previousContext = strategy.getContext();
+		strategy.setContext(new TransactionState((TransactionState) capturedContext));
+		return previousContext;
+	}
+
+	/**
+	 * Detach an attached context from the current thread, restoring the given
+	 * previous context (if any).
+	 * @param previousContext the context as returned by {@link #attachContext}
+	 */
+	static void detachContext(@Nullable Object previousContext) {
+		TransactionContextHolderStrategy strategy = contextHolderStrategy;
+		if (previousContext != null) {
+			strategy.setContext(previousContext);
+		}
+		else {
+			strategy.removeContext();
+		}
+	}
+
+	/**
+	 * Determine whether the given captured context is marked as read-only.
+	 */
+	static boolean isReadOnly(Object capturedContext) {
+		return ((TransactionState) capturedContext).readOnly;
+	}
+
+
+	/**
+	 * Holder for all transaction-related state of a thread: bound resources,
+	 * registered synchronizations and current transaction characteristics.
+	 * Resources and synchronizations are kept in arrays which are typically
+	 * very small, with equality checks just like for keys in a Map and for
+	 * elements in a Set, respectively.
+	 */
+	private static final class TransactionState {
+
+		private static final int INITIAL_CAPACITY = 4;
+
+		private Object[] resourceKeys = new Object[INITIAL_CAPACITY];
+
+		private Object[] resourceValues = new Object[INITIAL_CAPACITY];
+
+		private int resourceCount;
+
+		private TransactionSynchronization[] synchronizations = new TransactionSynchronization[INITIAL_CAPACITY];
+
+		private int synchronizationCount;
+
+		private boolean synchronizationActive;
+
+		@Nullable
+		private String name;
+
+		private boolean readOnly;
+
+		@Nullable
+		private Integer isolationLevel;
+
+		private boolean actualTransactionActive;
+
+		TransactionState() {
+		}
+
+		/**
+		 * Copy constructor for propagating the given state to another thread:
+		 * with the bound resources and the transaction characteristics but
+		 * without any synchronizations.
+		 */
+		TransactionState(TransactionState original) {
+			int capacity = Math.max(original.resourceCount, INITIAL_CAPACITY);
+			this.resourceKeys = Arrays.copyOf(original.resourceKeys, capacity);
+			this.resourceValues = Arrays.copyOf(original.resourceValues, capacity);
+			this.resourceCount = original.resourceCount;
+			copyCharacteristics(original);
+		}
+
+		/**
+		 * Copy constructor for propagating the given state to another thread:
+		 * with the bound resources which match the given key filter and the
+		 * transaction characteristics but without any synchronizations.
+		 */
+		TransactionState(TransactionState original, Predicate<Object> resourceKeyFilter) {
+			for (int i = 0; i < original.resourceCount; i++) {
+				Object key = original.resourceKeys[i];
+				if (resourceKeyFilter.test(key)) {
+					putResource(key, original.resourceValues[i]);
+				}
+			}
+			copyCharacteristics(original);
+		}
+
+		private void copyCharacteristics(TransactionState original) {
+			this.name = original.name;
+			this.readOnly = original.readOnly;
+			this.isolationLevel = original.isolationLevel;
+			this.actualTransactionActive = original.actualTransactionActive;
+		}
+
+		int indexOfResource(Object key) {
+			Object[] keys = this.resourceKeys;
+			for (int i = 0; i < this.resourceCount; i++) {
+				Object candidate = keys[i];
+				if (candidate == key || candidate.equals(key)) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Bind the given value for the given key, returning the previous value (if any).
+		 */
+		@Nullable
+		Object putResource(Object key, Object value) {
+			int index = indexOfResource(key);
+			if (index != -1) {
+				Object oldValue = this.resourceValues[index];
+				this.resourceValues[index] = value;
+				return oldValue;
+			}
+			if (this.resourceCount == this.resourceKeys.length) {
+				int newCapacity = this.resourceCount * 2;
+				this.resourceKeys = Arrays.copyOf(this.resourceKeys, newCapacity);
+				this.resourceValues = Arrays.copyOf(this.resourceValues, newCapacity);
+			}
+			this.resourceKeys[this.resourceCount] = key;
+			this.resourceValues[this.resourceCount] = value;
+			this.resourceCount++;
+			return null;
+		}
+
+		/**
+		 * Remove the resource at the given index, returning its value.
+		 */
+		Object removeResource(int index) {
+			Object value = this.resourceValues[index];
+			int last = this.resourceCount - 1;
+			// Keep remaining resources in their binding order
+			System.arraycopy(this.resourceKeys, index + 1, this.resourceKeys, index, last - index);
+			System.arraycopy(this.resourceValues, index + 1, this.resourceValues, index, last - index);
+			this.resourceKeys[last] = null;
+			this.resourceValues[last] = null;
+			this.resourceCount = last;
+			return value;
+		}
+
+		void addSynchronization(TransactionSynchronization synchronization) {
+			TransactionSynchronization[] synchs = this.synchronizations;
+			for (int i = 0; i < this.synchronizationCount; i++) {
+				if (synchs[i].equals(synchronization)) {
+					return;
+				}
+			}
+			if (this.synchronizationCount == synchs.length) {
+				synchs = Arrays.copyOf(synchs, this.synchronizationCount * 2);
+				this.synchronizations = synchs;
+			}
+			synchs[this.synchronizationCount++] = synchronization;
+		}
+
+		/**
+		 * Determine whether this holder is in its initial state: without any
+		 * resources, synchronizations or transaction characteristics.
+		 */
+		boolean isEmpty() {
+			return (this.resourceCount == 0 && !this.synchronizationActive && this.name == null &&
+					!this.readOnly && this.isolationLevel == null && !this.actualTransactionActive);
+		}
+
+		void clearSynchronizations() {
+			Arrays.fill(this.synchronizations, 0, this.synchronizationCount, null);
+			this.synchronizationCount = 0;
+			this.synchronizationActive = false;
+		}
 	}
 
 }
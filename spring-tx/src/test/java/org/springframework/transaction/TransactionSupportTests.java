@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -16,12 +16,19 @@
 
 package org.springframework.transaction;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
 import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.ResourceHolderSupport;
+import org.springframework.transaction.support.ResourceTransactionManager;
 import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionSynchronization;
 import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.transaction.support.TransactionTemplate;
 
@@ -282,6 +289,150 @@ public class TransactionSupportTests {
 		assertThat(template3).isEqualTo(template2);
 	}
 
+	@Test
+	public void nonTransactionalPropagationWithoutBoundResource() {
+		ResourceTestTransactionManager tm = new ResourceTestTransactionManager();
+		DefaultTransactionDefinition definition = new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_SUPPORTS);
+		definition.setName("supports");
+		TransactionStatus status = tm.getTransaction(definition);
+		assertThat(tm.transactionObjects).isEqualTo(0);
+		assertThat(status.isNewTransaction()).isFalse();
+		assertThat(TransactionSynchronizationManager.isSynchronizationActive()).isTrue();
+		assertThat(TransactionSynchronizationManager.getCurrentTransactionName()).isEqualTo("supports");
+		assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isFalse();
+		tm.commit(status);
+		assertThat(TransactionSynchronizationManager.isSynchronizationActive()).isFalse();
+
+		TransactionStatus outer = tm.getTransaction(new DefaultTransactionDefinition());
+		assertThat(tm.transactionObjects).isEqualTo(1);
+		assertThatExceptionOfType(IllegalTransactionStateException.class).isThrownBy(() ->
+				tm.getTransaction(new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_NEVER)));
+		assertThat(tm.transactionObjects).isEqualTo(2);
+		TransactionStatus inner = tm.getTransaction(definition);
+		assertThat(tm.transactionObjects).isEqualTo(3);
+		assertThat(inner.isNewTransaction()).isFalse();
+		assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isTrue();
+		tm.commit(inner);
+		tm.commit(outer);
+	}
+
+	@Test
+	public void nonTransactionalPropagationWithoutResourceBoundOptIn() {
+		ResourceTestTransactionManager tm = new ResourceTestTransactionManager();
+		tm.resourceBound = false;
+		TransactionStatus status = tm.getTransaction(
+				new DefaultTransactionDefinition(TransactionDefinition.PROPAGATION_SUPPORTS));
+		assertThat(tm.transactionObjects).isEqualTo(1);
+		assertThat(status.isNewTransaction()).isFalse();
+		tm.commit(status);
+	}
+
+	@Test
+	public void resourcesAndSynchronizations() {
+		List<Object> keys = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			String key = "key" + i;
+			keys.add(key);
+			TransactionSynchronizationManager.bindResource(key, "value" + i);
+		}
+		assertThat(TransactionSynchronizationManager.getResourceMap()).hasSize(10);
+		assertThat(TransactionSynchronizationManager.getResourceMap().keySet()).containsExactlyElementsOf(keys);
+		assertThat(TransactionSynchronizationManager.getResource(new String("key5"))).isEqualTo("value5");
+
+		assertThat(TransactionSynchronizationManager.unbindResource("key3")).isEqualTo("value3");
+		assertThat(TransactionSynchronizationManager.hasResource("key3")).isFalse();
+		assertThat(TransactionSynchronizationManager.getResource("key9")).isEqualTo("value9");
+		assertThat(TransactionSynchronizationManager.unbindResourceIfPossible("key3")).isNull();
+
+		ResourceHolderSupport holder = new ResourceHolderSupport() {};
+		TransactionSynchronizationManager.bindResource("holder", holder);
+		holder.unbound();
+		assertThat(TransactionSynchronizationManager.getResource("holder")).isNull();
+		assertThat(TransactionSynchronizationManager.getResourceMap()).hasSize(9);
+
+		TransactionSynchronizationManager.initSynchronization();
+		List<TransactionSynchronization> synchs = new ArrayList<>();
+		for (int i = 0; i < 10; i++) {
+			TransactionSynchronization synch = new TransactionSynchronization() {};
+			synchs.add(synch);
+			TransactionSynchronizationManager.registerSynchronization(synch);
+			TransactionSynchronizationManager.registerSynchronization(synch);
+		}
+		assertThat(TransactionSynchronizationManager.getSynchronizations()).containsExactlyElementsOf(synchs);
+		TransactionSynchronizationManager.setCurrentTransactionName("tx");
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		TransactionSynchronizationManager.setCurrentTransactionIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+
+		TransactionSynchronizationManager.clear();
+		assertThat(TransactionSynchronizationManager.isSynchronizationActive()).isFalse();
+		assertThat(TransactionSynchronizationManager.getCurrentTransactionName()).isNull();
+		assertThat(TransactionSynchronizationManager.isCurrentTransactionReadOnly()).isFalse();
+		assertThat(TransactionSynchronizationManager.getCurrentTransactionIsolationLevel()).isNull();
+		assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isFalse();
+		assertThat(TransactionSynchronizationManager.getResourceMap()).hasSize(9);
+
+		TransactionSynchronizationManager.initSynchronization();
+		assertThat(TransactionSynchronizationManager.getSynchronizations()).isEmpty();
+		TransactionSynchronizationManager.clearSynchronization();
+		for (Object key : keys) {
+			TransactionSynchronizationManager.unbindResourceIfPossible(key);
+		}
+		// No per-thread state left behind
+		assertThat(TransactionSynchronizationManager.getContextHolderStrategy().getContext()).isNull();
+	}
+
+
+	@SuppressWarnings("serial")
+	private static class ResourceTestTransactionManager extends AbstractPlatformTransactionManager
+			implements ResourceTransactionManager {
+
+		private final Object resourceFactory = new Object();
+
+		private boolean resourceBound = true;
+
+		private int transactionObjects;
+
+		@Override
+		public Object getResourceFactory() {
+			return this.resourceFactory;
+		}
+
+		@Override
+		protected Object doGetTransaction() {
+			this.transactionObjects++;
+			return new Object();
+		}
+
+		@Override
+		protected boolean isExistingTransactionResourceBound() {
+			return this.resourceBound;
+		}
+
+		@Override
+		protected boolean isExistingTransaction(Object transaction) {
+			return TransactionSynchronizationManager.hasResource(this.resourceFactory);
+		}
+
+		@Override
+		protected void doBegin(Object transaction, TransactionDefinition definition) {
+			TransactionSynchronizationManager.bindResource(this.resourceFactory, transaction);
+		}
+
+		@Override
+		protected void doCommit(DefaultTransactionStatus status) {
+		}
+
+		@Override
+		protected void doRollback(DefaultTransactionStatus status) {
+		}
+
+		@Override
+		protected void doCleanupAfterCompletion(Object transaction) {
+			TransactionSynchronizationManager.unbindResource(this.resourceFactory);
+		}
+	}
+
 
 	@AfterEach
 	public void clear() {
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2020 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -24,6 +24,8 @@ import org.junit.jupiter.api.Test;
 import org.springframework.aop.framework.ProxyFactory;
 import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.beans.testfixture.beans.ITestBean;
+import org.springframework.beans.testfixture.beans.TestBean;
 import org.springframework.core.testfixture.io.SerializationTestUtils;
 import org.springframework.lang.Nullable;
 import org.springframework.transaction.PlatformTransactionManager;
@@ -31,6 +33,9 @@ import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.TransactionException;
 import org.springframework.transaction.TransactionManager;
 import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
@@ -98,6 +103,29 @@ public class TransactionInterceptorTests extends AbstractTransactionAspectTests
 		assertThat(ti.getTransactionAttributeSource()).isNotNull();
 	}
 
+	@Test
+	public void transactionNameForEachInvocation() {
+		MapTransactionAttributeSource tas = new MapTransactionAttributeSource();
+		DefaultTransactionAttribute txAttr = new DefaultTransactionAttribute(TransactionDefinition.PROPAGATION_SUPPORTS);
+		tas.register(getNameMethod, txAttr);
+		TestBean tb = new TestBean() {
+			@Override
+			public String getName() {
+				return TransactionSynchronizationManager.getCurrentTransactionName();
+			}
+		};
+		ITestBean itb = (ITestBean) advised(tb, new NoOpTransactionManager(), tas);
+
+		String name = itb.getName();
+		assertThat(name).endsWith(".getName");
+		assertThat(itb.getName()).isEqualTo(name);
+		txAttr.setName("custom");
+		assertThat(itb.getName()).isEqualTo("custom");
+		txAttr.setName(null);
+		assertThat(itb.getName()).isEqualTo(name);
+		assertThat(TransactionSynchronizationManager.isSynchronizationActive()).isFalse();
+	}
+
 	@Test
 	public void serializableWithCompositeSource() throws Exception {
 		NameMatchTransactionAttributeSource tas1 = new NameMatchTransactionAttributeSource();
@@ -305,6 +333,31 @@ public class TransactionInterceptorTests extends AbstractTransactionAspectTests
 	}
 
 
+	/**
+	 * Transaction manager without actual resources, for the propagation tests.
+	 */
+	@SuppressWarnings("serial")
+	private static class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+		@Override
+		protected Object doGetTransaction() {
+			return new Object();
+		}
+
+		@Override
+		protected void doBegin(Object transaction, TransactionDefinition definition) {
+		}
+
+		@Override
+		protected void doCommit(DefaultTransactionStatus status) {
+		}
+
+		@Override
+		protected void doRollback(DefaultTransactionStatus status) {
+		}
+	}
+
+
 	/**
 	 * We won't use this: we just want to know it's serializable.
 	 */
@@ -0,0 +1,218 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.interceptor.NameMatchTransactionAttributeSource;
+import org.springframework.transaction.interceptor.RuleBasedTransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionInterceptor;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+/**
+ * Tests for {@link InMemoryTransactionRecorder}, as driven by
+ * {@link AbstractPlatformTransactionManager} and {@link TransactionInterceptor}.
+ *
+ * @author Spring Framework Team
+ */
+class InMemoryTransactionRecorderTests {
+
+	private final InMemoryTransactionRecorder recorder = new InMemoryTransactionRecorder();
+
+	private final ResourceTransactionManager tm = new ResourceTransactionManager();
+
+
+	InMemoryTransactionRecorderTests() {
+		this.tm.setTransactionRecorder(this.recorder);
+	}
+
+
+	@Test
+	void transactionsWithSuspension() {
+		TransactionTemplate outer = new TransactionTemplate(this.tm);
+		outer.setName("outer");
+		TransactionTemplate inner = new TransactionTemplate(this.tm);
+		inner.setName("inner");
+		inner.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+		outer.executeWithoutResult(status -> {
+			inner.executeWithoutResult(innerStatus -> innerStatus.setRollbackOnly());
+			inner.executeWithoutResult(innerStatus -> {});
+		});
+
+		InMemoryTransactionRecorder.Statistics outerStats = this.recorder.getTransactionStatistics("outer");
+		assertThat(outerStats.getCount()).isEqualTo(1);
+		assertThat(outerStats.getCommitCount()).isEqualTo(1);
+		assertThat(outerStats.getSuspensionCount()).isEqualTo(2);
+		assertThat(outerStats.getMaxDepth()).isEqualTo(0);
+		assertThat(outerStats.getMaxTimeNanos()).isGreaterThan(0);
+
+		InMemoryTransactionRecorder.Statistics innerStats = this.recorder.getTransactionStatistics("inner");
+		assertThat(innerStats.getCount()).isEqualTo(2);
+		assertThat(innerStats.getCommitCount()).isEqualTo(1);
+		assertThat(innerStats.getRollbackCount()).isEqualTo(1);
+		assertThat(innerStats.getSuspensionCount()).isEqualTo(0);
+		assertThat(innerStats.getMaxDepth()).isEqualTo(1);
+		assertThat(this.recorder.getTransactionStatistics()).containsOnlyKeys("outer", "inner");
+	}
+
+	@Test
+	void participatingTransactionNotRecorded() {
+		TransactionTemplate template = new TransactionTemplate(this.tm);
+		template.setName("tx");
+		template.executeWithoutResult(status -> template.executeWithoutResult(innerStatus -> {}));
+
+		assertThat(this.recorder.getTransactionStatistics("tx").getCount()).isEqualTo(1);
+	}
+
+	@Test
+	void commitFailure() {
+		this.tm.commitFailure = true;
+		TransactionTemplate template = new TransactionTemplate(this.tm);
+
+		assertThatExceptionOfType(TransactionSystemException.class).isThrownBy(() ->
+				template.executeWithoutResult(status -> {}));
+
+		InMemoryTransactionRecorder.Statistics stats = this.recorder.getTransactionStatistics(null);
+		assertThat(stats.getCount()).isEqualTo(1);
+		assertThat(stats.getUnknownOutcomeCount()).isEqualTo(1);
+		assertThat(stats.getRollbackCauses()).containsEntry(TransactionSystemException.class.getName(), 1L);
+	}
+
+	@Test
+	void methodInvocations() {
+		NameMatchTransactionAttributeSource tas = new NameMatchTransactionAttributeSource();
+		tas.addTransactionalMethod("*", new RuleBasedTransactionAttribute());
+		TransactionInterceptor ti = new TransactionInterceptor();
+		ti.setTransactionManager(this.tm);
+		ti.setTransactionAttributeSource(tas);
+		ti.setTransactionRecorder(this.recorder);
+
+		ProxyFactory innerPf = new ProxyFactory(new DefaultService(null));
+		innerPf.addInterface(Service.class);
+		innerPf.addAdvice(ti);
+		Service inner = (Service) innerPf.getProxy();
+		ProxyFactory outerPf = new ProxyFactory(new DefaultService(inner));
+		outerPf.addInterface(Service.class);
+		outerPf.addAdvice(ti);
+		Service outer = (Service) outerPf.getProxy();
+
+		assertThatExceptionOfType(IllegalStateException.class).isThrownBy(outer::process);
+
+		String methodName = DefaultService.class.getName() + ".process";
+		InMemoryTransactionRecorder.Statistics stats = this.recorder.getMethodStatistics(methodName);
+		assertThat(stats.getCount()).isEqualTo(2);
+		assertThat(stats.getRollbackCount()).isEqualTo(2);
+		assertThat(stats.getMaxDepth()).isEqualTo(1);
+		assertThat(stats.getRollbackCauses()).containsEntry(IllegalStateException.class.getName(), 2L);
+		assertThat(this.recorder.getTransactionStatistics(methodName).getRollbackCount()).isEqualTo(1);
+
+		this.recorder.reset();
+		assertThat(this.recorder.getMethodStatistics()).isEmpty();
+		assertThat(this.recorder.getTransactionStatistics()).isEmpty();
+	}
+
+
+	public interface Service {
+
+		void process();
+	}
+
+
+	private static class DefaultService implements Service {
+
+		private final Service delegate;
+
+		DefaultService(Service delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void process() {
+			if (this.delegate != null) {
+				this.delegate.process();
+			}
+			else {
+				throw new IllegalStateException();
+			}
+		}
+	}
+
+
+	@SuppressWarnings("serial")
+	private static class ResourceTransactionManager extends AbstractPlatformTransactionManager {
+
+		private final Object resourceKey = new Object();
+
+		boolean commitFailure;
+
+		@Override
+		protected Object doGetTransaction() {
+			return this.resourceKey;
+		}
+
+		@Override
+		protected boolean isExistingTransaction(Object transaction) {
+			return TransactionSynchronizationManager.hasResource(this.resourceKey);
+		}
+
+		@Override
+		protected void doBegin(Object transaction, TransactionDefinition definition) {
+			TransactionSynchronizationManager.bindResource(this.resourceKey, new Object());
+		}
+
+		@Override
+		protected Object doSuspend(Object transaction) {
+			return TransactionSynchronizationManager.unbindResource(this.resourceKey);
+		}
+
+		@Override
+		protected void doResume(Object transaction, Object suspendedResources) {
+			TransactionSynchronizationManager.bindResource(this.resourceKey, suspendedResources);
+		}
+
+		@Override
+		protected void doCommit(DefaultTransactionStatus status) {
+			if (this.commitFailure) {
+				throw new TransactionSystemException("Commit failed");
+			}
+		}
+
+		@Override
+		protected void doRollback(DefaultTransactionStatus status) {
+		}
+
+		@Override
+		protected void doSetRollbackOnly(DefaultTransactionStatus status) {
+		}
+
+		@Override
+		protected void doCleanupAfterCompletion(Object transaction) {
+			TransactionSynchronizationManager.unbindResource(this.resourceKey);
+		}
+	}
+
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2002-2019 the original author or authors.
+ * Copyright 2002-2021 the original author or authors.
  *
  * Licensed under the Apache License, Version 2.0 (the "License");
  * you may not use this file except in compliance with the License.
@@ -89,6 +89,19 @@ public class TransactionalOperatorTests {
 		assertThat(cancelled).isTrue();
 	}
 
+	@Test
+	public void commitWithNestedMono() {
+		TransactionalOperator operator = TransactionalOperator.create(tm, new DefaultTransactionDefinition());
+		Mono<TransactionContext> context = TransactionContextManager.currentContext();
+		Mono.zip(context, context.as(operator::transactional)).as(operator::transactional)
+				.as(StepVerifier::create)
+				.assertNext(contexts -> assertThat(contexts.getT2()).isSameAs(contexts.getT1()))
+				.verifyComplete();
+		assertThat(tm.commit).isTrue();
+		assertThat(tm.rollback).isFalse();
+		assertThat(tm.cleanup).isTrue();
+	}
+
 	@Test
 	public void rollbackWithMono() {
 		TransactionalOperator operator = TransactionalOperator.create(tm, new DefaultTransactionDefinition());
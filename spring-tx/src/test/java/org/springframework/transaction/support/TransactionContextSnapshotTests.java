@@ -0,0 +1,155 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.transaction.support;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.transaction.TransactionDefinition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link TransactionContextSnapshot} and {@link TransactionContextTaskDecorator}.
+ *
+ * @author Spring Framework Team
+ */
+class TransactionContextSnapshotTests {
+
+	private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+
+	@AfterEach
+	void cleanup() {
+		this.executor.shutdownNow();
+		TransactionSynchronizationManager.unbindResourceIfPossible("key");
+		TransactionSynchronizationManager.unbindResourceIfPossible("unsafe");
+		TransactionSynchronizationManager.clear();
+	}
+
+
+	@Test
+	void emptySnapshot() {
+		TransactionContextSnapshot snapshot = TransactionContextSnapshot.capture();
+		assertThat(snapshot.isEmpty()).isTrue();
+		assertThat(snapshot.isReadOnly()).isFalse();
+		Runnable task = () -> {};
+		assertThat(snapshot.wrap(task)).isSameAs(task);
+	}
+
+	@Test
+	void snapshotWithResourcesAndCharacteristics() throws Exception {
+		startTransaction(true);
+		TransactionContextSnapshot snapshot = TransactionContextSnapshot.capture();
+		assertThat(snapshot.isEmpty()).isFalse();
+		assertThat(snapshot.isReadOnly()).isTrue();
+
+		Future<String> result = this.executor.submit(snapshot.wrap(() -> {
+			assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isTrue();
+			assertThat(TransactionSynchronizationManager.isCurrentTransactionReadOnly()).isTrue();
+			assertThat(TransactionSynchronizationManager.getCurrentTransactionName()).isEqualTo("tx");
+			assertThat(TransactionSynchronizationManager.getCurrentTransactionIsolationLevel())
+					.isEqualTo(TransactionDefinition.ISOLATION_READ_COMMITTED);
+			assertThat(TransactionSynchronizationManager.isSynchronizationActive()).isFalse();
+			// Local changes must not affect the originating thread
+			TransactionSynchronizationManager.unbindResource("key");
+			TransactionSynchronizationManager.bindResource("other", "value");
+			return "done";
+		}));
+		assertThat(result.get()).isEqualTo("done");
+		assertThat(TransactionSynchronizationManager.getResource("key")).isEqualTo("value");
+		assertThat(TransactionSynchronizationManager.hasResource("other")).isFalse();
+		assertThat(TransactionSynchronizationManager.isSynchronizationActive()).isTrue();
+
+		// Executing thread restored to its previous state
+		this.executor.submit(() -> {
+			assertThat(TransactionSynchronizationManager.getResourceMap()).isEmpty();
+			assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isFalse();
+		}).get();
+		TransactionSynchronizationManager.clearSynchronization();
+	}
+
+	@Test
+	void snapshotWithResourceKeyFilter() throws Exception {
+		startTransaction(true);
+		TransactionSynchronizationManager.bindResource("unsafe", "value");
+		assertThat(TransactionContextSnapshot.capture("other"::equals).isEmpty()).isTrue();
+
+		TransactionContextSnapshot snapshot = TransactionContextSnapshot.capture("key"::equals);
+		assertThat(snapshot.isEmpty()).isFalse();
+		this.executor.submit(snapshot.wrap(() -> {
+			assertThat(TransactionSynchronizationManager.getResource("key")).isEqualTo("value");
+			assertThat(TransactionSynchronizationManager.hasResource("unsafe")).isFalse();
+		})).get();
+		TransactionSynchronizationManager.clearSynchronization();
+	}
+
+	@Test
+	void taskDecoratorWithReadOnlyTransaction() throws Exception {
+		startTransaction(true);
+		AtomicReference<Object> resource = new AtomicReference<>();
+		Runnable task = () -> resource.set(TransactionSynchronizationManager.getResource("key"));
+		TransactionContextTaskDecorator decorator = new TransactionContextTaskDecorator();
+		assertThat(decorator.decorate(task)).isSameAs(task);
+
+		decorator.setSharedResourceFilter("key"::equals);
+		this.executor.submit(decorator.decorate(task)).get();
+		assertThat(resource.get()).isEqualTo("value");
+		TransactionSynchronizationManager.clearSynchronization();
+	}
+
+	@Test
+	void taskDecoratorWithReadWriteTransaction() throws Exception {
+		startTransaction(false);
+		AtomicReference<Object> resource = new AtomicReference<>("none");
+		Runnable task = () -> resource.set(TransactionSynchronizationManager.getResource("key"));
+		TransactionContextTaskDecorator decorator = new TransactionContextTaskDecorator();
+		decorator.setSharedResourceFilter("key"::equals);
+		assertThat(decorator.decorate(task)).isSameAs(task);
+
+		decorator.setReadOnlyOnly(false);
+		this.executor.submit(decorator.decorate(task)).get();
+		assertThat(resource.get()).isEqualTo("value");
+		TransactionSynchronizationManager.clearSynchronization();
+	}
+
+	@Test
+	void noInheritanceByChildThreads() throws Exception {
+		startTransaction(true);
+		AtomicReference<Object> resource = new AtomicReference<>("none");
+		Thread thread = new Thread(() -> resource.set(TransactionSynchronizationManager.getResource("key")));
+		thread.start();
+		thread.join();
+		assertThat(resource.get()).isNull();
+		TransactionSynchronizationManager.clearSynchronization();
+	}
+
+	private void startTransaction(boolean readOnly) {
+		TransactionSynchronizationManager.bindResource("key", "value");
+		TransactionSynchronizationManager.initSynchronization();
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		TransactionSynchronizationManager.setCurrentTransactionName("tx");
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+		TransactionSynchronizationManager.setCurrentTransactionIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+	}
+
+}